@@ -454,6 +454,20 @@ class CatalogServiceThriftIf : public CatalogServiceIf {
     VLOG_RPC << "GetLatestCompactions(): response=" << ThriftDebugStringNoThrow(resp);
   }
 
+  void GetNextStatsRefresh(TGetNextStatsRefreshResponse& resp,
+      const TGetNextStatsRefreshRequest& req) override {
+    VLOG_RPC << "GetNextStatsRefresh(): request=" << ThriftDebugString(req);
+    Status status = AcceptRequest(req.protocol_version);
+    if (status.ok()) {
+      status = catalog_server_->catalog()->GetNextStatsRefresh(req, &resp);
+    }
+    if (!status.ok()) LOG(ERROR) << status.GetDetail();
+    TStatus thrift_status;
+    status.ToThrift(&thrift_status);
+    resp.__set_status(thrift_status);
+    VLOG_RPC << "GetNextStatsRefresh(): response=" << ThriftDebugStringNoThrow(resp);
+  }
+
  private:
   CatalogServer* catalog_server_;
   string server_address_;
@@ -123,6 +123,14 @@ class CatalogServiceClientWrapper : public CatalogServiceClient {
     *send_done = true;
     recv_GetLatestCompactions(_return);
   }
+
+  void GetNextStatsRefresh(TGetNextStatsRefreshResponse& _return,
+      const TGetNextStatsRefreshRequest& req, bool* send_done) {
+    DCHECK(!*send_done);
+    send_GetNextStatsRefresh(req);
+    *send_done = true;
+    recv_GetNextStatsRefresh(_return);
+  }
 #pragma clang diagnostic pop
 };
 
@@ -75,6 +75,7 @@ Catalog::Catalog() {
     {"refreshDataSources", "()V", &refresh_data_sources_},
     {"getNullPartitionName", "()[B", &get_null_partition_name_id_},
     {"getLatestCompactions", "([B)[B", &get_latest_compactions_id_},
+    {"getNextStatsRefresh", "([B)[B", &get_next_stats_refresh_id_},
     {"getAllHadoopConfigs", "()[B", &get_hadoop_configs_id_},
   };
 
@@ -238,3 +239,8 @@ Status Catalog::GetLatestCompactions(
     const TGetLatestCompactionsRequest& req, TGetLatestCompactionsResponse* resp) {
   return JniUtil::CallJniMethod(catalog_, get_latest_compactions_id_, req, resp);
 }
+
+Status Catalog::GetNextStatsRefresh(
+    const TGetNextStatsRefreshRequest& req, TGetNextStatsRefreshResponse* resp) {
+  return JniUtil::CallJniMethod(catalog_, get_next_stats_refresh_id_, req, resp);
+}
@@ -144,6 +144,11 @@ class Catalog {
   Status GetLatestCompactions(
       const TGetLatestCompactionsRequest& req, TGetLatestCompactionsResponse* resp);
 
+  /// Reports the result of the last automatic stats refresh of a coordinator, if any, and
+  /// gets the next one that it should run.
+  Status GetNextStatsRefresh(
+      const TGetNextStatsRefreshRequest& req, TGetNextStatsRefreshResponse* resp);
+
   /// Regenerate Catalog Service ID.
   /// The function should be called when the CatalogD becomes active.
   void RegenerateServiceId();
@@ -181,6 +186,7 @@ class Catalog {
   jmethodID refresh_data_sources_; // JniCatalog.refreshDataSources()
   jmethodID get_null_partition_name_id_; // JniCatalog.getNullPartitionName()
   jmethodID get_latest_compactions_id_; // JniCatalog.getLatestCompactions()
+  jmethodID get_next_stats_refresh_id_; // JniCatalog.getNextStatsRefresh()
   jmethodID get_hadoop_configs_id_;  // JniCatalog.getAllHadoopConfigs()
 };
 
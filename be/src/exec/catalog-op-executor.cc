@@ -324,7 +324,8 @@ void CatalogOpExecutor::SetColumnStats(const TTableSchema& col_stats_schema,
   // col_stats_row, respectively. Positions i + 2 and i + 3 contain the max/avg
   // length for string columns. Positions i+4 and i+5 contain the numTrues/numFalses
   // (-1 for non-string columns). Positions i+6 and i+7 contain the min and the max.
-  for (int i = 0; i < col_stats_row.colVals.size(); i += 8) {
+  // Position i+8 contains the histogram, NULL if it was not collected.
+  for (int i = 0; i < col_stats_row.colVals.size(); i += 9) {
     TColumnStats col_stats;
     col_stats.__set_num_distinct_values(col_stats_row.colVals[i].i64Val.value);
     col_stats.__set_num_nulls(col_stats_row.colVals[i + 1].i64Val.value);
@@ -344,6 +345,10 @@ void CatalogOpExecutor::SetColumnStats(const TTableSchema& col_stats_schema,
     if (isOneFieldSet(high_value)) {
       col_stats.__set_high_value(high_value);
     }
+    const TColumnValueHive& histogram = col_stats_row.colVals[i + 8];
+    if (histogram.__isset.stringVal && histogram.stringVal.__isset.value) {
+      col_stats.__set_histogram(histogram.stringVal.value);
+    }
     params->column_stats[col_stats_schema.columns[i].columnName] = col_stats;
   }
   params->__isset.column_stats = true;
@@ -475,3 +480,18 @@ Status CatalogOpExecutor::GetLatestCompactions(
   RETURN_IF_ERROR(rpc_status.status);
   return Status::OK();
 }
+
+Status CatalogOpExecutor::GetNextStatsRefresh(
+    const TGetNextStatsRefreshRequest& req, TGetNextStatsRefreshResponse* result) {
+  int attempt = 0; // Used for debug action only.
+  CatalogServiceConnection::RpcStatus rpc_status =
+      CatalogServiceConnection::DoRpcWithRetry(
+          env_->catalogd_lightweight_req_client_cache(),
+          *ExecEnv::GetInstance()->GetCatalogdAddress().get(),
+          &CatalogServiceClientWrapper::GetNextStatsRefresh, req,
+          FLAGS_catalog_client_connection_num_retries,
+          FLAGS_catalog_client_rpc_retry_interval_ms,
+          [&attempt]() { return CatalogRpcDebugFn(&attempt); }, result);
+  RETURN_IF_ERROR(rpc_status.status);
+  return Status(result->status);
+}
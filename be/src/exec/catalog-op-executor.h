@@ -88,6 +88,12 @@ class CatalogOpExecutor {
   Status GetLatestCompactions(
       const TGetLatestCompactionsRequest& req, TGetLatestCompactionsResponse* result);
 
+  /// Makes an RPC to the catalog server to report the result of the last automatic stats
+  /// refresh, if set in 'req', and to get the next one to run.
+  /// Returns an error if the RPC failed or catalogd returned an error.
+  Status GetNextStatsRefresh(
+      const TGetNextStatsRefreshRequest& req, TGetNextStatsRefreshResponse* result);
+
   /// Set in Exec(), returns a pointer to the TDdlExecResponse of the DDL execution.
   /// If called before Exec(), this will return NULL. Only set if the
   /// TCatalogOpType is DDL.
@@ -79,7 +79,9 @@ DataSourceScanNode::DataSourceScanNode(ObjectPool* pool, const ScanPlanNode& pno
       data_src_node_(pnode.tnode_->data_source_node),
       tuple_idx_(0),
       num_rows_(0),
-      next_row_idx_(0) {
+      next_row_idx_(0),
+      next_split_idx_(0),
+      scan_open_(false) {
 }
 
 DataSourceScanNode::~DataSourceScanNode() {
@@ -111,30 +113,73 @@ Status DataSourceScanNode::Open(RuntimeState* state) {
   vector<extdatasource::TColumnDesc> cols;
   for (const SlotDescriptor* slot: tuple_desc_->slots()) {
     extdatasource::TColumnDesc col;
-    int col_idx = slot->col_pos();
-    col.__set_name(tuple_desc_->table_desc()->col_descs()[col_idx].name());
+    auto agg_it = data_src_node_.agg_slots.find(slot->id());
+    if (agg_it != data_src_node_.agg_slots.end()) {
+      // The slot holds the result of an aggregate function computed by the data source.
+      col.__set_name(Substitute("agg_$0", slot->id()));
+      col.__set_agg_expr(agg_it->second);
+    } else {
+      int col_idx = slot->col_pos();
+      col.__set_name(tuple_desc_->table_desc()->col_descs()[col_idx].name());
+    }
     col.__set_type(slot->type().ToThrift());
     cols.push_back(col);
   }
-  extdatasource::TTableSchema row_schema;
-  row_schema.__set_cols(cols);
+  row_schema_.__set_cols(cols);
+
+  next_split_idx_ = 0;
+  if (scan_range_params_ == nullptr || scan_range_params_->empty()) {
+    // Only a split scan can have instances without scan ranges, if there are fewer
+    // splits than instances. Opening a scan without a split would read the whole table,
+    // so this instance returns no rows.
+    input_batch_.reset(new TGetNextResult());
+    input_batch_->__set_eos(true);
+    return Status::OK();
+  }
+  // Collect the splits of the scan ranges assigned to this node. If the data source
+  // did not split the scan, the whole table is scanned with a single open handle.
+  for (const ScanRangeParamsPB& params : *scan_range_params_) {
+    if (params.scan_range().has_data_source_split()) {
+      splits_.push_back(params.scan_range().data_source_split());
+    }
+  }
+  return OpenNextScan(state);
+}
 
+Status DataSourceScanNode::OpenNextScan(RuntimeState* state) {
+  DCHECK(!scan_open_);
   TOpenParams params;
   params.__set_query_id(state->query_id());
   params.__set_table_name(tuple_desc_->table_desc()->name());
   params.__set_init_string(data_src_node_.init_string);
   params.__set_authenticated_user_name(state->GetEffectiveUser());
-  params.__set_row_schema(row_schema);
+  params.__set_row_schema(row_schema_);
   params.__set_batch_size(FLAGS_data_source_batch_size);
   params.__set_predicates(data_src_node_.accepted_predicates);
   params.__set_clean_dbcp_ds_cache(state->query_options().clean_dbcp_ds_cache);
+  // The data source can stop after 'limit' rows if Impala does not filter the rows.
+  // Must be kept in sync with DataSourceScanNode.isLimitPushedDown() in the frontend.
+  if (limit_ >= 0 && conjuncts_.empty()) params.__set_limit(limit_);
+  if (next_split_idx_ < splits_.size()) params.__set_split(splits_[next_split_idx_]);
+  ++next_split_idx_;
   TOpenResult result;
   RETURN_IF_ERROR(data_source_executor_->Open(params, &result));
   RETURN_IF_ERROR(Status(result.status));
   scan_handle_ = result.scan_handle;
+  scan_open_ = true;
   return GetNextInputBatch();
 }
 
+Status DataSourceScanNode::CloseScan() {
+  if (!scan_open_) return Status::OK();
+  scan_open_ = false;
+  TCloseParams params;
+  params.__set_scan_handle(scan_handle_);
+  TCloseResult result;
+  RETURN_IF_ERROR(data_source_executor_->Close(params, &result));
+  return Status(result.status);
+}
+
 Status DataSourceScanNode::ValidateRowBatchSize() {
   if (!input_batch_->__isset.rows) return Status::OK();
   const vector<TColumnData>& cols = input_batch_->rows.cols;
@@ -389,18 +434,24 @@ Status DataSourceScanNode::GetNext(RuntimeState* state, RowBatch* row_batch, boo
           row_batch->CommitRows(rows_read);
         }
       }
+      bool scan_done = input_batch_->eos && !InputBatchHasNext();
       if (row_batch->AtCapacity() || ReachedLimit()
-          || (input_batch_->eos && !InputBatchHasNext())) {
-        *eos = (input_batch_->eos && !InputBatchHasNext()) || ReachedLimit();
+          || (scan_done && !HasMoreScans())) {
+        *eos = (scan_done && !HasMoreScans()) || ReachedLimit();
         COUNTER_SET(rows_returned_counter_, rows_returned());
         COUNTER_ADD(rows_read_counter_, rows_read);
         return Status::OK();
       }
     }
 
-    // Need more rows
+    // Need more rows, either from the current split or from the next one.
     DCHECK(!InputBatchHasNext());
-    RETURN_IF_ERROR(GetNextInputBatch());
+    if (input_batch_->eos) {
+      RETURN_IF_ERROR(CloseScan());
+      RETURN_IF_ERROR(OpenNextScan(state));
+    } else {
+      RETURN_IF_ERROR(GetNextInputBatch());
+    }
   }
 }
 
@@ -413,10 +464,7 @@ void DataSourceScanNode::Close(RuntimeState* state) {
   if (is_closed()) return;
   SCOPED_TIMER(runtime_profile_->total_time_counter());
   input_batch_.reset();
-  TCloseParams params;
-  params.__set_scan_handle(scan_handle_);
-  TCloseResult result;
-  Status status = data_source_executor_->Close(params, &result);
+  Status status = CloseScan();
   if (!status.ok()) state->LogError(status.msg());
   ScanNode::Close(state);
 }
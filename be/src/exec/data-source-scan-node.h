@@ -39,6 +39,9 @@ class Tuple;
 /// is called to receive row batches when necessary. This node converts the
 /// rows stored in a thrift structure to RowBatches. The external data source is
 /// closed in Close().
+/// If the data source split the scan, every scan range carries one split. The splits
+/// assigned to this node are scanned one after another, each with its own open handle.
+/// An instance without scan ranges does not open a scan and returns no rows.
 class DataSourceScanNode : public ScanNode {
  public:
   DataSourceScanNode(
@@ -78,7 +81,20 @@ class DataSourceScanNode : public ScanNode {
   /// Tuple index in tuple row.
   int tuple_idx_;
 
-  /// The opaque handle returned by the data source for the scan.
+  /// The schema of the rows passed to the data source when opening a scan.
+  extdatasource::TTableSchema row_schema_;
+
+  /// The splits of the scan ranges assigned to this node. Empty if the data source did
+  /// not split the scan or no scan range was assigned to this node.
+  std::vector<std::string> splits_;
+
+  /// The index into splits_ of the split to open next.
+  int next_split_idx_;
+
+  /// True if scan_handle_ refers to a scan that has not been closed yet.
+  bool scan_open_;
+
+  /// The opaque handle returned by the data source for the current scan.
   std::string scan_handle_;
 
   /// The current result from calling GetNext() on the data source. Contains the
@@ -105,6 +121,16 @@ class DataSourceScanNode : public ScanNode {
   /// local time-zone for materializing 'TYPE_TIMESTAMP' slots.
   Status MaterializeNextRow(const Timezone* local_tz, MemPool* mem_pool, Tuple* tuple);
 
+  /// Opens the scan of the next split, or of the whole table if there are no splits,
+  /// and gets its first batch.
+  Status OpenNextScan(RuntimeState* state);
+
+  /// Closes the currently open scan, if any.
+  Status CloseScan();
+
+  /// True if there are splits left that have not been opened yet.
+  bool HasMoreScans() const { return next_split_idx_ < splits_.size(); }
+
   /// Gets the next batch from the data source, stored in input_batch_.
   Status GetNextInputBatch();
 
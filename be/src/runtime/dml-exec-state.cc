@@ -165,7 +165,14 @@ bool DmlExecState::PrepareCatalogUpdate(TUpdateCatalogRequest* catalog_update,
     for (int i = 0; i < partition.second.created_files_size(); ++i) {
       const DmlFileStatusPb& file = partition.second.created_files(i);
       updatedPartition.files.push_back(file.final_path());
+      TInsertedFile inserted_file;
+      inserted_file.__set_path(file.final_path());
+      // Only some writers track the number of bytes written.
+      if (file.size() > 0) inserted_file.__set_size(file.size());
+      updatedPartition.inserted_files.push_back(inserted_file);
     }
+    updatedPartition.__isset.inserted_files = true;
+    updatedPartition.__set_num_modified_rows(partition.second.num_modified_rows());
     for (int i = 0; i < partition.second.created_delete_files_size(); ++i) {
       const DmlFileStatusPb& file = partition.second.created_delete_files(i);
       updatedPartition.files.push_back(file.final_path());
@@ -640,6 +640,9 @@ bool Scheduler::ScanRangeComparator(const ScanRangeParamsPB& a,
     if (a_hbase_range.stopkey() != b_hbase_range.stopkey()) {
       return a_hbase_range.stopkey() > b_hbase_range.stopkey();
     }
+  } else if (a.scan_range().has_data_source_split()) {
+    // Break ties by comparing the data source split
+    return a.scan_range().data_source_split() > b.scan_range().data_source_split();
   }
   return false;
 }
@@ -1631,6 +1634,9 @@ void TScanRangeToScanRangePB(const TScanRange& tscan_range, ScanRangePB* scan_ra
   if (tscan_range.__isset.is_system_scan) {
     scan_range_pb->set_is_system_scan(tscan_range.is_system_scan);
   }
+  if (tscan_range.__isset.data_source_split) {
+    scan_range_pb->set_data_source_split(tscan_range.data_source_split);
+  }
 }
 
 void Scheduler::AssignmentCtx::RecordScanRangeAssignment(
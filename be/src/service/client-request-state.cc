@@ -54,6 +54,7 @@
 #include "util/pretty-printer.h"
 #include "util/redactor.h"
 #include "util/runtime-profile-counters.h"
+#include "util/string-parser.h"
 #include "util/time.h"
 #include "util/uid-util.h"
 
@@ -77,9 +78,11 @@ using namespace strings;
 
 DECLARE_bool(abort_on_failed_audit_event);
 DECLARE_bool(abort_on_failed_lineage_event);
+DECLARE_bool(defer_lineage_json);
 DECLARE_int32(krpc_port);
 DECLARE_int64(max_result_cache_size);
 DECLARE_bool(use_local_catalog);
+DECLARE_int32(runtime_filter_feedback_cache_size);
 
 namespace impala {
 
@@ -1111,6 +1114,21 @@ void ClientRequestState::Finalize(const Status* cause) {
     }
   }
 
+  // A failed query may have used outdated tablet locations from the FE's cache of Kudu
+  // scan tokens, so the tokens of the tables it scanned are dropped.
+  Status query_status_copy;
+  {
+    lock_guard<mutex> l(lock_);
+    query_status_copy = query_status();
+  }
+  if (!query_status_copy.ok() && !query_status_copy.IsCancelled()) {
+    Status invalidate_status = InvalidateKuduScanTokens();
+    if (!invalidate_status.ok()) {
+      VLOG_QUERY << "Unable to invalidate cached Kudu scan tokens: "
+                 << invalidate_status.GetDetail();
+    }
+  }
+
   // If the transaction didn't get committed by this point then we should just abort it.
   if (InTransaction()) {
     AbortTransaction();
@@ -2112,6 +2130,100 @@ void ClientRequestState::LogQueryEvents() {
     // TODO: deal with an error status
     discard_result(LogLineageRecord());
   }
+
+  if (log_events && stmt_type() == TStmtType::QUERY
+      && FLAGS_runtime_filter_feedback_cache_size > 0) {
+    Status feedback_status = LogRuntimeFilterFeedback();
+    if (!feedback_status.ok()) {
+      VLOG_QUERY << "Unable to record runtime filter feedback: "
+                 << feedback_status.GetDetail();
+    }
+  }
+}
+
+Status ClientRequestState::LogRuntimeFilterFeedback() {
+  Coordinator* coord = GetCoordinator();
+  if (coord == nullptr) return Status::OK();
+  const TExecRequest& request = exec_request();
+  if (!request.__isset.query_exec_request) return Status::OK();
+
+  // Collect the filters for which the planner set a feedback key.
+  unordered_map<int32_t, const TRuntimeFilterDesc*> filters;
+  for (const TPlanExecInfo& plan_exec_info : request.query_exec_request.plan_exec_info) {
+    for (const TPlanFragment& fragment : plan_exec_info.fragments) {
+      if (!fragment.__isset.plan) continue;
+      for (const TPlanNode& node : fragment.plan.nodes) {
+        for (const TRuntimeFilterDesc& filter : node.runtime_filters) {
+          if (filter.__isset.feedback_key) filters.emplace(filter.filter_id, &filter);
+        }
+      }
+    }
+  }
+  if (filters.empty()) return Status::OK();
+
+  // The scan nodes add a child profile per filter, named "Filter <id> (<size>)", with
+  // the number of rows the filter processed and rejected. Only the profiles of the
+  // fragment instances are counted. The averaged fragment profiles are
+  // AggregatedRuntimeProfiles and would count the rows again. With
+  // --gen_experimental_profile there are no instance profiles and nothing is reported.
+  unordered_map<int32_t, pair<int64_t, int64_t>> counts;
+  vector<RuntimeProfileBase*> profiles;
+  coord->query_profile()->GetAllChildren(&profiles);
+  const string& prefix = RuntimeProfile::PREFIX_FILTER;
+  for (RuntimeProfileBase* profile : profiles) {
+    if (dynamic_cast<RuntimeProfile*>(profile) == nullptr) continue;
+    const string& name = profile->name();
+    if (!boost::algorithm::starts_with(name, prefix)) continue;
+    size_t id_end = name.find(' ', prefix.size());
+    if (id_end == string::npos) continue;
+    StringParser::ParseResult result;
+    int32_t filter_id = StringParser::StringToInt<int32_t>(
+        name.data() + prefix.size(), id_end - prefix.size(), &result);
+    if (result != StringParser::PARSE_SUCCESS) continue;
+    if (filters.find(filter_id) == filters.end()) continue;
+    RuntimeProfileBase::Counter* processed = profile->GetCounter("Rows processed");
+    RuntimeProfileBase::Counter* rejected = profile->GetCounter("Rows rejected");
+    if (processed == nullptr || rejected == nullptr) continue;
+    pair<int64_t, int64_t>& count = counts[filter_id];
+    count.first += processed->value();
+    count.second += rejected->value();
+  }
+
+  TRuntimeFilterFeedbackParams params;
+  for (const auto& entry : counts) {
+    // Filters that never saw a row say nothing about their effectiveness.
+    if (entry.second.first <= 0) continue;
+    const TRuntimeFilterDesc* filter = filters[entry.first];
+    TRuntimeFilterObservation observation;
+    observation.__set_feedback_key(filter->feedback_key);
+    observation.__set_type(filter->type);
+    observation.__set_rows_processed(entry.second.first);
+    observation.__set_rows_rejected(entry.second.second);
+    params.observations.push_back(observation);
+  }
+  if (params.observations.empty()) return Status::OK();
+  return frontend_->RecordRuntimeFilterFeedback(params);
+}
+
+Status ClientRequestState::InvalidateKuduScanTokens() {
+  const TExecRequest& request = exec_request();
+  if (!request.__isset.query_exec_request) return Status::OK();
+  set<string> table_names;
+  for (const TPlanExecInfo& plan_exec_info : request.query_exec_request.plan_exec_info) {
+    for (const TPlanFragment& fragment : plan_exec_info.fragments) {
+      if (!fragment.__isset.plan) continue;
+      for (const TPlanNode& node : fragment.plan.nodes) {
+        if (node.__isset.kudu_scan_node
+            && node.kudu_scan_node.__isset.scan_token_cache_table) {
+          table_names.insert(node.kudu_scan_node.scan_token_cache_table);
+        }
+      }
+    }
+  }
+  if (table_names.empty()) return Status::OK();
+  TInvalidateKuduScanTokensParams params;
+  params.table_names.assign(table_names.begin(), table_names.end());
+  return frontend_->InvalidateKuduScanTokens(params);
 }
 
 Status ClientRequestState::LogAuditRecord(const Status& query_status) {
@@ -2230,13 +2342,21 @@ Status ClientRequestState::LogLineageRecord() {
   // e.g. converting from end_time() (IMPALA-4440).
   lineage_graph.__set_ended(UnixMillis() / 1000);
 
+  // If the record is not written to the lineage log, the FE can build it when the
+  // hooks run instead of delaying the completion of this query.
+  bool defer_json = FLAGS_defer_lineage_json && parent_server_->AreQueryHooksEnabled()
+      && !parent_server_->IsLineageLoggingEnabled();
   string lineage_record;
-  LineageUtil::TLineageToJSON(lineage_graph, &lineage_record);
+  if (!defer_json) LineageUtil::TLineageToJSON(lineage_graph, &lineage_record);
 
   if (parent_server_->AreQueryHooksEnabled()) {
     // invoke QueryEventHooks
     TQueryCompleteContext query_complete_context;
-    query_complete_context.__set_lineage_string(lineage_record);
+    if (defer_json) {
+      query_complete_context.__set_lineage_graph(lineage_graph);
+    } else {
+      query_complete_context.__set_lineage_string(lineage_record);
+    }
     const Status& status = ExecEnv::GetInstance()->frontend()->CallQueryCompleteHooks(
         query_complete_context);
 
@@ -963,6 +963,14 @@ class ClientRequestState {
   /// Helper that logs the lineage record for this query id.
   Status LogLineageRecord() WARN_UNUSED_RESULT;
 
+  /// Reports the rows processed and rejected by the runtime filters of this query to
+  /// the FE so that the planner can skip filters that historically do not pay off.
+  Status LogRuntimeFilterFeedback() WARN_UNUSED_RESULT;
+
+  /// Drops the FE's cached Kudu scan tokens of the tables scanned by this query. Called
+  /// if the query failed.
+  Status InvalidateKuduScanTokens() WARN_UNUSED_RESULT;
+
   /// Logs audit and column lineage events. Expects that Wait() has already finished.
   /// Grabs lock_ for polling the query_status(). Hence do not call it under lock_.
   void LogQueryEvents();
@@ -146,6 +146,10 @@ Frontend::Frontend() {
     {"showCreateFunction", "([B)Ljava/lang/String;", &show_create_function_id_},
     {"buildTestDescriptorTable", "([B)[B", &build_test_descriptor_table_id_},
     {"callQueryCompleteHooks", "([B)V", &call_query_complete_hooks_id_},
+    {"getQueryEventHookMetrics", "()Ljava/lang/String;",
+        &get_query_event_hook_metrics_id_},
+    {"recordRuntimeFilterFeedback", "([B)V", &record_runtime_filter_feedback_id_},
+    {"invalidateKuduScanTokens", "([B)V", &invalidate_kudu_scan_tokens_id_},
     {"abortTransaction", "(J)V", &abort_txn_},
     {"addTransaction", "([B)V", &add_txn_},
     {"unregisterTransaction", "(J)V", &unregister_txn_},
@@ -400,6 +404,20 @@ Status Frontend::CallQueryCompleteHooks(const TQueryCompleteContext& context) {
   return JniUtil::CallJniMethod(fe_, call_query_complete_hooks_id_, context);
 }
 
+Status Frontend::GetQueryEventHookMetrics(string* metrics) {
+  return JniCall::instance_method(fe_, get_query_event_hook_metrics_id_).Call(metrics);
+}
+
+Status Frontend::RecordRuntimeFilterFeedback(
+    const TRuntimeFilterFeedbackParams& params) {
+  return JniUtil::CallJniMethod(fe_, record_runtime_filter_feedback_id_, params);
+}
+
+Status Frontend::InvalidateKuduScanTokens(
+    const TInvalidateKuduScanTokensParams& params) {
+  return JniUtil::CallJniMethod(fe_, invalidate_kudu_scan_tokens_id_, params);
+}
+
 Status Frontend::GetSaml2Redirect( const TWrappedHttpRequest& request,
     TWrappedHttpResponse* response)  {
   return JniUtil::CallJniMethod(
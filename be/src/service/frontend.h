@@ -223,6 +223,16 @@ class Frontend {
   // Call FE post-query execution hook
   Status CallQueryCompleteHooks(const TQueryCompleteContext& context);
 
+  /// Returns the metrics of the FE query event hooks pretty-printed into 'metrics'.
+  Status GetQueryEventHookMetrics(std::string* metrics);
+
+  /// Sends the observed effectiveness of the runtime filters of a completed query to
+  /// the FE, which uses it when planning later queries.
+  Status RecordRuntimeFilterFeedback(const TRuntimeFilterFeedbackParams& params);
+
+  /// Drops the FE's cached Kudu scan tokens of the tables scanned by a failed query.
+  Status InvalidateKuduScanTokens(const TInvalidateKuduScanTokensParams& params);
+
   // Call FE to create a http response that redirects to the SSO service.
   Status GetSaml2Redirect(const TWrappedHttpRequest& request,
       TWrappedHttpResponse* response);
@@ -282,6 +292,9 @@ class Frontend {
   jmethodID get_table_files_id_; // JniFrontend.getTableFiles
   jmethodID show_create_function_id_; // JniFrontend.showCreateFunction
   jmethodID call_query_complete_hooks_id_; // JniFrontend.callQueryCompleteHooks
+  jmethodID get_query_event_hook_metrics_id_; // JniFrontend.getQueryEventHookMetrics
+  jmethodID record_runtime_filter_feedback_id_; // JniFrontend.recordRuntimeFilterFeedback
+  jmethodID invalidate_kudu_scan_tokens_id_; // JniFrontend.invalidateKuduScanTokens
   jmethodID add_txn_; // JniFrontend.addTransaction()
   jmethodID abort_txn_; // JniFrontend.abortTransaction()
   jmethodID unregister_txn_; // JniFrontend.unregisterTransaction()
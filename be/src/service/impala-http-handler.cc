@@ -149,6 +149,9 @@ void ImpalaHttpHandler::RegisterHandlers(Webserver* webserver, bool metrics_only
           MakeCallback(this, &ImpalaHttpHandler::CatalogObjectsHandler), false);
     }
 
+  webserver->RegisterUrlCallback("/query_event_hooks", "query_event_hooks.tmpl",
+      MakeCallback(this, &ImpalaHttpHandler::QueryEventHooksHandler), false);
+
   webserver->RegisterUrlCallback("/query_profile", "query_profile.tmpl",
       MakeCallback(this, &ImpalaHttpHandler::QueryProfileHandler), false);
 
@@ -251,6 +254,20 @@ void ImpalaHttpHandler::HadoopVarzHandler(const Webserver::WebRequest& req,
   document->AddMember("configs", configs, document->GetAllocator());
 }
 
+void ImpalaHttpHandler::QueryEventHooksHandler(const Webserver::WebRequest& req,
+    Document* document) {
+  string metrics;
+  Status status = server_->exec_env_->frontend()->GetQueryEventHookMetrics(&metrics);
+  if (!status.ok()) {
+    Value error(status.GetDetail().c_str(), document->GetAllocator());
+    document->AddMember("error", error, document->GetAllocator());
+    return;
+  }
+  Value metrics_str(metrics.c_str(), document->GetAllocator());
+  document->AddMember("query_event_hook_metrics", metrics_str,
+      document->GetAllocator());
+}
+
 void ImpalaHttpHandler::CancelQueryHandler(const Webserver::WebRequest& req,
     Document* document) {
   TUniqueId unique_id;
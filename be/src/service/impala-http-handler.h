@@ -194,6 +194,10 @@ class ImpalaHttpHandler {
   /// Returns a list of all known databases and tables
   void CatalogHandler(const Webserver::WebRequest& req, rapidjson::Document* output);
 
+  /// Returns the metrics of the query event hooks, pretty-printed into a string.
+  void QueryEventHooksHandler(const Webserver::WebRequest& req,
+      rapidjson::Document* document);
+
   /// Returns information on objects in the catalog.
   void CatalogObjectsHandler(const Webserver::WebRequest& req,
       rapidjson::Document* output);
@@ -46,6 +46,7 @@
 #include "common/logging.h"
 #include "common/object-pool.h"
 #include "common/thread-debug-info.h"
+#include "exec/catalog-op-executor.h"
 #include "exec/external-data-source-executor.h"
 #include "exprs/timezone_db.h"
 #include "gen-cpp/CatalogService_constants.h"
@@ -193,6 +194,10 @@ DEFINE_string(lineage_event_log_dir, "", "The directory in which lineage event l
     "files are written. Setting this flag with enable lineage logging.");
 DEFINE_bool(abort_on_failed_lineage_event, true, "Shutdown Impala if there is a problem "
     "recording a lineage record.");
+DEFINE_bool(defer_lineage_json, false, "If true and lineage records are only sent to "
+    "the query event hooks, i.e. --lineage_event_log_dir is not set, the JSON lineage "
+    "record is built by the frontend on the hook executor thread instead of on the "
+    "query's thread after it completes.");
 
 DEFINE_string(profile_log_dir, "", "The directory in which profile log files are"
     " written. If blank, defaults to <log_file_dir>/profiles");
@@ -395,6 +400,20 @@ DEFINE_int32(wait_for_new_catalog_service_id_max_iterations, 10,
 DEFINE_int64(slow_profile_dump_warning_threshold_ms, 500,
     "(Advanced) Threshold for considering dumping a profile to be unusually slow.");
 
+DEFINE_int32(auto_stats_refresh_poll_interval_s, 0,
+    "If greater than 0, this coordinator asks catalogd for due automatic stats "
+    "refreshes at this interval (in seconds) and runs them one at a time. See "
+    "--auto_stats_refresh_change_ratio.");
+
+DEFINE_string(auto_stats_refresh_user, "impala",
+    "The user that runs the automatic stats refreshes, see "
+    "--auto_stats_refresh_poll_interval_s.");
+
+DEFINE_string(auto_stats_refresh_request_pool, "",
+    "If set, the automatic stats refreshes are submitted to this resource pool, e.g. a "
+    "pool with low limits so that the refreshes don't compete with user queries. See "
+    "--auto_stats_refresh_poll_interval_s.");
+
 // Flags for JWT token based authentication.
 DECLARE_bool(jwt_token_auth);
 DECLARE_bool(jwt_validate_signature);
@@ -2957,6 +2976,49 @@ void ImpalaServer::UnregisterSessionTimeout(int32_t session_timeout) {
   }
 }
 
+[[noreturn]] void ImpalaServer::StatsRefreshThread() {
+  InternalServer::QueryOptionMap query_opts;
+  if (!FLAGS_auto_stats_refresh_request_pool.empty()) {
+    query_opts[TImpalaQueryOptions::REQUEST_POOL] = FLAGS_auto_stats_refresh_request_pool;
+  }
+  // Carries the result of the last refresh until catalogd received it.
+  TGetNextStatsRefreshRequest request;
+  bool refresh_finished = false;
+  while (true) {
+    // The result of a refresh is reported right away, so that catalogd does not keep the
+    // refresh running and can hand out the next one.
+    if (!refresh_finished) {
+      SleepForMs(FLAGS_auto_stats_refresh_poll_interval_s * MILLIS_PER_SEC);
+    }
+    refresh_finished = false;
+    TGetNextStatsRefreshResponse response;
+    CatalogOpExecutor catalog_op_executor(exec_env_, nullptr, nullptr);
+    Status status = catalog_op_executor.GetNextStatsRefresh(request, &response);
+    if (!status.ok()) {
+      LOG(WARNING) << "Failed to get the next stats refresh from catalogd: "
+                   << status.GetDetail();
+      continue;
+    }
+    request.__isset.finished_stmt = false;
+    request.__isset.finished_status = false;
+    if (!response.__isset.compute_stats_stmt) continue;
+    // Catalogd hands out one refresh at a time, so it is run synchronously. The
+    // refreshes are not written to the completed queries table.
+    LOG(INFO) << "Running automatic stats refresh: " << response.compute_stats_stmt;
+    status = ExecuteIgnoreResults(FLAGS_auto_stats_refresh_user,
+        response.compute_stats_stmt, query_opts, false /* persist_in_db */);
+    if (!status.ok()) {
+      LOG(WARNING) << "Automatic stats refresh '" << response.compute_stats_stmt
+                   << "' failed: " << status.GetDetail();
+    }
+    impala::TStatus finished_status;
+    status.ToThrift(&finished_status);
+    request.__set_finished_stmt(response.compute_stats_stmt);
+    request.__set_finished_status(finished_status);
+    refresh_finished = true;
+  }
+}
+
 [[noreturn]] void ImpalaServer::AdmissionHeartbeatThread() {
   while (true) {
     SleepForMs(FLAGS_admission_heartbeat_frequency_ms);
@@ -3251,6 +3313,11 @@ Status ImpalaServer::Start(int32_t beeswax_port, int32_t hs2_port,
             target_schema_version), &workload_management_thread_));
       }
     }
+
+    if (FLAGS_auto_stats_refresh_poll_interval_s > 0) {
+      ABORT_IF_ERROR(Thread::Create("impala-server", "stats-refresh-thread",
+          bind<void>(&ImpalaServer::StatsRefreshThread, this), &stats_refresh_thread_));
+    }
   }
   LOG(INFO) << "Initialized coordinator/executor Impala server on "
             << TNetworkAddressToString(exec_env_->configured_backend_address());
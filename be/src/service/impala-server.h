@@ -1156,6 +1156,10 @@ class ImpalaServer : public ImpalaServiceIf,
   /// current query ids to the admissiond.
   [[noreturn]] void AdmissionHeartbeatThread();
 
+  /// If --auto_stats_refresh_poll_interval_s is set, periodically gets the next
+  /// automatic stats refresh from catalogd and runs it.
+  [[noreturn]] void StatsRefreshThread();
+
   /// Blocks until running workload management threads are shut down.
   /// (implemented in workload-management-worker.cc)
   void ShutdownWorkloadManagement();
@@ -1294,6 +1298,10 @@ class ImpalaServer : public ImpalaServiceIf,
   /// Thread that runs AdmissionHeartbeatThread().
   std::unique_ptr<Thread> admission_heartbeat_thread_;
 
+  /// Thread that runs StatsRefreshThread(). Null if automatic stats refreshes are not
+  /// run by this coordinator.
+  std::unique_ptr<Thread> stats_refresh_thread_;
+
   /// The QueryDriverMap maps query ids to QueryDrivers. The QueryDrivers are owned by the
   /// ImpalaServer and QueryDriverMap references them using shared_ptr to allow
   /// asynchronous deletion.
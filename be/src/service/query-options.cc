@@ -1322,6 +1322,31 @@ Status impala::SetQueryOption(TImpalaQueryOptions::type option, const string& va
         query_options->__set_long_polling_time_ms(int32_t_val);
         break;
       }
+      case TImpalaQueryOptions::JOIN_REORDER_DP_THRESHOLD: {
+        int32_t int32_t_val = 0;
+        RETURN_IF_ERROR(QueryOptionParser::ParseAndCheckInclusiveRange<int32_t>(
+            option, value, 0, 16, &int32_t_val));
+        query_options->__set_join_reorder_dp_threshold(int32_t_val);
+        break;
+      }
+      case TImpalaQueryOptions::JOIN_REORDER_DP_MAX_PAIRS: {
+        int32_t int32_t_val = 0;
+        RETURN_IF_ERROR(QueryOptionParser::ParseAndCheckNonNegative<int32_t>(
+            option, value, &int32_t_val));
+        query_options->__set_join_reorder_dp_max_pairs(int32_t_val);
+        break;
+      }
+      case TImpalaQueryOptions::RUNTIME_FILTER_MIN_OBSERVED_REJECTION: {
+        double double_val = 0.0f;
+        RETURN_IF_ERROR(QueryOptionParser::ParseAndCheckInclusiveRange<double>(
+            option, value, 0.0, 1.0, &double_val));
+        query_options->__set_runtime_filter_min_observed_rejection(double_val);
+        break;
+      }
+      case TImpalaQueryOptions::COMPUTE_COLUMN_HISTOGRAMS: {
+        query_options->__set_compute_column_histograms(IsTrue(value));
+        break;
+      }
       default:
         string key = to_string(option);
         if (IsRemovedQueryOption(key)) {
@@ -51,7 +51,7 @@ typedef std::unordered_map<string, beeswax::TQueryOptionLevel::type>
 // plus one. Thus, the second argument to the DCHECK has to be updated every
 // time we add or remove a query option to/from the enum TImpalaQueryOptions.
 constexpr unsigned NUM_QUERY_OPTIONS =
-    TImpalaQueryOptions::ENABLE_TUPLE_CACHE_VERIFICATION + 1;
+    TImpalaQueryOptions::COMPUTE_COLUMN_HISTOGRAMS + 1;
 #define QUERY_OPTS_TABLE                                                                 \
   DCHECK_EQ(_TImpalaQueryOptions_VALUES_TO_NAMES.size(), NUM_QUERY_OPTIONS);             \
   REMOVED_QUERY_OPT_FN(abort_on_default_limit_exceeded, ABORT_ON_DEFAULT_LIMIT_EXCEEDED) \
@@ -360,6 +360,14 @@ constexpr unsigned NUM_QUERY_OPTIONS =
       TQueryOptionLevel::REGULAR)                                                        \
   QUERY_OPT_FN(enable_tuple_cache_verification, ENABLE_TUPLE_CACHE_VERIFICATION,         \
       TQueryOptionLevel::ADVANCED)                                                       \
+  QUERY_OPT_FN(join_reorder_dp_threshold, JOIN_REORDER_DP_THRESHOLD,                     \
+      TQueryOptionLevel::ADVANCED)                                                       \
+  QUERY_OPT_FN(join_reorder_dp_max_pairs, JOIN_REORDER_DP_MAX_PAIRS,                     \
+      TQueryOptionLevel::ADVANCED)                                                       \
+  QUERY_OPT_FN(runtime_filter_min_observed_rejection,                                    \
+      RUNTIME_FILTER_MIN_OBSERVED_REJECTION, TQueryOptionLevel::ADVANCED)                \
+  QUERY_OPT_FN(compute_column_histograms, COMPUTE_COLUMN_HISTOGRAMS,                     \
+      TQueryOptionLevel::ADVANCED)                                                       \
   ;
 
 /// Enforce practical limits on some query options to avoid undesired query state.
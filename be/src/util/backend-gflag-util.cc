@@ -281,6 +281,146 @@ DEFINE_int64_hidden(data_stream_sender_buffer_size_used_by_planner, -1,
     "With default -1 the planner uses the old logic that is different"
     "than how the backend actually works (see IMPALA-12594)");
 
+DEFINE_int32(fold_constants_cache_size, 10000,
+    "Maximum number of entries in the process-wide cache of constant expressions "
+    "folded by the planner, keyed by the normalized expression, its type and the "
+    "session settings that affect its value. Setting this to 0 disables the "
+    "cache.");
+
+DEFINE_int32(runtime_filter_feedback_cache_size, 0,
+    "Maximum number of runtime filter build/target column pairs for which a "
+    "coordinator remembers the observed filter rejection rate across queries. "
+    "Used by the planner when the RUNTIME_FILTER_MIN_OBSERVED_REJECTION query "
+    "option is set. The default of 0 disables collecting the observations, so "
+    "finished queries do not scan their profiles for filter statistics.");
+
+DEFINE_int32(udf_class_loader_cache_size, 0,
+    "Maximum number of Java UDF classes, identified by jar and class name, whose "
+    "class loaders are kept loaded for reuse by later UDF evaluations after the "
+    "last user of the class is closed. Executors that use the same UDF share one "
+    "class loader while it is cached, so static state of a UDF class is shared across "
+    "queries and sessions. Only enable this for UDFs that do not rely on their static "
+    "state being private. The default of 0 creates a class loader for every "
+    "executor.");
+
+DEFINE_int64(iceberg_scan_plan_cache_capacity, 100000,
+    "Maximum total number of data and delete files referenced by the process-wide "
+    "cache of Iceberg scan planning results on a coordinator. The cache is keyed "
+    "by table, snapshot and the predicates pushed down to Iceberg, and lets "
+    "repeated queries skip reading the manifest files. Setting this to 0 disables "
+    "the cache.");
+
+DEFINE_int32(iceberg_manifest_reader_threads, 16,
+    "Number of threads in the process-wide pool that reads Iceberg manifest files "
+    "in parallel during scan planning on coordinators and during table loading in "
+    "catalogd. Setting this to 0 makes the planning thread read the manifest "
+    "files sequentially.");
+
+DEFINE_int32(iceberg_manifest_reader_threads_per_scan, 4,
+    "Maximum number of threads of the Iceberg manifest reader pool (see "
+    "--iceberg_manifest_reader_threads) that read the manifest files of one table "
+    "scan at the same time, so that planning a scan of a table with many "
+    "manifests cannot occupy the whole pool.");
+
+DEFINE_int32(iceberg_compaction_small_file_mb, 32,
+    "Data files of Iceberg tables smaller than this many megabytes are counted as "
+    "small files by the compaction advisor of catalogd, which reports per-table "
+    "fragmentation and delete metrics in the table metrics and logs tables that "
+    "would benefit from OPTIMIZE.");
+
+DEFINE_double(iceberg_compaction_small_file_ratio, 0.5,
+    "The compaction advisor of catalogd recommends compacting an Iceberg table "
+    "when at least this fraction of its data files are small (see "
+    "--iceberg_compaction_small_file_mb) and there are at least two of them in a "
+    "partition. A value of 0 or less disables the check.");
+
+DEFINE_double(iceberg_compaction_delete_ratio, 0.1,
+    "The compaction advisor of catalogd recommends compacting an Iceberg table "
+    "when the number of deleted rows in its position and equality delete files is "
+    "at least this fraction of the rows in its data files. A value of 0 or less "
+    "disables the check.");
+
+DEFINE_bool(enable_incremental_insert_file_metadata, true,
+    "If true, catalogd adds the files written by an INSERT into existing "
+    "partitions of non-transactional HDFS tables directly to the partition "
+    "metadata instead of listing the partition directories again. Files added to "
+    "these partitions by other engines are then only picked up by the next "
+    "REFRESH.");
+
+DEFINE_int32(max_hms_partition_rpcs_in_flight, 4,
+    "Maximum number of batched add_partitions and alter_partitions RPCs that "
+    "catalogd sends concurrently to the Hive Metastore for a single DDL or "
+    "INSERT. Each RPC in flight uses its own Metastore client. A value of 1 or "
+    "less sends the batches one after another.");
+
+DEFINE_int32(hms_partition_rpc_threads, 16,
+    "Number of threads in the catalogd pool that sends the batched add_partitions and "
+    "alter_partitions RPCs of all DDLs and INSERTs. Each DDL or INSERT uses at most "
+    "--max_hms_partition_rpcs_in_flight of them at a time.");
+
+DEFINE_int32(incremental_stats_merge_cache_size, 100,
+    "Maximum number of tables for which impalads remember the merged incremental "
+    "statistics of the partitions that were not recomputed by COMPUTE INCREMENTAL "
+    "STATS. A later COMPUTE INCREMENTAL STATS on such a table only fetches the "
+    "statistics of partitions that changed since then from catalogd. Set to 0 to "
+    "disable.");
+
+DEFINE_double(auto_stats_refresh_change_ratio, 0.0,
+    "If greater than 0, catalogd schedules an automatic COMPUTE INCREMENTAL STATS "
+    "of the changed partitions of a table once the rows or bytes added to the "
+    "table since its last stats update exceed this fraction of the table. Only "
+    "tables that have stats are refreshed. The refreshes are run by coordinators "
+    "that set --auto_stats_refresh_poll_interval_s.");
+
+DEFINE_int32(auto_stats_refresh_min_interval_s, 300,
+    "Minimum number of seconds between the start of two automatic stats refreshes "
+    "scheduled by catalogd. See --auto_stats_refresh_change_ratio.");
+
+DEFINE_int64(kudu_scan_token_cache_capacity, 10000,
+    "Maximum total number of Kudu scan tokens kept in the process-wide cache of "
+    "scan tokens on a coordinator. Cached tokens let repeated queries on a Kudu "
+    "table with the same pushed down predicates skip asking the Kudu master for "
+    "tablet locations. Setting this to 0 disables the cache. See also "
+    "--kudu_scan_token_cache_ttl_s.");
+
+DEFINE_int32(kudu_scan_token_cache_ttl_s, 0,
+    "Number of seconds for which cached Kudu scan tokens are reused, see "
+    "--kudu_scan_token_cache_capacity. Tablets that other Kudu clients add to or "
+    "move within a table are not seen by queries that reuse tokens created before "
+    "the change, so this bounds how outdated the tablet locations can be. Setting "
+    "this to 0 disables the cache.");
+
+DEFINE_int32(kudu_table_handle_ttl_s, 0,
+    "Number of seconds for which a coordinator reuses the handle of a Kudu table that "
+    "it opened for planning a query, so that repeated queries like primary key lookups "
+    "skip asking the Kudu master for the table schema. Schema changes made directly in "
+    "Kudu, i.e. not through Impala, are not detected during planning until the handle "
+    "expires or the table is refreshed. Setting this to 0 opens the table for every "
+    "query.");
+
+DEFINE_int32(query_event_hook_queue_size, 10000,
+    "Maximum number of completed queries that are queued for each QueryEventHook. "
+    "What happens when the queue of a hook is full is set by "
+    "--query_event_hook_queue_full_policy.");
+
+DEFINE_string(query_event_hook_queue_full_policy, "DROP",
+    "What to do with a completed query if the queue of a QueryEventHook is full. "
+    "DROP skips the hook for the query. BLOCK waits for the hook to catch up, "
+    "which delays the unregistration of the query.");
+
+DEFINE_int32(request_pool_cache_ttl_s, 60,
+    "How long, in seconds, the result of resolving a user and requested pool to a "
+    "request pool is cached. The cache is cleared when the allocation "
+    "configuration changes. Group membership changes that affect the placement "
+    "rules or pool ACLs take up to this long to be picked up. Setting this to 0 "
+    "disables the cache.");
+
+DEFINE_int32(runtime_filter_feedback_ttl_s, 3600,
+    "Seconds after which the observed effectiveness of runtime filters with the "
+    "same build and target columns is forgotten if no new observation was made. "
+    "Filters that were skipped because they were ineffective are thus built again "
+    "and re-evaluated after this time. 0 means the observations never expire.");
+
 using strings::Substitute;
 
 namespace impala {
@@ -508,6 +648,31 @@ Status PopulateThriftBackendGflags(TBackendGflags& cfg) {
   cfg.__set_is_release_build(false);
 #endif
   cfg.__set_enable_catalogd_ha(FLAGS_enable_catalogd_ha);
+  cfg.__set_fold_constants_cache_size(FLAGS_fold_constants_cache_size);
+  cfg.__set_runtime_filter_feedback_cache_size(FLAGS_runtime_filter_feedback_cache_size);
+  cfg.__set_udf_class_loader_cache_size(FLAGS_udf_class_loader_cache_size);
+  cfg.__set_iceberg_scan_plan_cache_capacity(FLAGS_iceberg_scan_plan_cache_capacity);
+  cfg.__set_iceberg_manifest_reader_threads(FLAGS_iceberg_manifest_reader_threads);
+  cfg.__set_iceberg_manifest_reader_threads_per_scan(
+      FLAGS_iceberg_manifest_reader_threads_per_scan);
+  cfg.__set_iceberg_compaction_small_file_mb(FLAGS_iceberg_compaction_small_file_mb);
+  cfg.__set_iceberg_compaction_small_file_ratio(
+      FLAGS_iceberg_compaction_small_file_ratio);
+  cfg.__set_iceberg_compaction_delete_ratio(FLAGS_iceberg_compaction_delete_ratio);
+  cfg.__set_enable_incremental_insert_file_metadata(
+      FLAGS_enable_incremental_insert_file_metadata);
+  cfg.__set_max_hms_partition_rpcs_in_flight(FLAGS_max_hms_partition_rpcs_in_flight);
+  cfg.__set_hms_partition_rpc_threads(FLAGS_hms_partition_rpc_threads);
+  cfg.__set_incremental_stats_merge_cache_size(FLAGS_incremental_stats_merge_cache_size);
+  cfg.__set_auto_stats_refresh_change_ratio(FLAGS_auto_stats_refresh_change_ratio);
+  cfg.__set_auto_stats_refresh_min_interval_s(FLAGS_auto_stats_refresh_min_interval_s);
+  cfg.__set_kudu_scan_token_cache_capacity(FLAGS_kudu_scan_token_cache_capacity);
+  cfg.__set_kudu_scan_token_cache_ttl_s(FLAGS_kudu_scan_token_cache_ttl_s);
+  cfg.__set_kudu_table_handle_ttl_s(FLAGS_kudu_table_handle_ttl_s);
+  cfg.__set_query_event_hook_queue_size(FLAGS_query_event_hook_queue_size);
+  cfg.__set_query_event_hook_queue_full_policy(FLAGS_query_event_hook_queue_full_policy);
+  cfg.__set_request_pool_cache_ttl_s(FLAGS_request_pool_cache_ttl_s);
+  cfg.__set_runtime_filter_feedback_ttl_s(FLAGS_runtime_filter_feedback_ttl_s);
   return Status::OK();
 }
 
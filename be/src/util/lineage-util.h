@@ -63,15 +63,23 @@ class LineageUtil {
       // Write source vertices
       writer->String("sources");
       writer->StartArray();
-      for(int i=0; i < obj.sources.size(); ++i) {
-        writer->Int64(obj.sources[i].id);
+      if (obj.__isset.source_ids) {
+        for (int64_t id : obj.source_ids) writer->Int64(id);
+      } else {
+        for(int i=0; i < obj.sources.size(); ++i) {
+          writer->Int64(obj.sources[i].id);
+        }
       }
       writer->EndArray();
       // Write target vertices
       writer->String("targets");
       writer->StartArray();
-      for(int i=0; i < obj.targets.size(); ++i) {
-        writer->Int64(obj.targets[i].id);
+      if (obj.__isset.target_ids) {
+        for (int64_t id : obj.target_ids) writer->Int64(id);
+      } else {
+        for(int i=0; i < obj.targets.size(); ++i) {
+          writer->Int64(obj.targets[i].id);
+        }
       }
       writer->EndArray();
       // Write edgetype
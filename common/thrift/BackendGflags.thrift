@@ -316,4 +316,50 @@ struct TBackendGflags {
   142: required bool disable_reading_puffin_stats
 
   143: required string injected_group_members_debug_only
+
+  144: required i32 fold_constants_cache_size
+
+  145: required i32 runtime_filter_feedback_cache_size
+
+  146: required i32 udf_class_loader_cache_size
+
+  147: required i64 iceberg_scan_plan_cache_capacity
+
+  148: required i32 iceberg_manifest_reader_threads
+
+  149: required i32 iceberg_manifest_reader_threads_per_scan
+
+  150: required i32 iceberg_compaction_small_file_mb
+
+  151: required double iceberg_compaction_small_file_ratio
+
+  152: required double iceberg_compaction_delete_ratio
+
+  153: required bool enable_incremental_insert_file_metadata
+
+  154: required i32 max_hms_partition_rpcs_in_flight
+
+  155: required i32 incremental_stats_merge_cache_size
+
+  156: required double auto_stats_refresh_change_ratio
+
+  157: required i32 auto_stats_refresh_min_interval_s
+
+  158: required i64 kudu_scan_token_cache_capacity
+
+  159: required i32 kudu_scan_token_cache_ttl_s
+
+  160: required i32 query_event_hook_queue_size
+
+  161: required string query_event_hook_queue_full_policy
+
+  // Same default as the flag, so that FE tests that create the backend config from a
+  // default TBackendGflags cache resolved pools like impalad does.
+  162: required i32 request_pool_cache_ttl_s = 60
+
+  163: required i32 runtime_filter_feedback_ttl_s
+
+  164: required i32 hms_partition_rpc_threads
+
+  165: required i32 kudu_table_handle_ttl_s
 }
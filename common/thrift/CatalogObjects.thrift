@@ -238,6 +238,10 @@ struct TColumnStats {
   // The low and the high value
   7: optional Data.TColumnValue low_value
   8: optional Data.TColumnValue high_value
+
+  // Equi-depth histogram of the non-null values, see ColumnHistogram.java for the
+  // format. Only set for numeric and DATE columns if COMPUTE STATS collected it.
+  9: optional string histogram
 }
 
 // Intermediate state for the computation of per-column stats. Impala can aggregate these
@@ -253,9 +253,26 @@ struct TIcebergOperationParam {
   8: optional set<string> replaced_data_files_without_deletes;
 }
 
+// A data file written by an INSERT.
+struct TInsertedFile {
+  // Final path of the file.
+  1: required string path
+
+  // Size of the file in bytes. Unset if the table writer does not track it.
+  2: optional i64 size
+}
+
 // Per-partion info needed by Catalog to handle an INSERT.
 struct TUpdatedPartition {
   1: required list<string> files;
+
+  // The data files written into the partition. Used by catalogd to add the new files
+  // to the partition metadata without listing the partition directory.
+  2: optional list<TInsertedFile> inserted_files;
+
+  // Number of rows written into the partition. Used by catalogd to decide when the
+  // stats of the table need to be refreshed, see StatsRefreshScheduler.
+  3: optional i64 num_modified_rows;
 }
 
 // Updates the metastore with new partition information and returns a response
@@ -674,6 +691,9 @@ struct TGetPartitionStatsRequest {
   // with the HMS table which it has and triggers a reload in case it doesn't match.
   // this field is only used when valid_write_ids is set, otherwise it is ignored
   4: optional i64 table_id = -1
+  // If set, only the statistics of the partitions with these names are returned.
+  // Partition names are in the format returned by FeCatalogUtils.getPartitionName().
+  5: optional list<string> partition_names
 }
 
 // Response for requesting partition statistics. All partition statistics
@@ -754,6 +774,26 @@ struct TUpdateTableUsageResponse {
   1: optional Status.TStatus status
 }
 
+// Request for the next automatic stats refresh that a coordinator should run.
+struct TGetNextStatsRefreshRequest {
+  1: required CatalogServiceVersion protocol_version = CatalogServiceVersion.V2
+
+  // The statement of the last stats refresh that the coordinator ran, set once it
+  // finished. Catalogd completes or fails the running refresh with it, so that the next
+  // one can start.
+  2: optional string finished_stmt
+
+  // The result of 'finished_stmt'. Must be set if 'finished_stmt' is set.
+  3: optional Status.TStatus finished_status
+}
+
+struct TGetNextStatsRefreshResponse {
+  1: optional Status.TStatus status
+
+  // The COMPUTE STATS statement to run. Unset if no stats refresh is due.
+  2: optional string compute_stats_stmt
+}
+
 // The CatalogService API
 service CatalogService {
   // Executes a DDL request and returns details on the result of the operation.
@@ -794,4 +834,8 @@ service CatalogService {
 
   // Gets the latest compactions.
   TGetLatestCompactionsResponse GetLatestCompactions(1: TGetLatestCompactionsRequest req);
+
+  // Gets the next automatic stats refresh to run. Used by coordinators if
+  // --auto_stats_refresh_poll_interval_s is set.
+  TGetNextStatsRefreshResponse GetNextStatsRefresh(1: TGetNextStatsRefreshRequest req);
 }
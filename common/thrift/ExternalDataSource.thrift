@@ -22,6 +22,26 @@ include "Status.thrift"
 include "Data.thrift"
 include "Types.thrift"
 
+// Aggregate functions that can be computed by the external data source.
+enum TAggregateFunction {
+  // COUNT(*), has no argument.
+  COUNT_STAR = 0
+  COUNT = 1
+  SUM = 2
+  MIN = 3
+  MAX = 4
+}
+
+// An aggregate function applied to a column, e.g. SUM(<col>).
+struct TAggregateExpr {
+  // The aggregate function. Always set.
+  1: optional TAggregateFunction fn
+
+  // The name of the column that is the argument of the function. Set unless fn is
+  // COUNT_STAR.
+  2: optional string arg
+}
+
 // A result set column descriptor.
 struct TColumnDesc {
   // The column name as given in the Create .. statement. Always set.
@@ -29,6 +49,10 @@ struct TColumnDesc {
 
   // The column type. Always set.
   2: optional Types.TColumnType type
+
+  // Set if the column is the result of an aggregate function accepted by prepare(),
+  // see TAggregation. The name is then only a label.
+  3: optional TAggregateExpr agg_expr
 }
 
 // Metadata used to describe the schema (column names, types, comments)
@@ -61,6 +85,22 @@ enum TComparisonOp {
   GT = 5
   DISTINCT_FROM = 6
   NOT_DISTINCT = 7
+  // SQL LIKE with the wildcards '%' and '_'. The pattern does not contain the escape
+  // character '\'.
+  LIKE = 8
+}
+
+// An aggregation that Impala offers to compute in the external data source. If the
+// data source accepts it, the result of the scan contains one row per group instead
+// of the rows of the table, and Impala aggregates these rows again. A row may be
+// returned for each part of a group, e.g. per split, as long as the aggregates of the
+// parts can be combined. Only offered if all predicates can be pushed.
+struct TAggregation {
+  // The grouping columns. Always set, may be an empty list.
+  1: optional list<TColumnDesc> grouping_cols
+
+  // The aggregate functions. Always set.
+  2: optional list<TAggregateExpr> agg_exprs
 }
 
 // Binary predicates that can be pushed to the external data source and
@@ -92,6 +132,14 @@ struct TPrepareParams {
   // A list of conjunctive (AND) clauses, each of which contains a list of
   // disjunctive (OR) binary predicates. Always set, may be an empty list.
   3: optional list<list<TBinaryPredicate>> predicates
+
+  // The aggregation of the scanned rows, if any. The data source should only accept
+  // it if it accepts all the predicates.
+  4: optional TAggregation aggregation
+
+  // Indicate if external JDBC table handler should clean DBCP DataSource object from
+  // cache when its reference count equals 0, like TOpenParams.clean_dbcp_ds_cache.
+  5: optional bool clean_dbcp_ds_cache
 }
 
 // Returned by prepare().
@@ -109,6 +157,17 @@ struct TPrepareResult {
   // elements that aren’t referenced in accepted_conjuncts will be evaluated by
   // Impala itself.
   3: optional list<i32> accepted_conjuncts
+
+  // Opaque descriptions of disjoint parts of the result that together make up the
+  // whole result. If set, Impala scans every split separately, possibly in parallel
+  // on different fragment instances, and passes the split to open(). Not set if the
+  // data source cannot split the scan.
+  4: optional list<string> splits
+
+  // True if the data source computes the aggregation offered in TPrepareParams. The
+  // row schema passed to open() then contains grouping columns and aggregate
+  // functions, see TColumnDesc.agg_expr.
+  5: optional bool accepted_aggregation
 }
 
 // Parameters to open().
@@ -137,13 +196,18 @@ struct TOpenParams {
   // prepare() call. Always set.
   7: optional list<list<TBinaryPredicate>> predicates
 
-  // The query limit, if specified.
+  // The query limit, if specified. Only set if Impala does not evaluate any predicates
+  // on the returned rows, so it is safe to stop after 'limit' rows.
   8: optional i64 limit
 
   // Indicate if external JDBC table handler should clean DBCP DataSource object from
   // cache when its reference count equals 0. Note that the reference count is tracked
   // across all queries for a given data source in the coordinator.
   9: optional bool clean_dbcp_ds_cache
+
+  // One of the splits returned by prepare(). If set, only the part of the result
+  // described by the split is returned.
+  10: optional string split
 }
 
 // Returned by open().
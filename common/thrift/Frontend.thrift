@@ -29,6 +29,7 @@ include "CatalogObjects.thrift"
 include "CatalogService.thrift"
 include "LineageGraph.thrift"
 include "Query.thrift"
+include "PlanNodes.thrift"
 
 // These are supporting structs for JniFrontend.java, which serves as the glue
 // between our C++ execution environment and the Java frontend.
@@ -1043,7 +1044,40 @@ struct TQueryCompleteContext {
   //
   // this is an experimental feature and the format will likely change
   // in a future version
-  1: required string lineage_string
+  //
+  // not set if 'lineage_graph' is set
+  1: optional string lineage_string
+
+  // the lineage graph of the query, set instead of 'lineage_string' if the JSON
+  // record is built by the FE on the hook executor thread (see --defer_lineage_json)
+  2: optional LineageGraph.TLineageGraph lineage_graph
+}
+
+// The rows processed and rejected by a runtime filter during one query execution.
+struct TRuntimeFilterObservation {
+  // See TRuntimeFilterDesc.feedback_key.
+  1: required string feedback_key
+
+  // The type of the filter.
+  2: required PlanNodes.TRuntimeFilterType type
+
+  // Number of rows the filter was evaluated against, summed over all targets.
+  3: required i64 rows_processed
+
+  // Number of rows the filter rejected, summed over all targets.
+  4: required i64 rows_rejected
+}
+
+// Sent by the coordinator to the frontend when a query completes.
+struct TRuntimeFilterFeedbackParams {
+  1: required list<TRuntimeFilterObservation> observations
+}
+
+// Sent by the coordinator to the frontend when a query that reused or cached Kudu scan
+// tokens fails.
+struct TInvalidateKuduScanTokensParams {
+  // Names of the tables whose cached scan tokens are dropped.
+  1: required list<string> table_names
 }
 
 // Contains all information from a HTTP request.
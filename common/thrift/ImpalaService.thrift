@@ -969,6 +969,31 @@ enum TImpalaQueryOptions {
   // tuple_cache_debug_dump_dir is specified and enable_tuple_cache_verification is set
   // to true.
   ENABLE_TUPLE_CACHE_VERIFICATION = 183
+
+  // Maximum number of table refs in a query block for which the planner enumerates join
+  // orders, including bushy join trees, with dynamic programming over the join graph.
+  // Blocks with more table refs, or with outer, semi or hinted joins, use the greedy
+  // left-deep join ordering. 0 disables dynamic-programming join enumeration.
+  JOIN_REORDER_DP_THRESHOLD = 184
+
+  // Budget for dynamic-programming join enumeration (see JOIN_REORDER_DP_THRESHOLD), as
+  // the maximum number of candidate joins the planner builds for a query block. If the
+  // budget is exceeded, the planner falls back to greedy join ordering for that block.
+  // Bounds the planning time of large join graphs.
+  JOIN_REORDER_DP_MAX_PAIRS = 185
+
+  // Minimum fraction of probe rows that a bloom or IN-list runtime filter must have
+  // rejected in past executions of queries with the same build and target columns for
+  // the planner to generate it again. Filters below this ratio are skipped; min-max
+  // filters on the same columns are kept. A value of 0 disables the use of observed
+  // filter effectiveness. Valid values are in [0, 1].
+  RUNTIME_FILTER_MIN_OBSERVED_REJECTION = 186
+
+  // If true, COMPUTE STATS also collects an equi-depth histogram of the values of
+  // numeric and DATE columns. The planner uses the histograms to estimate the
+  // selectivity of range, BETWEEN and IN predicates. Not supported by COMPUTE
+  // INCREMENTAL STATS.
+  COMPUTE_COLUMN_HISTOGRAMS = 187
 }
 
 // The summary of a DML statement.
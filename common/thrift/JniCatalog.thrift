@@ -677,8 +677,9 @@ struct TComputeStatsParams {
   // valid statistics). Ignore for non-partitioned tables.
   4: optional bool is_incremental
 
-  // The intermediate state for all partitions that have valid stats. Only set if
-  // is_incremental is true.
+  // The intermediate state for all partitions that have valid stats. The frontend merges
+  // the state of all those partitions into a single entry (see PartitionStatsMerger).
+  // Only set if is_incremental is true.
   5: optional list<CatalogObjects.TPartitionStats> existing_part_stats
 
   // List of partitions that we expect to see results for when performing an incremental
@@ -56,6 +56,11 @@ struct TMultiEdge {
 
   // Connecting edge type
   3: TEdgeType edgetype
+
+  // Ids of the source and target vertices. The frontend sets these instead of
+  // 'sources' and 'targets', the vertices themselves are in TLineageGraph.vertices.
+  4: optional list<i64> source_ids
+  5: optional list<i64> target_ids
 }
 
 struct TLineageGraph {
@@ -189,6 +189,11 @@ struct TRuntimeFilterDesc {
 
   // The ID of the plan node that produces this filter.
   13: optional Types.TPlanNodeId src_node_id
+
+  // Identifies the build and target columns of this filter across queries. Set if both
+  // are base table columns. The coordinator reports the observed rejection rate of the
+  // filter under this key to the frontend when the query completes.
+  14: optional string feedback_key
 }
 
 // The information contained in subclasses of ScanNode captured in two separate
@@ -289,6 +294,8 @@ struct TScanRange {
   3: optional binary kudu_scan_token
   4: optional binary file_metadata
   5: optional bool is_system_scan
+  // A split of an external data source scan, see TPrepareResult.splits.
+  6: optional string data_source_split
 }
 
 // Specification of an overlap predicate desc.
@@ -369,6 +376,11 @@ struct TDataSourceScanNode {
 
   // Scan predicates in conjunctive normal form that were accepted by the data source.
   4: required list<list<ExternalDataSource.TBinaryPredicate>> accepted_predicates
+
+  // Map from the ids of the slots that hold the result of an aggregate function
+  // computed by the data source to the function. Not set if the data source does not
+  // aggregate the rows.
+  5: optional map<Types.TSlotId, ExternalDataSource.TAggregateExpr> agg_slots
 }
 
 struct THBaseFilter {
@@ -403,6 +415,10 @@ struct TKuduScanNode {
 
   // The byte offset of the slot for Kudu metadata if count star optimization is enabled.
   3: optional i32 count_star_slot_offset
+
+  // Set if the scan tokens were taken from or added to the coordinator's cache of Kudu
+  // scan tokens. Name of the table whose cache entries are dropped if the query fails.
+  4: optional string scan_token_cache_table
 }
 
 struct TSystemTableScanNode {
@@ -753,6 +753,18 @@ struct TQueryOptions {
 
   // See comment in ImpalaService.thrift
   184: optional bool enable_tuple_cache_verification = false;
+
+  // See comment in ImpalaService.thrift
+  185: optional i32 join_reorder_dp_threshold = 0;
+
+  // See comment in ImpalaService.thrift
+  186: optional i32 join_reorder_dp_max_pairs = 10000;
+
+  // See comment in ImpalaService.thrift
+  187: optional double runtime_filter_min_observed_rejection = 0.0;
+
+  // See comment in ImpalaService.thrift
+  188: optional bool compute_column_histograms = false;
 }
 
 // Impala currently has three types of sessions: Beeswax, HiveServer2 and external
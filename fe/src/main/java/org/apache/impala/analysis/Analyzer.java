@@ -3844,11 +3844,16 @@ public class Analyzer {
     }
 
     // Last, get the KuduTable via a request to the Kudu server using openTable and
-    // add it to the global state state cache for future use.
+    // add it to the global state state cache for future use. A catalog KuduTable may
+    // share the opened table with later queries, see KuduTable.getOrOpenRpcTable().
     if (kuduTable == null) {
       try {
-        KuduClient client = KuduUtil.getKuduClient(feKuduTable.getKuduMasterHosts());
-        kuduTable = client.openTable(feKuduTable.getKuduTableName());
+        if (feKuduTable instanceof KuduTable) {
+          kuduTable = ((KuduTable) feKuduTable).getOrOpenRpcTable();
+        } else {
+          KuduClient client = KuduUtil.getKuduClient(feKuduTable.getKuduMasterHosts());
+          kuduTable = client.openTable(feKuduTable.getKuduTableName());
+        }
         globalState_.kuduTables.put(tableName, kuduTable);
       } catch (Exception ex) {
         throw new AnalysisException("Unable to open the Kudu table: " + tableName, ex);
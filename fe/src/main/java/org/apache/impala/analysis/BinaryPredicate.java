@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
+import org.apache.impala.catalog.ColumnHistogram;
 import org.apache.impala.catalog.Db;
 import org.apache.impala.catalog.FeTable;
 import org.apache.impala.catalog.Function.CompareMode;
@@ -253,15 +254,16 @@ public class BinaryPredicate extends Predicate {
 
   protected void computeSelectivity() {
     // TODO: Compute selectivity for nested predicates.
-    // TODO: Improve estimation using histograms.
     if (hasValidSelectivityHint()) {
       return;
     }
 
     Reference<SlotRef> slotRefRef = new Reference<SlotRef>();
-    if (!isSingleColumnPredicate(slotRefRef, null)) {
+    Reference<Integer> idxRef = new Reference<>();
+    if (!isSingleColumnPredicate(slotRefRef, idxRef)) {
       return;
     }
+    if (computeHistogramSelectivity(slotRefRef.getRef(), idxRef.getRef())) return;
     boolean rChildIsNull = Expr.IS_NULL_LITERAL.apply(getChild(1));
     long distinctValues = slotRefRef.getRef().getNumDistinctValues();
     if (distinctValues < 0) {
@@ -316,6 +318,38 @@ public class BinaryPredicate extends Predicate {
     selectivity_ = Math.max(0, Math.min(1, selectivity_));
   }
 
+  /**
+   * Sets selectivity_ from the histogram of the column if this is an equality or range
+   * comparison between the column 'slotRef', which is child 'slotIdx', and a numeric or
+   * DATE literal. Returns false if the column has no histogram or the predicate has
+   * another form.
+   */
+  private boolean computeHistogramSelectivity(SlotRef slotRef, int slotIdx) {
+    // Explicit casts may change the values that are compared.
+    if (getChild(slotIdx).unwrapSlotRef(true) == null) return false;
+    SlotDescriptor slotDesc = slotRef.getDesc();
+    ColumnHistogram histogram = slotDesc.getStats().getHistogram();
+    if (histogram == null) return false;
+    FeTable table = slotDesc.getParent().getTable();
+    if (table == null || table.getNumRows() <= 0) return false;
+    Double value = ColumnHistogram.getLiteralValue(getChild(1 - slotIdx));
+    if (value == null) return false;
+    Operator op = op_;
+    if (slotIdx == 1 && IS_RANGE_PREDICATE.apply(this)) op = op_.converse();
+    double fraction;
+    switch (op) {
+      case EQ: fraction = histogram.getFractionEqual(value); break;
+      case LT: fraction = histogram.getFractionLessThan(value, false); break;
+      case LE: fraction = histogram.getFractionLessThan(value, true); break;
+      case GT: fraction = 1.0 - histogram.getFractionLessThan(value, true); break;
+      case GE: fraction = 1.0 - histogram.getFractionLessThan(value, false); break;
+      default: return false;
+    }
+    selectivity_ = ColumnHistogram.toSelectivity(fraction, slotDesc.getStats(),
+        table.getNumRows());
+    return true;
+  }
+
   @Override
   protected float computeEvalCost() {
     if (!hasChildCosts()) return UNKNOWN_COST;
@@ -19,11 +19,13 @@ package org.apache.impala.analysis;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -32,7 +34,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 
-import com.google.common.collect.ImmutableSortedMap;
 import org.apache.impala.analysis.ColumnLineageGraph.Vertex.Metadata;
 import org.apache.impala.catalog.FeDataSource;
 import org.apache.impala.catalog.FeDataSourceTable;
@@ -55,7 +56,6 @@ import org.apache.impala.thrift.TVertexMetadata;
 import org.apache.impala.util.TUniqueIdUtil;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.slf4j.Logger;
@@ -64,7 +64,6 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Sets;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
@@ -169,25 +168,6 @@ public class ColumnLineageGraph {
     @Override
     public String toString() { return "(" + id_ + ":" + type_ + ":" + label_ + ")"; }
 
-    /**
-     * Encodes this Vertex object into a JSON object represented by a Map.
-     */
-    public Map<String, Object> toJson() {
-      // Use a LinkedHashMap to generate a strict ordering of elements.
-      Map<String,Object> obj = new LinkedHashMap<>();
-      obj.put("id", id_.asInt());
-      obj.put("vertexType", type_);
-      obj.put("vertexId", label_);
-      if (metadata_ != null) {
-        JSONObject jsonMetadata = new JSONObject();
-        jsonMetadata.put("tableName", metadata_.tableName_);
-        jsonMetadata.put("tableType", metadata_.tableType_);
-        jsonMetadata.put("tableCreateTime", metadata_.tableCreateTime_);
-        obj.put("metadata", jsonMetadata);
-      }
-      return obj;
-    }
-
     /**
      * Constructs a Vertex object from a JSON object. The new object is returned.
      */
@@ -287,99 +267,90 @@ public class ColumnLineageGraph {
    * every source Vertex in 'sources_' to every target Vertex in 'targets_'. An edge
    * indicates a dependency between a source and a target Vertex. There are two types of
    * edges, PROJECTION and PREDICATE, that are described in the ColumnLineageGraph class.
+   * Vertices are referenced by their ids to keep the edges of wide statements small.
    */
   private static final class MultiEdge {
     public static enum EdgeType {
       PROJECTION, PREDICATE
     }
-    private final Set<Vertex> sources_;
-    private final Set<Vertex> targets_;
+    // Ids of the source and target vertices in ascending order, without duplicates.
+    private final int[] sources_;
+    private final int[] targets_;
     private final EdgeType edgeType_;
 
-    public MultiEdge(Set<Vertex> sources, Set<Vertex> targets, EdgeType type) {
-      sources_ = sources;
-      targets_ = targets;
+    public MultiEdge(int[] sources, int[] targets, EdgeType type) {
+      sources_ = sortedDistinct(sources);
+      targets_ = sortedDistinct(targets);
       edgeType_ = type;
     }
 
-    /**
-     * Return an ordered set of source vertices.
-     */
-    private ImmutableSortedSet<Vertex> getOrderedSources() {
-      return ImmutableSortedSet.copyOf(sources_);
+    private static int[] sortedDistinct(int[] ids) {
+      int[] result = Arrays.copyOf(ids, ids.length);
+      Arrays.sort(result);
+      int numDistinct = 0;
+      for (int i = 0; i < result.length; ++i) {
+        if (i == 0 || result[i] != result[i - 1]) result[numDistinct++] = result[i];
+      }
+      return numDistinct == result.length ? result : Arrays.copyOf(result, numDistinct);
     }
 
-    /**
-     * Return an ordered set of target vertices.
-     */
-    private ImmutableSortedSet<Vertex> getOrderedTargets() {
-      return ImmutableSortedSet.copyOf(targets_);
+    private static List<Long> toIdList(int[] ids) {
+      List<Long> result = new ArrayList<>(ids.length);
+      for (int id: ids) result.add((long) id);
+      return result;
     }
 
-    @Override
-    public String toString() {
+    private static int[] fromIdList(List<Long> ids) {
+      int[] result = new int[ids.size()];
+      for (int i = 0; i < result.length; ++i) result[i] = ids.get(i).intValue();
+      return result;
+    }
+
+    private static int[] fromVertexList(List<TVertex> vertices) {
+      int[] result = new int[vertices.size()];
+      for (int i = 0; i < result.length; ++i) result[i] = (int) vertices.get(i).id;
+      return result;
+    }
+
+    public String debugString(Map<Integer, Vertex> idToVertexMap) {
       StringBuilder builder = new StringBuilder();
-      Joiner joiner = Joiner.on(",");
       builder.append("Sources: [");
-      builder.append(joiner.join(getOrderedSources()) + "]\n");
-      builder.append("Targets: [");
-      builder.append(joiner.join(getOrderedTargets()) + "]\n");
-      builder.append("Type: " + edgeType_);
+      appendVertices(sources_, idToVertexMap, builder);
+      builder.append("]\nTargets: [");
+      appendVertices(targets_, idToVertexMap, builder);
+      builder.append("]\nType: " + edgeType_);
       return builder.toString();
     }
 
-    /**
-     * Encodes this MultiEdge object to a JSON object represented by a Map.
-     * Returns a LinkedHashMap to guarantee a consistent ordering of elements.
-     */
-    public Map<String,Object> toJson() {
-      Map<String,Object> obj = new LinkedHashMap<>();
-      // Add sources
-      JSONArray sourceIds = new JSONArray();
-      for (Vertex vertex: getOrderedSources()) {
-        sourceIds.add(vertex.getVertexId());
-      }
-      obj.put("sources", sourceIds);
-      // Add targets
-      JSONArray targetIds = new JSONArray();
-      for (Vertex vertex: getOrderedTargets()) {
-        targetIds.add(vertex.getVertexId());
+    private static void appendVertices(int[] ids, Map<Integer, Vertex> idToVertexMap,
+        StringBuilder builder) {
+      for (int i = 0; i < ids.length; ++i) {
+        if (i > 0) builder.append(",");
+        builder.append(idToVertexMap.get(ids[i]));
       }
-      obj.put("targets", targetIds);
-      obj.put("edgeType", edgeType_.toString());
-      return obj;
     }
 
     /**
-     * Encodes this MultiEdge object to a thrift object
+     * Encodes this MultiEdge object to a thrift object. Only the ids of the vertices
+     * are set, the vertices themselves are part of the TLineageGraph.
      */
     public TMultiEdge toThrift() {
-      List<TVertex> sources = new ArrayList<>();
-      for (Vertex vertex: getOrderedSources()) {
-        sources.add(vertex.toThrift());
-      }
-      List<TVertex> targets = new ArrayList<>();
-      for (Vertex vertex: getOrderedTargets()) {
-        targets.add(vertex.toThrift());
-      }
-      if (edgeType_ == EdgeType.PROJECTION) {
-        return new TMultiEdge(sources, targets, TEdgeType.PROJECTION);
-      }
-      return new TMultiEdge(sources, targets, TEdgeType.PREDICATE);
+      TMultiEdge edge = new TMultiEdge();
+      edge.setSource_ids(toIdList(sources_));
+      edge.setTarget_ids(toIdList(targets_));
+      edge.setEdgetype(edgeType_ == EdgeType.PROJECTION ?
+          TEdgeType.PROJECTION : TEdgeType.PREDICATE);
+      return edge;
     }
 
     /**
      * Constructs a MultiEdge object from a thrift object.
      */
     public static MultiEdge fromThrift(TMultiEdge obj) {
-      Set<Vertex> sources = new HashSet<>();
-      for (TVertex vertex: obj.sources) {
-        sources.add(Vertex.fromThrift(vertex));
-      }
-      Set<Vertex> targets = new HashSet<>();
-      for (TVertex vertex: obj.targets) {
-        targets.add(Vertex.fromThrift(vertex));
-      }
+      int[] sources = obj.isSetSource_ids() ?
+          fromIdList(obj.source_ids) : fromVertexList(obj.sources);
+      int[] targets = obj.isSetTarget_ids() ?
+          fromIdList(obj.target_ids) : fromVertexList(obj.targets);
       if (obj.edgetype == TEdgeType.PROJECTION) {
         return new MultiEdge(sources, targets, EdgeType.PROJECTION);
       }
@@ -391,27 +362,26 @@ public class ColumnLineageGraph {
       if (this == o) return true;
       if (o == null || getClass() != o.getClass()) return false;
       MultiEdge multiEdge = (MultiEdge) o;
-      return Objects.equals(sources_, multiEdge.sources_) &&
-          Objects.equals(targets_, multiEdge.targets_) &&
+      return Arrays.equals(sources_, multiEdge.sources_) &&
+          Arrays.equals(targets_, multiEdge.targets_) &&
           edgeType_ == multiEdge.edgeType_;
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(sources_, targets_, edgeType_);
+      return Objects.hash(Arrays.hashCode(sources_), Arrays.hashCode(targets_),
+          edgeType_);
     }
+  }
 
-    /**
-     * For testing only.
-     */
-    private boolean equalsForTests(Object obj) {
-      if (obj == null) return false;
-      if (obj.getClass() != this.getClass()) return false;
-      MultiEdge edge = (MultiEdge) obj;
-      return setEqualsForTests(edge.sources_, this.sources_) &&
-          setEqualsForTests(edge.targets_, this.targets_) &&
-          edge.edgeType_ == this.edgeType_;
-    }
+  /**
+   * The base table columns that a slot is connected to, see getSlotDeps().
+   */
+  private static final class SlotDeps {
+    // Map from the label of a base table column to a slot of the column.
+    private final Map<String, SlotDescriptor> baseCols_ = new HashMap<>();
+    // Exprs that the slot has a direct predicate dependency on.
+    private final List<Expr> predDeps_ = new ArrayList<>();
   }
 
   public static class ColumnLabel implements Comparable<ColumnLabel> {
@@ -467,9 +437,19 @@ public class ColumnLineageGraph {
   // Map of Vertex labels to Vertex objects.
   private final Map<String, Vertex> vertices_ = new HashMap<>();
 
-  // Map of Vertex ids to Vertex objects. Used primarily during the construction of the
-  // ColumnLineageGraph from a serialized JSON object.
-  private final Map<VertexId, Vertex> idToVertexMap_ = new HashMap<>();
+  // Map of Vertex ids to Vertex objects.
+  private final Map<Integer, Vertex> idToVertexMap_ = new HashMap<>();
+
+  // Metadata of the source and target tables, shared by the vertices of their columns.
+  // Only used while the graph is computed.
+  private final Map<FeTable, Metadata> sourceMetadata_ = new IdentityHashMap<>();
+  private final Map<TableName, Metadata> targetMetadata_ = new HashMap<>();
+
+  // Base table columns of the slots that were resolved by getSlotDeps(), without and
+  // with traversing predicate dependencies. Views referenced by many columns resolve
+  // each slot only once. Only used while the graph is computed.
+  private final Map<SlotId, SlotDeps> slotDeps_ = new HashMap<>();
+  private final Map<SlotId, SlotDeps> slotDepsWithPredicates_ = new HashMap<>();
 
   // For an INSERT or a CTAS, these are the columns of the
   // destination table plus any partitioning columns (when dynamic partitioning is used).
@@ -498,7 +478,7 @@ public class ColumnLineageGraph {
   private void setVertices(Set<Vertex> vertices) {
     for (Vertex vertex: vertices) {
       vertices_.put(vertex.getLabel(), vertex);
-      idToVertexMap_.put(vertex.getVertexId(), vertex);
+      idToVertexMap_.put(vertex.getVertexId().asInt(), vertex);
     }
   }
 
@@ -511,38 +491,59 @@ public class ColumnLineageGraph {
       Map<String, SlotDescriptor> sources, MultiEdge.EdgeType type, Analyzer analyzer) {
     // createVertex() generates new IDs; we sort the input sets to make the output
     // deterministic and independent of the ordering of the input sets.
-    Set<Vertex> targetVertices = new HashSet<>();
-    for (ColumnLabel target: ImmutableSortedSet.copyOf(targets)) {
-      Metadata metadata = null;
-      if (target.tableName_ != null) {
-        FeTable feTable = analyzer.getStmtTableCache().tables.get(target.tableName_);
-        if (feTable != null && feTable.getMetaStoreTable() != null) {
-          metadata = new Metadata(target.tableName_.toString(), getTableType(feTable),
-              feTable.getMetaStoreTable().getCreateTime());
-        } else {
-          // -1 is just a placeholder that will be updated after the table/view has been
-          // created. See client-request-state.cc (LogLineageRecord) for more information.
-          metadata = new Metadata(target.tableName_.toString(), target.tableType_, -1);
-        }
+    List<ColumnLabel> sortedTargets = new ArrayList<>(targets);
+    Collections.sort(sortedTargets);
+    int[] targetIds = new int[sortedTargets.size()];
+    for (int i = 0; i < targetIds.length; ++i) {
+      ColumnLabel target = sortedTargets.get(i);
+      Vertex vertex = vertices_.get(target.columnLabel_);
+      if (vertex == null) {
+        vertex = createVertex(target.columnLabel_, getTargetMetadata(target, analyzer));
       }
-      targetVertices.add(createVertex(target.columnLabel_, metadata));
-    }
-    Set<Vertex> sourceVertices = new HashSet<>();
-    for (Map.Entry<String, SlotDescriptor> source:
-        ImmutableSortedMap.copyOf(sources).entrySet()) {
-      FeTable feTable = source.getValue().getParent().getTable();
-      Preconditions.checkState(feTable != null);
-      Metadata metadata = feTable != null && feTable.getMetaStoreTable() != null ?
-          new Metadata(feTable.getTableName().toString(),
-              getTableType(feTable),
-              feTable.getMetaStoreTable().getCreateTime()) : null;
-      sourceVertices.add(createVertex(source.getKey(), metadata));
-    }
-    MultiEdge edge = new MultiEdge(sourceVertices, targetVertices, type);
+      targetIds[i] = vertex.getVertexId().asInt();
+    }
+    List<String> sortedSources = new ArrayList<>(sources.keySet());
+    Collections.sort(sortedSources);
+    int[] sourceIds = new int[sortedSources.size()];
+    for (int i = 0; i < sourceIds.length; ++i) {
+      String label = sortedSources.get(i);
+      Vertex vertex = vertices_.get(label);
+      if (vertex == null) {
+        FeTable feTable = sources.get(label).getParent().getTable();
+        Preconditions.checkState(feTable != null);
+        vertex = createVertex(label, getSourceMetadata(feTable));
+      }
+      sourceIds[i] = vertex.getVertexId().asInt();
+    }
+    MultiEdge edge = new MultiEdge(sourceIds, targetIds, type);
     edges_.add(edge);
     return edge;
   }
 
+  private Metadata getTargetMetadata(ColumnLabel target, Analyzer analyzer) {
+    if (target.tableName_ == null) return null;
+    Metadata metadata = targetMetadata_.get(target.tableName_);
+    if (metadata != null) return metadata;
+    FeTable feTable = analyzer.getStmtTableCache().tables.get(target.tableName_);
+    if (feTable != null && feTable.getMetaStoreTable() != null) {
+      metadata = new Metadata(target.tableName_.toString(), getTableType(feTable),
+          feTable.getMetaStoreTable().getCreateTime());
+    } else {
+      // -1 is just a placeholder that will be updated after the table/view has been
+      // created. See client-request-state.cc (LogLineageRecord) for more information.
+      metadata = new Metadata(target.tableName_.toString(), target.tableType_, -1);
+    }
+    targetMetadata_.put(target.tableName_, metadata);
+    return metadata;
+  }
+
+  private Metadata getSourceMetadata(FeTable feTable) {
+    if (feTable.getMetaStoreTable() == null) return null;
+    return sourceMetadata_.computeIfAbsent(feTable,
+        t -> new Metadata(t.getTableName().toString(), getTableType(t),
+            t.getMetaStoreTable().getCreateTime()));
+  }
+
   public static String getTableType(FeTable tbl) {
     if (tbl instanceof FeIcebergTable) return ICEBERG;
     if (tbl instanceof FeFsTable) return HIVE;
@@ -565,7 +566,7 @@ public class ColumnLineageGraph {
     if (newVertex != null) return newVertex;
     newVertex = new Vertex(vertexIdGenerator.getNextId(), label, metadata);
     vertices_.put(newVertex.getLabel(), newVertex);
-    idToVertexMap_.put(newVertex.getVertexId(), newVertex);
+    idToVertexMap_.put(newVertex.getVertexId().asInt(), newVertex);
     return newVertex;
   }
 
@@ -580,6 +581,10 @@ public class ColumnLineageGraph {
       computeProjectionDependencies(resultExprs, rootAnalyzer);
       computeResultPredicateDependencies(rootAnalyzer);
     }
+    sourceMetadata_.clear();
+    targetMetadata_.clear();
+    slotDeps_.clear();
+    slotDepsWithPredicates_.clear();
   }
 
   /**
@@ -669,21 +674,37 @@ public class ColumnLineageGraph {
       e.getIds(null, slotIds);
     }
     for (SlotId slotId: slotIds) {
-      SlotDescriptor slotDesc = descTbl_.getSlotDesc(slotId);
-      List<Expr> sourceExprs = slotDesc.getSourceExprs();
-      if (sourceExprs.isEmpty() && slotDesc.isScanSlot() &&
-          slotDesc.getPath().isRootedAtTuple()) {
-        // slot should correspond to a materialized tuple of a table
-        Preconditions.checkState(slotDesc.getParent().isMaterialized());
-        List<String> path = slotDesc.getPath().getCanonicalPath();
-        sourceBaseCols.put(Joiner.on(".").join(path), slotDesc);
-      } else {
-        for (Expr sourceExpr: sourceExprs) {
-          getSourceBaseCols(sourceExpr, sourceBaseCols, directPredDeps,
-              traversePredDeps);
-        }
+      SlotDeps deps = getSlotDeps(slotId, traversePredDeps);
+      sourceBaseCols.putAll(deps.baseCols_);
+      if (directPredDeps != null) directPredDeps.addAll(deps.predDeps_);
+    }
+  }
+
+  /**
+   * Returns the base table columns that the slot with id 'slotId' is connected to,
+   * together with the exprs the slot has a direct predicate dependency on. See
+   * getSourceBaseCols(). The result is computed once per slot.
+   */
+  private SlotDeps getSlotDeps(SlotId slotId, boolean traversePredDeps) {
+    Map<SlotId, SlotDeps> cache = traversePredDeps ? slotDepsWithPredicates_ : slotDeps_;
+    SlotDeps deps = cache.get(slotId);
+    if (deps != null) return deps;
+    deps = new SlotDeps();
+    SlotDescriptor slotDesc = descTbl_.getSlotDesc(slotId);
+    List<Expr> sourceExprs = slotDesc.getSourceExprs();
+    if (sourceExprs.isEmpty() && slotDesc.isScanSlot() &&
+        slotDesc.getPath().isRootedAtTuple()) {
+      // slot should correspond to a materialized tuple of a table
+      Preconditions.checkState(slotDesc.getParent().isMaterialized());
+      List<String> path = slotDesc.getPath().getCanonicalPath();
+      deps.baseCols_.put(Joiner.on(".").join(path), slotDesc);
+    } else {
+      for (Expr sourceExpr: sourceExprs) {
+        getSourceBaseCols(sourceExpr, deps.baseCols_, deps.predDeps_, traversePredDeps);
       }
     }
+    cache.put(slotId, deps);
+    return deps;
   }
 
   /**
@@ -725,30 +746,127 @@ public class ColumnLineageGraph {
   }
 
   /**
-   * Encodes the ColumnLineageGraph object to JSON.
+   * Encodes the ColumnLineageGraph object to JSON. The query id is printed with
+   * TUniqueIdUtil.PrintId().
    */
   public String toJson() {
     if (Strings.isNullOrEmpty(queryStr_)) return "";
-    Map<String, Object> obj = new LinkedHashMap<>();
-    obj.put("queryText", queryStr_);
-    obj.put("queryId", TUniqueIdUtil.PrintId(queryId_));
-    obj.put("hash", getQueryHash(queryStr_));
-    obj.put("user", user_);
-    obj.put("timestamp", timestamp_);
-    // Add edges
-    JSONArray edges = new JSONArray();
-    for (MultiEdge edge: edges_) {
-      edges.add(edge.toJson());
+    return toJson(toThrift(), TUniqueIdUtil.PrintId(queryId_));
+  }
+
+  /**
+   * Encodes 'graph' to the JSON lineage record that is passed to the QueryEventHooks
+   * and written to the lineage log. The output is the same as the one of the backend's
+   * LineageUtil::TLineageToJSON(), which is used unless the record is built on the
+   * hook executor thread, see --defer_lineage_json. Unlike toJson(), the query id is
+   * printed like the backend's PrintId(), i.e. both halves are padded to 16 hex
+   * digits, so that hooks get the same record with and without the flag.
+   */
+  public static String toJson(TLineageGraph graph) {
+    TUniqueId queryId = graph.getQuery_id();
+    return toJson(graph, String.format("%016x:%016x", queryId.hi, queryId.lo));
+  }
+
+  /**
+   * Writes the JSON record of 'graph' with the query id 'queryId' directly from the
+   * thrift object, without building intermediate JSON objects.
+   */
+  private static String toJson(TLineageGraph graph, String queryId) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"queryText\":");
+    appendJsonString(graph.getQuery_text(), sb);
+    sb.append(",\"queryId\":");
+    appendJsonString(queryId, sb);
+    sb.append(",\"hash\":");
+    appendJsonString(graph.getHash(), sb);
+    sb.append(",\"user\":");
+    appendJsonString(graph.getUser(), sb);
+    sb.append(",\"timestamp\":").append(graph.getStarted());
+    if (graph.isSetEnded()) sb.append(",\"endTime\":").append(graph.getEnded());
+    sb.append(",\"edges\":[");
+    if (graph.isSetEdges()) {
+      for (int i = 0; i < graph.getEdges().size(); ++i) {
+        if (i > 0) sb.append(',');
+        TMultiEdge edge = graph.getEdges().get(i);
+        sb.append("{\"sources\":");
+        appendJsonIds(edge.isSetSource_ids() ?
+            edge.getSource_ids() : getIds(edge.getSources()), sb);
+        sb.append(",\"targets\":");
+        appendJsonIds(edge.isSetTarget_ids() ?
+            edge.getTarget_ids() : getIds(edge.getTargets()), sb);
+        sb.append(",\"edgeType\":\"").append(edge.getEdgetype()).append("\"}");
+      }
     }
-    obj.put("edges", edges);
-    // Add vertices
-    TreeSet<Vertex> sortedVertices = Sets.newTreeSet(vertices_.values());
-    JSONArray vertices = new JSONArray();
-    for (Vertex vertex: sortedVertices) {
-      vertices.add(vertex.toJson());
+    sb.append("],\"vertices\":[");
+    if (graph.isSetVertices()) {
+      for (int i = 0; i < graph.getVertices().size(); ++i) {
+        if (i > 0) sb.append(',');
+        TVertex vertex = graph.getVertices().get(i);
+        sb.append("{\"id\":").append(vertex.getId());
+        sb.append(",\"vertexType\":\"COLUMN\",\"vertexId\":");
+        appendJsonString(vertex.getLabel(), sb);
+        if (vertex.isSetMetadata()) {
+          TVertexMetadata metadata = vertex.getMetadata();
+          sb.append(",\"metadata\":{\"tableName\":");
+          appendJsonString(metadata.getTable_name(), sb);
+          sb.append(",\"tableType\":");
+          appendJsonString(metadata.getTable_type(), sb);
+          sb.append(",\"tableCreateTime\":").append(metadata.getTable_create_time());
+          sb.append('}');
+        }
+        sb.append('}');
+      }
     }
-    obj.put("vertices", vertices);
-    return JSONValue.toJSONString(obj);
+    sb.append(']');
+    if (graph.isSetTable_location()) {
+      sb.append(",\"tableLocation\":");
+      appendJsonString(graph.getTable_location(), sb);
+    }
+    sb.append('}');
+    return sb.toString();
+  }
+
+  private static List<Long> getIds(List<TVertex> vertices) {
+    List<Long> ids = new ArrayList<>();
+    if (vertices == null) return ids;
+    for (TVertex vertex: vertices) ids.add(vertex.getId());
+    return ids;
+  }
+
+  private static void appendJsonIds(List<Long> ids, StringBuilder sb) {
+    sb.append('[');
+    for (int i = 0; i < ids.size(); ++i) {
+      if (i > 0) sb.append(',');
+      sb.append(ids.get(i));
+    }
+    sb.append(']');
+  }
+
+  /**
+   * Appends 'str' as a JSON string, escaping characters the same way as the rapidjson
+   * writer used by the backend.
+   */
+  private static void appendJsonString(String str, StringBuilder sb) {
+    sb.append('"');
+    for (int i = 0; i < str.length(); ++i) {
+      char c = str.charAt(i);
+      switch (c) {
+        case '"': sb.append("\\\""); break;
+        case '\\': sb.append("\\\\"); break;
+        case '\b': sb.append("\\b"); break;
+        case '\f': sb.append("\\f"); break;
+        case '\n': sb.append("\\n"); break;
+        case '\r': sb.append("\\r"); break;
+        case '\t': sb.append("\\t"); break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04X", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
   }
 
   /**
@@ -763,14 +881,15 @@ public class ColumnLineageGraph {
     graph.setUser(user_);
     graph.setStarted(timestamp_);
     // Add edges
-    List<TMultiEdge> edges = new ArrayList<>();
+    List<TMultiEdge> edges = new ArrayList<>(edges_.size());
     for (MultiEdge edge: edges_) {
       edges.add(edge.toThrift());
     }
     graph.setEdges(edges);
     // Add vertices
-    TreeSet<Vertex> sortedVertices = Sets.newTreeSet(vertices_.values());
-    List<TVertex> vertices = new ArrayList<>();
+    List<Vertex> sortedVertices = new ArrayList<>(vertices_.values());
+    Collections.sort(sortedVertices);
+    List<TVertex> vertices = new ArrayList<>(sortedVertices.size());
     for (Vertex vertex: sortedVertices) {
       vertices.add(vertex.toThrift());
     }
@@ -784,7 +903,6 @@ public class ColumnLineageGraph {
   public static ColumnLineageGraph fromThrift(TLineageGraph obj) {
     ColumnLineageGraph lineage =
         new ColumnLineageGraph(obj.query_text, obj.query_id, obj.user, obj.started);
-    Map<TVertex, Vertex> vertexMap = new HashMap<>();
     TreeSet<Vertex> vertices = Sets.newTreeSet();
     for (TVertex vertex: obj.vertices) {
       Vertex v = Vertex.fromThrift(vertex);
@@ -844,23 +962,21 @@ public class ColumnLineageGraph {
   private MultiEdge createMultiEdgeFromJSONObj(JSONObject jsonEdge) {
     Preconditions.checkNotNull(jsonEdge);
     JSONArray sources = (JSONArray) jsonEdge.get("sources");
-    Set<Vertex> sourceVertices = getVerticesFromJSONArray(sources);
+    int[] sourceIds = getVertexIdsFromJSONArray(sources);
     JSONArray targets = (JSONArray) jsonEdge.get("targets");
-    Set<Vertex> targetVertices = getVerticesFromJSONArray(targets);
+    int[] targetIds = getVertexIdsFromJSONArray(targets);
     MultiEdge.EdgeType type =
         MultiEdge.EdgeType.valueOf((String) jsonEdge.get("edgeType"));
-    return new MultiEdge(sourceVertices, targetVertices, type);
+    return new MultiEdge(sourceIds, targetIds, type);
   }
 
-  private Set<Vertex> getVerticesFromJSONArray(JSONArray vertexIdArray) {
-    Set<Vertex> vertices = new HashSet<>();
+  private int[] getVertexIdsFromJSONArray(JSONArray vertexIdArray) {
+    int[] ids = new int[vertexIdArray.size()];
     for (int i = 0; i < vertexIdArray.size(); ++i) {
-      int sourceId = ((Long) vertexIdArray.get(i)).intValue();
-      Vertex sourceVertex = idToVertexMap_.get(new VertexId(sourceId));
-      Preconditions.checkNotNull(sourceVertex);
-      vertices.add(sourceVertex);
+      ids[i] = ((Long) vertexIdArray.get(i)).intValue();
+      Preconditions.checkNotNull(idToVertexMap_.get(ids[i]));
     }
-    return vertices;
+    return ids;
   }
 
   /**
@@ -894,23 +1010,6 @@ public class ColumnLineageGraph {
     return true;
   }
 
-  private static boolean setEqualsForTests(Set<Vertex> set1, Set<Vertex> set2) {
-    if (set1.size() != set2.size()) return false;
-    for (Vertex v1 : set1) {
-      boolean found = false;
-      Iterator<Vertex> i = set2.iterator();
-      while (i.hasNext()) {
-        Vertex v2 = i.next();
-        if (v1.equalsForTests(v2)) {
-          i.remove();
-          found = true;
-        }
-      }
-      if (!found) return false;
-    }
-    return set2.isEmpty();
-  }
-
   private static boolean listEqualsForTests(List<MultiEdge> list1,
       List<MultiEdge> list2) {
     ListIterator<MultiEdge> i1 = list1.listIterator();
@@ -918,7 +1017,7 @@ public class ColumnLineageGraph {
     while (i1.hasNext() && i2.hasNext()) {
       MultiEdge e1 = i1.next();
       MultiEdge e2 = i2.next();
-      if (!(e1 == null ? e2 == null : e1.equalsForTests(e2))) {
+      if (!Objects.equals(e1, e2)) {
         return false;
       }
     }
@@ -928,7 +1027,7 @@ public class ColumnLineageGraph {
   public String debugString() {
     StringBuilder builder = new StringBuilder();
     for (MultiEdge edge: edges_) {
-      builder.append(edge.toString() + "\n");
+      builder.append(edge.debugString(idToVertexMap_) + "\n");
     }
     builder.append(toJson());
     return builder.toString();
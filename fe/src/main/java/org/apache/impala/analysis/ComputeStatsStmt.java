@@ -31,6 +31,7 @@ import java.util.concurrent.TimeUnit;
 import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.impala.authorization.Privilege;
 import org.apache.impala.catalog.Column;
+import org.apache.impala.catalog.ColumnHistogram;
 import org.apache.impala.catalog.FeCatalogUtils;
 import org.apache.impala.catalog.FeFsPartition;
 import org.apache.impala.catalog.FeFsTable;
@@ -40,6 +41,8 @@ import org.apache.impala.catalog.FeTable;
 import org.apache.impala.catalog.HdfsFileFormat;
 import org.apache.impala.catalog.HdfsPartition.FileDescriptor;
 import org.apache.impala.catalog.HdfsTable;
+import org.apache.impala.catalog.MergedPartitionStatsCache;
+import org.apache.impala.catalog.PartitionStatsMerger;
 import org.apache.impala.catalog.PartitionStatsUtil;
 import org.apache.impala.catalog.Type;
 import org.apache.impala.common.AnalysisException;
@@ -56,6 +59,7 @@ import org.apache.impala.thrift.TPartitionStats;
 import org.apache.impala.thrift.TTableName;
 import org.apache.impala.thrift.TUnit;
 import org.apache.impala.util.MetaStoreUtil;
+import org.apache.impala.util.TUniqueIdUtil;
 import org.apache.log4j.Logger;
 
 import com.google.common.base.Joiner;
@@ -171,9 +175,13 @@ public class ComputeStatsStmt extends StatementBase {
   // is enabled.
   private boolean expectAllPartitions_;
 
-  // The list of valid partition statistics that can be used in an incremental computation
-  // without themselves being recomputed. Populated in analyze().
-  private final List<TPartitionStats> validPartStats_ = new ArrayList<>();
+  // The merged statistics of all partitions with valid statistics that can be used in an
+  // incremental computation without themselves being recomputed, see
+  // PartitionStatsMerger. Null if there are no such partitions. Populated in analyze().
+  private TPartitionStats mergedPartStats_;
+
+  // The number of partitions whose statistics are merged in 'mergedPartStats_'.
+  private int numValidPartStats_ = 0;
 
   // For incremental computations, the list of partitions (identified by list of partition
   // column values) that we expect to receive results for. Used to ensure that even empty
@@ -252,6 +260,9 @@ public class ComputeStatsStmt extends StatementBase {
                                 .getQuery_options()
                                 .isCompute_column_minmax_stats()
         && hasAtLeastOneParquetPartition();
+    // Histograms are not part of the incremental stats state.
+    boolean computeHistograms = !isIncremental_ && analyzer.getQueryCtx()
+        .getClient_request().getQuery_options().isCompute_column_histograms();
 
     for (int i = startColIdx; i < table_.getColumns().size(); ++i) {
       Column c = table_.getColumns().get(i);
@@ -330,6 +341,16 @@ public class ComputeStatsStmt extends StatementBase {
       }
       columnStatsSelectList.add(min_expr);
       columnStatsSelectList.add(max_expr);
+
+      // For non-incremental stats, compute the histogram of the values if requested,
+      // see ColumnHistogram.
+      if (!isIncremental_) {
+        if (computeHistograms && ColumnHistogram.isSupportedType(type)) {
+          columnStatsSelectList.add(ColumnHistogram.getComputeSql(colRefSql, type));
+        } else {
+          columnStatsSelectList.add("NULL");
+        }
+      }
     }
     return columnStatsSelectList;
   }
@@ -542,21 +563,18 @@ public class ComputeStatsStmt extends StatementBase {
         // Get incremental statistics from all relevant partitions.
         Collection<? extends FeFsPartition> allPartitions =
             FeCatalogUtils.loadAllPartitions(hdfsTable);
-        Map<Long, TPartitionStats> partitionStats =
-            getOrFetchPartitionStats(analyzer, hdfsTable, allPartitions,
+        Set<Long> validPartitions = tableIsMissingColStats ?
+            Collections.<Long>emptySet() :
+            mergeValidPartitionStats(analyzer, hdfsTable, allPartitions,
                 /* excludedPartitions= */ Collections.<Long>emptySet());
         for (FeFsPartition p: allPartitions) {
-          TPartitionStats partStats = partitionStats.get(p.getId());
-          if (partStats == null || tableIsMissingColStats) {
-            if (!tableIsMissingColStats) filterPreds.add(p.getConjunctSql());
-            // TODO(vercegovac): check what happens when "NULL" is used as a partitioning
-            // value.
-            List<String> partValues = PartitionKeyValue.getPartitionKeyValueStringList(
-                p.getPartitionValues(), "NULL");
-            expectedPartitions_.add(partValues);
-          } else {
-            validPartStats_.add(partStats);
-          }
+          if (validPartitions.contains(p.getId())) continue;
+          if (!tableIsMissingColStats) filterPreds.add(p.getConjunctSql());
+          // TODO(vercegovac): check what happens when "NULL" is used as a partitioning
+          // value.
+          List<String> partValues = PartitionKeyValue.getPartitionKeyValueStringList(
+              p.getPartitionValues(), "NULL");
+          expectedPartitions_.add(partValues);
         }
         if (expectedPartitions_.size() == hdfsTable.getPartitions().size()) {
           expectedPartitions_.clear();
@@ -580,11 +598,9 @@ public class ComputeStatsStmt extends StatementBase {
         // Get incremental statistics for partitions that are not recomputed.
         Collection<? extends FeFsPartition> allPartitions =
             FeCatalogUtils.loadAllPartitions(hdfsTable);
-        Map<Long, TPartitionStats> partitionStats = getOrFetchPartitionStats(
-            analyzer, hdfsTable, allPartitions, targetPartitions);
-        validPartStats_.addAll(partitionStats.values());
+        mergeValidPartitionStats(analyzer, hdfsTable, allPartitions, targetPartitions);
       }
-      if (filterPreds.size() == 0 && validPartStats_.size() != 0) {
+      if (filterPreds.size() == 0 && numValidPartStats_ != 0) {
         if (LOG.isTraceEnabled()) {
           LOG.trace("No partitions selected for incremental stats update");
         }
@@ -606,7 +622,8 @@ public class ComputeStatsStmt extends StatementBase {
       analyzer.addWarning(
           "Too many partitions selected, doing full recomputation of incremental stats");
       filterPreds.clear();
-      validPartStats_.clear();
+      mergedPartStats_ = null;
+      numValidPartStats_ = 0;
     }
 
     // Tablesample clause to be used for all child queries.
@@ -649,7 +666,7 @@ public class ComputeStatsStmt extends StatementBase {
     // selected in) and there is no partition spec (so no single partition was explicitly
     // selected in).
     if (filterPreds.size() > 0 &&
-        (validPartStats_.size() > 0 || partitionSet_ != null)) {
+        (numValidPartStats_ > 0 || partitionSet_ != null)) {
       String filterClause = " WHERE " + Joiner.on(" OR ").join(filterPreds);
       columnStatsQueryBuilder.append(filterClause);
       tableStatsQueryBuilder.append(filterClause);
@@ -676,6 +693,72 @@ public class ComputeStatsStmt extends StatementBase {
     if (LOG.isTraceEnabled()) LOG.trace("Column stats query: " + columnStatsQueryStr_);
   }
 
+  /**
+   * Merges the incremental statistics of the partitions in 'partitions' that are not in
+   * 'excludedPartitions' and have incremental statistics into 'mergedPartStats_'. Returns
+   * the ids of the partitions whose statistics were merged.
+   *
+   * When the statistics are fetched from catalogd, the merged statistics are remembered
+   * in MergedPartitionStatsCache. If the remembered statistics of the table only cover
+   * partitions that are still valid, they are reused and only the statistics of the other
+   * partitions are fetched and merged into them.
+   */
+  private Set<Long> mergeValidPartitionStats(Analyzer analyzer, FeFsTable table,
+      Collection<? extends FeFsPartition> partitions, Set<Long> excludedPartitions)
+      throws AnalysisException {
+    List<String> columnNames = new ArrayList<>();
+    for (Column col: table.getNonClusteringColumns()) {
+      if (!ignoreColumn(col)) columnNames.add(col.getName());
+    }
+    PartitionStatsMerger merger = new PartitionStatsMerger(columnNames);
+    Set<Long> validPartitions = new HashSet<>();
+    Set<Long> skippedPartitions = excludedPartitions;
+    String cacheKey = null;
+    if (fetchesStatsFromCatalogd()) {
+      cacheKey = MergedPartitionStatsCache.getKey(
+          TUniqueIdUtil.PrintId(analyzer.getCatalog().getCatalogServiceId()),
+          table.getFullName());
+      Set<Long> candidatePartitions = new HashSet<>();
+      for (FeFsPartition p: partitions) {
+        if (!excludedPartitions.contains(p.getId())) candidatePartitions.add(p.getId());
+      }
+      MergedPartitionStatsCache.Entry cached = MergedPartitionStatsCache.INSTANCE.get(
+          cacheKey, columnNames, candidatePartitions);
+      if (cached != null) {
+        merger.add(cached.getMergedStats());
+        validPartitions.addAll(cached.getPartitionIds());
+        skippedPartitions = Sets.union(excludedPartitions, cached.getPartitionIds());
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("Reusing merged incremental stats of " + validPartitions.size() +
+              " partitions of " + table.getFullName());
+        }
+      }
+    }
+    Map<Long, TPartitionStats> partitionStats =
+        getOrFetchPartitionStats(analyzer, table, partitions, skippedPartitions);
+    for (Map.Entry<Long, TPartitionStats> e: partitionStats.entrySet()) {
+      merger.add(e.getValue());
+      validPartitions.add(e.getKey());
+    }
+    mergedPartStats_ = merger.toThrift();
+    numValidPartStats_ = validPartitions.size();
+    if (cacheKey != null && !partitionStats.isEmpty()) {
+      MergedPartitionStatsCache.INSTANCE.put(cacheKey,
+          new MergedPartitionStatsCache.Entry(
+              validPartitions, columnNames, mergedPartStats_));
+    }
+    return validPartitions;
+  }
+
+  /**
+   * Returns true if incremental statistics are fetched from catalogd. They are already
+   * present locally when using LocalCatalog or when testing.
+   */
+  private static boolean fetchesStatsFromCatalogd() {
+    return !BackendConfig.INSTANCE.getBackendCfg().use_local_catalog
+        && !RuntimeEnv.INSTANCE.isTestEnv();
+  }
+
   /**
    *  Get partition statistics from the list of partitions, omitting those in
    *  excludedPartitions and those for which incremental statistics are not present.
@@ -694,8 +777,7 @@ public class ComputeStatsStmt extends StatementBase {
     // Incremental stats are already present locally when using LocalCatalog
     // or when testing. TODO(IMPALA-7535) fetch incremental stats separately
     // for LocalCatlaog as well.
-    if (!BackendConfig.INSTANCE.getBackendCfg().use_local_catalog
-        && !RuntimeEnv.INSTANCE.isTestEnv()) {
+    if (fetchesStatsFromCatalogd()) {
       // We're configured to fetch the statistics from catalogd, so collect the relevant
       // partition ids.
       List<FeFsPartition> partitionsToFetch = new ArrayList<>();
@@ -737,8 +819,16 @@ public class ComputeStatsStmt extends StatementBase {
     int totalPartitions = 0;
     int numPartitionsWithStats = 0;
     try {
+      // Only ask for the partitions of interest if that is not the whole table.
+      List<String> partitionNames = null;
+      if (partitions.size() < table.getPartitionIds().size()) {
+        partitionNames = new ArrayList<>(partitions.size());
+        for (FeFsPartition part: partitions) {
+          partitionNames.add(FeCatalogUtils.getPartitionName(part));
+        }
+      }
       TGetPartitionStatsResponse response =
-          analyzer.getCatalog().getPartitionStats(table.getTableName());
+          analyzer.getCatalog().getPartitionStats(table.getTableName(), partitionNames);
       if (response.status.status_code != TErrorCode.OK) {
         throw new AnalysisException(
             "Error fetching partition statistics: " + response.status.toString());
@@ -1064,7 +1154,9 @@ public class ComputeStatsStmt extends StatementBase {
       params.setCol_stats_queryIsSet(false);
     }
     params.setIs_incremental(isIncremental_);
-    params.setExisting_part_stats(validPartStats_);
+    List<TPartitionStats> existingPartStats = new ArrayList<>();
+    if (mergedPartStats_ != null) existingPartStats.add(mergedPartStats_);
+    params.setExisting_part_stats(existingPartStats);
     params.setExpect_all_partitions(expectAllPartitions_);
     if (!expectAllPartitions_) params.setExpected_partitions(expectedPartitions_);
     if (isIncremental_) {
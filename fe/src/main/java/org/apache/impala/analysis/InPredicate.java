@@ -19,6 +19,7 @@ package org.apache.impala.analysis;
 
 import java.util.List;
 
+import org.apache.impala.catalog.ColumnHistogram;
 import org.apache.impala.catalog.Db;
 import org.apache.impala.catalog.Function.CompareMode;
 import org.apache.impala.catalog.PrimitiveType;
@@ -181,17 +182,36 @@ public class InPredicate extends Predicate {
     Reference<Integer> idxRef = new Reference<Integer>();
     if (isSingleColumnPredicate(slotRefRef, idxRef) && idxRef.getRef() == 0
         && slotRefRef.getRef().getNumDistinctValues() > 0) {
-      if (isNotIn()) {
-        selectivity_ = 1.0 - ((double) (getChildren().size() - 1)
-            / (double) slotRefRef.getRef().getNumDistinctValues());
-      } else {
-        selectivity_ = (double) (getChildren().size() - 1)
+      double inSelectivity = computeHistogramInSelectivity(slotRefRef.getRef());
+      if (inSelectivity < 0) {
+        inSelectivity = (double) (getChildren().size() - 1)
             / (double) slotRefRef.getRef().getNumDistinctValues();
       }
+      selectivity_ = isNotIn() ? 1.0 - inSelectivity : inSelectivity;
       selectivity_ = Math.max(0.0, Math.min(1.0, selectivity_));
     }
   }
 
+  /**
+   * Returns the fraction of rows of the column 'slotRef' that match one of the values
+   * in the IN list according to the histogram of the column. Values that are frequent
+   * in the column count for more than 1 / NDV. Returns -1 if the column has no
+   * histogram or the list has values that are not numeric or DATE literals.
+   */
+  private double computeHistogramInSelectivity(SlotRef slotRef) {
+    if (getChild(0).unwrapSlotRef(true) == null) return -1;
+    ColumnHistogram histogram = slotRef.getDesc().getStats().getHistogram();
+    if (histogram == null) return -1;
+    double minFraction = 1.0 / slotRef.getNumDistinctValues();
+    double result = 0.0;
+    for (int i = 1; i < getChildren().size(); ++i) {
+      Double value = ColumnHistogram.getLiteralValue(getChild(i));
+      if (value == null) return -1;
+      result += Math.max(minFraction, histogram.getFractionEqual(value));
+    }
+    return Math.min(1.0, result);
+  }
+
   @Override
   protected float computeEvalCost() {
     if (!hasChildCosts()) return UNKNOWN_COST;
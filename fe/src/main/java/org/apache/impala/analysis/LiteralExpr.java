@@ -217,7 +217,18 @@ public abstract class LiteralExpr extends Expr implements Comparable<LiteralExpr
           constExpr.toSql(), e.getMessage()));
       return null;
     }
+    return createFromColumnValue(constExpr, val, keepOriginalIntType);
+  }
 
+  /**
+   * Converts 'val', the result of evaluating the constant expr 'constExpr' in the BE,
+   * into a LiteralExpr of the type of 'constExpr'. Returns null in the same cases as
+   * createBounded(), i.e. if the LiteralExpr is not able to represent the result.
+   * Used by callers that evaluate a batch of constant exprs with a single BE call.
+   */
+  public static LiteralExpr createFromColumnValue(Expr constExpr, TColumnValue val,
+      boolean keepOriginalIntType) throws AnalysisException {
+    Preconditions.checkState(constExpr.getType().isValid());
     LiteralExpr result = null;
     switch (constExpr.getType().getPrimitiveType()) {
       case NULL_TYPE:
@@ -1590,6 +1590,15 @@ public class SelectStmt extends QueryStmt {
   @Override
   public void rewriteExprs(ExprRewriter rewriter) throws AnalysisException {
     Preconditions.checkState(isAnalyzed());
+    // Fold the constant exprs of this block with a single BE call.
+    List<Expr> foldCandidates = new ArrayList<>();
+    for (SelectListItem item: selectList_.getItems()) {
+      if (!item.isStar()) foldCandidates.add(item.getExpr());
+    }
+    foldCandidates.add(whereClause_);
+    foldCandidates.add(havingClause_);
+    if (groupingExprs_ != null) foldCandidates.addAll(groupingExprs_);
+    rewriter.prefetchConstantFolds(foldCandidates, analyzer_);
     selectList_.rewriteExprs(rewriter, analyzer_);
     for (TableRef ref: fromClause_.getTableRefs()) ref.rewriteExprs(rewriter, analyzer_);
     List<Subquery> subqueryExprs = new ArrayList<>();
@@ -35,6 +35,7 @@ import org.apache.hadoop.hive.common.StatsSetupConst;
 import org.apache.hadoop.hive.ql.parse.HiveLexer;
 import org.apache.impala.catalog.CatalogException;
 import org.apache.impala.catalog.Column;
+import org.apache.impala.catalog.ColumnHistogram;
 import org.apache.impala.catalog.DataSourceTable;
 import org.apache.impala.catalog.FeDataSourceTable;
 import org.apache.impala.catalog.FeFsTable;
@@ -84,6 +85,8 @@ public class ToSqlUtils {
   // EXTERNAL, SORT BY [order], and comment are hidden because they are part of the
   // toSql result, e.g.,
   // "CREATE EXTERNAL TABLE <name> ... SORT BY ZORDER (...) ... COMMENT <comment> ..."
+  // The column histograms (ColumnHistogram.TBL_PROP_PREFIX) are hidden as well, see
+  // removeHiddenTableProperties().
   @VisibleForTesting
   protected static final ImmutableSet<String> HIDDEN_TABLE_PROPERTIES = ImmutableSet.of(
       "EXTERNAL",
@@ -105,6 +108,7 @@ public class ToSqlUtils {
   @VisibleForTesting
   protected static void removeHiddenTableProperties(Map<String, String> tblProperties) {
     for (String key: HIDDEN_TABLE_PROPERTIES) tblProperties.remove(key);
+    ColumnHistogram.removeTblProperties(tblProperties);
   }
 
   /**
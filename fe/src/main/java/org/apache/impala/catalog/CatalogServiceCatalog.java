@@ -291,6 +291,10 @@ public class CatalogServiceCatalog extends Catalog {
 
   private final boolean loadInBackground_;
 
+  // Schedules automatic stats refreshes of tables with many changes.
+  private final StatsRefreshScheduler statsRefreshScheduler_ =
+      new StatsRefreshScheduler(this);
+
   // Periodically polls HDFS to get the latest set of known cache pools.
   private final ScheduledExecutorService cachePoolReader_ =
     Executors.newScheduledThreadPool(1,
@@ -795,7 +799,8 @@ public class CatalogServiceCatalog extends Catalog {
    * statistics. The table partitions are specified in
    * TGetPartitionStatsRequest. If statistics are not available for a partition,
    * a default TPartitionStats is used. Partitions are identified by their partitioning
-   * column string values.
+   * column string values. If the request has partition names, only the statistics of
+   * those partitions are returned.
    */
   public Map<String, ByteBuffer> getPartitionStats(TGetPartitionStatsRequest request)
       throws CatalogException {
@@ -837,12 +842,18 @@ public class CatalogServiceCatalog extends Catalog {
 
     Map<String, ByteBuffer> stats = new HashMap<>();
     HdfsTable hdfsTable = (HdfsTable) table;
+    Set<String> partitionNames = request.isSetPartition_names() ?
+        new HashSet<>(request.getPartition_names()) : null;
     hdfsTable.takeReadLock();
     try {
       Collection<? extends PrunablePartition> partitions = hdfsTable.getPartitions();
       for (PrunablePartition partition : partitions) {
         Preconditions.checkState(partition instanceof FeFsPartition);
         FeFsPartition fsPartition = (FeFsPartition) partition;
+        if (partitionNames != null
+            && !partitionNames.contains(FeCatalogUtils.getPartitionName(fsPartition))) {
+          continue;
+        }
         TPartitionStats partStats = fsPartition.getPartitionStats();
         if (partStats != null) {
           ByteBuffer compressedStats =
@@ -3490,6 +3501,9 @@ public class CatalogServiceCatalog extends Catalog {
   }
 
   public CatalogDeltaLog getDeleteLog() { return deleteLog_; }
+  public StatsRefreshScheduler getStatsRefreshScheduler() {
+    return statsRefreshScheduler_;
+  }
 
   /**
    * Returns the catalog version of the topic update that an operation using SYNC_DDL
@@ -3761,7 +3775,8 @@ public class CatalogServiceCatalog extends Catalog {
       return result;
     }
     try {
-      return tbl.getMetrics().toString();
+      return tbl.getMetrics().toString()
+          + statsRefreshScheduler_.getTableSummary(dbName, tblName);
     } finally {
       tbl.releaseReadLock();
     }
@@ -0,0 +1,224 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.catalog;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.apache.impala.analysis.DateLiteral;
+import org.apache.impala.analysis.Expr;
+import org.apache.impala.analysis.NumericLiteral;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+
+/**
+ * An equi-depth histogram of the non-null values of a numeric or DATE column, used by
+ * the planner to estimate the selectivity of range, BETWEEN and IN predicates on columns
+ * with skewed data.
+ *
+ * The histogram is represented by NUM_BUCKETS + 1 bounds: the minimum value, the
+ * quantiles 1/NUM_BUCKETS, 2/NUM_BUCKETS, ... and the maximum value. Each bucket between
+ * two adjacent bounds holds the same fraction of the non-null values, and values are
+ * assumed to be spread uniformly within a bucket. A value that makes up a large fraction
+ * of the column shows up as the same bound repeated several times.
+ *
+ * COMPUTE STATS collects the bounds with a DataSketches KLL sketch if the
+ * COMPUTE_COLUMN_HISTOGRAMS query option is set, see getComputeSql(). The sketch works on
+ * FLOAT values, so the bounds are approximate. DATE values are represented by the number
+ * of days since the epoch. The HMS has no field for histograms, so they are stored as
+ * table properties with the key TBL_PROP_PREFIX + column name, in the comma-separated
+ * format produced by ds_kll_quantiles_as_string().
+ */
+public class ColumnHistogram {
+  // Prefix of the table properties that store histograms, followed by the column name.
+  public static final String TBL_PROP_PREFIX = "impala.columnHistogram.";
+
+  // Number of buckets collected by COMPUTE STATS.
+  public static final int NUM_BUCKETS = 32;
+
+  private final double[] bounds_;
+
+  private ColumnHistogram(double[] bounds) {
+    Preconditions.checkArgument(bounds.length >= 2);
+    bounds_ = bounds;
+  }
+
+  /**
+   * Returns the histogram represented by 'serialized', or null if it is not a valid
+   * histogram, e.g. because the column only contains NULLs.
+   */
+  public static ColumnHistogram parse(@Nullable String serialized) {
+    if (serialized == null || serialized.isEmpty()) return null;
+    List<String> parts = Splitter.on(',').trimResults().splitToList(serialized);
+    if (parts.size() < 2) return null;
+    double[] bounds = new double[parts.size()];
+    try {
+      for (int i = 0; i < bounds.length; ++i) {
+        bounds[i] = Double.parseDouble(parts.get(i));
+        if (!Double.isFinite(bounds[i])) return null;
+        if (i > 0 && bounds[i] < bounds[i - 1]) return null;
+      }
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    return new ColumnHistogram(bounds);
+  }
+
+  /**
+   * Returns the histogram of column 'colName' stored in the table properties 'params',
+   * or null if there is none.
+   */
+  public static ColumnHistogram fromTblProperties(@Nullable Map<String, String> params,
+      String colName) {
+    if (params == null) return null;
+    return parse(params.get(getTblPropKey(colName)));
+  }
+
+  public static String getTblPropKey(String colName) {
+    return TBL_PROP_PREFIX + colName.toLowerCase();
+  }
+
+  /**
+   * Removes the histograms of all columns from the table properties 'params'.
+   */
+  public static void removeTblProperties(Map<String, String> params) {
+    params.keySet().removeIf(key -> key.startsWith(TBL_PROP_PREFIX));
+  }
+
+  /**
+   * Returns true if COMPUTE STATS can collect a histogram for columns of type 'type'.
+   */
+  public static boolean isSupportedType(Type type) {
+    return type.isNumericType() || type.isDate();
+  }
+
+  /**
+   * Returns the SQL of the aggregate expression that computes the histogram of the
+   * column referenced by 'colRefSql' of type 'type'.
+   */
+  public static String getComputeSql(String colRefSql, Type type) {
+    Preconditions.checkArgument(isSupportedType(type));
+    String value = type.isDate() ?
+        "DATEDIFF(" + colRefSql + ", DATE '1970-01-01')" : colRefSql;
+    String[] ranks = new String[NUM_BUCKETS + 1];
+    for (int i = 0; i <= NUM_BUCKETS; ++i) {
+      ranks[i] = Double.toString((double) i / NUM_BUCKETS);
+    }
+    return "DS_KLL_QUANTILES_AS_STRING(DS_KLL_SKETCH(CAST(" + value + " AS FLOAT)), "
+        + Joiner.on(", ").join(ranks) + ")";
+  }
+
+  /**
+   * Returns the value of 'expr' in the domain of the histogram bounds if it is a numeric
+   * or DATE literal, otherwise null.
+   */
+  public static Double getLiteralValue(Expr expr) {
+    if (expr instanceof NumericLiteral) return ((NumericLiteral) expr).getDoubleValue();
+    if (expr instanceof DateLiteral) return (double) ((DateLiteral) expr).getValue();
+    return null;
+  }
+
+  /**
+   * Returns the estimated fraction of the non-null values that are less than 'value',
+   * or less than or equal to 'value' if 'inclusive' is true.
+   */
+  public double getFractionLessThan(double value, boolean inclusive) {
+    int n = bounds_.length - 1;
+    if (inclusive) {
+      if (value < bounds_[0]) return 0.0;
+      if (value >= bounds_[n]) return 1.0;
+      // The last bound that is <= value. bounds_[j + 1] > value.
+      int j = 0;
+      while (bounds_[j + 1] <= value) ++j;
+      return (j + (value - bounds_[j]) / (bounds_[j + 1] - bounds_[j])) / n;
+    }
+    if (value <= bounds_[0]) return 0.0;
+    if (value > bounds_[n]) return 1.0;
+    // The first bound that is >= value. bounds_[i - 1] < value.
+    int i = 1;
+    while (bounds_[i] < value) ++i;
+    return (i - 1 + (value - bounds_[i - 1]) / (bounds_[i] - bounds_[i - 1])) / n;
+  }
+
+  /**
+   * Returns the estimated fraction of the non-null values that are equal to 'value'.
+   * This is only non-zero if 'value' makes up at least about one bucket.
+   */
+  public double getFractionEqual(double value) {
+    return getFractionLessThan(value, true) - getFractionLessThan(value, false);
+  }
+
+  /**
+   * Returns the estimated fraction of the non-null values between 'low' and 'high'.
+   */
+  public double getFractionInRange(double low, boolean lowInclusive, double high,
+      boolean highInclusive) {
+    double fraction = getFractionLessThan(high, highInclusive)
+        - getFractionLessThan(low, !lowInclusive);
+    return Math.max(0.0, fraction);
+  }
+
+  /**
+   * Converts 'fraction', the estimated fraction of the non-null values of a column with
+   * 'stats' that satisfy a predicate, to the selectivity of the predicate in a table with
+   * 'numRows' rows. The result is not lower than the fraction of a single distinct value,
+   * because the histogram may be older than the data.
+   */
+  public static double toSelectivity(double fraction, ColumnStats stats, long numRows) {
+    double sel = fraction;
+    if (stats.getNumDistinctValues() > 0) {
+      sel = Math.max(sel, 1.0 / stats.getNumDistinctValues());
+    }
+    if (stats.hasNullsStats() && numRows > 0) {
+      sel *= (double) (numRows - Math.min(numRows, stats.getNumNulls())) / numRows;
+    }
+    return Math.max(0.0, Math.min(1.0, sel));
+  }
+
+  @VisibleForTesting
+  double[] getBounds() { return bounds_; }
+
+  /**
+   * Returns the serialized form that parse() accepts.
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < bounds_.length; ++i) {
+      if (i > 0) sb.append(',');
+      sb.append(bounds_[i]);
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof ColumnHistogram)) return false;
+    return Arrays.equals(bounds_, ((ColumnHistogram) o).bounds_);
+  }
+
+  @Override
+  public int hashCode() { return Arrays.hashCode(bounds_); }
+}
@@ -104,6 +104,8 @@ public class ColumnStats {
   private long numFalses_;
   private TColumnValue lowValue_;
   private TColumnValue highValue_;
+  // Null if unknown. Only set for numeric and DATE columns.
+  private ColumnHistogram histogram_;
 
   public ColumnStats(Type colType) {
     initColStats(colType);
@@ -123,6 +125,7 @@ public class ColumnStats {
     numFalses_ = other.numFalses_;
     lowValue_ = other.lowValue_;
     highValue_ = other.highValue_;
+    histogram_ = other.histogram_;
     validate(null);
   }
 
@@ -141,6 +144,7 @@ public class ColumnStats {
     numFalses_ = -1;
     lowValue_ = null;
     highValue_ = null;
+    histogram_ = null;
     if (colType.isFixedLengthType()) {
       avgSerializedSize_ = colType.getSlotSize();
       avgSize_ = colType.getSlotSize();
@@ -239,6 +243,8 @@ public class ColumnStats {
   public boolean hasStats() { return numNulls_ != -1 || numDistinctValues_ != -1; }
   public TColumnValue getLowValue() { return lowValue_; }
   public TColumnValue getHighValue() { return highValue_; }
+  public ColumnHistogram getHistogram() { return histogram_; }
+  public void setHistogram(ColumnHistogram histogram) { histogram_ = histogram; }
 
   /**
    * Return the value of a defined field as a string. Return -1 if 'value' is null,
@@ -1042,6 +1048,7 @@ public class ColumnStats {
     numNulls_ = stats.getNum_nulls();
     lowValue_ = stats.getLow_value();
     highValue_ = stats.getHigh_value();
+    histogram_ = ColumnHistogram.parse(stats.getHistogram());
     validate(colType);
   }
 
@@ -1055,6 +1062,7 @@ public class ColumnStats {
     colStats.setNum_falses(numFalses_);
     colStats.setLow_value(lowValue_);
     colStats.setHigh_value(highValue_);
+    if (histogram_ != null) colStats.setHistogram(histogram_.toString());
     return colStats;
   }
 
@@ -1093,6 +1101,7 @@ public class ColumnStats {
         .add("numFalses", numFalses_)
         .add("lowValue", getLowValueAsString())
         .add("highValue", getHighValueAsString())
+        .add("histogram", histogram_)
         .toString();
   }
 
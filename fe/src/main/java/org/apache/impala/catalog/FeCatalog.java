@@ -16,6 +16,7 @@
 // under the License.
 package org.apache.impala.catalog;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -91,9 +92,11 @@ public interface FeCatalog {
 
   /**
    * Fetches partition statistics for a table. The table is loaded if needed. If the table
-   * does not exist or cannot be loaded, an exception is thrown.
+   * does not exist or cannot be loaded, an exception is thrown. If 'partitionNames' is
+   * not null, only the statistics of the partitions with those names are fetched.
    */
-  TGetPartitionStatsResponse getPartitionStats(TableName table) throws InternalException;
+  TGetPartitionStatsResponse getPartitionStats(TableName table,
+      @Nullable Collection<String> partitionNames) throws InternalException;
 
   /**
    * Causes the calling thread to wait until a catalog update notification has been sent
@@ -186,6 +186,11 @@ public abstract class FeCatalogUtils {
             "incompatible with column type %s. Consider regenerating statistics " +
             "for %s.", table.getFullName(), col.getName(), col.getType(),
             table.getFullName()));
+      } else if (ColumnHistogram.isSupportedType(col.getType())
+          && table.getMetaStoreTable() != null) {
+        // Histograms are not part of the HMS column stats, see ColumnHistogram.
+        col.getStats().setHistogram(ColumnHistogram.fromTblProperties(
+            table.getMetaStoreTable().getParameters(), col.getName()));
       }
     }
   }
@@ -294,6 +294,17 @@ public class FileMetadataLoader {
   protected FileDescriptor createFd(FileSystem fs, FileStatus fileStatus,
       String relPath, Reference<Long> numUnknownDiskIds, String absPath)
       throws IOException {
+    return createFileDescriptor(fs, fileStatus, relPath, hostIndex_, numUnknownDiskIds,
+        absPath);
+  }
+
+  /**
+   * Same as above, but encodes the hosts of the blocks using 'hostIndex'. Also used to
+   * create the descriptors of single files outside of a directory listing.
+   */
+  static FileDescriptor createFileDescriptor(FileSystem fs, FileStatus fileStatus,
+      String relPath, ListMap<TNetworkAddress> hostIndex,
+      Reference<Long> numUnknownDiskIds, String absPath) throws IOException {
     if (!FileSystemUtil.supportsStorageIds(fs)) {
       return FileDescriptor.createWithNoBlocks(fileStatus, relPath, absPath);
     }
@@ -303,7 +314,7 @@ public class FileMetadataLoader {
     } else {
       locations = fs.getFileBlockLocations(fileStatus, 0, fileStatus.getLen());
     }
-    return FileDescriptor.create(fileStatus, relPath, locations, hostIndex_,
+    return FileDescriptor.create(fileStatus, relPath, locations, hostIndex,
         fileStatus.isEncrypted(), fileStatus.isErasureCoded(), numUnknownDiskIds,
         absPath);
   }
@@ -65,6 +65,7 @@ import org.apache.impala.common.FileSystemUtil;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.Pair;
 import org.apache.impala.common.PrintUtils;
+import org.apache.impala.common.Reference;
 import org.apache.impala.compat.MetastoreShim;
 import org.apache.impala.fb.FbFileBlock;
 import org.apache.impala.hive.common.MutableValidReaderWriteIdList;
@@ -81,6 +82,7 @@ import org.apache.impala.thrift.TGetPartialCatalogObjectResponse;
 import org.apache.impala.thrift.THdfsFileDesc;
 import org.apache.impala.thrift.THdfsPartition;
 import org.apache.impala.thrift.THdfsTable;
+import org.apache.impala.thrift.TInsertedFile;
 import org.apache.impala.thrift.TNetworkAddress;
 import org.apache.impala.thrift.TPartialPartitionInfo;
 import org.apache.impala.thrift.TPartitionKeyValue;
@@ -1105,6 +1107,68 @@ public class HdfsTable extends Table implements FeFsTable {
     addPartition(newPartition);
   }
 
+  /**
+   * Adds the files in 'insertedFiles', which were just written into the existing
+   * partition 'partition' by an INSERT, to the file metadata of the partition without
+   * listing the partition directory. Every file is checked with a getFileStatus() call
+   * (plus a block location call on filesystems that support them), which is much
+   * cheaper than listing a partition that already holds many files.
+   * Returns false without modifying the partition if the files cannot be added this way
+   * and the caller should reload the file metadata of the partition instead. This is
+   * the case for transactional tables, cached partitions, files that are not directly
+   * in the partition directory or are already known, and files whose size differs from
+   * the size reported by the writer.
+   */
+  public boolean appendInsertedFiles(HdfsPartition partition,
+      List<TInsertedFile> insertedFiles) throws CatalogException {
+    Preconditions.checkState(isWriteLockedByCurrentThread());
+    if (AcidUtils.isTransactionalTable(getMetaStoreTable().getParameters())
+        || partition.isMarkedCached() || partition.getLocation() == null
+        || partition.getFileFormat() == HdfsFileFormat.HUDI_PARQUET) {
+      return false;
+    }
+    Path partDir = partition.getLocationPath();
+    Set<String> knownPaths = new HashSet<>();
+    for (FileDescriptor fd : partition.getFileDescriptors()) {
+      knownPaths.add(fd.getRelativePath());
+    }
+    List<FileDescriptor> newFds = new ArrayList<>();
+    Reference<Long> numUnknownDiskIds = new Reference<>(0L);
+    try {
+      FileSystem fs = partDir.getFileSystem(CONF);
+      for (TInsertedFile insertedFile : insertedFiles) {
+        Path filePath = new Path(insertedFile.getPath());
+        String relPath = FileSystemUtil.relativizePathNoThrow(filePath, partDir);
+        if (relPath == null || relPath.contains(Path.SEPARATOR)
+            || !knownPaths.add(relPath)) {
+          LOG.info("Reloading the file metadata of partition {} of {} since the " +
+              "inserted file {} is not new in the partition directory.",
+              partition.getPartitionName(), getFullName(), filePath);
+          return false;
+        }
+        FileStatus fileStatus = fs.getFileStatus(filePath);
+        if (!FileSystemUtil.isValidDataFile(fileStatus) || (insertedFile.isSetSize()
+            && insertedFile.getSize() != fileStatus.getLen())) {
+          LOG.info("Reloading the file metadata of partition {} of {} since the " +
+              "inserted file {} does not match the written file.",
+              partition.getPartitionName(), getFullName(), filePath);
+          return false;
+        }
+        newFds.add(FileMetadataLoader.createFileDescriptor(fs, fileStatus, relPath,
+            hostIndex_, numUnknownDiskIds, null));
+      }
+    } catch (IOException e) {
+      LOG.info("Reloading the file metadata of partition {} of {} since the inserted " +
+          "files could not be checked: {}", partition.getPartitionName(),
+          getFullName(), e.getMessage());
+      return false;
+    }
+    List<FileDescriptor> fds = new ArrayList<>(partition.getFileDescriptors());
+    fds.addAll(newFds);
+    updatePartition(new HdfsPartition.Builder(partition).setFileDescriptors(fds));
+    return true;
+  }
+
   /**
    * Drops the partition having the given partition spec from HdfsTable. Cleans up its
    * metadata from all the mappings used to speed up partition pruning/lookup.
@@ -17,6 +17,7 @@
 
 package org.apache.impala.catalog;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -35,6 +36,7 @@ import org.apache.impala.analysis.IcebergPartitionField;
 import org.apache.impala.analysis.IcebergPartitionSpec;
 import org.apache.impala.analysis.IcebergPartitionTransform;
 import org.apache.impala.catalog.iceberg.GroupedContentFiles;
+import org.apache.impala.catalog.iceberg.IcebergFileStats;
 import org.apache.impala.common.ImpalaRuntimeException;
 import org.apache.impala.service.BackendConfig;
 import org.apache.impala.thrift.TCatalogObjectType;
@@ -57,6 +59,8 @@ import org.apache.impala.util.EventSequence;
 import org.apache.impala.util.IcebergSchemaConverter;
 import org.apache.impala.util.IcebergUtil;
 import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Representation of an Iceberg table in the catalog cache.
@@ -74,6 +78,8 @@ import org.apache.thrift.TException;
  * 'impala.iceberg_disable_reading_puffin_stats' to true.
  */
 public class IcebergTable extends Table implements FeIcebergTable {
+  private static final Logger LOG = LoggerFactory.getLogger(IcebergTable.class);
+
   // Alias to the string key that identifies the storage handler for Iceberg tables.
   public static final String KEY_STORAGE_HANDLER =
       hive_metastoreConstants.META_TABLE_STORAGE;
@@ -183,6 +189,21 @@ public class IcebergTable extends Table implements FeIcebergTable {
   // The name of the folder where Iceberg metadata lives.
   public static final String METADATA_FOLDER_NAME = "metadata";
 
+  // Table metrics computed from the data and delete files, see IcebergFileStats.
+  public static final String NUM_DATA_FILES_METRIC = "iceberg-num-data-files";
+  public static final String NUM_SMALL_DATA_FILES_METRIC = "iceberg-num-small-data-files";
+  public static final String NUM_DATA_FILES_WITH_DELETES_METRIC =
+      "iceberg-num-data-files-with-deletes";
+  public static final String NUM_POSITION_DELETE_FILES_METRIC =
+      "iceberg-num-position-delete-files";
+  public static final String NUM_EQUALITY_DELETE_FILES_METRIC =
+      "iceberg-num-equality-delete-files";
+  public static final String DELETE_RATIO_METRIC = "iceberg-delete-ratio";
+  public static final String NUM_PARTITIONS_TO_COMPACT_METRIC =
+      "iceberg-num-partitions-to-compact";
+  public static final String COMPACTION_RECOMMENDED_METRIC =
+      "iceberg-compaction-recommended";
+
   // Iceberg catalog type dependent on table properties
   private TIcebergCatalog icebergCatalog_;
 
@@ -226,6 +247,10 @@ public class IcebergTable extends Table implements FeIcebergTable {
   private Map<Integer, IcebergColumn> icebergFieldIdToCol_;
   private Map<String, TIcebergPartitionStats> partitionStats_;
 
+  // Statistics of the data and delete files, only set in catalogd. Volatile because
+  // the table metrics read it without holding the table lock.
+  private volatile IcebergFileStats fileStats_;
+
   protected IcebergTable(org.apache.hadoop.hive.metastore.api.Table msTable,
       Db db, String name, String owner) {
     super(msTable, db, name, owner);
@@ -441,6 +466,7 @@ public class IcebergTable extends Table implements FeIcebergTable {
         hdfsTable_.load(reuseMetadata, msClient, msTable_, reason, catalogTimeline);
         fileStore_ = new IcebergContentFileStore(this, icebergFiles);
         partitionStats_ = Utils.loadPartitionStats(this, icebergFiles);
+        updateFileStats(icebergFiles);
         setIcebergTableStats();
         loadAllColumnStats(msClient, catalogTimeline);
         applyPuffinNdvStats(catalogTimeline);
@@ -700,4 +726,47 @@ public class IcebergTable extends Table implements FeIcebergTable {
   public IcebergContentFileStore getContentFileStore() {
     return fileStore_;
   }
+
+  /**
+   * Computes the file statistics of the table from 'icebergFiles' and logs if the
+   * table should be compacted.
+   */
+  private void updateFileStats(GroupedContentFiles icebergFiles) {
+    IcebergFileStats fileStats = new IcebergFileStats(icebergFiles);
+    String compactionReason = fileStats.getCompactionReason();
+    if (compactionReason != null) {
+      LOG.info("Iceberg table {} would benefit from OPTIMIZE: {}", getFullName(),
+          compactionReason);
+    }
+    fileStats_ = fileStats;
+  }
+
+  /**
+   * Registers table metrics.
+   */
+  @Override
+  public void initMetrics() {
+    super.initMetrics();
+    metrics_.addGauge(NUM_DATA_FILES_METRIC,
+        (Gauge<Long>) () -> fileStats_ == null ? 0 : fileStats_.getNumDataFiles());
+    metrics_.addGauge(NUM_SMALL_DATA_FILES_METRIC,
+        (Gauge<Long>) () -> fileStats_ == null ? 0 : fileStats_.getNumSmallDataFiles());
+    metrics_.addGauge(NUM_DATA_FILES_WITH_DELETES_METRIC,
+        (Gauge<Long>) () -> fileStats_ == null ?
+            0 : fileStats_.getNumDataFilesWithDeletes());
+    metrics_.addGauge(NUM_POSITION_DELETE_FILES_METRIC,
+        (Gauge<Long>) () -> fileStats_ == null ?
+            0 : fileStats_.getNumPositionDeleteFiles());
+    metrics_.addGauge(NUM_EQUALITY_DELETE_FILES_METRIC,
+        (Gauge<Long>) () -> fileStats_ == null ?
+            0 : fileStats_.getNumEqualityDeleteFiles());
+    metrics_.addGauge(DELETE_RATIO_METRIC,
+        (Gauge<Double>) () -> fileStats_ == null ? 0 : fileStats_.getDeleteRatio());
+    metrics_.addGauge(NUM_PARTITIONS_TO_COMPACT_METRIC,
+        (Gauge<Long>) () -> fileStats_ == null ?
+            0 : fileStats_.getNumPartitionsToCompact());
+    metrics_.addGauge(COMPACTION_RECOMMENDED_METRIC,
+        (Gauge<Boolean>) () -> fileStats_ != null &&
+            fileStats_.getCompactionReason() != null);
+  }
 }
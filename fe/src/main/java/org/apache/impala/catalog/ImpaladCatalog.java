@@ -20,6 +20,7 @@ package org.apache.impala.catalog;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -33,6 +34,7 @@ import org.apache.impala.authorization.AuthorizationChecker;
 import org.apache.impala.authorization.AuthorizationPolicy;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.common.Pair;
+import org.apache.impala.hive.executor.UdfClassLoaderCache;
 import org.apache.impala.service.BackendConfig;
 import org.apache.impala.service.FeSupport;
 import org.apache.impala.thrift.TAuthzCacheInvalidation;
@@ -288,9 +290,9 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
   }
 
   @Override // FeCatalog
-  public TGetPartitionStatsResponse getPartitionStats(
-      TableName table) throws InternalException {
-    return FeSupport.GetPartitionStats(table);
+  public TGetPartitionStatsResponse getPartitionStats(TableName table,
+      @Nullable Collection<String> partitionNames) throws InternalException {
+    return FeSupport.GetPartitionStats(table, partitionNames);
   }
 
   @Override // FeCatalog
@@ -646,6 +648,8 @@ public class ImpaladCatalog extends Catalog implements FeCatalog {
     Function fn = db.getFunction(thriftFn.getSignature());
     if (fn != null && fn.getCatalogVersion() < dropCatalogVersion) {
       LibCacheRemoveEntry(fn.getLocation().getLocation());
+      // Executors of the dropped function that are still running keep their class.
+      UdfClassLoaderCache.INSTANCE.invalidate(fn.getLocation().toString());
       db.removeFunction(thriftFn.getSignature());
       CatalogObjectVersionSet.INSTANCE.removeVersion(
           fn.getCatalogVersion());
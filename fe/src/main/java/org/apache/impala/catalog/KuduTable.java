@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.hive.common.StatsSetupConst;
 import org.apache.hadoop.hive.metastore.IMetaStoreClient;
@@ -32,6 +33,7 @@ import org.apache.hadoop.hive.metastore.api.hive_metastoreConstants;
 import org.apache.impala.analysis.ColumnDef;
 import org.apache.impala.analysis.KuduPartitionParam;
 import org.apache.impala.common.ImpalaRuntimeException;
+import org.apache.impala.common.Pair;
 import org.apache.impala.service.BackendConfig;
 import org.apache.impala.thrift.TCatalogObjectType;
 import org.apache.impala.thrift.TColumn;
@@ -52,6 +54,7 @@ import org.apache.kudu.client.KuduException;
 import org.apache.thrift.TException;
 
 import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -129,6 +132,11 @@ public class KuduTable extends Table implements FeKuduTable {
   // Schema of the underlying Kudu table.
   private org.apache.kudu.Schema kuduSchema_;
 
+  // Handle of the underlying Kudu table that is shared by queries and the time in
+  // milliseconds when it was opened, see getOrOpenRpcTable(). Reset when the table is
+  // (re)loaded.
+  private volatile Pair<org.apache.kudu.client.KuduTable, Long> rpcTable_;
+
   protected KuduTable(org.apache.hadoop.hive.metastore.api.Table msTable,
       Db db, String name, String owner) {
     super(msTable, db, name, owner);
@@ -298,6 +306,38 @@ public class KuduTable extends Table implements FeKuduTable {
     return parsedHosts;
   }
 
+  /**
+   * Returns a handle of the underlying Kudu table for planning a query. If
+   * --kudu_table_handle_ttl_s is set, queries planned against this version of the table
+   * share a handle for up to that many seconds, so that short queries like primary key
+   * lookups don't each ask the Kudu master for the table schema. A new version of the
+   * table, e.g. after ALTER TABLE or REFRESH, opens a new handle.
+   *
+   * The schema of a shared handle is not updated. KuduScanNode checks the columns that a
+   * query reads against the schema of the handle, so a schema change made directly in
+   * Kudu is not detected during planning while the handle is shared; such a query may
+   * fail with a Kudu error during execution instead of an error asking to refresh the
+   * table. By default every query opens the table and sees its current schema.
+   */
+  public org.apache.kudu.client.KuduTable getOrOpenRpcTable() throws KuduException {
+    long ttlMs = TimeUnit.SECONDS.toMillis(BackendConfig.INSTANCE != null ?
+        BackendConfig.INSTANCE.getKuduTableHandleTtlS() : 0);
+    return getOrOpenRpcTable(System.currentTimeMillis(), ttlMs);
+  }
+
+  @VisibleForTesting
+  org.apache.kudu.client.KuduTable getOrOpenRpcTable(long nowMs, long ttlMs)
+      throws KuduException {
+    Pair<org.apache.kudu.client.KuduTable, Long> rpcTable = rpcTable_;
+    if (rpcTable != null && ttlMs > 0 && nowMs - rpcTable.second < ttlMs) {
+      return rpcTable.first;
+    }
+    org.apache.kudu.client.KuduTable handle =
+        KuduUtil.getKuduClient(getKuduMasterHosts()).openTable(kuduTableName_);
+    if (ttlMs > 0) rpcTable_ = new Pair<>(handle, nowMs);
+    return handle;
+  }
+
   /**
    * Load schema and partitioning schemes directly from Kudu.
    */
@@ -343,6 +383,7 @@ public class KuduTable extends Table implements FeKuduTable {
     try {
       // Copy the table to check later if anything has changed.
       msTable_ = msTbl.deepCopy();
+      rpcTable_ = null;
       kuduTableName_ = msTable_.getParameters().get(KuduTable.KEY_TABLE_NAME);
       kuduMasters_ = msTable_.getParameters().get(KuduTable.KEY_MASTER_HOSTS);
       if (kuduMasters_ == null || kuduMasters_.isEmpty()) {
@@ -471,6 +512,7 @@ public class KuduTable extends Table implements FeKuduTable {
   protected void loadFromThrift(TTable thriftTable) throws TableLoadingException {
     super.loadFromThrift(thriftTable);
     TKuduTable tkudu = thriftTable.getKudu_table();
+    rpcTable_ = null;
     kuduTableName_ = tkudu.getTable_name();
     kuduMasters_ = Joiner.on(',').join(tkudu.getMaster_addresses());
     primaryKeyColumnNames_.clear();
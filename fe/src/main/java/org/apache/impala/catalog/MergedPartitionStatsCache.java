@@ -0,0 +1,142 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.catalog;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.thrift.TPartitionStats;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Remembers, per table, the merged incremental statistics of the partitions that an
+ * earlier COMPUTE INCREMENTAL STATS did not recompute (see PartitionStatsMerger), so
+ * that a later COMPUTE INCREMENTAL STATS on the same table only needs to fetch and merge
+ * the statistics of partitions that were added or changed since then.
+ *
+ * An entry is identified by the ids of the partitions it covers. Every modification of
+ * a partition, including a change of its statistics, replaces the partition with a new
+ * instance that has a new id, so an entry is only valid if all of its partition ids are
+ * still present in the table. Partition ids are assigned by catalogd, so the key of an
+ * entry includes the catalog service id.
+ *
+ * The number of remembered tables is bounded by --incremental_stats_merge_cache_size.
+ */
+public class MergedPartitionStatsCache {
+  public static final MergedPartitionStatsCache INSTANCE =
+      new MergedPartitionStatsCache();
+
+  // Used if BackendConfig is not initialized, e.g. in some tests.
+  private static final int DEFAULT_CACHE_SIZE = 100;
+
+  /**
+   * The merged statistics of a set of partitions. Immutable.
+   */
+  public static class Entry {
+    private final ImmutableSet<Long> partitionIds_;
+    private final ImmutableList<String> columnNames_;
+    private final TPartitionStats mergedStats_;
+
+    public Entry(Collection<Long> partitionIds, List<String> columnNames,
+        TPartitionStats mergedStats) {
+      partitionIds_ = ImmutableSet.copyOf(partitionIds);
+      columnNames_ = ImmutableList.copyOf(columnNames);
+      mergedStats_ = Preconditions.checkNotNull(mergedStats).deepCopy();
+    }
+
+    public Set<Long> getPartitionIds() { return partitionIds_; }
+
+    /**
+     * Returns the merged statistics. Callers must not modify the result.
+     */
+    public TPartitionStats getMergedStats() { return mergedStats_; }
+  }
+
+  // Map from catalog service id and table name to the merged statistics. Lazily created
+  // in getCache() because BackendConfig may not be set at class load time. Null if the
+  // cache is disabled.
+  private volatile Cache<String, Entry> cache_;
+  private volatile boolean cacheInitialized_ = false;
+
+  @VisibleForTesting
+  MergedPartitionStatsCache() {}
+
+  /**
+   * Returns the entry of the table identified by 'key' if it was merged for the columns
+   * in 'columnNames' and all of its partitions are in 'candidatePartitionIds', otherwise
+   * null. Stale entries are dropped.
+   */
+  public Entry get(String key, List<String> columnNames,
+      Set<Long> candidatePartitionIds) {
+    Cache<String, Entry> cache = getCache();
+    if (cache == null) return null;
+    Entry entry = cache.getIfPresent(key);
+    if (entry == null) return null;
+    if (!entry.columnNames_.equals(columnNames)
+        || !candidatePartitionIds.containsAll(entry.partitionIds_)) {
+      cache.asMap().remove(key, entry);
+      return null;
+    }
+    return entry;
+  }
+
+  public void put(String key, Entry entry) {
+    Cache<String, Entry> cache = getCache();
+    if (cache != null) cache.put(key, entry);
+  }
+
+  /**
+   * Returns the key of the table with name 'tableName' in the catalog identified by
+   * 'catalogServiceId'.
+   */
+  public static String getKey(String catalogServiceId, String tableName) {
+    return catalogServiceId + ":" + tableName;
+  }
+
+  @VisibleForTesting
+  public void clear() {
+    Cache<String, Entry> cache = getCache();
+    if (cache != null) cache.invalidateAll();
+  }
+
+  private Cache<String, Entry> getCache() {
+    if (!cacheInitialized_) {
+      synchronized (this) {
+        if (!cacheInitialized_) {
+          int maxSize = BackendConfig.INSTANCE != null ?
+              BackendConfig.INSTANCE.getIncrementalStatsMergeCacheSize() :
+              DEFAULT_CACHE_SIZE;
+          if (maxSize > 0) {
+            cache_ = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+          }
+          cacheInitialized_ = true;
+        }
+      }
+    }
+    return cache_;
+  }
+}
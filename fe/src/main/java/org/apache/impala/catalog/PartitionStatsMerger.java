@@ -0,0 +1,274 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.catalog;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.apache.impala.thrift.TColumnValue;
+import org.apache.impala.thrift.TIntermediateColumnStats;
+import org.apache.impala.thrift.TPartitionStats;
+import org.apache.impala.thrift.TTableStats;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+/**
+ * Merges the incremental statistics of several partitions into a single TPartitionStats.
+ * The intermediate state of every column is a mergeable summary: the HLL registers of
+ * the NDV estimate are merged by taking the maximum of each register, and the counts,
+ * widths and low/high values are merged like the backend does when it finalizes an
+ * incremental computation (see PerColumnStats::Update() in incr-stats-util.cc). Merging
+ * the merged result with further partitions therefore gives the same column stats as
+ * merging all partitions one by one.
+ *
+ * COMPUTE INCREMENTAL STATS uses this to send the state of all partitions that are not
+ * recomputed to the backend as one entry instead of one entry per partition.
+ */
+public class PartitionStatsMerger {
+  // Number of HLL registers in the intermediate NDV state, see
+  // AggregateFunctions::DEFAULT_HLL_LEN.
+  @VisibleForTesting
+  static final int HLL_LEN = 1024;
+
+  /**
+   * The merged state of one column.
+   */
+  private static class MergedColumnStats {
+    private final byte[] ndv_ = new byte[HLL_LEN];
+    private long numNulls_ = 0;
+    private int maxWidth_ = 0;
+    private double totalWidth_ = 0;
+    private long numRows_ = 0;
+    private long numTrues_ = 0;
+    private long numFalses_ = 0;
+    private final TColumnValue lowValue_ = new TColumnValue();
+    private final TColumnValue highValue_ = new TColumnValue();
+
+    private void add(TIntermediateColumnStats stats) {
+      if (stats.isSetIntermediate_ndv()) {
+        byte[] ndv = decodeNdv(stats.getIntermediate_ndv(), stats.isIs_ndv_encoded());
+        Preconditions.checkState(ndv.length == HLL_LEN,
+            "Unexpected intermediate NDV length: %s", ndv.length);
+        for (int i = 0; i < HLL_LEN; ++i) {
+          if (ndv[i] > ndv_[i]) ndv_[i] = ndv[i];
+        }
+      }
+      // A partition with -1 nulls was written by an old version that did not count
+      // nulls, in which case the total is unknown too.
+      if (numNulls_ >= 0) {
+        numNulls_ = stats.getNum_nulls() >= 0 ? numNulls_ + stats.getNum_nulls() : -1;
+      }
+      numTrues_ += stats.getNum_trues();
+      numFalses_ += stats.getNum_falses();
+      maxWidth_ = Math.max(maxWidth_, stats.getMax_width());
+      totalWidth_ += stats.getAvg_width() * stats.getNum_rows();
+      numRows_ += stats.getNum_rows();
+      if (stats.isSetLow_value()) updateLowValue(stats.getLow_value());
+      if (stats.isSetHigh_value()) updateHighValue(stats.getHigh_value());
+    }
+
+    private void updateLowValue(TColumnValue value) {
+      if (value.isSetDouble_val()) {
+        if (!lowValue_.isSetDouble_val()
+            || value.getDouble_val() < lowValue_.getDouble_val()) {
+          lowValue_.setDouble_val(value.getDouble_val());
+        }
+      } else if (value.isSetByte_val()) {
+        if (!lowValue_.isSetByte_val()
+            || value.getByte_val() < lowValue_.getByte_val()) {
+          lowValue_.setByte_val(value.getByte_val());
+        }
+      } else if (value.isSetInt_val()) {
+        if (!lowValue_.isSetInt_val() || value.getInt_val() < lowValue_.getInt_val()) {
+          lowValue_.setInt_val(value.getInt_val());
+        }
+      } else if (value.isSetShort_val()) {
+        if (!lowValue_.isSetShort_val()
+            || value.getShort_val() < lowValue_.getShort_val()) {
+          lowValue_.setShort_val(value.getShort_val());
+        }
+      } else if (value.isSetLong_val()) {
+        if (!lowValue_.isSetLong_val()
+            || value.getLong_val() < lowValue_.getLong_val()) {
+          lowValue_.setLong_val(value.getLong_val());
+        }
+      }
+    }
+
+    private void updateHighValue(TColumnValue value) {
+      if (value.isSetDouble_val()) {
+        if (!highValue_.isSetDouble_val()
+            || value.getDouble_val() > highValue_.getDouble_val()) {
+          highValue_.setDouble_val(value.getDouble_val());
+        }
+      } else if (value.isSetByte_val()) {
+        if (!highValue_.isSetByte_val()
+            || value.getByte_val() > highValue_.getByte_val()) {
+          highValue_.setByte_val(value.getByte_val());
+        }
+      } else if (value.isSetInt_val()) {
+        if (!highValue_.isSetInt_val()
+            || value.getInt_val() > highValue_.getInt_val()) {
+          highValue_.setInt_val(value.getInt_val());
+        }
+      } else if (value.isSetShort_val()) {
+        if (!highValue_.isSetShort_val()
+            || value.getShort_val() > highValue_.getShort_val()) {
+          highValue_.setShort_val(value.getShort_val());
+        }
+      } else if (value.isSetLong_val()) {
+        if (!highValue_.isSetLong_val()
+            || value.getLong_val() > highValue_.getLong_val()) {
+          highValue_.setLong_val(value.getLong_val());
+        }
+      }
+    }
+
+    private TIntermediateColumnStats toThrift() {
+      TIntermediateColumnStats stats = new TIntermediateColumnStats();
+      byte[] encoded = encodeNdv(ndv_);
+      stats.setIntermediate_ndv(encoded != null ? encoded : ndv_.clone());
+      stats.setIs_ndv_encoded(encoded != null);
+      stats.setNum_nulls(numNulls_);
+      stats.setMax_width(maxWidth_);
+      stats.setAvg_width(numRows_ == 0 ? 0 : totalWidth_ / numRows_);
+      stats.setNum_rows(numRows_);
+      stats.setNum_trues(numTrues_);
+      stats.setNum_falses(numFalses_);
+      stats.setLow_value(lowValue_.deepCopy());
+      stats.setHigh_value(highValue_.deepCopy());
+      return stats;
+    }
+  }
+
+  // Names of the columns to merge, or null to merge all columns.
+  private final Set<String> columnNames_;
+
+  // Merged state of each column, keyed by column name.
+  private final Map<String, MergedColumnStats> columnStats_ = new HashMap<>();
+
+  // Sum of the row counts of the merged partitions.
+  private long numRows_ = 0;
+
+  // Number of TPartitionStats merged so far.
+  private int numMerged_ = 0;
+
+  /**
+   * Creates a merger that keeps the intermediate state of the columns in 'columnNames',
+   * or of all columns if 'columnNames' is null.
+   */
+  public PartitionStatsMerger(@Nullable Collection<String> columnNames) {
+    columnNames_ = columnNames == null ? null : new HashSet<>(columnNames);
+  }
+
+  /**
+   * Merges 'stats' into the result. 'stats' is not modified and may itself be the result
+   * of an earlier merge.
+   */
+  public void add(TPartitionStats stats) {
+    Preconditions.checkNotNull(stats);
+    ++numMerged_;
+    numRows_ += stats.getStats().getNum_rows();
+    if (!stats.isSetIntermediate_col_stats()) return;
+    for (Map.Entry<String, TIntermediateColumnStats> e:
+        stats.getIntermediate_col_stats().entrySet()) {
+      if (columnNames_ != null && !columnNames_.contains(e.getKey())) continue;
+      columnStats_.computeIfAbsent(e.getKey(), k -> new MergedColumnStats())
+          .add(e.getValue());
+    }
+  }
+
+  /**
+   * Returns the number of calls to add().
+   */
+  public int getNumMerged() { return numMerged_; }
+
+  /**
+   * Returns the merged statistics, or null if nothing was merged.
+   */
+  public TPartitionStats toThrift() {
+    if (numMerged_ == 0) return null;
+    TTableStats tableStats = new TTableStats();
+    tableStats.setNum_rows(numRows_);
+    TPartitionStats result = new TPartitionStats(tableStats);
+    Map<String, TIntermediateColumnStats> colStats =
+        new HashMap<>(columnStats_.size());
+    for (Map.Entry<String, MergedColumnStats> e: columnStats_.entrySet()) {
+      colStats.put(e.getKey(), e.getValue().toThrift());
+    }
+    result.setIntermediate_col_stats(colStats);
+    return result;
+  }
+
+  /**
+   * Run-length encodes the HLL registers in 'ndv' as (count - 1, value) byte pairs, the
+   * same way as EncodeNdv() in incr-stats-util.cc. Returns null if the encoded form would
+   * not be shorter than 'ndv'.
+   */
+  @VisibleForTesting
+  static byte[] encodeNdv(byte[] ndv) {
+    Preconditions.checkArgument(ndv.length == HLL_LEN);
+    byte[] encoded = new byte[HLL_LEN];
+    int idx = 0;
+    byte last = ndv[0];
+    int count = 0;
+    for (int i = 1; i < HLL_LEN; ++i) {
+      if (ndv[i] != last || count == 255) {
+        if (idx + 2 > HLL_LEN) return null;
+        encoded[idx++] = (byte) count;
+        encoded[idx++] = last;
+        count = 0;
+        last = ndv[i];
+      } else {
+        ++count;
+      }
+    }
+    if (idx + 2 > HLL_LEN) return null;
+    encoded[idx++] = (byte) count;
+    encoded[idx++] = last;
+    return Arrays.copyOf(encoded, idx);
+  }
+
+  /**
+   * Decodes the HLL registers in 'ndv', see encodeNdv(). Returns 'ndv' itself if it is
+   * not encoded.
+   */
+  @VisibleForTesting
+  static byte[] decodeNdv(byte[] ndv, boolean isEncoded) {
+    if (!isEncoded) return ndv;
+    Preconditions.checkArgument(ndv.length % 2 == 0);
+    byte[] decoded = new byte[HLL_LEN];
+    int idx = 0;
+    for (int i = 0; i < ndv.length; i += 2) {
+      int count = (ndv[i] & 0xff) + 1;
+      Preconditions.checkState(idx + count <= HLL_LEN, "Invalid encoded NDV");
+      Arrays.fill(decoded, idx, idx + count, ndv[i + 1]);
+      idx += count;
+    }
+    Preconditions.checkState(idx == HLL_LEN, "Invalid encoded NDV");
+    return decoded;
+  }
+}
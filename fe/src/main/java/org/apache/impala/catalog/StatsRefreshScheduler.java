@@ -0,0 +1,493 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.apache.hadoop.hive.common.StatsSetupConst;
+import org.apache.impala.analysis.TableName;
+import org.apache.impala.analysis.ToSqlUtils;
+import org.apache.impala.compat.MetastoreShim;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.thrift.TErrorCode;
+import org.apache.impala.thrift.TGetNextStatsRefreshRequest;
+import org.apache.impala.thrift.TGetNextStatsRefreshResponse;
+import org.apache.impala.thrift.TInsertedFile;
+import org.apache.impala.thrift.TStatus;
+import org.apache.impala.thrift.TUpdatedPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+
+/**
+ * Schedules automatic COMPUTE INCREMENTAL STATS runs for tables whose data changed a lot
+ * since their stats were computed.
+ *
+ * Catalogd records the rows and bytes added to a table by INSERT statements (see
+ * CatalogOpExecutor.updateCatalog()) and by inserts of other engines that are reported
+ * through HMS INSERT events. Once the changed fraction of the table exceeds
+ * --auto_stats_refresh_change_ratio, the table is queued for a stats refresh of the
+ * changed partitions. Only tables that already have stats are tracked.
+ *
+ * Catalogd cannot run queries, so the refreshes are run by coordinators that poll the
+ * queue with the GetNextStatsRefresh RPC, see --auto_stats_refresh_poll_interval_s. The
+ * queue hands out at most one refresh at a time across the cluster and waits at least
+ * --auto_stats_refresh_min_interval_s between two refreshes. A refresh is complete
+ * once the stats of the table are updated; any stats update of a table resets its
+ * change counters. Coordinators report the result of each refresh with their next
+ * request. A failed refresh leaves the table queued, and a table is dropped from the
+ * queue after MAX_CONSECUTIVE_FAILURES failed refreshes in a row. The state of a table
+ * is shown on its /table_metrics page.
+ */
+public class StatsRefreshScheduler {
+  private final static Logger LOG = LoggerFactory.getLogger(StatsRefreshScheduler.class);
+
+  // Maximum number of partitions refreshed by a single COMPUTE INCREMENTAL STATS
+  // statement. The remaining partitions are refreshed by the next run.
+  @VisibleForTesting
+  static final int MAX_PARTITIONS_PER_REFRESH = 100;
+
+  // A refresh that did not update the stats of its table within this time is assumed to
+  // have failed, so that the next refresh can start.
+  @VisibleForTesting
+  static final long REFRESH_TIMEOUT_MS = TimeUnit.HOURS.toMillis(1);
+
+  // Number of failed refreshes in a row after which a table is no longer refreshed until
+  // it changes again.
+  @VisibleForTesting
+  static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+  /**
+   * The changes of a table since its stats were last updated.
+   */
+  private static class TableState {
+    private long rowsAdded_ = 0;
+    private long bytesAdded_ = 0;
+    // Names of the changed partitions that still need a refresh.
+    private final Set<String> pendingPartitions_ = new LinkedHashSet<>();
+    // Time when the table was queued, -1 if it is not queued.
+    private long queuedMs_ = -1;
+    // Partitions of the refresh that is running, null if none is running.
+    private List<String> runningPartitions_;
+    private long lastStartedMs_ = -1;
+    private long lastCompletedMs_ = -1;
+    private String lastStmt_;
+    private int numConsecutiveFailures_ = 0;
+    private long lastFailedMs_ = -1;
+    private String lastError_;
+  }
+
+  private final CatalogServiceCatalog catalog_;
+
+  // Map from the lower case full table name to the state of the table. Protected by
+  // 'this'.
+  private final Map<String, TableState> tables_ = new HashMap<>();
+
+  // Full names of the queued tables in the order in which they were queued.
+  private final Set<String> queue_ = new LinkedHashSet<>();
+
+  // Table whose refresh was handed out last and did not complete yet, or null.
+  private String runningTable_;
+  private long lastStartedMs_ = -1;
+
+  public StatsRefreshScheduler(CatalogServiceCatalog catalog) {
+    catalog_ = Preconditions.checkNotNull(catalog);
+  }
+
+  private static boolean isEnabled() {
+    return BackendConfig.INSTANCE != null
+        && BackendConfig.INSTANCE.getAutoStatsRefreshChangeRatio() > 0;
+  }
+
+  /**
+   * Records the rows and bytes added by an INSERT into 'table' that changed
+   * 'updatedPartitions'. The caller must hold the lock of 'table'.
+   */
+  public void recordInsert(FeFsTable table,
+      Map<String, TUpdatedPartition> updatedPartitions) {
+    if (!isEnabled()) return;
+    long rowsAdded = 0;
+    long bytesAdded = 0;
+    for (TUpdatedPartition partition : updatedPartitions.values()) {
+      if (partition.isSetNum_modified_rows()) rowsAdded += partition.num_modified_rows;
+      if (!partition.isSetInserted_files()) continue;
+      for (TInsertedFile file : partition.inserted_files) {
+        if (file.isSetSize()) bytesAdded += file.size;
+      }
+    }
+    List<String> partNames = new ArrayList<>();
+    if (table.getNumClusteringCols() > 0) partNames.addAll(updatedPartitions.keySet());
+    recordChange(table, partNames, rowsAdded, bytesAdded,
+        BackendConfig.INSTANCE.getAutoStatsRefreshChangeRatio(),
+        System.currentTimeMillis());
+  }
+
+  /**
+   * Records an insert into table 'dbName'.'tblName' by another engine, reported by an
+   * HMS INSERT event. 'partValues' holds the values of the changed partitions, null if
+   * they are not known. The number of added rows is not known, so the change is
+   * measured by the bytes added since the last stats update.
+   */
+  public void recordExternalInsert(String dbName, String tblName,
+      @Nullable List<List<String>> partValues) {
+    if (!isEnabled()) return;
+    Table table = catalog_.getTableNoThrow(dbName, tblName);
+    if (!(table instanceof FeFsTable)) return;
+    table.takeReadLock();
+    try {
+      List<String> partNames = new ArrayList<>();
+      if (partValues != null && table instanceof HdfsTable
+          && table.getNumClusteringCols() > 0) {
+        List<String> partCols = ((HdfsTable) table).getClusteringColNames();
+        for (List<String> values : partValues) {
+          partNames.add(MetastoreShim.makePartName(partCols, values));
+        }
+      }
+      recordChange((FeFsTable) table, partNames, 0, 0,
+          BackendConfig.INSTANCE.getAutoStatsRefreshChangeRatio(),
+          System.currentTimeMillis());
+    } finally {
+      table.releaseReadLock();
+    }
+  }
+
+  /**
+   * Adds the changes to the state of 'table' and queues the table if the changed
+   * fraction reaches 'minRatio'.
+   */
+  @VisibleForTesting
+  synchronized void recordChange(FeFsTable table, Collection<String> partNames,
+      long rowsAdded, long bytesAdded, double minRatio, long nowMs) {
+    long numRows = table.getNumRows();
+    // Tables without stats are left alone.
+    if (numRows < 0) return;
+    String key = getKey(table.getDb().getName(), table.getName());
+    TableState state = tables_.computeIfAbsent(key, k -> new TableState());
+    state.rowsAdded_ += Math.max(0, rowsAdded);
+    state.bytesAdded_ += Math.max(0, bytesAdded);
+    state.pendingPartitions_.addAll(partNames);
+    if (state.queuedMs_ >= 0) return;
+
+    long statsBytes = getStatsBytes(table);
+    long bytesChanged = state.bytesAdded_;
+    if (statsBytes >= 0) {
+      bytesChanged = Math.max(bytesChanged, table.getTotalHdfsBytes() - statsBytes);
+    }
+    double ratio = getChangeRatio(numRows, state.rowsAdded_, statsBytes, bytesChanged);
+    if (ratio < minRatio) return;
+    state.queuedMs_ = nowMs;
+    queue_.add(key);
+    LOG.info("Queued automatic stats refresh of {}: {} rows and {} bytes added, " +
+        "change ratio {}", table.getFullName(), state.rowsAdded_, bytesChanged, ratio);
+  }
+
+  /**
+   * Returns the fraction of a table with 'numRows' rows and 'statsBytes' bytes at the
+   * time of its last stats update that changed since then. Either size may be unknown
+   * (-1).
+   */
+  @VisibleForTesting
+  static double getChangeRatio(long numRows, long rowsAdded, long statsBytes,
+      long bytesAdded) {
+    double ratio = 0;
+    if (rowsAdded > 0) {
+      ratio = numRows > 0 ? (double) rowsAdded / numRows : Double.POSITIVE_INFINITY;
+    }
+    if (bytesAdded > 0 && statsBytes >= 0) {
+      ratio = Math.max(ratio,
+          statsBytes > 0 ? (double) bytesAdded / statsBytes : Double.POSITIVE_INFINITY);
+    }
+    return ratio;
+  }
+
+  /**
+   * Returns the total file size recorded by the last COMPUTE STATS of 'table', or -1 if
+   * it is not known.
+   */
+  private static long getStatsBytes(FeFsTable table) {
+    Map<String, String> params = table.getMetaStoreTable() != null ?
+        table.getMetaStoreTable().getParameters() : null;
+    if (params == null) return -1;
+    try {
+      String totalSize = params.get(StatsSetupConst.TOTAL_SIZE);
+      return totalSize == null ? -1 : Long.parseLong(totalSize);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Records the result of the refresh reported in 'request', if any, and returns the
+   * next stats refresh to run, if there is one and the rate limit allows it. Tables that
+   * were dropped, lost their stats or cannot be read right now are skipped.
+   */
+  public TGetNextStatsRefreshResponse getNextRefresh(
+      TGetNextStatsRefreshRequest request) {
+    TGetNextStatsRefreshResponse response = new TGetNextStatsRefreshResponse();
+    if (request.isSetFinished_stmt()) {
+      Preconditions.checkState(request.isSetFinished_status());
+      TStatus status = request.getFinished_status();
+      String error = status.getStatus_code() == TErrorCode.OK ? null :
+          Joiner.on("\n").join(status.getError_msgs());
+      onRefreshFinished(request.getFinished_stmt(), error, System.currentTimeMillis());
+    }
+    if (!isEnabled()) return response;
+    String stmt = getNextRefreshStmt(System.currentTimeMillis(),
+        TimeUnit.SECONDS.toMillis(
+            BackendConfig.INSTANCE.getAutoStatsRefreshMinIntervalS()));
+    if (stmt != null) response.setCompute_stats_stmt(stmt);
+    return response;
+  }
+
+  @VisibleForTesting
+  synchronized String getNextRefreshStmt(long nowMs, long minIntervalMs) {
+    if (runningTable_ != null) {
+      if (nowMs - lastStartedMs_ < REFRESH_TIMEOUT_MS) return null;
+      failRunningRefresh("did not complete in time", nowMs);
+    }
+    if (lastStartedMs_ >= 0 && nowMs - lastStartedMs_ < minIntervalMs) return null;
+
+    List<String> skipped = new ArrayList<>();
+    String stmt = null;
+    for (String key : queue_) {
+      TableState state = tables_.get(key);
+      TableName tblName = TableName.parse(key);
+      Table table = catalog_.getTableNoThrow(tblName.getDb(), tblName.getTbl());
+      if (!(table instanceof FeFsTable)) {
+        // The table was dropped or invalidated.
+        skipped.add(key);
+        continue;
+      }
+      // Don't wait for the lock while holding the lock of the scheduler.
+      if (!table.tryReadLock()) continue;
+      try {
+        if (table.getNumRows() < 0) {
+          skipped.add(key);
+          continue;
+        }
+        state.runningPartitions_ = new ArrayList<>();
+        stmt = getComputeStatsStmt((FeFsTable) table, state.pendingPartitions_,
+            state.runningPartitions_);
+      } finally {
+        table.releaseReadLock();
+      }
+      runningTable_ = key;
+      lastStartedMs_ = nowMs;
+      state.lastStartedMs_ = nowMs;
+      state.lastStmt_ = stmt;
+      LOG.info("Starting automatic stats refresh: {}", stmt);
+      break;
+    }
+    for (String key : skipped) forget(key);
+    return stmt;
+  }
+
+  /**
+   * Returns the statement that refreshes the stats of up to MAX_PARTITIONS_PER_REFRESH
+   * of the 'pendingPartitions' of 'table' and adds the names of these partitions to
+   * 'refreshedPartitions'. Refreshes the whole table if none of the pending partitions
+   * exists, or if not all partitions have incremental stats.
+   */
+  @VisibleForTesting
+  static String getComputeStatsStmt(FeFsTable table,
+      Collection<String> pendingPartitions, List<String> refreshedPartitions) {
+    String tblSql = ToSqlUtils.getIdentSql(table.getDb().getName()) + "."
+        + ToSqlUtils.getIdentSql(table.getName());
+    // COMPUTE INCREMENTAL STATS is not supported for Iceberg tables.
+    if (table instanceof FeIcebergTable) return "COMPUTE STATS " + tblSql;
+    String stmt = "COMPUTE INCREMENTAL STATS " + tblSql;
+    if (table.getNumClusteringCols() == 0 || !(table instanceof HdfsTable)) return stmt;
+    if (!hasIncrementalStats((HdfsTable) table)) {
+      // COMPUTE INCREMENTAL STATS of some partitions only merges the partitions that
+      // have incremental stats into the table stats. If the stats were computed by
+      // COMPUTE STATS, the table stats would shrink to the refreshed partitions.
+      refreshedPartitions.addAll(pendingPartitions);
+      return "COMPUTE STATS " + tblSql;
+    }
+    List<String> names = new ArrayList<>();
+    for (String name : pendingPartitions) {
+      if (names.size() == MAX_PARTITIONS_PER_REFRESH) break;
+      names.add(name);
+    }
+    List<String> conjuncts = new ArrayList<>();
+    for (HdfsPartition partition : ((HdfsTable) table).getPartitionsForNames(names)) {
+      conjuncts.add(partition.getConjunctSql());
+    }
+    refreshedPartitions.addAll(names);
+    if (conjuncts.isEmpty()) return stmt;
+    return stmt + " PARTITION (" + Joiner.on(" OR ").join(conjuncts) + ")";
+  }
+
+  /**
+   * Returns true if all partitions of 'table' have incremental stats.
+   */
+  private static boolean hasIncrementalStats(HdfsTable table) {
+    for (PrunablePartition partition : table.getPartitions()) {
+      if (!((HdfsPartition) partition).hasIncrementalStats()) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Called after the stats of table 'dbName'.'tblName' were updated, either by an
+   * automatic refresh or by a statement of a user. Resets the change counters of the
+   * table and completes a running refresh of the table. Partitions that were left over
+   * by the refresh stay queued.
+   */
+  public synchronized void onStatsUpdated(String dbName, String tblName) {
+    String key = getKey(dbName, tblName);
+    TableState state = tables_.get(key);
+    if (state == null) return;
+    state.rowsAdded_ = 0;
+    state.bytesAdded_ = 0;
+    if (key.equals(runningTable_)) {
+      completeRunningRefresh(System.currentTimeMillis());
+    } else {
+      state.pendingPartitions_.clear();
+      state.queuedMs_ = -1;
+      queue_.remove(key);
+    }
+  }
+
+  /**
+   * Called when a coordinator finished running refresh 'stmt'. 'error' is null if the
+   * refresh succeeded. Completes or fails the running refresh if it is the one that
+   * finished; reports of refreshes that were already completed by a stats update or
+   * given up are ignored.
+   */
+  @VisibleForTesting
+  synchronized void onRefreshFinished(String stmt, @Nullable String error, long nowMs) {
+    if (runningTable_ == null) return;
+    TableState state = tables_.get(runningTable_);
+    if (state == null || !stmt.equals(state.lastStmt_)) return;
+    if (error == null) {
+      completeRunningRefresh(nowMs);
+    } else {
+      failRunningRefresh("failed: " + error, nowMs);
+    }
+  }
+
+  /**
+   * Completes the running refresh. Partitions that were left over by the refresh stay
+   * queued.
+   */
+  private void completeRunningRefresh(long nowMs) {
+    Preconditions.checkState(Thread.holdsLock(this));
+    String key = Preconditions.checkNotNull(runningTable_);
+    runningTable_ = null;
+    TableState state = tables_.get(key);
+    if (state == null) return;
+    if (state.runningPartitions_ != null) {
+      state.pendingPartitions_.removeAll(state.runningPartitions_);
+    }
+    state.runningPartitions_ = null;
+    state.lastCompletedMs_ = nowMs;
+    state.numConsecutiveFailures_ = 0;
+    if (state.pendingPartitions_.isEmpty()) {
+      state.queuedMs_ = -1;
+      queue_.remove(key);
+    }
+  }
+
+  /**
+   * Gives up the running refresh, so that the next refresh can start. The table stays
+   * queued unless it failed MAX_CONSECUTIVE_FAILURES times in a row.
+   */
+  private void failRunningRefresh(String reason, long nowMs) {
+    Preconditions.checkState(Thread.holdsLock(this));
+    String key = Preconditions.checkNotNull(runningTable_);
+    LOG.warn("Automatic stats refresh of {} {}", key, reason);
+    runningTable_ = null;
+    TableState state = tables_.get(key);
+    if (state == null) return;
+    state.runningPartitions_ = null;
+    state.lastFailedMs_ = nowMs;
+    state.lastError_ = reason;
+    if (++state.numConsecutiveFailures_ >= MAX_CONSECUTIVE_FAILURES) {
+      LOG.warn("Giving up automatic stats refreshes of {} after {} failures", key,
+          state.numConsecutiveFailures_);
+      state.numConsecutiveFailures_ = 0;
+      forget(key);
+    }
+  }
+
+  private void forget(String key) {
+    Preconditions.checkState(Thread.holdsLock(this));
+    TableState state = tables_.get(key);
+    queue_.remove(key);
+    if (state != null && state.lastStartedMs_ < 0) {
+      tables_.remove(key);
+    } else if (state != null) {
+      state.queuedMs_ = -1;
+      state.pendingPartitions_.clear();
+    }
+  }
+
+  /**
+   * Returns a description of the automatic stats refresh state of the table for the
+   * /table_metrics page, or an empty string if there is none.
+   */
+  public synchronized String getTableSummary(String dbName, String tblName) {
+    TableState state = tables_.get(getKey(dbName, tblName));
+    if (state == null) return "";
+    StringBuilder sb = new StringBuilder("\nAutomatic stats refresh:\n");
+    sb.append("  rows added: ").append(state.rowsAdded_).append("\n");
+    sb.append("  bytes added: ").append(state.bytesAdded_).append("\n");
+    sb.append("  pending partitions: ").append(state.pendingPartitions_.size())
+        .append("\n");
+    sb.append("  queued since: ").append(formatTime(state.queuedMs_)).append("\n");
+    sb.append("  running: ").append(state.runningPartitions_ != null).append("\n");
+    sb.append("  last started: ").append(formatTime(state.lastStartedMs_)).append("\n");
+    sb.append("  last completed: ").append(formatTime(state.lastCompletedMs_))
+        .append("\n");
+    sb.append("  last failed: ").append(formatTime(state.lastFailedMs_)).append("\n");
+    if (state.lastError_ != null) {
+      sb.append("  last error: ").append(state.lastError_).append("\n");
+    }
+    if (state.lastStmt_ != null) {
+      sb.append("  last statement: ").append(state.lastStmt_).append("\n");
+    }
+    return sb.toString();
+  }
+
+  private static String formatTime(long ms) {
+    return ms < 0 ? "-" : new java.util.Date(ms).toString();
+  }
+
+  private static String getKey(String dbName, String tblName) {
+    return (dbName + "." + tblName).toLowerCase();
+  }
+
+  @VisibleForTesting
+  synchronized boolean isQueued(String dbName, String tblName) {
+    return queue_.contains(getKey(dbName, tblName));
+  }
+}
@@ -1639,8 +1639,12 @@ public class MetastoreEvents {
 
       if (insertPartition_ != null) {
         processPartitionInserts();
+        catalog_.getStatsRefreshScheduler().recordExternalInsert(dbName_, tblName_,
+            Collections.singletonList(insertPartition_.getValues()));
       } else {
         processTableInserts();
+        catalog_.getStatsRefreshScheduler().recordExternalInsert(dbName_, tblName_,
+            null);
       }
     }
 
@@ -2851,6 +2855,10 @@ public class MetastoreEvents {
             // are reflected in HdfsPartition
             reloadPartitions(partitions, FileMetadataLoadOpts.FORCE_LOAD,
                 getEventType().toString() + " event", true);
+            List<List<String>> partValues = new ArrayList<>();
+            for (Partition partition : partitions) partValues.add(partition.getValues());
+            catalog_.getStatsRefreshScheduler().recordExternalInsert(dbName_, tblName_,
+                partValues);
           } else {
             if (!partitionEventsToForceReload.isEmpty()) {
               // force reload truncated partitions
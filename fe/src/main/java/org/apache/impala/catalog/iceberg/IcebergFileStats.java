@@ -0,0 +1,184 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog.iceberg;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.iceberg.ContentFile;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.impala.service.BackendConfig;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Statistics about the data and delete files of an Iceberg table, used by catalogd to
+ * tell when merge-on-read overhead or small files hurt scans of the table and it
+ * should be compacted with OPTIMIZE. The statistics are computed from the
+ * GroupedContentFiles when the table is loaded and are exposed as table metrics, see
+ * IcebergTable.initMetrics().
+ *
+ * Partitions are grouped the same way as in IcebergOptimizeFileFilter, and a partition
+ * is counted as one that compaction would rewrite if it has delete files or at least
+ * two small data files.
+ */
+public class IcebergFileStats {
+  // Used if BackendConfig is not initialized, e.g. in some tests.
+  private static final int DEFAULT_SMALL_FILE_MB = 32;
+  private static final double DEFAULT_SMALL_FILE_RATIO = 0.5;
+  private static final double DEFAULT_DELETE_RATIO = 0.1;
+
+  // Per-partition file counts.
+  private static class PartitionStats {
+    long numSmallDataFiles = 0;
+    long numDeleteFiles = 0;
+  }
+
+  private long numDataFiles_ = 0;
+  private long numSmallDataFiles_ = 0;
+  private long dataFileBytes_ = 0;
+  private long numDataRecords_ = 0;
+  private long numDataFilesWithDeletes_ = 0;
+  private long numPositionDeleteFiles_ = 0;
+  private long numPositionDeleteRecords_ = 0;
+  private long numEqualityDeleteFiles_ = 0;
+  private long numEqualityDeleteRecords_ = 0;
+  private long numPartitions_ = 0;
+  // Number of partitions with at least two small data files.
+  private long numFragmentedPartitions_ = 0;
+  // Number of partitions with delete files or at least two small data files.
+  private long numPartitionsToCompact_ = 0;
+
+  public IcebergFileStats(GroupedContentFiles files) {
+    this(files, getSmallFileBytes());
+  }
+
+  @VisibleForTesting
+  IcebergFileStats(GroupedContentFiles files, long smallFileBytes) {
+    Map<Integer, PartitionStats> partitions = new HashMap<>();
+    for (DataFile dataFile : files.dataFilesWithoutDeletes) {
+      addDataFile(dataFile, smallFileBytes, partitions);
+    }
+    for (DataFile dataFile : files.dataFilesWithDeletes) {
+      addDataFile(dataFile, smallFileBytes, partitions);
+      ++numDataFilesWithDeletes_;
+    }
+    for (DeleteFile deleteFile : files.positionDeleteFiles) {
+      ++numPositionDeleteFiles_;
+      numPositionDeleteRecords_ += deleteFile.recordCount();
+      getPartition(deleteFile, partitions).numDeleteFiles++;
+    }
+    for (DeleteFile deleteFile : files.equalityDeleteFiles) {
+      ++numEqualityDeleteFiles_;
+      numEqualityDeleteRecords_ += deleteFile.recordCount();
+      getPartition(deleteFile, partitions).numDeleteFiles++;
+    }
+    numPartitions_ = partitions.size();
+    for (PartitionStats partition : partitions.values()) {
+      boolean isFragmented = partition.numSmallDataFiles > 1;
+      if (isFragmented) ++numFragmentedPartitions_;
+      if (isFragmented || partition.numDeleteFiles > 0) ++numPartitionsToCompact_;
+    }
+  }
+
+  private void addDataFile(DataFile dataFile, long smallFileBytes,
+      Map<Integer, PartitionStats> partitions) {
+    ++numDataFiles_;
+    dataFileBytes_ += dataFile.fileSizeInBytes();
+    numDataRecords_ += dataFile.recordCount();
+    PartitionStats partition = getPartition(dataFile, partitions);
+    if (dataFile.fileSizeInBytes() < smallFileBytes) {
+      ++numSmallDataFiles_;
+      ++partition.numSmallDataFiles;
+    }
+  }
+
+  private static PartitionStats getPartition(ContentFile<?> file,
+      Map<Integer, PartitionStats> partitions) {
+    return partitions.computeIfAbsent(
+        file.partition().hashCode(), k -> new PartitionStats());
+  }
+
+  private static long getSmallFileBytes() {
+    int smallFileMb = BackendConfig.INSTANCE != null ?
+        BackendConfig.INSTANCE.getIcebergCompactionSmallFileMb() : DEFAULT_SMALL_FILE_MB;
+    return smallFileMb * 1024L * 1024L;
+  }
+
+  public long getNumDataFiles() { return numDataFiles_; }
+  public long getNumSmallDataFiles() { return numSmallDataFiles_; }
+  public long getDataFileBytes() { return dataFileBytes_; }
+  public long getNumDataFilesWithDeletes() { return numDataFilesWithDeletes_; }
+  public long getNumPositionDeleteFiles() { return numPositionDeleteFiles_; }
+  public long getNumEqualityDeleteFiles() { return numEqualityDeleteFiles_; }
+  public long getNumPartitions() { return numPartitions_; }
+  public long getNumFragmentedPartitions() { return numFragmentedPartitions_; }
+  public long getNumPartitionsToCompact() { return numPartitionsToCompact_; }
+
+  /**
+   * Returns the fraction of the data files that are small.
+   */
+  public double getSmallFileRatio() {
+    if (numDataFiles_ == 0) return 0;
+    return (double) numSmallDataFiles_ / numDataFiles_;
+  }
+
+  /**
+   * Returns the number of rows in delete files relative to the number of rows in data
+   * files. This is an upper bound of the fraction of deleted rows, as the same row may
+   * be deleted more than once.
+   */
+  public double getDeleteRatio() {
+    long numDeleteRecords = numPositionDeleteRecords_ + numEqualityDeleteRecords_;
+    if (numDeleteRecords == 0) return 0;
+    if (numDataRecords_ == 0) return 1;
+    return (double) numDeleteRecords / numDataRecords_;
+  }
+
+  /**
+   * Returns the reason why the table should be compacted with OPTIMIZE according to
+   * the thresholds set by the --iceberg_compaction_* flags, or null if it need not be.
+   */
+  public String getCompactionReason() {
+    double smallFileRatio = BackendConfig.INSTANCE != null ?
+        BackendConfig.INSTANCE.getIcebergCompactionSmallFileRatio() :
+        DEFAULT_SMALL_FILE_RATIO;
+    double deleteRatio = BackendConfig.INSTANCE != null ?
+        BackendConfig.INSTANCE.getIcebergCompactionDeleteRatio() :
+        DEFAULT_DELETE_RATIO;
+    return getCompactionReason(smallFileRatio, deleteRatio);
+  }
+
+  @VisibleForTesting
+  String getCompactionReason(double smallFileRatioThreshold,
+      double deleteRatioThreshold) {
+    if (deleteRatioThreshold > 0 && getDeleteRatio() >= deleteRatioThreshold) {
+      return String.format("%d position and %d equality delete records for %d data " +
+          "records in %d data files", numPositionDeleteRecords_,
+          numEqualityDeleteRecords_, numDataRecords_, numDataFilesWithDeletes_);
+    }
+    if (smallFileRatioThreshold > 0 && numFragmentedPartitions_ > 0 &&
+        getSmallFileRatio() >= smallFileRatioThreshold) {
+      return String.format("%d of %d data files are small, %d of %d partitions " +
+          "have more than one small data file", numSmallDataFiles_, numDataFiles_,
+          numFragmentedPartitions_, numPartitions_);
+    }
+    return null;
+  }
+}
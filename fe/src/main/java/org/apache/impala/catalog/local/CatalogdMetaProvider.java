@@ -77,6 +77,7 @@ import org.apache.impala.catalog.local.LocalIcebergTable.TableParams;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.common.Pair;
 import org.apache.impala.common.PrintUtils;
+import org.apache.impala.hive.executor.UdfClassLoaderCache;
 import org.apache.impala.service.BackendConfig;
 import org.apache.impala.service.FeSupport;
 import org.apache.impala.service.FrontendProfile;
@@ -1656,6 +1657,9 @@ public class CatalogdMetaProvider implements MetaProvider {
         // the libcache entry for this case, just mark it as needs refresh. LibCache will
         // refresh the cached file if its mtime changes in HDFS.
         FeSupport.NativeLibCacheSetNeedsRefresh(obj.fn.hdfs_location);
+        // Unlike the LibCache entry, a cached class loader of the jar cannot be
+        // refreshed, so drop it. Executors that still use it keep their class.
+        UdfClassLoaderCache.INSTANCE.invalidate(obj.fn.hdfs_location);
       }
       break;
     case DATABASE:
@@ -17,6 +17,7 @@
 
 package org.apache.impala.catalog.local;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -284,8 +285,8 @@ public class LocalCatalog implements FeCatalog {
   }
 
   @Override
-  public TGetPartitionStatsResponse getPartitionStats(
-      TableName table) throws InternalException {
+  public TGetPartitionStatsResponse getPartitionStats(TableName table,
+      Collection<String> partitionNames) throws InternalException {
     // TODO(IMPALA-7535) lazy-fetch incremental stats for LocalCatalog
     throw new UnsupportedOperationException("Stats are eagerly fetched in LocalCatalog");
   }
@@ -18,10 +18,12 @@
 package org.apache.impala.extdatasource.jdbc;
 
 import java.sql.Connection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang.StringUtils;
@@ -29,15 +31,18 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.impala.extdatasource.jdbc.conf.JdbcStorageConfig;
 import org.apache.impala.extdatasource.jdbc.conf.JdbcStorageConfigManager;
 import org.apache.impala.extdatasource.jdbc.dao.DatabaseAccessor;
+import org.apache.impala.extdatasource.jdbc.dao.DatabaseAccessor.ColumnRange;
 import org.apache.impala.extdatasource.jdbc.dao.DatabaseAccessorFactory;
 import org.apache.impala.extdatasource.jdbc.dao.JdbcRecordIterator;
 import org.apache.impala.extdatasource.jdbc.exception.JdbcDatabaseAccessException;
 import org.apache.impala.extdatasource.jdbc.util.QueryConditionUtil;
+import org.apache.impala.extdatasource.jdbc.util.QuerySplitUtil;
+import org.apache.impala.extdatasource.thrift.TAggregateExpr;
+import org.apache.impala.extdatasource.thrift.TAggregateFunction;
 import org.apache.impala.extdatasource.thrift.TBinaryPredicate;
 import org.apache.impala.extdatasource.thrift.TCloseParams;
 import org.apache.impala.extdatasource.thrift.TCloseResult;
 import org.apache.impala.extdatasource.thrift.TColumnDesc;
-import org.apache.impala.extdatasource.thrift.TComparisonOp;
 import org.apache.impala.extdatasource.thrift.TGetNextParams;
 import org.apache.impala.extdatasource.thrift.TGetNextResult;
 import org.apache.impala.extdatasource.thrift.TOpenParams;
@@ -56,7 +61,11 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -68,6 +77,21 @@ public class JdbcDataSource implements ExternalDataSource {
 
   private final static Logger LOG = LoggerFactory.getLogger(JdbcDataSource.class);
 
+  // Maximum number of entries and time to live of columnRangeCache_.
+  private static final int COLUMN_RANGE_CACHE_SIZE = 1000;
+  private static final int COLUMN_RANGE_CACHE_TTL_MIN = 10;
+
+  // Ranges of the partition columns queried from the databases by computeSplits(),
+  // keyed by the database URL, the user, the query of the table and the column. They
+  // save a MIN/MAX query on the table each time a query on it is planned. Outdated
+  // ranges result in uneven splits but not in wrong results, since the first and the
+  // last split are open-ended.
+  private static final Cache<String, ColumnRange> columnRangeCache_ =
+      CacheBuilder.newBuilder()
+          .maximumSize(COLUMN_RANGE_CACHE_SIZE)
+          .expireAfterWrite(COLUMN_RANGE_CACHE_TTL_MIN, TimeUnit.MINUTES)
+          .build();
+
   private static final TStatus STATUS_OK =
           new TStatus(TErrorCode.OK, Lists.newArrayList());
 
@@ -129,11 +153,82 @@ public class JdbcDataSource implements ExternalDataSource {
           new TStatus(TErrorCode.JDBC_CONFIGURATION_ERROR,
               Lists.newArrayList("Invalid init_string value")));
     }
-    List<Integer> acceptedPredicates = acceptedPredicates(params.getPredicates());
-    return new TPrepareResult(STATUS_OK)
-            .setAccepted_conjuncts(acceptedPredicates);
+    // Like open(), honor the query option when closing the accessor, so that the
+    // queries for the range of the split column do not drop a cached DBCP DataSource.
+    if (params.isSetClean_dbcp_ds_cache()) {
+      cleanDbcpDSCache_ = params.isClean_dbcp_ds_cache();
+    }
+    DatabaseAccessor dbAccessor = DatabaseAccessorFactory.getAccessor(tableConfig_);
+    try {
+      List<Integer> acceptedPredicates =
+          acceptedPredicates(params.getPredicates(), dbAccessor);
+      TPrepareResult result = new TPrepareResult(STATUS_OK)
+              .setAccepted_conjuncts(acceptedPredicates);
+      // The aggregation can only be computed by the database if it also applies all
+      // predicates.
+      if (params.isSetAggregation() && dbAccessor.supportsAggregation()
+          && acceptedPredicates.size() == params.getPredicatesSize()) {
+        result.setAccepted_aggregation(true);
+      }
+      List<String> splits = computeSplits(dbAccessor);
+      if (!splits.isEmpty()) result.setSplits(splits);
+      return result;
+    } finally {
+      dbAccessor.close(null, cleanDbcpDSCache_);
+    }
+  }
+
+  /**
+   * Returns the conditions that split the scan into ranges of the partition column
+   * configured for the table, or an empty list if the scan should not be split. Errors
+   * are logged and result in a scan that is not split.
+   */
+  private List<String> computeSplits(DatabaseAccessor dbAccessor) {
+    String column =
+        tableConfig_.get(JdbcStorageConfig.PARTITION_COLUMN.getPropertyName());
+    int numSplits = tableConfig_.getInt(
+        JdbcStorageConfig.NUM_PARTITIONS.getPropertyName(), 1);
+    if (StringUtils.isBlank(column) || numSplits <= 1) return Collections.emptyList();
+    // The column is an Impala column, it is mapped and quoted like in the predicates.
+    Map<String, String> columnMapping = getColumnMapping(tableConfig_
+        .get(JdbcStorageConfig.COLUMN_MAPPING.getPropertyName()), dbAccessor);
+    String jdbcColumn = columnMapping.getOrDefault(column.trim(), column.trim());
+    try {
+      ColumnRange range = QuerySplitUtil.parseBounds(
+          tableConfig_.get(JdbcStorageConfig.PARTITION_LOWER_BOUND.getPropertyName()),
+          tableConfig_.get(JdbcStorageConfig.PARTITION_UPPER_BOUND.getPropertyName()));
+      if (range == null) range = getColumnRange(dbAccessor, jdbcColumn);
+      List<String> splits =
+          QuerySplitUtil.buildSplitConditions(jdbcColumn, range, numSplits, dbAccessor);
+      LOG.trace("JDBC splits: " + splits);
+      return splits;
+    } catch (JdbcDatabaseAccessException | IllegalArgumentException e) {
+      LOG.warn("Unable to split the scan on column " + column, e);
+      return Collections.emptyList();
+    }
   }
 
+  /**
+   * Returns the range of the values of 'jdbcColumn', from columnRangeCache_ if it was
+   * queried from the database recently. Returns null if the range cannot be used to
+   * split the scan.
+   */
+  private ColumnRange getColumnRange(DatabaseAccessor dbAccessor, String jdbcColumn)
+      throws JdbcDatabaseAccessException {
+    String key = Joiner.on('\0').useForNull("").join(
+        tableConfig_.get(JdbcStorageConfig.JDBC_URL.getPropertyName()),
+        tableConfig_.get(JdbcStorageConfig.DBCP_USERNAME.getPropertyName()),
+        JdbcStorageConfigManager.getQueryToExecute(tableConfig_), jdbcColumn);
+    ColumnRange range = columnRangeCache_.getIfPresent(key);
+    if (range != null) return range;
+    range = dbAccessor.getColumnRange(tableConfig_, jdbcColumn);
+    if (range != null) columnRangeCache_.put(key, range);
+    return range;
+  }
+
+  @VisibleForTesting
+  static long getNumCachedColumnRanges() { return columnRangeCache_.size(); }
+
   @Override
   public TOpenResult open(TOpenParams params) {
     Preconditions.checkState(state_ == DataSourceState.CREATED);
@@ -181,9 +276,7 @@ public class JdbcDataSource implements ExternalDataSource {
             new TStatus(TErrorCode.RUNTIME_ERROR,
                 Lists.newArrayList("Iterator of JDBC resultset is null")));
       }
-      for (int i = 0; i < schema_.getColsSize(); ++i) {
-        cols.add(new TColumnData().setIs_null(Lists.newArrayList()));
-      }
+      cols = JdbcRecordIterator.createColumnData(schema_.getCols(), batchSize_);
 
       boolean hasNext = true;
       try {
@@ -275,7 +368,8 @@ public class JdbcDataSource implements ExternalDataSource {
     return true;
   }
 
-  private List<Integer> acceptedPredicates(List<List<TBinaryPredicate>> predicates) {
+  private List<Integer> acceptedPredicates(List<List<TBinaryPredicate>> predicates,
+      DatabaseAccessor dbAccessor) {
     // Return the indexes of accepted predicates.
     List<Integer> acceptedPredicates = Lists.newArrayList();
     if (predicates == null || predicates.isEmpty()) {
@@ -284,9 +378,7 @@ public class JdbcDataSource implements ExternalDataSource {
     for (int i = 0; i < predicates.size(); ++i) {
       boolean accepted = true;
       for (TBinaryPredicate predicate : predicates.get(i)) {
-        // Don't support 'IS DISTINCT FROM' and 'IS NOT DISTINCT FROM' operators now.
-        if (predicate.getOp() == TComparisonOp.DISTINCT_FROM
-            || predicate.getOp() == TComparisonOp.NOT_DISTINCT) {
+        if (!dbAccessor.supportsComparisonOp(predicate.getOp())) {
           accepted = false;
           break;
         }
@@ -299,7 +391,7 @@ public class JdbcDataSource implements ExternalDataSource {
   private void buildQueryAndExecute(TOpenParams params)
       throws JdbcDatabaseAccessException {
     Map<String, String> columnMapping = getColumnMapping(tableConfig_
-        .get(JdbcStorageConfig.COLUMN_MAPPING.getPropertyName()));
+        .get(JdbcStorageConfig.COLUMN_MAPPING.getPropertyName()), dbAccessor_);
     // Build query statement
     StringBuilder sb = new StringBuilder("SELECT ");
     String project;
@@ -309,8 +401,7 @@ public class JdbcDataSource implements ExternalDataSource {
     } else {
       project =
           schema_.getCols().stream().map(
-              TColumnDesc::getName).map(
-              name -> columnMapping.getOrDefault(name, name))
+              col -> getColumnAsString(col, columnMapping))
               .collect(Collectors.joining(", "));
     }
     sb.append(project);
@@ -323,14 +414,35 @@ public class JdbcDataSource implements ExternalDataSource {
     sb.append(jdbcTableName);
     String condition = QueryConditionUtil
         .buildCondition(params.getPredicates(), columnMapping, dbAccessor_);
+    if (params.isSetSplit()) {
+      // The split is one of the conditions built by computeSplits().
+      condition = StringUtils.isNotBlank(condition) ?
+          condition + " AND " + params.getSplit() : params.getSplit();
+    }
     if (StringUtils.isNotBlank(condition)) {
       sb.append(" WHERE ").append(condition);
     }
+    // If the rows are aggregated, the other columns are the grouping columns.
+    if (schema_.getColsSize() != 0
+        && schema_.getCols().stream().anyMatch(TColumnDesc::isSetAgg_expr)) {
+      String groupBy = schema_.getCols().stream()
+          .filter(col -> !col.isSetAgg_expr())
+          .map(col -> getColumnAsString(col, columnMapping))
+          .collect(Collectors.joining(", "));
+      if (!groupBy.isEmpty()) sb.append(" GROUP BY ").append(groupBy);
+    }
     // Execute query and get iterator
     tableConfig_.set(JdbcStorageConfig.QUERY.getPropertyName(), sb.toString());
     LOG.trace("JDBC Query: " + sb.toString());
 
     if (schema_.getColsSize() != 0) {
+      // Unless the table sets a fetch size, fetch one row batch per round trip to the
+      // database.
+      if (tableConfig_.get(JdbcStorageConfig.JDBC_FETCH_SIZE.getPropertyName()) == null
+          && batchSize_ > 0) {
+        tableConfig_.setInt(JdbcStorageConfig.JDBC_FETCH_SIZE.getPropertyName(),
+            batchSize_);
+      }
       int limit = -1;
       if (params.isSetLimit()) limit = (int) params.getLimit();
       iterator_ = dbAccessor_.getRecordIterator(tableConfig_, limit, 0);
@@ -339,11 +451,28 @@ public class JdbcDataSource implements ExternalDataSource {
     }
   }
 
+  /**
+   * Returns the expression that selects the column 'col' of the row schema: the
+   * mapped column name, or the aggregate function if the column is the result of an
+   * aggregation.
+   */
+  private static String getColumnAsString(TColumnDesc col,
+      Map<String, String> columnMapping) {
+    if (!col.isSetAgg_expr()) {
+      return columnMapping.getOrDefault(col.getName(), col.getName());
+    }
+    TAggregateExpr aggExpr = col.getAgg_expr();
+    if (aggExpr.getFn() == TAggregateFunction.COUNT_STAR) return "COUNT(*)";
+    String arg = columnMapping.getOrDefault(aggExpr.getArg(), aggExpr.getArg());
+    return String.format("%s(%s)", aggExpr.getFn().name(), arg);
+  }
+
   /*
    * Return Impala-to-X column mapping, or empty if it is not set.
    *
    */
-  private Map<String, String> getColumnMapping(String columnMapping) {
+  private static Map<String, String> getColumnMapping(String columnMapping,
+      DatabaseAccessor dbAccessor) {
     if ((columnMapping == null) || (columnMapping.trim().isEmpty())) {
       return Maps.newHashMap();
     }
@@ -353,7 +482,7 @@ public class JdbcDataSource implements ExternalDataSource {
     for (String mapPair : mappingPairs) {
       String[] columns = mapPair.split("=");
       // Make jdbc column name to be quoted with double quotes
-      String jdbcColumnName = dbAccessor_.getCaseSensitiveName(columns[1].trim());
+      String jdbcColumnName = dbAccessor.getCaseSensitiveName(columns[1].trim());
       columnMap.put(columns[0].trim(), jdbcColumnName);
     }
 
@@ -57,7 +57,18 @@ public enum JdbcStorageConfig {
   // Name of the external table to be mapped in Impala.
   TABLE("table", true),
   // Mapping of column names between external table and Impala.
-  COLUMN_MAPPING("column.mapping", false);
+  COLUMN_MAPPING("column.mapping", false),
+  // Integer or DATE column of the external table used to split a scan into ranges
+  // that are read in parallel.
+  PARTITION_COLUMN("partition.column", false),
+  // Number of ranges a scan is split into. Only used if "partition.column" is set.
+  NUM_PARTITIONS("num.partitions", false),
+  // Lower and upper bound of the values of "partition.column" that are used to compute
+  // the ranges, as integers or dates in the format yyyy-MM-dd. Values outside of the
+  // bounds are read by the first and the last range. If not set, the bounds are
+  // queried from the external database when the query is planned.
+  PARTITION_LOWER_BOUND("partition.lower.bound", false),
+  PARTITION_UPPER_BOUND("partition.upper.bound", false);
 
   private final String propertyName;
   private boolean required = false;
@@ -21,6 +21,7 @@ import java.sql.Connection;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.impala.extdatasource.jdbc.exception.JdbcDatabaseAccessException;
+import org.apache.impala.extdatasource.thrift.TComparisonOp;
 
 public interface DatabaseAccessor {
 
@@ -35,4 +36,40 @@ public interface DatabaseAccessor {
   String getCaseSensitiveName(String name);
 
   String getDateString(int dateVal);
+
+  /**
+   * Returns true if predicates with the comparison operator 'op' can be evaluated by
+   * the database.
+   */
+  boolean supportsComparisonOp(TComparisonOp op);
+
+  /**
+   * Returns true if the database can compute the GROUP BY aggregations that Impala
+   * offers to push down, see TAggregation.
+   */
+  boolean supportsAggregation();
+
+  /**
+   * Returns the smallest and largest value of the integer or DATE column 'column' in
+   * the result of the query of 'conf', or null if the column has another type or no
+   * non-null values.
+   */
+  ColumnRange getColumnRange(Configuration conf, String column)
+      throws JdbcDatabaseAccessException;
+
+  /**
+   * The range of the values of a column. DATE values are stored as the number of days
+   * since the epoch.
+   */
+  class ColumnRange {
+    public final long min;
+    public final long max;
+    public final boolean isDate;
+
+    public ColumnRange(long min, long max, boolean isDate) {
+      this.min = min;
+      this.max = max;
+      this.isDate = isDate;
+    }
+  }
 }
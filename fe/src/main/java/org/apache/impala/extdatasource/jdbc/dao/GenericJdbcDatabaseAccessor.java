@@ -21,7 +21,9 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
@@ -40,6 +42,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.impala.extdatasource.jdbc.conf.JdbcStorageConfig;
 import org.apache.impala.extdatasource.jdbc.conf.JdbcStorageConfigManager;
 import org.apache.impala.extdatasource.jdbc.exception.JdbcDatabaseAccessException;
+import org.apache.impala.extdatasource.thrift.TComparisonOp;
 import org.apache.impala.service.BackendConfig;
 import org.apache.impala.service.FeSupport;
 import org.apache.impala.thrift.TCacheJarResult;
@@ -106,6 +109,60 @@ public class GenericJdbcDatabaseAccessor implements DatabaseAccessor {
   }
 
 
+  @Override
+  public ColumnRange getColumnRange(Configuration conf, String column)
+      throws JdbcDatabaseAccessException {
+    Connection conn = null;
+    PreparedStatement ps = null;
+    ResultSet rs = null;
+
+    try {
+      initializeDatabaseSource(conf);
+      String sql = JdbcStorageConfigManager.getQueryToExecute(conf);
+      String rangeQuery = String.format("SELECT MIN(%s), MAX(%s) FROM (%s) tmptable",
+          column, column, sql);
+      LOG.info("Query to execute is [{}]", rangeQuery);
+
+      conn = dbcpDataSource.getConnection();
+      ps = conn.prepareStatement(rangeQuery);
+      rs = ps.executeQuery();
+      if (!rs.next()) return null;
+      ResultSetMetaData metadata = rs.getMetaData();
+      switch (metadata.getColumnType(1)) {
+        case Types.TINYINT:
+        case Types.SMALLINT:
+        case Types.INTEGER:
+        case Types.BIGINT: {
+          long min = rs.getLong(1);
+          if (rs.wasNull()) return null;
+          return new ColumnRange(min, rs.getLong(2), /*isDate*/ false);
+        }
+        case Types.NUMERIC:
+        case Types.DECIMAL: {
+          // E.g. integer columns of Oracle are NUMBER(p, 0).
+          if (metadata.getScale(1) != 0) return null;
+          long min = rs.getLong(1);
+          if (rs.wasNull()) return null;
+          return new ColumnRange(min, rs.getLong(2), /*isDate*/ false);
+        }
+        case Types.DATE: {
+          java.sql.Date min = rs.getDate(1);
+          java.sql.Date max = rs.getDate(2);
+          if (min == null || max == null) return null;
+          return new ColumnRange(min.toLocalDate().toEpochDay(),
+              max.toLocalDate().toEpochDay(), /*isDate*/ true);
+        }
+        default:
+          return null;
+      }
+    } catch (Exception e) {
+      LOG.error("Caught exception while trying to get the range of " + column, e);
+      throw new JdbcDatabaseAccessException(e);
+    } finally {
+      cleanupResources(conn, ps, rs);
+    }
+  }
+
   @Override
   public JdbcRecordIterator getRecordIterator(Configuration conf, int limit, int offset)
       throws JdbcDatabaseAccessException {
@@ -153,6 +210,17 @@ public class GenericJdbcDatabaseAccessor implements DatabaseAccessor {
     return name;
   }
 
+  @Override
+  public boolean supportsComparisonOp(TComparisonOp op) {
+    // Don't support 'IS DISTINCT FROM' and 'IS NOT DISTINCT FROM' operators now.
+    return op != TComparisonOp.DISTINCT_FROM && op != TComparisonOp.NOT_DISTINCT;
+  }
+
+  @Override
+  public boolean supportsAggregation() {
+    return true;
+  }
+
   protected boolean isAdditionalPropertiesSupported() {
     return false;
   }
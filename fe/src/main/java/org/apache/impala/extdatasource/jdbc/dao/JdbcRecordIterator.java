@@ -19,10 +19,12 @@ package org.apache.impala.extdatasource.jdbc.dao;
 
 import java.math.BigDecimal;
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
@@ -57,6 +59,8 @@ public class JdbcRecordIterator {
   private final PreparedStatement ps;
   private final ResultSet rs;
   private final List<String> jdbcColumnNames;
+  // Decoders of the columns of the result set, created by the first call to next().
+  private ColumnDecoder[] decoders;
 
   public JdbcRecordIterator(Connection conn, PreparedStatement ps, ResultSet rs,
       Configuration conf) throws JdbcDatabaseAccessException {
@@ -94,93 +98,222 @@ public class JdbcRecordIterator {
     }
   }
 
+  /**
+   * Appends the values of the current row to 'colDatas'. The decoders of the columns
+   * are selected on the first call, so 'colDescs' must be the same in every call.
+   */
   public void next(List<TColumnDesc> colDescs, List<TColumnData> colDatas)
       throws UnsupportedOperationException {
     Preconditions.checkState(colDescs.size() == colDatas.size());
+    if (decoders == null) decoders = createDecoders(colDescs);
+    Preconditions.checkState(decoders.length == colDescs.size());
+    for (int i = 0; i < decoders.length; ++i) {
+      TColumnData colData = colDatas.get(i);
+      try {
+        decoders[i].decode(i + 1, colData);
+      } catch (SQLException throwables) {
+        colData.addToIs_null(true);
+      }
+    }
+  }
+
+  /**
+   * Returns empty column data for 'colDescs' whose lists have room for 'numRows'
+   * values, so that appending a batch of rows does not grow them.
+   */
+  public static List<TColumnData> createColumnData(List<TColumnDesc> colDescs,
+      int numRows) {
+    List<TColumnData> colDatas = new ArrayList<>(colDescs.size());
+    for (TColumnDesc colDesc : colDescs) {
+      TColumnData colData = new TColumnData().setIs_null(new ArrayList<>(numRows));
+      TColumnType type = colDesc.getType();
+      if (type.getTypesSize() == 1
+          && type.types.get(0).getType() == TTypeNodeType.SCALAR) {
+        switch (type.types.get(0).scalar_type.type) {
+          case TINYINT: colData.setByte_vals(new ArrayList<>(numRows)); break;
+          case SMALLINT: colData.setShort_vals(new ArrayList<>(numRows)); break;
+          case INT:
+          case DATE: colData.setInt_vals(new ArrayList<>(numRows)); break;
+          case BIGINT: colData.setLong_vals(new ArrayList<>(numRows)); break;
+          case FLOAT:
+          case DOUBLE: colData.setDouble_vals(new ArrayList<>(numRows)); break;
+          case STRING: colData.setString_vals(new ArrayList<>(numRows)); break;
+          case BOOLEAN: colData.setBool_vals(new ArrayList<>(numRows)); break;
+          case TIMESTAMP:
+          case DECIMAL: colData.setBinary_vals(new ArrayList<>(numRows)); break;
+          default: break;
+        }
+      }
+      colDatas.add(colData);
+    }
+    return colDatas;
+  }
+
+  /**
+   * Reads one column of the current row into a TColumnData. Primitive values are read
+   * with the typed getters and checked with wasNull(), rather than reading every value
+   * with getObject() first.
+   */
+  private interface ColumnDecoder {
+    void decode(int columnIndex, TColumnData colData) throws SQLException;
+  }
+
+  private ColumnDecoder[] createDecoders(List<TColumnDesc> colDescs) {
+    ColumnDecoder[] result = new ColumnDecoder[colDescs.size()];
     for (int i = 0; i < colDescs.size(); ++i) {
       TColumnType type = colDescs.get(i).getType();
-      TColumnData colData = colDatas.get(i);
       if (type.types.get(0).getType() != TTypeNodeType.SCALAR) {
         // Unsupported non-scalar type.
         throw new UnsupportedOperationException("Unsupported column type: " +
             type.types.get(0).getType());
       }
       Preconditions.checkState(type.getTypesSize() == 1);
-      TScalarType scalarType = type.types.get(0).scalar_type;
-      try {
-        Object value = rs.getObject(i + 1);
-        if (value == null) {
-          colData.addToIs_null(true);
-          continue;
-        }
-        switch (scalarType.type) {
-          case TINYINT:
-            colData.addToByte_vals(rs.getByte(i + 1));
-            break;
-          case SMALLINT:
-            colData.addToShort_vals(rs.getShort(i + 1));
-            break;
-          case INT:
-            colData.addToInt_vals(rs.getInt(i + 1));
-            break;
-          case DATE:
-            LocalDate localDate = Instant.ofEpochMilli(rs.getDate(i + 1).getTime())
-                .atZone(ZoneId.systemDefault())
-                .toLocalDate();
-            colData.addToInt_vals((int) localDate.toEpochDay());
-            break;
-          case BIGINT:
-            colData.addToLong_vals(rs.getLong(i + 1));
-            break;
-          case DOUBLE:
-            colData.addToDouble_vals(rs.getDouble(i + 1));
-            break;
-          case FLOAT:
-            colData.addToDouble_vals(rs.getFloat(i + 1));
-            break;
-          case STRING:
-            colData.addToString_vals(rs.getString(i + 1));
-            break;
-          case BOOLEAN:
-            colData.addToBool_vals(rs.getBoolean(i + 1));
-            break;
-          case TIMESTAMP:
-            // Use UTC time zone instead of system default time zone
-            colData.addToBinary_vals(
-                SerializationUtils.encodeTimestamp(rs.getTimestamp(i + 1,
-                    Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC)))));
-            break;
-          case DECIMAL:
-            BigDecimal val = rs.getBigDecimal(i + 1);
-            int valPrecision = val.precision();
-            int valScale = val.scale();
-            // Check if there is enough precision and scale in the destination decimal.
-            if (scalarType.scale < valScale ||
-                scalarType.precision < valPrecision + scalarType.scale - valScale) {
-              throw new UnsupportedOperationException(String.format("Invalid DECIMAL" +
-                  "(%d, %d) for column %s since there is possible loss of precision " +
-                  "when casting from DECIMAL(%d, %d)",
-                  scalarType.precision, scalarType.scale, colDescs.get(i).getName(),
-                  valPrecision, valScale));
-            } else if (scalarType.scale > valScale) {
-              val = val.setScale(scalarType.scale);
-            }
-            colData.addToBinary_vals(SerializationUtils.encodeDecimal(val));
-            break;
-          case BINARY:
-          case CHAR:
-          case DATETIME:
-          case INVALID_TYPE:
-          case NULL_TYPE:
-          default:
-            // Unsupported.
-            throw new UnsupportedOperationException("Unsupported column type: " +
-                scalarType.getType());
-        }
-        colData.addToIs_null(false);
-      } catch (SQLException throwables) {
-        colData.addToIs_null(true);
+      result[i] = createDecoder(type.types.get(0).scalar_type,
+          colDescs.get(i).getName());
+    }
+    return result;
+  }
+
+  private ColumnDecoder createDecoder(TScalarType scalarType, String colName) {
+    switch (scalarType.type) {
+      case TINYINT:
+        return (idx, colData) -> {
+          byte val = rs.getByte(idx);
+          if (rs.wasNull()) {
+            colData.addToIs_null(true);
+            return;
+          }
+          colData.addToByte_vals(val);
+          colData.addToIs_null(false);
+        };
+      case SMALLINT:
+        return (idx, colData) -> {
+          short val = rs.getShort(idx);
+          if (rs.wasNull()) {
+            colData.addToIs_null(true);
+            return;
+          }
+          colData.addToShort_vals(val);
+          colData.addToIs_null(false);
+        };
+      case INT:
+        return (idx, colData) -> {
+          int val = rs.getInt(idx);
+          if (rs.wasNull()) {
+            colData.addToIs_null(true);
+            return;
+          }
+          colData.addToInt_vals(val);
+          colData.addToIs_null(false);
+        };
+      case DATE:
+        return (idx, colData) -> {
+          Date val = rs.getDate(idx);
+          if (val == null) {
+            colData.addToIs_null(true);
+            return;
+          }
+          LocalDate localDate = Instant.ofEpochMilli(val.getTime())
+              .atZone(ZoneId.systemDefault())
+              .toLocalDate();
+          colData.addToInt_vals((int) localDate.toEpochDay());
+          colData.addToIs_null(false);
+        };
+      case BIGINT:
+        return (idx, colData) -> {
+          long val = rs.getLong(idx);
+          if (rs.wasNull()) {
+            colData.addToIs_null(true);
+            return;
+          }
+          colData.addToLong_vals(val);
+          colData.addToIs_null(false);
+        };
+      case DOUBLE:
+        return (idx, colData) -> {
+          double val = rs.getDouble(idx);
+          if (rs.wasNull()) {
+            colData.addToIs_null(true);
+            return;
+          }
+          colData.addToDouble_vals(val);
+          colData.addToIs_null(false);
+        };
+      case FLOAT:
+        return (idx, colData) -> {
+          float val = rs.getFloat(idx);
+          if (rs.wasNull()) {
+            colData.addToIs_null(true);
+            return;
+          }
+          colData.addToDouble_vals(val);
+          colData.addToIs_null(false);
+        };
+      case STRING:
+        return (idx, colData) -> {
+          String val = rs.getString(idx);
+          if (val == null) {
+            colData.addToIs_null(true);
+            return;
+          }
+          colData.addToString_vals(val);
+          colData.addToIs_null(false);
+        };
+      case BOOLEAN:
+        return (idx, colData) -> {
+          boolean val = rs.getBoolean(idx);
+          if (rs.wasNull()) {
+            colData.addToIs_null(true);
+            return;
+          }
+          colData.addToBool_vals(val);
+          colData.addToIs_null(false);
+        };
+      case TIMESTAMP: {
+        // Use UTC time zone instead of system default time zone
+        Calendar utcCalendar = Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC));
+        return (idx, colData) -> {
+          Timestamp val = rs.getTimestamp(idx, utcCalendar);
+          if (val == null) {
+            colData.addToIs_null(true);
+            return;
+          }
+          colData.addToBinary_vals(SerializationUtils.encodeTimestamp(val));
+          colData.addToIs_null(false);
+        };
       }
+      case DECIMAL:
+        return (idx, colData) -> {
+          BigDecimal val = rs.getBigDecimal(idx);
+          if (val == null) {
+            colData.addToIs_null(true);
+            return;
+          }
+          int valPrecision = val.precision();
+          int valScale = val.scale();
+          // Check if there is enough precision and scale in the destination decimal.
+          if (scalarType.scale < valScale ||
+              scalarType.precision < valPrecision + scalarType.scale - valScale) {
+            throw new UnsupportedOperationException(String.format("Invalid DECIMAL" +
+                "(%d, %d) for column %s since there is possible loss of precision " +
+                "when casting from DECIMAL(%d, %d)",
+                scalarType.precision, scalarType.scale, colName,
+                valPrecision, valScale));
+          } else if (scalarType.scale > valScale) {
+            val = val.setScale(scalarType.scale);
+          }
+          colData.addToBinary_vals(SerializationUtils.encodeDecimal(val));
+          colData.addToIs_null(false);
+        };
+      case BINARY:
+      case CHAR:
+      case DATETIME:
+      case INVALID_TYPE:
+      case NULL_TYPE:
+      default:
+        // Unsupported.
+        throw new UnsupportedOperationException("Unsupported column type: " +
+            scalarType.getType());
     }
   }
 
@@ -17,6 +17,8 @@
 
 package org.apache.impala.extdatasource.jdbc.dao;
 
+import org.apache.impala.extdatasource.thrift.TComparisonOp;
+
 /**
  * MSSQL specific data accessor. This is needed because MSSQL JDBC drivers do not support
  * generic LIMIT and OFFSET escape functions
@@ -44,4 +46,12 @@ public class MsSqlDatabaseAccessor extends GenericJdbcDatabaseAccessor {
     }
     return sql + " {LIMIT " + limit + "}";
   }
+
+  @Override
+  public boolean supportsComparisonOp(TComparisonOp op) {
+    // MSSQL treats '[' in LIKE patterns as the start of a character class, so the
+    // patterns would match differently than in Impala.
+    if (op == TComparisonOp.LIKE) return false;
+    return super.supportsComparisonOp(op);
+  }
 }
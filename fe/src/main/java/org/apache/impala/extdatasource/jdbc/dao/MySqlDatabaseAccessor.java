@@ -17,6 +17,8 @@
 
 package org.apache.impala.extdatasource.jdbc.dao;
 
+import org.apache.impala.extdatasource.thrift.TComparisonOp;
+
 /**
  * MySQL specific data accessor. This is needed because MySQL JDBC drivers do not support
  * generic LIMIT and OFFSET escape functions
@@ -46,6 +48,14 @@ public class MySqlDatabaseAccessor extends GenericJdbcDatabaseAccessor {
     }
   }
 
+  @Override
+  public boolean supportsComparisonOp(TComparisonOp op) {
+    // The default collations of MySQL and MariaDB are case-insensitive, so LIKE would
+    // match rows that do not match in Impala, e.g. 'abc' LIKE 'A%'.
+    if (op == TComparisonOp.LIKE) return false;
+    return super.supportsComparisonOp(op);
+  }
+
   @Override
   protected boolean isAdditionalPropertiesSupported() {
     return true;
@@ -48,6 +48,10 @@ public class QueryConditionUtil {
       Map<String, String> columnMapping, DatabaseAccessor dbAccessor_) {
     List<String> condition = Lists.newArrayList();
     for (List<TBinaryPredicate> tBinaryPredicates : predicates) {
+      if (isInList(tBinaryPredicates)) {
+        condition.add(buildInCondition(tBinaryPredicates, columnMapping, dbAccessor_));
+        continue;
+      }
       StringJoiner joiner = new StringJoiner(" OR ", "(", ")");
       for (TBinaryPredicate predicate : tBinaryPredicates) {
         String name = predicate.getCol().getName();
@@ -62,6 +66,34 @@ public class QueryConditionUtil {
     return Joiner.on(" AND ").join(condition);
   }
 
+  /**
+   * Returns true if the disjunctive predicates compare the same column for equality
+   * with several values, e.g. because they were created from an IN predicate.
+   */
+  private static boolean isInList(List<TBinaryPredicate> disjuncts) {
+    if (disjuncts.size() < 2) return false;
+    String name = disjuncts.get(0).getCol().getName();
+    for (TBinaryPredicate predicate : disjuncts) {
+      if (predicate.getOp() != TComparisonOp.EQ
+          || !predicate.getCol().getName().equals(name)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String buildInCondition(List<TBinaryPredicate> disjuncts,
+      Map<String, String> columnMapping, DatabaseAccessor dbAccessor_) {
+    String name = disjuncts.get(0).getCol().getName();
+    name = columnMapping.getOrDefault(name, name);
+    StringJoiner joiner = new StringJoiner(", ", name + " IN (", ")");
+    for (TBinaryPredicate predicate : disjuncts) {
+      joiner.add(getTColumnValueAsString(predicate.getValue(),
+          predicate.getCol().getType().getTypes().get(0), dbAccessor_));
+    }
+    return joiner.toString();
+  }
+
   /**
    * Return the value of a defined field as a string. If the "value" is null or the type
    * is not supported, an exception is thrown.
@@ -106,6 +138,7 @@ public class QueryConditionUtil {
    * @see BinaryPredicate.Operator
    */
   public static String converse(TComparisonOp op) {
+    if (op == TComparisonOp.LIKE) return "LIKE";
     for (Operator operator : BinaryPredicate.Operator.values()) {
       if (operator.getThriftOp() == op) {
         return operator.toString();
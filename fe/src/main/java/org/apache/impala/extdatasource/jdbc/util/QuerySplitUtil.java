@@ -0,0 +1,100 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.extdatasource.jdbc.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.impala.extdatasource.jdbc.dao.DatabaseAccessor;
+import org.apache.impala.extdatasource.jdbc.dao.DatabaseAccessor.ColumnRange;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Splits the query on an external table into ranges of an integer or DATE column, so
+ * that the ranges can be read in parallel. Every range is described by a condition
+ * that is added to the WHERE clause of the query.
+ */
+public class QuerySplitUtil {
+
+  /**
+   * Parses the bounds configured for the partition column. Returns null if either
+   * bound is not set.
+   * @throws IllegalArgumentException if the bounds are neither integers nor dates in
+   *     the format yyyy-MM-dd.
+   */
+  public static ColumnRange parseBounds(String lowerBound, String upperBound) {
+    if (lowerBound == null || upperBound == null) return null;
+    try {
+      return new ColumnRange(Long.parseLong(lowerBound.trim()),
+          Long.parseLong(upperBound.trim()), /*isDate*/ false);
+    } catch (NumberFormatException e) {
+      // Not integers, try dates.
+    }
+    try {
+      return new ColumnRange(LocalDate.parse(lowerBound.trim()).toEpochDay(),
+          LocalDate.parse(upperBound.trim()).toEpochDay(), /*isDate*/ true);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(String.format(
+          "Invalid partition bounds '%s' and '%s'", lowerBound, upperBound), e);
+    }
+  }
+
+  /**
+   * Returns the conditions that split the values of 'column' into at most 'numSplits'
+   * ranges of about the same width between the bounds of 'range'. The first range
+   * also covers smaller values and NULLs, the last one larger values, so that the
+   * ranges cover all rows even if the bounds are outdated. Returns an empty list if
+   * the scan should not be split.
+   */
+  public static List<String> buildSplitConditions(String column, ColumnRange range,
+      int numSplits, DatabaseAccessor dbAccessor) {
+    List<String> conditions = new ArrayList<>();
+    if (range == null || numSplits <= 1 || range.max <= range.min) return conditions;
+    // Do not create ranges that cannot contain any value.
+    long width = range.max - range.min;
+    if (width < numSplits) numSplits = (int) width;
+    if (numSplits <= 1) return conditions;
+    long stride = width / numSplits;
+    Preconditions.checkState(stride > 0);
+    long lower = range.min;
+    for (int i = 0; i < numSplits; ++i) {
+      long upper = lower + stride;
+      if (i == 0) {
+        conditions.add(String.format("(%s < %s OR %s IS NULL)", column,
+            toLiteral(upper, range.isDate, dbAccessor), column));
+      } else if (i == numSplits - 1) {
+        conditions.add(String.format("%s >= %s", column,
+            toLiteral(lower, range.isDate, dbAccessor)));
+      } else {
+        conditions.add(String.format("(%s >= %s AND %s < %s)", column,
+            toLiteral(lower, range.isDate, dbAccessor), column,
+            toLiteral(upper, range.isDate, dbAccessor)));
+      }
+      lower = upper;
+    }
+    return conditions;
+  }
+
+  private static String toLiteral(long value, boolean isDate,
+      DatabaseAccessor dbAccessor) {
+    if (!isDate) return Long.toString(value);
+    return String.format("'%s'", dbAccessor.getDateString((int) value));
+  }
+}
@@ -17,22 +17,29 @@
 
 package org.apache.impala.hive.executor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import org.apache.hadoop.hive.ql.exec.UDF;
 import org.apache.impala.common.ImpalaRuntimeException;
 import org.apache.impala.thrift.THiveUdfExecutorCtorParams;
 import org.apache.impala.util.UnsafeUtil;
+import org.apache.log4j.Logger;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 
 // Wrapper object to run hive UDFs. This class works with UdfCallExpr in the
 // backend to marshall data back and forth between the execution engine and
 // the java UDF class.
 // See the comments in be/src/exprs/hive-udf-call.h for more details.
-// TODO: should we cache loaded jars and classes?
 @SuppressWarnings("restriction")
 public class HiveUdfExecutorLegacy extends HiveUdfExecutor {
+  private static final Logger LOG = Logger.getLogger(HiveUdfExecutorLegacy.class);
+
   // TODO UDF is deprecated in Hive and newer implementation of built-in functions using
   // GenericUDF interface, we should consider supporting GenericUDFs in the future
   private UDF udf_;
@@ -40,6 +47,15 @@ public class HiveUdfExecutorLegacy extends HiveUdfExecutor {
   // setup by init() and cleared by close()
   private Method method_;
 
+  // Handle of method_ bound to udf_, see createInvoker(). Its type is exactly
+  // invokerType() of the number of arguments. Null if the method is called through
+  // reflection.
+  private final MethodHandle invoker_;
+
+  // Largest number of arguments for which the handle is called with the arguments
+  // directly. Handles of methods with more arguments take them as an array.
+  private static final int MAX_DIRECT_INVOKE_ARGS = 4;
+
   private final Object[] inputArgs_; // inputArgs_[i] is either inputObjects_[i] or null
 
   /**
@@ -53,6 +69,71 @@ public class HiveUdfExecutorLegacy extends HiveUdfExecutor {
     udf_ = hiveJavaFn.getUDFInstance();
     method_ = hiveJavaFn.getMethod();
     inputArgs_ = new Object[getNumParams()];
+    invoker_ = createInvoker(method_, udf_);
+    Preconditions.checkState(invoker_ == null ||
+        invoker_.type().equals(invokerType(getNumParams())));
+  }
+
+  /**
+   * Returns the type of the handles created by createInvoker() for methods with
+   * 'numArgs' arguments. invoke() calls the handles with invokeExact() using exactly
+   * this type.
+   */
+  @VisibleForTesting
+  static MethodType invokerType(int numArgs) {
+    if (numArgs <= MAX_DIRECT_INVOKE_ARGS) return MethodType.genericMethodType(numArgs);
+    return MethodType.methodType(Object.class, Object[].class);
+  }
+
+  /**
+   * Returns a handle that calls 'method' on 'udf' and whose type only uses Object, so
+   * that evaluateDerived() can call it with invokeExact(). Unlike Method.invoke(),
+   * the handle does not check access or copy the arguments on every call and can be
+   * inlined by the JIT, see UdfInvocationBenchmarkTest. Methods with up to MAX_DIRECT_INVOKE_ARGS arguments take them
+   * directly, others take an Object[]. Returns null if the method cannot be bound to a
+   * handle, e.g. because it is not accessible or takes variable arguments, in which
+   * case the method is called through reflection.
+   */
+  @VisibleForTesting
+  static MethodHandle createInvoker(Method method, Object udf) {
+    if (method.isVarArgs()) return null;
+    try {
+      MethodHandle handle = MethodHandles.publicLookup().unreflect(method).bindTo(udf);
+      int numArgs = method.getParameterCount();
+      handle = handle.asType(MethodType.genericMethodType(numArgs));
+      if (numArgs > MAX_DIRECT_INVOKE_ARGS) {
+        handle = handle.asSpreader(Object[].class, numArgs);
+      }
+      Preconditions.checkState(handle.type().equals(invokerType(numArgs)));
+      return handle;
+    } catch (IllegalAccessException | IllegalArgumentException e) {
+      LOG.info("Calling " + method + " through reflection: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Calls 'invoker', which was created by createInvoker(), with 'args'. Exceptions
+   * thrown by the UDF are wrapped in InvocationTargetException, like Method.invoke()
+   * does. Errors, e.g. OutOfMemoryError, are rethrown as they are.
+   */
+  @VisibleForTesting
+  static Object invoke(MethodHandle invoker, Object[] args)
+      throws InvocationTargetException {
+    try {
+      switch (args.length) {
+        case 0: return (Object) invoker.invokeExact();
+        case 1: return (Object) invoker.invokeExact(args[0]);
+        case 2: return (Object) invoker.invokeExact(args[0], args[1]);
+        case 3: return (Object) invoker.invokeExact(args[0], args[1], args[2]);
+        case 4: return (Object) invoker.invokeExact(args[0], args[1], args[2], args[3]);
+        default: return (Object) invoker.invokeExact(args);
+      }
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
   }
 
   /**
@@ -124,6 +205,7 @@ public class HiveUdfExecutorLegacy extends HiveUdfExecutor {
           inputArgs_[i] = null;
         }
       }
+      if (invoker_ != null) return invoke(invoker_, inputArgs_);
       return method_.invoke(udf_, inputArgs_);
     } catch (Exception e) {
       e.printStackTrace(System.err);
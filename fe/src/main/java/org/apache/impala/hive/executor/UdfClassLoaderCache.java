@@ -0,0 +1,309 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.hive.executor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.impala.catalog.CatalogException;
+import org.apache.impala.service.BackendConfig;
+import org.apache.log4j.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+/**
+ * Process-wide cache of the class loaders of Java UDFs. Without it, every UdfExecutor
+ * creates its own class loader for the UDF jar, so every fragment instance that
+ * evaluates the UDF loads and initializes the UDF classes again and uses up more
+ * metaspace.
+ *
+ * Entries are identified by the HDFS location of the jar, the modification time of
+ * the jar that the coordinator resolved for the query and the class name, and are
+ * reference counted. While an entry is in use its class loader is never closed. Once
+ * it is unused, the entry stays cached until it is evicted because more than
+ * --udf_class_loader_cache_size entries are cached, or until it is invalidated. An
+ * entry that is invalidated while in use is closed when its last user releases it.
+ * Entries are invalidated:
+ * - on coordinators, when a function using the jar is dropped or changed, both with
+ *   ImpaladCatalog and with LocalCatalog (see CatalogdMetaProvider).
+ * - on all daemons, including executors that do not receive catalog updates, when a
+ *   UDF of the jar is used with a different modification time, i.e. after the jar was
+ *   replaced. Executors learn about the modification time from the query.
+ *
+ * Each entry loads its class from its own copy of the jar, since the local copy that
+ * the backend's LibCache made for the caller is deleted once the backend stops using
+ * it, which may be long before the entry is closed.
+ *
+ * Since the class is loaded once per entry, static state of a UDF class, e.g. a static
+ * field initialized on first use, is shared by all executors of the UDF in this
+ * process, across fragment instances and queries, for as long as the entry is
+ * cached. This is why caching is disabled by default, see
+ * --udf_class_loader_cache_size.
+ */
+public class UdfClassLoaderCache {
+  private static final Logger LOG = Logger.getLogger(UdfClassLoaderCache.class);
+
+  public static final UdfClassLoaderCache INSTANCE = new UdfClassLoaderCache();
+
+  // Used if BackendConfig is not initialized, e.g. in some tests. The same as the
+  // default of --udf_class_loader_cache_size, i.e. disabled.
+  private static final int DEFAULT_CACHE_SIZE = 0;
+
+  // Prefix of the names of the jar copies made by the cache.
+  private static final String JAR_COPY_PREFIX = "udf-class-loader-";
+
+  /**
+   * A reference to a loaded UDF class. Must be closed by the user when it is done with
+   * the class.
+   */
+  public interface Handle extends AutoCloseable {
+    HiveUdfLoader getLoader();
+
+    @Override
+    void close();
+  }
+
+  private class Entry implements Handle {
+    private final String key_;
+    private final String hdfsLocation_;
+    private final long lastModifiedTime_;
+    // Set by load(). Guarded by 'this'.
+    private HiveUdfLoader loader_;
+    // The copy of the jar that 'loader_' loads classes from, see copyJar(). Deleted
+    // when the loader is closed. Guarded by 'this'.
+    private Path jarCopy_;
+    // Guarded by the cache.
+    private int refCount_ = 0;
+    private boolean invalidated_ = false;
+
+    Entry(String key, String hdfsLocation, long lastModifiedTime) {
+      key_ = key;
+      hdfsLocation_ = hdfsLocation;
+      lastModifiedTime_ = lastModifiedTime;
+    }
+
+    // Loads the class if no earlier user of the entry did. Done outside of the cache
+    // lock, so that loading a class does not block users of other classes.
+    synchronized void load(String localJarPath, String className)
+        throws CatalogException {
+      if (loader_ != null) return;
+      Path jarCopy = copyJar(localJarPath);
+      try {
+        loader_ = new HiveUdfLoader(jarCopy.toUri().toString(), className);
+      } catch (CatalogException | RuntimeException e) {
+        deleteJar(jarCopy);
+        throw e;
+      }
+      jarCopy_ = jarCopy;
+    }
+
+    @Override
+    public synchronized HiveUdfLoader getLoader() { return loader_; }
+
+    synchronized void closeLoader() {
+      if (loader_ != null) loader_.close();
+      loader_ = null;
+      if (jarCopy_ != null) deleteJar(jarCopy_);
+      jarCopy_ = null;
+    }
+
+    @Override
+    public void close() { release(this); }
+  }
+
+  // A handle that is not shared with other users, used if caching is disabled.
+  private static class UncachedHandle implements Handle {
+    private final HiveUdfLoader loader_;
+
+    UncachedHandle(HiveUdfLoader loader) { loader_ = loader; }
+
+    @Override
+    public HiveUdfLoader getLoader() { return loader_; }
+
+    @Override
+    public void close() { loader_.close(); }
+  }
+
+  // Map from key to entry, in least recently used order.
+  private final LinkedHashMap<String, Entry> entries_ =
+      new LinkedHashMap<>(16, 0.75f, /*accessOrder*/ true);
+
+  // Maximum number of cached entries. Read lazily because BackendConfig may not be set
+  // at class load time.
+  private int maxSize_ = -1;
+
+  @VisibleForTesting
+  UdfClassLoaderCache() {}
+
+  @VisibleForTesting
+  UdfClassLoaderCache(int maxSize) { maxSize_ = maxSize; }
+
+  /**
+   * Returns a handle to the class 'className' of the jar at 'hdfsLocation' that was
+   * last modified at 'lastModifiedTime'. If the class is not cached, it is loaded from
+   * 'localJarPath', a local copy of the jar. Classes without a jar location are
+   * loaded by the system class loader, and classes of jars without a known
+   * modification time are not cached since a change of the jar could not be detected.
+   */
+  public Handle acquire(String hdfsLocation, long lastModifiedTime,
+      String localJarPath, String className) throws CatalogException {
+    if (hdfsLocation == null || hdfsLocation.isEmpty() || localJarPath == null
+        || lastModifiedTime < 0 || getMaxSize() <= 0) {
+      return new UncachedHandle(new HiveUdfLoader(localJarPath, className));
+    }
+    String key = hdfsLocation + "@" + lastModifiedTime + ":" + className;
+    Entry entry;
+    List<Entry> toClose;
+    synchronized (this) {
+      toClose = invalidateOtherVersions(hdfsLocation, lastModifiedTime);
+      entry = entries_.get(key);
+      if (entry == null) {
+        entry = new Entry(key, hdfsLocation, lastModifiedTime);
+        entries_.put(key, entry);
+      }
+      ++entry.refCount_;
+      toClose.addAll(evictUnused());
+    }
+    closeAll(toClose);
+    try {
+      entry.load(localJarPath, className);
+    } catch (CatalogException | RuntimeException e) {
+      // Do not cache the failure, the next user tries again.
+      synchronized (this) {
+        if (entries_.get(key) == entry) entries_.remove(key);
+        entry.invalidated_ = true;
+      }
+      release(entry);
+      throw e;
+    }
+    return entry;
+  }
+
+  /**
+   * Invalidates the entries of all classes from the jar at 'hdfsLocation', e.g.
+   * because a function using the jar was dropped.
+   */
+  public void invalidate(String hdfsLocation) {
+    List<Entry> toClose = new ArrayList<>();
+    synchronized (this) {
+      Iterator<Entry> it = entries_.values().iterator();
+      while (it.hasNext()) {
+        Entry entry = it.next();
+        if (!entry.hdfsLocation_.equals(hdfsLocation)) continue;
+        it.remove();
+        entry.invalidated_ = true;
+        if (entry.refCount_ == 0) toClose.add(entry);
+      }
+    }
+    closeAll(toClose);
+  }
+
+  @VisibleForTesting
+  synchronized int size() { return entries_.size(); }
+
+  private void release(Entry entry) {
+    boolean close;
+    synchronized (this) {
+      Preconditions.checkState(entry.refCount_ > 0);
+      --entry.refCount_;
+      close = entry.refCount_ == 0 && entry.invalidated_;
+    }
+    if (close) entry.closeLoader();
+  }
+
+  // Removes the entries of other versions of the jar at 'hdfsLocation' and returns the
+  // ones that are not in use. The caller must close them.
+  private List<Entry> invalidateOtherVersions(String hdfsLocation,
+      long lastModifiedTime) {
+    Preconditions.checkState(Thread.holdsLock(this));
+    List<Entry> toClose = new ArrayList<>();
+    Iterator<Entry> it = entries_.values().iterator();
+    while (it.hasNext()) {
+      Entry entry = it.next();
+      if (!entry.hdfsLocation_.equals(hdfsLocation)
+          || entry.lastModifiedTime_ == lastModifiedTime) {
+        continue;
+      }
+      it.remove();
+      entry.invalidated_ = true;
+      if (entry.refCount_ == 0) toClose.add(entry);
+    }
+    return toClose;
+  }
+
+  // Removes the least recently used unused entries until the cache is within its
+  // size limit and returns them. The caller must close them. Entries that are in use
+  // stay cached even if the cache is over its limit.
+  private List<Entry> evictUnused() {
+    Preconditions.checkState(Thread.holdsLock(this));
+    List<Entry> evicted = new ArrayList<>();
+    Iterator<Map.Entry<String, Entry>> it = entries_.entrySet().iterator();
+    while (entries_.size() > getMaxSize() && it.hasNext()) {
+      Entry entry = it.next().getValue();
+      if (entry.refCount_ > 0) continue;
+      it.remove();
+      evicted.add(entry);
+      if (LOG.isTraceEnabled()) LOG.trace("Evicting UDF class loader " + entry.key_);
+    }
+    return evicted;
+  }
+
+  // Copies the jar at 'localJarPath', a file URI, to a new file in the same directory
+  // and returns the path of the copy.
+  private static Path copyJar(String localJarPath) throws CatalogException {
+    try {
+      Path jar = Paths.get(new URI(localJarPath));
+      Path jarCopy = Files.createTempFile(jar.getParent(), JAR_COPY_PREFIX, ".jar");
+      Files.copy(jar, jarCopy, StandardCopyOption.REPLACE_EXISTING);
+      return jarCopy;
+    } catch (IOException | URISyntaxException e) {
+      throw new CatalogException("Could not copy jar file " + localJarPath, e);
+    }
+  }
+
+  private static void deleteJar(Path jar) {
+    try {
+      Files.deleteIfExists(jar);
+    } catch (IOException e) {
+      LOG.warn("Failed to delete jar file " + jar + ": " + e.getMessage());
+    }
+  }
+
+  private static void closeAll(List<Entry> entries) {
+    for (Entry entry : entries) entry.closeLoader();
+  }
+
+  private synchronized int getMaxSize() {
+    if (maxSize_ < 0) {
+      maxSize_ = BackendConfig.INSTANCE != null ?
+          BackendConfig.INSTANCE.getUdfClassLoaderCacheSize() : DEFAULT_CACHE_SIZE;
+    }
+    return maxSize_;
+  }
+}
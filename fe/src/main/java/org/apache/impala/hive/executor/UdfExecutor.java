@@ -34,7 +34,7 @@ import org.apache.log4j.Logger;
 // backend to marshall data back and forth between the execution engine and
 // the java udf classes.
 // See the comments in be/src/exprs/hive-udf-call.h for more details.
-// TODO: should we cache loaded jars and classes?
+// The UDF classes are shared with other executors through UdfClassLoaderCache.
 @SuppressWarnings("restriction")
 public class UdfExecutor implements AutoCloseable {
   private static final Logger LOG = Logger.getLogger(UdfExecutor.class);
@@ -44,7 +44,7 @@ public class UdfExecutor implements AutoCloseable {
 
   private final HiveUdfExecutor hiveUdfExecutor_;
 
-  private HiveUdfLoader udfLoader_;
+  private UdfClassLoaderCache.Handle udfLoaderHandle_;
 
   /**
    * Create a UdfExecutor, using parameters from a serialized thrift object. Used by
@@ -64,8 +64,15 @@ public class UdfExecutor implements AutoCloseable {
     }
     try {
       checkValidRequest(request);
-      udfLoader_ = new HiveUdfLoader(location, request.fn.scalar_fn.symbol);
-      hiveUdfExecutor_ = createHiveUdfExecutor(request, udfLoader_);
+      udfLoaderHandle_ = UdfClassLoaderCache.INSTANCE.acquire(request.fn.hdfs_location,
+          request.fn.isSetLast_modified_time() ? request.fn.last_modified_time : -1,
+          location, request.fn.scalar_fn.symbol);
+      try {
+        hiveUdfExecutor_ = createHiveUdfExecutor(request, udfLoaderHandle_.getLoader());
+      } catch (Exception e) {
+        udfLoaderHandle_.close();
+        throw e;
+      }
       LOG.debug("Loaded UDF '" + request.fn.scalar_fn.symbol + "' from "
           + request.local_location);
     } catch (Exception e) {
@@ -78,7 +85,7 @@ public class UdfExecutor implements AutoCloseable {
   @Override
   public void close() {
     hiveUdfExecutor_.close();
-    udfLoader_.close();
+    udfLoaderHandle_.close();
   }
 
   /**
@@ -18,6 +18,7 @@ package org.apache.impala.hooks;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.impala.common.InternalException;
+import org.apache.impala.common.Metrics;
 import org.apache.impala.service.BackendConfig;
 import org.apache.impala.thrift.TBackendGflags;
 import org.slf4j.Logger;
@@ -26,11 +27,22 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
@@ -62,7 +74,23 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
  * This execution is performed by a thread-pool executor, whose size is set at
  * compile-time.  This means that hooks may also execute concurrently.
  * </p>
+ * <p>
+ * Each hook has a bounded queue of completed queries, whose size is set by
+ * {@link TBackendGflags#query_event_hook_queue_size}.  A hook is invoked by at
+ * most one executor thread at a time, which takes up to
+ * {@link QueryEventHook#getMaxBatchSize()} queries from the queue per invocation
+ * and then yields the thread to the other hooks.  The executor therefore only
+ * ever has one pending task per hook, and the memory used by queued queries is
+ * bounded even if a hook cannot keep up.  What happens to a completed query if
+ * the queue of a hook is full is set by
+ * {@link TBackendGflags#query_event_hook_queue_full_policy}, see
+ * {@link QueueFullPolicy}.
+ * </p>
  *
+ * <h3>Metrics</h3>
+ *
+ * The manager keeps the queue depth, the number of dropped queries and the latency
+ * of the invocations of each hook, see {@link #getMetrics()}.
  */
 public class QueryEventHookManager {
   private static final Logger LOG =
@@ -72,9 +100,54 @@ public class QueryEventHookManager {
   //       we don't have to manually sync when they change
   private static final String BE_HOOKS_FLAG = "query_event_hook_classes";
   private static final String BE_HOOKS_THREADS_FLAG = "query_event_hook_nthreads";
+  private static final String BE_HOOKS_QUEUE_SIZE_FLAG = "query_event_hook_queue_size";
+  private static final String BE_HOOKS_QUEUE_FULL_POLICY_FLAG =
+      "query_event_hook_queue_full_policy";
+
+  // Suffixes of the names of the per-hook metrics.
+  public static final String QUEUE_DEPTH_METRIC = "queue-depth";
+  public static final String DROPPED_METRIC = "dropped";
+  public static final String LATENCY_METRIC = "latency";
+
+  // A warning is logged for the first and then for every DROP_LOG_INTERVAL-th query
+  // that is dropped by a hook.
+  private static final long DROP_LOG_INTERVAL = 1000;
+
+  // With the BLOCK policy, a caller waiting for space in the queue of a hook checks
+  // every BLOCK_POLL_INTERVAL_MS whether the executor has been shut down, in which case
+  // the queue would never be drained.
+  private static final long BLOCK_POLL_INTERVAL_MS = 100;
+
+  /**
+   * What to do with a completed query if the queue of a hook is full.
+   */
+  public enum QueueFullPolicy {
+    // Skip the hook for the query. The returned future fails with a
+    // RejectedExecutionException.
+    DROP,
+    // Block the caller, i.e. the unregistration of the query, until the hook has
+    // made space in its queue. The query is dropped if the hook executor is shut
+    // down while waiting.
+    BLOCK;
+
+    public static QueueFullPolicy parse(String policy) {
+      if (StringUtils.isEmpty(policy)) return DROP;
+      try {
+        return valueOf(policy.trim().toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(String.format(
+            "Invalid value '%s' for %s. Valid values are DROP and BLOCK.", policy,
+            BE_HOOKS_QUEUE_FULL_POLICY_FLAG));
+      }
+    }
+  }
 
   private final List<QueryEventHook> hooks_;
+  // One dispatcher per hook, in the same order as 'hooks_'.
+  private final List<HookDispatcher> dispatchers_;
   private final ExecutorService hookExecutor_;
+  private final QueueFullPolicy queueFullPolicy_;
+  private final Metrics metrics_ = new Metrics();
 
   /**
    * Static factory method to create a manager instance.  This will register
@@ -91,9 +164,14 @@ public class QueryEventHookManager {
 
     final int nHookThreads = config.getNumQueryExecHookThreads();
     final String queryExecHookClasses = config.getQueryExecHookClasses();
+    final int queueSize = config.getQueryEventHookQueueSize();
+    final QueueFullPolicy queueFullPolicy =
+        QueueFullPolicy.parse(config.getQueryEventHookQueueFullPolicy());
     LOG.info("QueryEventHook config:");
     LOG.info("- {}={}", BE_HOOKS_THREADS_FLAG, nHookThreads);
     LOG.info("- {}={}", BE_HOOKS_FLAG, queryExecHookClasses);
+    LOG.info("- {}={}", BE_HOOKS_QUEUE_SIZE_FLAG, queueSize);
+    LOG.info("- {}={}", BE_HOOKS_QUEUE_FULL_POLICY_FLAG, queueFullPolicy);
 
     final String[] hookClasses;
     if (StringUtils.isNotEmpty(queryExecHookClasses)) {
@@ -102,7 +180,8 @@ public class QueryEventHookManager {
       hookClasses = new String[0];
     }
 
-    return new QueryEventHookManager(nHookThreads, hookClasses);
+    return new QueryEventHookManager(nHookThreads, hookClasses, queueSize,
+        queueFullPolicy);
   }
 
   /**
@@ -111,13 +190,21 @@ public class QueryEventHookManager {
    *
    * @param nHookExecutorThreads
    * @param hookClasses
+   * @param queueSize maximum number of queued queries per hook
+   * @param queueFullPolicy what to do if the queue of a hook is full
    *
    * @throws IllegalArgumentException if {@code nHookExecutorThreads <= 0}
+   * @throws IllegalArgumentException if {@code queueSize <= 0} and there are hooks
    * @throws InternalException if any hookClass cannot be instantiated
    * @throws InternalException if any hookClass.onImpalaStartup throws an exception
    */
-  private QueryEventHookManager(int nHookExecutorThreads, String[] hookClasses)
-      throws InternalException {
+  private QueryEventHookManager(int nHookExecutorThreads, String[] hookClasses,
+      int queueSize, QueueFullPolicy queueFullPolicy) throws InternalException {
+    if (hookClasses.length > 0 && queueSize <= 0) {
+      throw new IllegalArgumentException(String.format(
+          "%s must be positive: %d", BE_HOOKS_QUEUE_SIZE_FLAG, queueSize));
+    }
+    this.queueFullPolicy_ = queueFullPolicy;
 
     this.hookExecutor_ = Executors.newFixedThreadPool(nHookExecutorThreads,
         new ThreadFactoryBuilder().setNameFormat("QueryEventHookExecutor-%d").build());
@@ -158,9 +245,16 @@ public class QueryEventHookManager {
         throw new InternalException(msg, e);
       }
     }
+
+    final List<HookDispatcher> dispatchers = new ArrayList<>(hooks.size());
+    for (int i = 0; i < hooks.size(); ++i) {
+      dispatchers.add(new HookDispatcher(hooks.get(i), i, queueSize));
+    }
+    this.dispatchers_ = Collections.unmodifiableList(dispatchers);
   }
 
-  private void cleanUp() {
+  @VisibleForTesting
+  void cleanUp() {
     if (!hookExecutor_.isShutdown()) {
       hookExecutor_.shutdown();
     }
@@ -183,49 +277,196 @@ public class QueryEventHookManager {
     return hooks_;
   }
 
+  /**
+   * Returns the metrics of the registered hooks. The names of the metrics of a hook
+   * are prefixed by {@link #getMetricPrefix(QueryEventHook, int)}. They are shown on
+   * the /query_event_hooks page of the impalad debug web UI.
+   */
+  public Metrics getMetrics() { return metrics_; }
+
+  /**
+   * Returns the prefix of the names of the metrics of 'hook', which is the 'index'-th
+   * registered hook.
+   */
+  public static String getMetricPrefix(QueryEventHook hook, int index) {
+    return String.format("query-event-hook-%d-%s-", index, hook.getClass().getName());
+  }
+
   /**
    * Hook method to be called after query execution.  This implementation
-   * will execute all currently-registered {@link QueryEventHook}s
-   * asynchronously, returning immediately with a List of {@link Future}s
-   * representing each hook's {@link QueryEventHook#onQueryComplete(QueryCompleteContext)}
-   * invocation.
+   * will queue the query for all currently-registered {@link QueryEventHook}s,
+   * returning immediately with a List of {@link Future}s representing each hook's
+   * {@link QueryEventHook#onQueryComplete(QueryCompleteContext)} invocation.  If
+   * the queue of a hook is full and the policy is {@link QueueFullPolicy#BLOCK},
+   * this waits until there is space in the queue or the hook executor has been shut
+   * down.
    *
    * <h3>Futures</h3>
    *
    * This method will return a list of {@link Future}s representing the future results
    * of each hook's invocation.  The {@link Future#get()} method will return the
    * hook instance whose invocation it represents.  The list of futures are in the
-   * same order as the order in which each hook's job was submitted.
+   * same order as the order in which each hook's job was submitted.  If a hook was
+   * skipped because its queue was full, its future fails with a
+   * {@link RejectedExecutionException}.
    *
    * <h3>Error-Handling</h3>
    *
    * Exceptions thrown from {@link QueryEventHook#onQueryComplete(QueryCompleteContext)}
-   * will be logged and then rethrown on the executor thread(s), meaning that they
-   * will not halt execution.  Rather, they will be encapsulated in the returned
-   * {@link Future}s, meaning that the caller may choose to check or ignore them
-   * at some later time.
+   * will be logged, meaning that they will not halt execution.  Rather, they will be
+   * encapsulated in the returned {@link Future}s of all queries passed to the failed
+   * invocation, meaning that the caller may choose to check or ignore them at some
+   * later time.
    *
    * @param context
    */
   public List<Future<QueryEventHook>> executeQueryCompleteHooks(
       QueryCompleteContext context) {
     LOG.debug("Query complete hook invoked with: {}", context);
-    return hooks_.stream().map(hook -> {
-      LOG.debug("Initiating onQueryComplete: {}", hook.getClass().getName());
-      return hookExecutor_.submit(() -> {
-        try {
-          hook.onQueryComplete(context);
-        } catch (Throwable t) {
-          final String msg = String.format("Exception thrown by QueryEventHook %s"+
-              ".onQueryComplete method.  Hook instance %s. This exception is "+
-              "currently being ignored by Impala, "+
-              "but may cause subsequent problems in that hook's execution",
-              hook.getClass().getName(), hook);
-          LOG.error(msg, t);
-          throw t;
+    return dispatchers_.stream()
+        .map(dispatcher -> dispatcher.submit(context))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * A completed query queued for a hook, together with the future that is completed
+   * once the hook has been invoked for it.
+   */
+  private static final class PendingQuery {
+    final QueryCompleteContext context_;
+    final CompletableFuture<QueryEventHook> future_ = new CompletableFuture<>();
+
+    PendingQuery(QueryCompleteContext context) { context_ = context; }
+  }
+
+  /**
+   * Queues the completed queries for a hook and invokes the hook for them on the hook
+   * executor.
+   */
+  private final class HookDispatcher {
+    private final QueryEventHook hook_;
+    private final int maxBatchSize_;
+    private final BlockingQueue<PendingQuery> queue_;
+    // True if a task that invokes the hook has been submitted to the executor and has
+    // not finished yet.
+    private final AtomicBoolean scheduled_ = new AtomicBoolean(false);
+    private final Counter dropped_;
+    private final Timer latency_;
+
+    HookDispatcher(QueryEventHook hook, int index, int queueSize) {
+      hook_ = hook;
+      maxBatchSize_ = Math.max(1, hook.getMaxBatchSize());
+      queue_ = new ArrayBlockingQueue<>(queueSize);
+      String prefix = getMetricPrefix(hook, index);
+      metrics_.addGauge(prefix + QUEUE_DEPTH_METRIC,
+          (Gauge<Integer>) () -> queue_.size());
+      dropped_ = metrics_.getCounter(prefix + DROPPED_METRIC);
+      latency_ = metrics_.getTimer(prefix + LATENCY_METRIC);
+    }
+
+    Future<QueryEventHook> submit(QueryCompleteContext context) {
+      LOG.debug("Queueing onQueryComplete: {}", hook_.getClass().getName());
+      PendingQuery query = new PendingQuery(context);
+      if (!enqueue(query)) {
+        dropped_.inc();
+        if (dropped_.getCount() % DROP_LOG_INTERVAL == 1) {
+          LOG.warn("The queue of QueryEventHook {} is full, {} queries have been " +
+              "dropped so far. Consider increasing {}.", hook_.getClass().getName(),
+              dropped_.getCount(), BE_HOOKS_QUEUE_SIZE_FLAG);
         }
-        return hook;
-      });
-    }).collect(Collectors.toList());
+        query.future_.completeExceptionally(new RejectedExecutionException(
+            "The queue of QueryEventHook " + hook_.getClass().getName() +
+            " is full"));
+        return query.future_;
+      }
+      schedule();
+      return query.future_;
+    }
+
+    private boolean enqueue(PendingQuery query) {
+      if (queueFullPolicy_ == QueueFullPolicy.DROP) return queue_.offer(query);
+      try {
+        // Nothing drains the queue once the executor has been shut down, so don't
+        // wait for space indefinitely.
+        while (!hookExecutor_.isShutdown()) {
+          if (queue_.offer(query, BLOCK_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+            return true;
+          }
+        }
+        LOG.warn("Not queueing query for QueryEventHook {} after shutdown",
+            hook_.getClass().getName());
+        return false;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    /**
+     * Submits a task that invokes the hook to the executor, unless there already is
+     * one.
+     */
+    private void schedule() {
+      if (!scheduled_.compareAndSet(false, true)) return;
+      try {
+        hookExecutor_.execute(this::invokeHook);
+      } catch (RejectedExecutionException e) {
+        // The executor has been shut down.
+        scheduled_.set(false);
+        LOG.warn("Not invoking QueryEventHook {} after shutdown",
+            hook_.getClass().getName());
+      }
+    }
+
+    /**
+     * Invokes the hook for the next batch of queued queries. If more queries are
+     * queued afterwards, another task is submitted rather than continuing in this
+     * one so that the other hooks get their turn on the executor threads.
+     */
+    private void invokeHook() {
+      List<PendingQuery> batch = new ArrayList<>(Math.min(maxBatchSize_, 64));
+      try {
+        queue_.drainTo(batch, maxBatchSize_);
+        if (!batch.isEmpty()) invokeHook(batch);
+      } finally {
+        scheduled_.set(false);
+      }
+      // Queries that were added after the batch was taken but before 'scheduled_' was
+      // reset would be missed without this.
+      if (!queue_.isEmpty()) schedule();
+    }
+
+    private void invokeHook(List<PendingQuery> batch) {
+      LOG.debug("Initiating onQueryComplete: {} for {} queries",
+          hook_.getClass().getName(), batch.size());
+      final long startNanos = System.nanoTime();
+      Throwable error = null;
+      try {
+        if (maxBatchSize_ == 1) {
+          Preconditions.checkState(batch.size() == 1);
+          hook_.onQueryComplete(batch.get(0).context_);
+        } else {
+          hook_.onQueriesComplete(batch.stream()
+              .map(query -> query.context_)
+              .collect(Collectors.toList()));
+        }
+      } catch (Throwable t) {
+        final String msg = String.format("Exception thrown by QueryEventHook %s"+
+            ".onQueryComplete method.  Hook instance %s. This exception is "+
+            "currently being ignored by Impala, "+
+            "but may cause subsequent problems in that hook's execution",
+            hook_.getClass().getName(), hook_);
+        LOG.error(msg, t);
+        error = t;
+      }
+      latency_.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+      for (PendingQuery query : batch) {
+        if (error == null) {
+          query.future_.complete(hook_);
+        } else {
+          query.future_.completeExceptionally(error);
+        }
+      }
+    }
   }
 }
@@ -19,12 +19,17 @@ package org.apache.impala.planner;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.hadoop.fs.Path;
+import org.apache.impala.analysis.AggregateInfo;
 import org.apache.impala.analysis.Analyzer;
 import org.apache.impala.analysis.BinaryPredicate;
 import org.apache.impala.analysis.BoolLiteral;
@@ -32,18 +37,31 @@ import org.apache.impala.analysis.CastExpr;
 import org.apache.impala.analysis.CompoundPredicate;
 import org.apache.impala.analysis.DateLiteral;
 import org.apache.impala.analysis.Expr;
+import org.apache.impala.analysis.ExprSubstitutionMap;
+import org.apache.impala.analysis.FunctionCallExpr;
+import org.apache.impala.analysis.InPredicate;
+import org.apache.impala.analysis.LikePredicate;
 import org.apache.impala.analysis.LiteralExpr;
+import org.apache.impala.analysis.MultiAggregateInfo;
+import org.apache.impala.analysis.NullLiteral;
 import org.apache.impala.analysis.NumericLiteral;
+import org.apache.impala.analysis.SlotDescriptor;
+import org.apache.impala.analysis.SlotId;
 import org.apache.impala.analysis.SlotRef;
 import org.apache.impala.analysis.StringLiteral;
 import org.apache.impala.analysis.TimestampLiteral;
 import org.apache.impala.analysis.TupleDescriptor;
 import org.apache.impala.catalog.DataSource;
 import org.apache.impala.catalog.FeDataSourceTable;
+import org.apache.impala.catalog.PrimitiveType;
+import org.apache.impala.catalog.Type;
 import org.apache.impala.common.FileSystemUtil;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.extdatasource.ExternalDataSourceExecutor;
+import org.apache.impala.extdatasource.thrift.TAggregateExpr;
+import org.apache.impala.extdatasource.thrift.TAggregateFunction;
+import org.apache.impala.extdatasource.thrift.TAggregation;
 import org.apache.impala.extdatasource.thrift.TBinaryPredicate;
 import org.apache.impala.extdatasource.thrift.TColumnDesc;
 import org.apache.impala.extdatasource.thrift.TComparisonOp;
@@ -80,7 +98,8 @@ public class DataSourceScanNode extends ScanNode {
 
   // The converted conjuncts_ that were accepted by the data source. A conjunct can
   // be converted if it contains only disjunctive predicates of the form
-  // <slotref> <op> <constant>.
+  // <slotref> <op> <constant>, <slotref> IN (<constant>, ...) or
+  // <slotref> LIKE <constant>.
   private List<List<TBinaryPredicate>> acceptedPredicates_;
 
   // The conjuncts that were accepted by the data source and removed from conjuncts_ in
@@ -91,10 +110,25 @@ public class DataSourceScanNode extends ScanNode {
   // The number of rows estimate as returned by prepare().
   private long numRowsEstimate_;
 
-  public DataSourceScanNode(PlanNodeId id, TupleDescriptor desc, List<Expr> conjuncts) {
+  // The splits returned by prepare(). Every split becomes a scan range, so that the
+  // splits can be scanned in parallel. Empty if the data source did not split the scan.
+  private List<String> splits_ = new ArrayList<>();
+
+  // The grouping exprs and aggregate functions of the query block that are computed
+  // by the data source. Null if the data source returns the rows of the table.
+  private List<Expr> pushedGroupingExprs_;
+  private List<FunctionCallExpr> pushedAggExprs_;
+
+  // Map from the ids of the slots that hold the results of pushedAggExprs_ to the
+  // aggregate functions sent to the data source. Null if pushedAggExprs_ is null.
+  private Map<Integer, TAggregateExpr> aggSlots_;
+
+  public DataSourceScanNode(PlanNodeId id, TupleDescriptor desc, List<Expr> conjuncts,
+      MultiAggregateInfo aggInfo) {
     super(id, desc, "SCAN DATA SOURCE");
     table_ = (FeDataSourceTable) desc_.getTable();
     conjuncts_ = conjuncts;
+    aggInfo_ = aggInfo;
     acceptedPredicates_ = null;
     acceptedConjuncts_ = null;
   }
@@ -102,7 +136,7 @@ public class DataSourceScanNode extends ScanNode {
   @Override
   public void init(Analyzer analyzer) throws ImpalaException {
     checkForSupportedFileFormats();
-    prepareDataSource();
+    prepareDataSource(analyzer);
     conjuncts_ = orderConjunctsByCost(conjuncts_);
     computeStats(analyzer);
     // materialize slots in remaining conjuncts_
@@ -177,9 +211,11 @@ public class DataSourceScanNode extends ScanNode {
   /**
    * Calls prepare() on the data source to determine accepted predicates and get
    * stats. The accepted predicates are moved from conjuncts_ into acceptedConjuncts_
-   * and the associated TBinaryPredicates are set in acceptedPredicates_.
+   * and the associated TBinaryPredicates are set in acceptedPredicates_. If the query
+   * block aggregates the rows of this scan, the aggregation is offered as well, see
+   * getAggregationToOffer() and pushAggregation().
    */
-  private void prepareDataSource() throws InternalException {
+  private void prepareDataSource(Analyzer analyzer) throws InternalException {
     // Binary predicates that will be offered to the data source.
     List<List<TBinaryPredicate>> offeredPredicates = new ArrayList<>();
     // The index into conjuncts_ for each element in offeredPredicates.
@@ -192,6 +228,8 @@ public class DataSourceScanNode extends ScanNode {
         conjunctsIdx.add(i);
       }
     }
+    TAggregation offeredAggregation = getAggregationToOffer(analyzer,
+        offeredPredicates.size() == conjuncts_.size());
 
     String className = table_.getDataSource().getClass_name();
     String apiVersion = table_.getDataSource().getApi_version();
@@ -223,6 +261,9 @@ public class DataSourceScanNode extends ScanNode {
       TPrepareParams prepareParams = new TPrepareParams();
       prepareParams.setInit_string(table_.getInitString());
       prepareParams.setPredicates(offeredPredicates);
+      if (offeredAggregation != null) prepareParams.setAggregation(offeredAggregation);
+      prepareParams.setClean_dbcp_ds_cache(
+          analyzer.getQueryOptions().isClean_dbcp_ds_cache());
       // TODO: Include DB (i.e. getFullName())?
       prepareParams.setTable_name(table_.getName());
       prepareResult = executor.prepare(prepareParams);
@@ -246,6 +287,7 @@ public class DataSourceScanNode extends ScanNode {
     }
 
     numRowsEstimate_ = prepareResult.getNum_rows_estimate();
+    if (prepareResult.isSetSplits()) splits_ = prepareResult.getSplits();
     acceptedPredicates_ = new ArrayList<>();
     List<Integer> acceptedPredicatesIdx = prepareResult.isSetAccepted_conjuncts() ?
         prepareResult.getAccepted_conjuncts() : ImmutableList.<Integer>of();
@@ -253,6 +295,165 @@ public class DataSourceScanNode extends ScanNode {
       acceptedPredicates_.add(offeredPredicates.get(acceptedIdx));
     }
     removeAcceptedConjuncts(acceptedPredicatesIdx, conjunctsIdx);
+    // The data source should only accept the aggregation if it applies all predicates,
+    // otherwise Impala would aggregate rows that it has not filtered.
+    if (offeredAggregation != null && prepareResult.isAccepted_aggregation()
+        && conjuncts_.isEmpty()) {
+      pushAggregation(analyzer, offeredAggregation);
+    }
+  }
+
+  /**
+   * Returns the aggregation of the query block of this scan if it can be computed by
+   * the data source, otherwise null. This is the case if this scan is the only table
+   * ref of the query block, all conjuncts can be offered to the data source, the
+   * grouping exprs are columns of this scan and the aggregate functions are COUNT, SUM,
+   * MIN or MAX of a column of this scan. Grouping by strings and MIN/MAX of strings
+   * are not offered because the database may compare strings with a collation that
+   * differs from Impala's, e.g. one that ignores case.
+   */
+  private TAggregation getAggregationToOffer(Analyzer analyzer,
+      boolean allConjunctsOffered) {
+    if (!allConjunctsOffered || analyzer.getNumTableRefs() != 1) return null;
+    if (aggInfo_ == null || aggInfo_.getMaterializedAggClasses().size() != 1
+        || aggInfo_.hasSecondPhase() || aggInfo_.hasTransposePhase()) {
+      return null;
+    }
+    AggregateInfo aggClass = aggInfo_.getMaterializedAggClass(0);
+    if (aggClass.isDistinctAgg()) return null;
+    List<FunctionCallExpr> aggExprs = aggClass.getMaterializedAggregateExprs();
+    if (aggExprs.isEmpty()) return null;
+
+    // The slots that the aggregation reads.
+    Set<SlotId> aggSlotIds = new HashSet<>();
+    TAggregation aggregation = new TAggregation()
+        .setGrouping_cols(new ArrayList<>())
+        .setAgg_exprs(new ArrayList<>());
+    for (Expr groupingExpr: aggClass.getGroupingExprs()) {
+      SlotRef slotRef = getScanSlotRef(groupingExpr, /*unwrapImplicitCasts*/ false);
+      if (slotRef == null || slotRef.getType().isStringType()) return null;
+      aggregation.addToGrouping_cols(new TColumnDesc()
+          .setName(getColumnName(slotRef))
+          .setType(slotRef.getType().toThrift()));
+      aggSlotIds.add(slotRef.getSlotId());
+    }
+    for (FunctionCallExpr aggExpr: aggExprs) {
+      TAggregateExpr tAggExpr = getAggregateExpr(aggExpr, aggSlotIds);
+      if (tAggExpr == null) return null;
+      aggregation.addToAgg_exprs(tAggExpr);
+    }
+    // The data source only returns the grouping columns and the aggregates, so no
+    // other slot of this scan may be needed.
+    for (SlotDescriptor slotDesc: desc_.getSlots()) {
+      if (slotDesc.isMaterialized() && !aggSlotIds.contains(slotDesc.getId())) {
+        return null;
+      }
+    }
+    return aggregation;
+  }
+
+  /**
+   * Returns the TAggregateExpr for 'aggExpr' if it can be computed by the data source
+   * and adds the id of the slot it reads to 'aggSlotIds'. Returns null otherwise.
+   */
+  private TAggregateExpr getAggregateExpr(FunctionCallExpr aggExpr,
+      Set<SlotId> aggSlotIds) {
+    if (aggExpr.isDistinct()) return null;
+    String fnName = aggExpr.getFnName().getFunction().toLowerCase();
+    if (fnName.equals("count") && aggExpr.getParams().isStar()) {
+      return new TAggregateExpr().setFn(TAggregateFunction.COUNT_STAR);
+    }
+    if (aggExpr.getChildren().size() != 1) return null;
+    Expr arg = aggExpr.getChild(0);
+    SlotRef slotRef;
+    TAggregateFunction fn;
+    switch (fnName) {
+      case "count":
+        fn = TAggregateFunction.COUNT;
+        slotRef = getScanSlotRef(arg, /*unwrapImplicitCasts*/ false);
+        break;
+      case "sum":
+        // The argument of SUM() is implicitly cast to the widest type of its type
+        // class, e.g. BIGINT for integers, which does not change the sum.
+        fn = TAggregateFunction.SUM;
+        slotRef = getScanSlotRef(arg, /*unwrapImplicitCasts*/ true);
+        if (slotRef != null && !slotRef.getType().isNumericType()) return null;
+        break;
+      case "min":
+      case "max":
+        fn = fnName.equals("min") ? TAggregateFunction.MIN : TAggregateFunction.MAX;
+        slotRef = getScanSlotRef(arg, /*unwrapImplicitCasts*/ false);
+        if (slotRef != null && !slotRef.getType().isNumericType()
+            && !slotRef.getType().isDate() && !slotRef.getType().isTimestamp()) {
+          return null;
+        }
+        break;
+      default:
+        return null;
+    }
+    if (slotRef == null) return null;
+    aggSlotIds.add(slotRef.getSlotId());
+    return new TAggregateExpr().setFn(fn).setArg(getColumnName(slotRef));
+  }
+
+  /**
+   * Returns 'expr' as a SlotRef to a scalar column of this scan, or null if it is
+   * something else. Implicit casts are removed if 'unwrapImplicitCasts' is true.
+   */
+  private SlotRef getScanSlotRef(Expr expr, boolean unwrapImplicitCasts) {
+    SlotRef slotRef = unwrapImplicitCasts ? expr.unwrapSlotRef(true) :
+        (expr instanceof SlotRef ? (SlotRef) expr : null);
+    if (slotRef == null) return null;
+    SlotDescriptor slotDesc = slotRef.getDesc();
+    if (slotDesc.getParent() != desc_ || slotDesc.getColumn() == null
+        || !slotDesc.getType().isScalarType()) {
+      return null;
+    }
+    return slotRef;
+  }
+
+  /**
+   * Replaces the aggregation of the query block by one that combines the partial
+   * aggregates computed by the data source, similar to the count(*) optimization of
+   * other scans. Adds a slot for the result of every aggregate function that the data
+   * source computes and sets optimizedAggSmap_ to substitute COUNT with
+   * sum_init_zero() and SUM, MIN and MAX with themselves applied to the new slots.
+   * Slots of columns that are only aggregated are no longer materialized.
+   */
+  private void pushAggregation(Analyzer analyzer, TAggregation aggregation) {
+    AggregateInfo aggClass = aggInfo_.getMaterializedAggClass(0);
+    pushedGroupingExprs_ = aggClass.getGroupingExprs();
+    pushedAggExprs_ = aggClass.getMaterializedAggregateExprs();
+    Preconditions.checkState(pushedAggExprs_.size() == aggregation.getAgg_exprsSize());
+    Set<SlotId> groupingSlotIds = new HashSet<>();
+    for (Expr groupingExpr: pushedGroupingExprs_) {
+      groupingSlotIds.add(((SlotRef) groupingExpr).getSlotId());
+    }
+    for (SlotDescriptor slotDesc: desc_.getSlots()) {
+      if (slotDesc.isMaterialized() && !groupingSlotIds.contains(slotDesc.getId())) {
+        slotDesc.setIsMaterialized(false);
+      }
+    }
+
+    optimizedAggSmap_ = new ExprSubstitutionMap();
+    aggSlots_ = new HashMap<>();
+    for (int i = 0; i < pushedAggExprs_.size(); ++i) {
+      FunctionCallExpr aggExpr = pushedAggExprs_.get(i);
+      TAggregateExpr tAggExpr = aggregation.getAgg_exprs().get(i);
+      boolean isCount = tAggExpr.getFn() == TAggregateFunction.COUNT_STAR
+          || tAggExpr.getFn() == TAggregateFunction.COUNT;
+      SlotDescriptor sd = analyzer.addSlotDescriptor(desc_);
+      sd.setType(aggExpr.getType());
+      sd.setIsMaterialized(true);
+      sd.setIsNullable(!isCount);
+      sd.setLabel(aggExpr.toSql());
+      List<Expr> args = Lists.newArrayList(new SlotRef(sd));
+      FunctionCallExpr mergeFn = new FunctionCallExpr(
+          isCount ? "sum_init_zero" : aggExpr.getFnName().getFunction(), args);
+      mergeFn.analyzeNoThrow(analyzer);
+      optimizedAggSmap_.put(aggExpr, mergeFn);
+      aggSlots_.put(sd.getId().asInt(), tAggExpr);
+    }
   }
 
   /**
@@ -272,22 +473,14 @@ public class DataSourceScanNode extends ScanNode {
       List<TBinaryPredicate> predicates) {
     if (conjunct instanceof BinaryPredicate) {
       if (conjunct.getChildren().size() != 2) return false;
-      Expr colExpr = null;
-      SlotRef slotRef = null;
-      LiteralExpr literalExpr = null;
-      TComparisonOp op = null;
       if ((conjunct.getChild(0).unwrapSlotRef(true) instanceof SlotRef) &&
           (conjunct.getChild(1) instanceof LiteralExpr)) {
-        colExpr = conjunct.getChild(0);
-        slotRef = colExpr.unwrapSlotRef(true);
-        literalExpr = (LiteralExpr) conjunct.getChild(1);
-        op = ((BinaryPredicate) conjunct).getOp().getThriftOp();
+        return addPredicate(conjunct.getChild(0), (LiteralExpr) conjunct.getChild(1),
+            ((BinaryPredicate) conjunct).getOp().getThriftOp(), predicates);
       } else if ((conjunct.getChild(1).unwrapSlotRef(true) instanceof SlotRef) &&
                  (conjunct.getChild(0) instanceof LiteralExpr)) {
-        colExpr = conjunct.getChild(1);
-        slotRef = colExpr.unwrapSlotRef(true);
-        literalExpr = (LiteralExpr) conjunct.getChild(0);
-        op = ((BinaryPredicate) conjunct).getOp().converse().getThriftOp();
+        return addPredicate(conjunct.getChild(1), (LiteralExpr) conjunct.getChild(0),
+            ((BinaryPredicate) conjunct).getOp().converse().getThriftOp(), predicates);
       } else {
         // Other binary predicate scenarios are not accepted, including:
         // both operands are slot references, one or both of the operands is an
@@ -295,27 +488,39 @@ public class DataSourceScanNode extends ScanNode {
         // arithmetic expressions, etc.
         return false;
       }
-
-      if (colExpr instanceof CastExpr) {
-        CastExpr castExpr = (CastExpr)colExpr;
-        Preconditions.checkNotNull(castExpr.getType());
-        if (castExpr.getType().isDateOrTimeType()
-            || castExpr.getCompatibility().isUnsafe()) {
-          // Unsafe casting or casting to Date/Timestamp for a column cannot be pushed
-          // down to JDBC table since TBinaryPredicate does not have column Expr.
-          // Return false here to avoid the conjunct to be added to offered predicate
-          // list.
+    } else if (conjunct instanceof InPredicate) {
+      // <slotref> IN (<constant>, ...) is offered as the disjunctive predicates
+      // <slotref> = <constant> OR ...
+      if (((InPredicate) conjunct).isNotIn()) return false;
+      Expr colExpr = conjunct.getChild(0);
+      if (!(colExpr.unwrapSlotRef(true) instanceof SlotRef)) return false;
+      for (int i = 1; i < conjunct.getChildren().size(); ++i) {
+        if (!(conjunct.getChild(i) instanceof LiteralExpr)) return false;
+        if (!addPredicate(colExpr, (LiteralExpr) conjunct.getChild(i),
+            TComparisonOp.EQ, predicates)) {
           return false;
         }
       }
-      TColumnValue val = literalToColumnValue(literalExpr);
-      if (val == null) return false; // false if unsupported type, e.g.
-
-      String colName = Joiner.on(".").join(slotRef.getResolvedPath().getRawPath());
-      TColumnDesc col = new TColumnDesc().setName(colName).setType(
-          slotRef.getType().toThrift());
-      predicates.add(new TBinaryPredicate().setCol(col).setOp(op).setValue(val));
       return true;
+    } else if (conjunct instanceof LikePredicate) {
+      // Only LIKE patterns of STRING and VARCHAR columns are offered. Patterns with
+      // the escape character are not offered because databases differ in their
+      // handling of it.
+      if (((LikePredicate) conjunct).getOp() != LikePredicate.Operator.LIKE) {
+        return false;
+      }
+      Expr colExpr = conjunct.getChild(0);
+      SlotRef slotRef = colExpr.unwrapSlotRef(true);
+      if (slotRef == null) return false;
+      Type colType = slotRef.getType();
+      if (!colType.isScalarType(PrimitiveType.STRING)
+          && !colType.isScalarType(PrimitiveType.VARCHAR)) {
+        return false;
+      }
+      if (!(conjunct.getChild(1) instanceof StringLiteral)) return false;
+      StringLiteral pattern = (StringLiteral) conjunct.getChild(1);
+      if (pattern.getUnescapedValue().indexOf('\\') >= 0) return false;
+      return addPredicate(colExpr, pattern, TComparisonOp.LIKE, predicates);
     } else if (conjunct instanceof CompoundPredicate) {
       CompoundPredicate compoundPredicate = ((CompoundPredicate) conjunct);
       if (compoundPredicate.getOp() != CompoundPredicate.Operator.OR) return false;
@@ -327,12 +532,56 @@ public class DataSourceScanNode extends ScanNode {
     }
   }
 
+  /**
+   * Adds the predicate {colExpr} {op} {literalExpr} to 'predicates' if it can be
+   * represented by a TBinaryPredicate. 'colExpr' must be a SlotRef, possibly wrapped
+   * in casts. Returns false if the predicate cannot be represented.
+   */
+  private boolean addPredicate(Expr colExpr, LiteralExpr literalExpr, TComparisonOp op,
+      List<TBinaryPredicate> predicates) {
+    SlotRef slotRef = colExpr.unwrapSlotRef(true);
+    Preconditions.checkNotNull(slotRef);
+    if (colExpr instanceof CastExpr) {
+      CastExpr castExpr = (CastExpr)colExpr;
+      Preconditions.checkNotNull(castExpr.getType());
+      if (castExpr.getType().isDateOrTimeType()
+          || castExpr.getCompatibility().isUnsafe()) {
+        // Unsafe casting or casting to Date/Timestamp for a column cannot be pushed
+        // down to JDBC table since TBinaryPredicate does not have column Expr.
+        // Return false here to avoid the conjunct to be added to offered predicate
+        // list.
+        return false;
+      }
+    }
+    if (literalExpr instanceof NullLiteral) return false;
+    TColumnValue val = literalToColumnValue(literalExpr);
+    if (val == null) return false; // false if unsupported type, e.g.
+
+    TColumnDesc col = new TColumnDesc().setName(getColumnName(slotRef)).setType(
+        slotRef.getType().toThrift());
+    predicates.add(new TBinaryPredicate().setCol(col).setOp(op).setValue(val));
+    return true;
+  }
+
+  private static String getColumnName(SlotRef slotRef) {
+    return Joiner.on(".").join(slotRef.getResolvedPath().getRawPath());
+  }
+
   @Override
   public void computeStats(Analyzer analyzer) {
     super.computeStats(analyzer);
     inputCardinality_ = numRowsEstimate_;
     cardinality_ = numRowsEstimate_;
     cardinality_ = applyConjunctsSelectivity(cardinality_);
+    if (pushedAggExprs_ != null) {
+      // The data source returns about one row per group and split.
+      long numGroups = AggregationNode.estimateNumGroups(
+          pushedGroupingExprs_, cardinality_, this);
+      if (numGroups >= 0) {
+        numGroups = checkedMultiply(numGroups, Math.max(1, splits_.size()));
+        if (cardinality_ < 0 || numGroups < cardinality_) cardinality_ = numGroups;
+      }
+    }
     cardinality_ = Math.max(1, cardinality_);
     cardinality_ = capCardinalityAtLimit(cardinality_);
 
@@ -340,9 +589,19 @@ public class DataSourceScanNode extends ScanNode {
       LOG.trace("computeStats DataSourceScan: cardinality=" + Long.toString(cardinality_));
     }
 
-    numInstances_ = numNodes_ = table_.getNumNodes();
+    if (splits_.isEmpty()) {
+      numInstances_ = numNodes_ = table_.getNumNodes();
+    } else {
+      // Assume that each node/instance gets a split, unless there are fewer splits
+      // than nodes/instances.
+      numNodes_ = Math.max(1,
+          Math.min(splits_.size(), analyzer.numExecutorsForPlanning()));
+      int maxInstances = numNodes_ * getMaxInstancesPerNode(analyzer);
+      numInstances_ = Math.max(1, Math.min(splits_.size(), maxInstances));
+    }
     if (LOG.isTraceEnabled()) {
-      LOG.trace("computeStats DataSourceScan: #nodes=" + Integer.toString(numNodes_));
+      LOG.trace("computeStats DataSourceScan: #nodes=" + Integer.toString(numNodes_)
+          + " #instances=" + Integer.toString(numInstances_));
     }
   }
 
@@ -383,18 +642,28 @@ public class DataSourceScanNode extends ScanNode {
     msg.node_type = TPlanNodeType.DATA_SOURCE_NODE;
     msg.data_source_node = new TDataSourceScanNode(desc_.getId().asInt(),
         table_.getDataSource(), table_.getInitString(), acceptedPredicates_);
+    if (aggSlots_ != null) msg.data_source_node.setAgg_slots(aggSlots_);
   }
 
   /**
-   * Create a single scan range for the localhost.
+   * Create a single scan range for the localhost, or one per split if the data source
+   * split the scan. The split ranges are spread across the executors by the scheduler.
    */
   private void computeScanRangeLocations(Analyzer analyzer) {
     // TODO: Does the port matter?
     TNetworkAddress networkAddress = addressToTNetworkAddress("localhost:12345");
     Integer hostIndex = analyzer.getHostIndex().getOrAddIndex(networkAddress);
     scanRangeSpecs_ = new TScanRangeSpec();
-    scanRangeSpecs_.addToConcrete_ranges(new TScanRangeLocationList(
-        new TScanRange(), Lists.newArrayList(new TScanRangeLocation(hostIndex))));
+    if (splits_.isEmpty()) {
+      scanRangeSpecs_.addToConcrete_ranges(new TScanRangeLocationList(
+          new TScanRange(), Lists.newArrayList(new TScanRangeLocation(hostIndex))));
+      return;
+    }
+    for (String split: splits_) {
+      scanRangeSpecs_.addToConcrete_ranges(new TScanRangeLocationList(
+          new TScanRange().setData_source_split(split),
+          Lists.newArrayList(new TScanRangeLocation(hostIndex))));
+    }
   }
 
   @Override
@@ -430,6 +699,21 @@ public class DataSourceScanNode extends ScanNode {
       output.append(detailPrefix + "data source predicates: "
           + Expr.getExplainString(acceptedConjuncts_, detailLevel) + "\n");
     }
+    if (pushedAggExprs_ != null) {
+      output.append(detailPrefix + "data source aggregation: "
+          + Expr.getExplainString(pushedAggExprs_, detailLevel));
+      if (!pushedGroupingExprs_.isEmpty()) {
+        output.append(" group by: "
+            + Expr.getExplainString(pushedGroupingExprs_, detailLevel));
+      }
+      output.append("\n");
+    }
+    if (isLimitPushedDown()) {
+      output.append(detailPrefix + "data source limit: " + getLimit() + "\n");
+    }
+    if (!splits_.isEmpty()) {
+      output.append(detailPrefix + "data source splits: " + splits_.size() + "\n");
+    }
     if (conjuncts_ != null && !conjuncts_.isEmpty()) {
       output.append(detailPrefix + "predicates: " +
             Expr.getExplainString(conjuncts_, detailLevel) + "\n");
@@ -443,6 +727,14 @@ public class DataSourceScanNode extends ScanNode {
     return output.toString();
   }
 
+  /**
+   * Returns true if the limit is passed to the data source in open(). The backend
+   * does this if Impala does not evaluate any predicates on the rows of the scan.
+   */
+  private boolean isLimitPushedDown() {
+    return hasLimit() && (conjuncts_ == null || conjuncts_.isEmpty());
+  }
+
   @Override
   public boolean hasStorageLayerConjuncts() { return !acceptedConjuncts_.isEmpty(); }
 }
@@ -227,6 +227,11 @@ public class HashJoinNode extends JoinNode {
         output.append(detailPrefix + "runtime filters: ");
         output.append(getRuntimeFilterExplainString(true, detailLevel));
       }
+      if (!skippedRuntimeFilters_.isEmpty()
+          && detailLevel.ordinal() >= TExplainLevel.EXTENDED.ordinal()) {
+        output.append(detailPrefix + "skipped runtime filters: ")
+            .append(Joiner.on(", ").join(skippedRuntimeFilters_) + "\n");
+      }
     }
     return output.toString();
   }
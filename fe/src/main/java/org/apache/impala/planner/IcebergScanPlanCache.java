@@ -0,0 +1,285 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.planner;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.iceberg.expressions.And;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.Literal;
+import org.apache.iceberg.expressions.NamedReference;
+import org.apache.iceberg.expressions.Not;
+import org.apache.iceberg.expressions.Or;
+import org.apache.iceberg.expressions.UnboundPredicate;
+import org.apache.impala.catalog.FeIcebergTable;
+import org.apache.impala.catalog.HdfsPartition.FileDescriptor;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.thrift.TUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Process-wide cache of the results of Iceberg scan planning, i.e. of the data and
+ * delete files returned by IcebergUtil.planFiles(). Planning has to read the manifest
+ * files of the snapshot, so repeated queries with the same predicates on the same
+ * snapshot, e.g. from dashboards, save most of their planning time by reusing the
+ * result.
+ *
+ * Entries are keyed by the table, its catalog version, the snapshot id and the
+ * normalized predicates pushed down to Iceberg. The catalog version is part of the key
+ * because the cached file descriptors refer to the host index of the loaded table.
+ * Residual expressions are stored as the normalized form of the predicates they
+ * reference, because Iceberg expressions are only comparable by identity and each
+ * query creates its own ones.
+ *
+ * The cache is bounded by the total number of file references of its entries, see
+ * --iceberg_scan_plan_cache_capacity.
+ */
+public class IcebergScanPlanCache {
+  public static final IcebergScanPlanCache INSTANCE = new IcebergScanPlanCache();
+
+  // Used if BackendConfig is not initialized, e.g. in some tests.
+  private static final long DEFAULT_CAPACITY = 100000;
+
+  // Frontend profile counter of the scans whose plan was found in the cache.
+  private static final String CACHE_HITS = "IcebergScanPlanCacheHits";
+
+  /**
+   * A data file returned by scan planning together with its delete files.
+   */
+  public static class PlannedFile {
+    private final FileDescriptor dataFile_;
+    private final List<FileDescriptor> positionDeleteFiles_;
+    private final List<FileDescriptor> equalityDeleteFiles_;
+
+    public PlannedFile(FileDescriptor dataFile, List<FileDescriptor> positionDeleteFiles,
+        List<FileDescriptor> equalityDeleteFiles) {
+      dataFile_ = Preconditions.checkNotNull(dataFile);
+      positionDeleteFiles_ = positionDeleteFiles;
+      equalityDeleteFiles_ = equalityDeleteFiles;
+    }
+
+    public FileDescriptor getDataFile() { return dataFile_; }
+    public List<FileDescriptor> getPositionDeleteFiles() { return positionDeleteFiles_; }
+    public List<FileDescriptor> getEqualityDeleteFiles() { return equalityDeleteFiles_; }
+
+    public boolean hasDeletes() {
+      return !positionDeleteFiles_.isEmpty() || !equalityDeleteFiles_.isEmpty();
+    }
+
+    private int getNumFiles() {
+      return 1 + positionDeleteFiles_.size() + equalityDeleteFiles_.size();
+    }
+  }
+
+  /**
+   * The result of planning a scan of one snapshot with a set of predicates.
+   */
+  public static class ScanPlan {
+    private final List<PlannedFile> files_;
+    // True if a file had a non-trivial residual expression.
+    private final boolean hasResiduals_;
+    // Normalized form of the predicates referenced by the residual expressions, in the
+    // order in which they were found. Null if a residual referenced a predicate that
+    // was not pushed down.
+    private final List<String> residualPredicates_;
+
+    public ScanPlan(List<PlannedFile> files, boolean hasResiduals,
+        List<String> residualPredicates) {
+      files_ = Collections.unmodifiableList(files);
+      hasResiduals_ = hasResiduals;
+      residualPredicates_ = residualPredicates == null ?
+          null : Collections.unmodifiableList(residualPredicates);
+    }
+
+    public List<PlannedFile> getFiles() { return files_; }
+    public boolean hasResiduals() { return hasResiduals_; }
+    public List<String> getResidualPredicates() { return residualPredicates_; }
+
+    private int getWeight() {
+      int weight = 1;
+      for (PlannedFile file : files_) weight += file.getNumFiles();
+      return weight;
+    }
+  }
+
+  // Lazily created in getCache() because BackendConfig may not be set at class load
+  // time. Null if the cache is disabled.
+  private volatile Cache<String, ScanPlan> cache_;
+  private volatile boolean cacheInitialized_ = false;
+  private final long capacity_;
+
+  private IcebergScanPlanCache() { capacity_ = -1; }
+
+  @VisibleForTesting
+  IcebergScanPlanCache(long capacity) { capacity_ = capacity; }
+
+  /**
+   * Returns the key of the scan of snapshot 'snapshotId' of 'table' with the predicates
+   * whose normalized forms are 'normalizedPredicates'. The order of the predicates does
+   * not matter.
+   */
+  public static String getCacheKey(FeIcebergTable table, long snapshotId,
+      Collection<String> normalizedPredicates) {
+    StringBuilder key = new StringBuilder();
+    appendString(table.getFullName(), key);
+    key.append(table.getCatalogVersion()).append(':').append(snapshotId);
+    List<String> sortedPredicates = new ArrayList<>(normalizedPredicates);
+    Collections.sort(sortedPredicates);
+    for (String predicate : sortedPredicates) {
+      key.append(',');
+      appendString(predicate, key);
+    }
+    return key.toString();
+  }
+
+  /**
+   * Returns a string that identifies 'expr' across queries. Unlike
+   * Expression.toString(), strings and other values are length-prefixed so that
+   * different expressions never have the same normalized form.
+   */
+  public static String normalize(Expression expr) {
+    StringBuilder sb = new StringBuilder();
+    appendNormalized(expr, sb);
+    return sb.toString();
+  }
+
+  private static void appendNormalized(Expression expr, StringBuilder sb) {
+    if (expr instanceof And) {
+      sb.append("and(");
+      appendNormalized(((And) expr).left(), sb);
+      sb.append(',');
+      appendNormalized(((And) expr).right(), sb);
+      sb.append(')');
+    } else if (expr instanceof Or) {
+      sb.append("or(");
+      appendNormalized(((Or) expr).left(), sb);
+      sb.append(',');
+      appendNormalized(((Or) expr).right(), sb);
+      sb.append(')');
+    } else if (expr instanceof Not) {
+      sb.append("not(");
+      appendNormalized(((Not) expr).child(), sb);
+      sb.append(')');
+    } else if (expr instanceof UnboundPredicate) {
+      UnboundPredicate<?> pred = (UnboundPredicate<?>) expr;
+      sb.append(pred.op().name()).append('(');
+      if (pred.term() instanceof NamedReference) {
+        appendString(((NamedReference<?>) pred.term()).name(), sb);
+      } else {
+        appendString(pred.term().toString(), sb);
+      }
+      if (pred.literals() != null) {
+        for (Literal<?> literal : pred.literals()) {
+          sb.append(',');
+          appendLiteral(literal.value(), sb);
+        }
+      }
+      sb.append(')');
+    } else {
+      sb.append(expr.op().name()).append('(');
+      appendString(expr.toString(), sb);
+      sb.append(')');
+    }
+  }
+
+  private static void appendLiteral(Object value, StringBuilder sb) {
+    sb.append(value.getClass().getSimpleName());
+    if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      appendString(BaseEncoding.base16().encode(bytes), sb);
+    } else {
+      appendString(value.toString(), sb);
+    }
+  }
+
+  private static void appendString(String str, StringBuilder sb) {
+    sb.append(str.length()).append(':').append(str);
+  }
+
+  /**
+   * Returns the cached plan with key 'key', or null if there is none. 'key' may be
+   * null. Hits are counted in the frontend profile of the current query.
+   */
+  public ScanPlan get(String key) {
+    if (key == null) return null;
+    Cache<String, ScanPlan> cache = getCache();
+    if (cache == null) return null;
+    ScanPlan plan = cache.getIfPresent(key);
+    if (plan != null) {
+      FrontendProfile profile = FrontendProfile.getCurrentOrNull();
+      if (profile != null) profile.addToCounter(CACHE_HITS, TUnit.NONE, 1);
+    }
+    return plan;
+  }
+
+  public void put(String key, ScanPlan plan) {
+    if (key == null) return;
+    Cache<String, ScanPlan> cache = getCache();
+    if (cache == null) return;
+    cache.put(key, plan);
+  }
+
+  @VisibleForTesting
+  public void clear() {
+    Cache<String, ScanPlan> cache = getCache();
+    if (cache != null) cache.invalidateAll();
+  }
+
+  @VisibleForTesting
+  long size() {
+    Cache<String, ScanPlan> cache = getCache();
+    if (cache == null) return 0;
+    cache.cleanUp();
+    return cache.size();
+  }
+
+  private Cache<String, ScanPlan> getCache() {
+    if (!cacheInitialized_) {
+      synchronized (this) {
+        if (!cacheInitialized_) {
+          long capacity = capacity_;
+          if (capacity < 0) {
+            capacity = BackendConfig.INSTANCE != null ?
+                BackendConfig.INSTANCE.getIcebergScanPlanCacheCapacity() :
+                DEFAULT_CAPACITY;
+          }
+          if (capacity > 0) {
+            cache_ = CacheBuilder.newBuilder()
+                .maximumWeight(capacity)
+                .weigher((String k, ScanPlan v) -> v.getWeight())
+                .build();
+          }
+          cacheInitialized_ = true;
+        }
+      }
+    }
+    return cache_;
+  }
+}
@@ -17,23 +17,32 @@
 
 package org.apache.impala.planner;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
 import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.apache.curator.shaded.com.google.common.collect.Lists;
+import org.apache.hadoop.fs.Path;
 import org.apache.iceberg.ContentFile;
 import org.apache.iceberg.DeleteFile;
 import org.apache.iceberg.FileContent;
@@ -77,9 +86,11 @@ import org.apache.impala.common.ImpalaRuntimeException;
 import org.apache.impala.common.Pair;
 import org.apache.impala.fb.FbIcebergMetadata;
 import org.apache.impala.planner.JoinNode.DistributionMode;
+import org.apache.impala.service.FrontendProfile;
 import org.apache.impala.thrift.TColumnStats;
 import org.apache.impala.thrift.TIcebergPartitionTransformType;
 import org.apache.impala.thrift.TQueryOptions;
+import org.apache.impala.thrift.TUnit;
 import org.apache.impala.thrift.TVirtualColumnType;
 import org.apache.impala.util.IcebergUtil;
 import org.slf4j.Logger;
@@ -94,6 +105,9 @@ import org.slf4j.LoggerFactory;
 public class IcebergScanPlanner {
   private static final Logger LOG = LoggerFactory.getLogger(IcebergScanPlanner.class);
 
+  // Frontend profile counter of the time spent planning Iceberg scans.
+  private static final String MANIFEST_READ_TIME = "IcebergManifestReadTime";
+
   private Analyzer analyzer_;
   private PlannerContext ctx_;
   private TableRef tblRef_;
@@ -102,9 +116,11 @@ public class IcebergScanPlanner {
   // Mapping for translated Impala expressions
   private final Map<Expression, Expr> impalaIcebergPredicateMapping_ =
       new LinkedHashMap<>();
-  // Residual expressions after Iceberg planning
-  private final Set<Expression> residualExpressions_ =
-      new TreeSet<>(Comparator.comparing(ExpressionUtil::toSanitizedString));
+  // True if Iceberg returned non-trivial residual expressions after planning
+  private boolean hasResiduals_ = false;
+  // Pushed down predicates referenced by the residual expressions after Iceberg
+  // planning. Null if a residual references a predicate that was not pushed down.
+  private List<Expression> residualPredicates_ = new ArrayList<>();
   // Expressions filtered by Iceberg's planFiles, subset of
   // 'impalaIcebergPredicateMapping_''s values
   private final List<Expr> skippedExpressions_ = new ArrayList<>();
@@ -184,6 +200,7 @@ public class IcebergScanPlanner {
     dataFilesWithDeletes_ = fileStore.getDataFilesWithDeletes();
     positionDeleteFiles_ = new HashSet<>(fileStore.getPositionDeleteFiles());
     initEqualityIds(fileStore.getEqualityDeleteFiles());
+    prunePositionDeleteFiles();
 
     updateDeleteStatistics();
   }
@@ -548,34 +565,85 @@ public class IcebergScanPlanner {
     Preconditions.checkState(allEqualityFieldIds_.isEmpty());
     Preconditions.checkState(equalityIdsToDeleteFiles_.isEmpty());
 
-    TimeTravelSpec timeTravelSpec = tblRef_.getTimeTravelSpec();
+    // Normalized form of the pushed down predicates, see IcebergScanPlanCache.
+    Map<Expression, String> normalizedPredicates = new LinkedHashMap<>();
+    Map<String, Expression> predicatesByNormalizedForm = new HashMap<>();
+    for (Expression predicate : impalaIcebergPredicateMapping_.keySet()) {
+      String normalized = IcebergScanPlanCache.normalize(predicate);
+      normalizedPredicates.put(predicate, normalized);
+      predicatesByNormalizedForm.putIfAbsent(normalized, predicate);
+    }
+    String cacheKey = IcebergScanPlanCache.getCacheKey(getIceTable(), snapshotId_,
+        normalizedPredicates.values());
+    IcebergScanPlanCache.ScanPlan scanPlan = IcebergScanPlanCache.INSTANCE.get(cacheKey);
+    if (scanPlan == null) {
+      scanPlan = planFiles(normalizedPredicates);
+      IcebergScanPlanCache.INSTANCE.put(cacheKey, scanPlan);
+    } else {
+      LOG.debug("Reusing cached scan planning result for Iceberg table {}, snapshot {}",
+          getIceTable().getFullName(), snapshotId_);
+    }
+
+    for (IcebergScanPlanCache.PlannedFile file : scanPlan.getFiles()) {
+      if (!file.hasDeletes()) {
+        dataFilesWithoutDeletes_.add(file.getDataFile());
+        continue;
+      }
+      dataFilesWithDeletes_.add(file.getDataFile());
+      positionDeleteFiles_.addAll(file.getPositionDeleteFiles());
+      for (FileDescriptor delFile : file.getEqualityDeleteFiles()) {
+        addEqualityDeletesAndIds(delFile);
+      }
+    }
+    hasResiduals_ = scanPlan.hasResiduals();
+    if (scanPlan.getResidualPredicates() == null) {
+      residualPredicates_ = null;
+    } else {
+      for (String normalized : scanPlan.getResidualPredicates()) {
+        residualPredicates_.add(predicatesByNormalizedForm.get(normalized));
+      }
+    }
+    prunePositionDeleteFiles();
+    updateDeleteStatistics();
+  }
 
+  /**
+   * Calls Iceberg's planFiles() with the pushed down predicates, which are the keys of
+   * 'normalizedPredicates', and returns the resulting files together with the
+   * predicates referenced by the residual expressions.
+   */
+  private IcebergScanPlanCache.ScanPlan planFiles(
+      Map<Expression, String> normalizedPredicates) throws ImpalaException {
+    TimeTravelSpec timeTravelSpec = tblRef_.getTimeTravelSpec();
+    List<IcebergScanPlanCache.PlannedFile> files = new ArrayList<>();
+    Stopwatch sw = Stopwatch.createStarted();
+    Set<Expression> residualExpressions =
+        new TreeSet<>(Comparator.comparing(ExpressionUtil::toSanitizedString));
     try (CloseableIterable<FileScanTask> fileScanTasks =
         IcebergUtil.planFiles(getIceTable(),
-            new ArrayList<>(impalaIcebergPredicateMapping_.keySet()), timeTravelSpec)) {
+            new ArrayList<>(normalizedPredicates.keySet()), timeTravelSpec)) {
       long dataFilesCacheMisses = 0;
       for (FileScanTask fileScanTask : fileScanTasks) {
         Expression residualExpr = fileScanTask.residual();
         if (residualExpr != null && !(residualExpr instanceof True)) {
-          residualExpressions_.add(residualExpr);
+          residualExpressions.add(residualExpr);
         }
         Pair<FileDescriptor, Boolean> fileDesc = getFileDescriptor(fileScanTask.file());
         if (!fileDesc.second) ++dataFilesCacheMisses;
-        if (fileScanTask.deletes().isEmpty()) {
-          dataFilesWithoutDeletes_.add(fileDesc.first);
-        } else {
-          dataFilesWithDeletes_.add(fileDesc.first);
-          for (DeleteFile delFile : fileScanTask.deletes()) {
-            Pair<FileDescriptor, Boolean> delFileDesc = getFileDescriptor(delFile);
-            if (!delFileDesc.second) ++dataFilesCacheMisses;
-            if (delFile.content() == FileContent.EQUALITY_DELETES) {
-              addEqualityDeletesAndIds(delFileDesc.first);
-            } else {
-              Preconditions.checkState(delFile.content() == FileContent.POSITION_DELETES);
-              positionDeleteFiles_.add(delFileDesc.first);
-            }
+        List<FileDescriptor> positionDeleteFiles = new ArrayList<>();
+        List<FileDescriptor> equalityDeleteFiles = new ArrayList<>();
+        for (DeleteFile delFile : fileScanTask.deletes()) {
+          Pair<FileDescriptor, Boolean> delFileDesc = getFileDescriptor(delFile);
+          if (!delFileDesc.second) ++dataFilesCacheMisses;
+          if (delFile.content() == FileContent.EQUALITY_DELETES) {
+            equalityDeleteFiles.add(delFileDesc.first);
+          } else {
+            Preconditions.checkState(delFile.content() == FileContent.POSITION_DELETES);
+            positionDeleteFiles.add(delFileDesc.first);
           }
         }
+        files.add(new IcebergScanPlanCache.PlannedFile(
+            fileDesc.first, positionDeleteFiles, equalityDeleteFiles));
       }
       if (dataFilesCacheMisses > 0) {
         Preconditions.checkState(timeTravelSpec != null);
@@ -586,8 +654,131 @@ public class IcebergScanPlanner {
       throw new ImpalaRuntimeException(String.format(
           "Failed to load data files for Iceberg table: %s", getIceTable().getFullName()),
           e);
+    } finally {
+      FrontendProfile profile = FrontendProfile.getCurrentOrNull();
+      if (profile != null) {
+        profile.addToCounter(MANIFEST_READ_TIME, TUnit.TIME_MS,
+            sw.elapsed(TimeUnit.MILLISECONDS));
+      }
     }
-    updateDeleteStatistics();
+
+    List<String> residualPredicates = new ArrayList<>();
+    for (Expression expression : residualExpressions) {
+      List<Expression> locatedExpressions = ExpressionVisitors.visit(expression,
+          new IcebergExpressionCollector());
+      for (Expression located : locatedExpressions) {
+        String normalized = normalizedPredicates.get(located);
+        if (normalized == null) {
+          residualPredicates = null;
+          break;
+        }
+        residualPredicates.add(normalized);
+      }
+      if (residualPredicates == null) break;
+    }
+    return new IcebergScanPlanCache.ScanPlan(
+        files, !residualExpressions.isEmpty(), residualPredicates);
+  }
+
+  /**
+   * Removes the position delete files that cannot refer to any of the data files in
+   * 'dataFilesWithDeletes_' according to the bounds of their file_path column. These
+   * are e.g. delete files whose data files were rewritten by compaction, or were not
+   * selected for the scan. The paths of the data files are built the way the delete
+   * join builds them, and both the data file paths and the bounds are normalized with
+   * IcebergUtil.normalizeFilePath(). A delete file is kept if its bounds cannot be
+   * matched exactly, see getReferencedDataFiles(). When all position delete files are
+   * matched and there are no equality delete files, data files that none of the
+   * remaining delete files can refer to are moved to 'dataFilesWithoutDeletes_' so
+   * that they are not scanned below the delete join. This reduces the amount of delete
+   * records that are scanned and sent to the join.
+   */
+  private void prunePositionDeleteFiles() {
+    if (positionDeleteFiles_.isEmpty()) return;
+    // The rows of the data files without deletes were already counted during analysis
+    // if the count(*) optimization is applied, so all data files with deletes have to
+    // stay below the join.
+    if (ctx_.getQueryCtx().isOptimize_count_star_for_iceberg_v2()) return;
+    URI defaultFs = IcebergUtil.getDefaultFsUri();
+    String tableLocation = getIceTable().getLocation();
+    TreeMap<String, FileDescriptor> dataFilesByPath = new TreeMap<>();
+    for (FileDescriptor fd : dataFilesWithDeletes_) {
+      String path = IcebergUtil.normalizeFilePath(
+          getDeleteJoinFilePath(fd, tableLocation), defaultFs);
+      // Delete records cannot be matched against this data file.
+      if (path == null) return;
+      dataFilesByPath.put(path, fd);
+    }
+    Set<FileDescriptor> referencedDataFiles = new HashSet<>();
+    boolean allDeleteFilesMatched = true;
+    int numPrunedDeleteFiles = 0;
+    Iterator<FileDescriptor> it = positionDeleteFiles_.iterator();
+    while (it.hasNext()) {
+      FbIcebergMetadata fileMetadata = it.next().getFbFileMetadata().icebergMetadata();
+      Collection<FileDescriptor> referenced = getReferencedDataFiles(dataFilesByPath,
+          fileMetadata.referencedDataFileLowerBound(),
+          fileMetadata.referencedDataFileUpperBound(), defaultFs);
+      if (referenced == null) {
+        allDeleteFilesMatched = false;
+      } else if (referenced.isEmpty()) {
+        it.remove();
+        ++numPrunedDeleteFiles;
+      } else {
+        referencedDataFiles.addAll(referenced);
+      }
+    }
+    if (numPrunedDeleteFiles > 0) {
+      LOG.debug("Pruned {} position delete files of Iceberg table {}",
+          numPrunedDeleteFiles, getIceTable().getFullName());
+    }
+
+    if (!allDeleteFilesMatched || !equalityIdsToDeleteFiles_.isEmpty()) return;
+    if (referencedDataFiles.size() == dataFilesWithDeletes_.size()) return;
+    List<FileDescriptor> dataFilesWithDeletes = new ArrayList<>();
+    List<FileDescriptor> dataFilesWithoutDeletes =
+        new ArrayList<>(dataFilesWithoutDeletes_);
+    for (FileDescriptor fd : dataFilesWithDeletes_) {
+      if (referencedDataFiles.contains(fd)) {
+        dataFilesWithDeletes.add(fd);
+      } else {
+        dataFilesWithoutDeletes.add(fd);
+      }
+    }
+    dataFilesWithDeletes_ = dataFilesWithDeletes;
+    dataFilesWithoutDeletes_ = dataFilesWithoutDeletes;
+  }
+
+  /**
+   * Returns the path of the data file 'fd' the way IcebergDeleteBuilder in the backend
+   * builds it from the partition location and the relative path.
+   */
+  @VisibleForTesting
+  static String getDeleteJoinFilePath(FileDescriptor fd, String location) {
+    String relativePath = fd.getRelativePath();
+    if (relativePath == null || relativePath.isEmpty()) return fd.getAbsolutePath();
+    if (location.endsWith(Path.SEPARATOR)) return location + relativePath;
+    return location + Path.SEPARATOR + relativePath;
+  }
+
+  /**
+   * Returns the values of 'dataFilesByPath', keyed by normalized paths, that a position
+   * delete file with the file_path bounds 'lower' and 'upper' can refer to. Returns
+   * null if the bounds cannot be matched exactly: if they are missing, cannot be
+   * normalized, or are on a file system that none of the data files is on. The delete
+   * file has to be kept in that case.
+   */
+  @VisibleForTesting
+  static <T> Collection<T> getReferencedDataFiles(NavigableMap<String, T> dataFilesByPath,
+      String lower, String upper, URI defaultFs) {
+    Pair<String, String> bounds =
+        IcebergUtil.normalizeFilePathBounds(lower, upper, defaultFs);
+    if (bounds == null) return null;
+    String prefix = IcebergUtil.getFileSystemPrefix(bounds.first);
+    // '0' is the character after '/', so this is every path of the file system.
+    if (dataFilesByPath.subMap(prefix + "/", true, prefix + "0", false).isEmpty()) {
+      return null;
+    }
+    return dataFilesByPath.subMap(bounds.first, true, bounds.second, true).values();
   }
 
   private void addEqualityDeletesAndIds(FileDescriptor fd) {
@@ -612,7 +803,7 @@ public class IcebergScanPlanner {
   }
 
   private void filterConjuncts() {
-    if (residualExpressions_.isEmpty()) {
+    if (!hasResiduals_) {
       conjuncts_.removeAll(impalaIcebergPredicateMapping_.values());
       return;
     }
@@ -622,17 +813,12 @@ public class IcebergScanPlanner {
 
   private boolean trySubsettingPredicatesBeingPushedDown() {
     long startTime = System.currentTimeMillis();
+    // If we failed to locate any of the Iceberg residual expressions then we skip
+    // filtering the predicates to be pushed down to Impala scanner.
+    if (residualPredicates_ == null) return false;
     List<Expr> expressionsToRetain = new ArrayList<>(untranslatedExpressions_);
-    for (Expression expression : residualExpressions_) {
-      List<Expression> locatedExpressions = ExpressionVisitors.visit(expression,
-          new IcebergExpressionCollector());
-      for (Expression located : locatedExpressions) {
-        Expr expr = impalaIcebergPredicateMapping_.get(located);
-        // If we fail to locate any of the Iceberg residual expressions then we skip
-        // filtering the predicates to be pushed down to Impala scanner.
-        if (expr == null) return false;
-        expressionsToRetain.add(expr);
-      }
+    for (Expression predicate : residualPredicates_) {
+      expressionsToRetain.add(impalaIcebergPredicateMapping_.get(predicate));
     }
     skippedExpressions_.addAll(
         conjuncts_.stream().filter(expr -> !expressionsToRetain.contains(expr)).collect(
@@ -644,7 +830,7 @@ public class IcebergScanPlanner {
   }
 
   private List<Expr> getSkippedConjuncts() {
-    if (!residualExpressions_.isEmpty()) return skippedExpressions_;
+    if (hasResiduals_) return skippedExpressions_;
     return new ArrayList<>(impalaIcebergPredicateMapping_.values());
   }
 
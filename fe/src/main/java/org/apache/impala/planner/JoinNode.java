@@ -61,7 +61,7 @@ public abstract class JoinNode extends PlanNode {
 
   // Slop in percent allowed when comparing stats for the purpose of determining whether
   // an equi-join condition is a foreign/primary key join.
-  protected final static double FK_PK_MAX_STATS_DELTA_PERC = 0.05;
+  public final static double FK_PK_MAX_STATS_DELTA_PERC = 0.05;
 
   protected JoinOperator joinOp_;
 
@@ -106,6 +106,10 @@ public abstract class JoinNode extends PlanNode {
   // Theses conjuncts are printed in the explain plan.
   protected List<EqJoinConjunctScanSlots> fkPkEqJoinConjuncts_;
 
+  // Descriptions of the runtime filters that this node would have produced but that
+  // were skipped because they were ineffective in past executions. Shown in EXPLAIN.
+  protected final List<String> skippedRuntimeFilters_ = new ArrayList<>();
+
   public enum DistributionMode {
     NONE("NONE"),
     BROADCAST("BROADCAST"),
@@ -256,6 +260,9 @@ public abstract class JoinNode extends PlanNode {
   public JoinOperator getJoinOp() { return joinOp_; }
   public List<BinaryPredicate> getEqJoinConjuncts() { return eqJoinConjuncts_; }
   public List<Expr> getOtherJoinConjuncts() { return otherJoinConjuncts_; }
+  public void addSkippedRuntimeFilter(String description) {
+    skippedRuntimeFilters_.add(description);
+  }
   public boolean isStraightJoin() { return isStraightJoin_; }
   public DistributionMode getDistributionModeHint() { return distrModeHint_; }
   public DistributionMode getDistributionMode() { return distrMode_; }
@@ -48,6 +48,7 @@ import org.apache.impala.common.AnalysisException;
 import org.apache.impala.common.ImpalaRuntimeException;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.service.BackendConfig;
+import org.apache.impala.service.FrontendProfile;
 import org.apache.impala.thrift.TExplainLevel;
 import org.apache.impala.thrift.TKuduReplicaSelection;
 import org.apache.impala.thrift.TKuduScanNode;
@@ -59,6 +60,7 @@ import org.apache.impala.thrift.TScanRange;
 import org.apache.impala.thrift.TScanRangeLocation;
 import org.apache.impala.thrift.TScanRangeLocationList;
 import org.apache.impala.thrift.TScanRangeSpec;
+import org.apache.impala.thrift.TUnit;
 import org.apache.impala.util.ExprUtil;
 import org.apache.impala.util.KuduUtil;
 import org.apache.impala.util.ExecutorMembershipSnapshot;
@@ -90,7 +92,8 @@ import com.google.common.collect.Lists;
  * scheduling and initializing the scanners. Scan tokens are opaque objects that represent
  * a scan for some Kudu data on a tablet (currently one token represents one tablet), and
  * it contains the tablet locations and all information needed to produce a Kudu scanner,
- * including the projected columns and predicates that are pushed down.
+ * including the projected columns and predicates that are pushed down. The tokens of
+ * repeated scans with the same predicates are reused from KuduScanTokenCache.
  *
  * After KUDU-1065 is resolved, Kudu will also prune the tablets that don't need to be
  * scanned, and only the tokens for those tablets will be returned.
@@ -98,6 +101,9 @@ import com.google.common.collect.Lists;
 public class KuduScanNode extends ScanNode {
   private final static Logger LOG = LoggerFactory.getLogger(KuduScanNode.class);
 
+  // Name of the profile counter of scans that reused cached scan tokens.
+  private static final String SCAN_TOKEN_CACHE_HITS = "KuduScanTokenCacheHits";
+
   private final FeKuduTable kuduTable_;
 
   // True if this scan node should use the MT implementation in the backend.
@@ -140,6 +146,11 @@ public class KuduScanNode extends ScanNode {
   // 01:40:00(Local, UTC is 05:40:00) after actually scanning.
   boolean currentPredicateNeedCheckAgain_ = false;
 
+  // Name of the table whose entries in KuduScanTokenCache the scan tokens of this node
+  // were taken from or added to, null if the cache is disabled. Passed to the backend
+  // so that the entries are dropped if the query fails.
+  private String scanTokenCacheTable_;
+
   public KuduScanNode(PlanNodeId id, TupleDescriptor desc, List<Expr> conjuncts,
       MultiAggregateInfo aggInfo, TableRef kuduTblRef) {
     super(id, desc, "SCAN KUDU");
@@ -239,8 +250,9 @@ public class KuduScanNode extends ScanNode {
 
     replicaSelectionLeaderOnly_ = (analyzer.getQueryOptions().getKudu_replica_selection()
         == TKuduReplicaSelection.LEADER_ONLY);
-    List<KuduScanToken> scanTokens = createScanTokens(analyzer, client, rpcTable);
-    for (KuduScanToken token: scanTokens) {
+    List<KuduScanTokenCache.CachedToken> scanTokens =
+        getScanTokens(analyzer, client, rpcTable);
+    for (KuduScanTokenCache.CachedToken token: scanTokens) {
       LocatedTablet tablet = token.getTablet();
       List<TScanRangeLocation> locations = new ArrayList<>();
       if (tablet.getReplicas().isEmpty()) {
@@ -266,12 +278,7 @@ public class KuduScanNode extends ScanNode {
       }
 
       TScanRange scanRange = new TScanRange();
-      try {
-        scanRange.setKudu_scan_token(token.serialize());
-      } catch (IOException e) {
-        throw new ImpalaRuntimeException("Unable to serialize Kudu scan token=" +
-            token.toString(), e);
-      }
+      scanRange.setKudu_scan_token(token.getSerializedToken());
 
       TScanRangeLocationList locs = new TScanRangeLocationList();
       locs.setScan_range(scanRange);
@@ -281,23 +288,86 @@ public class KuduScanNode extends ScanNode {
   }
 
   /**
-   * Returns KuduScanTokens for this scan given the projected columns and predicates that
-   * will be pushed to Kudu. The projected Kudu columns are ordered by offset in an
-   * Impala tuple to make the Impala and Kudu tuple layouts identical.
+   * Returns the serialized scan tokens for this scan and the tablets they scan. Reuses
+   * the tokens of an earlier scan with the same projected columns and predicates from
+   * KuduScanTokenCache if possible, otherwise creates them and adds them to the cache.
+   */
+  private List<KuduScanTokenCache.CachedToken> getScanTokens(Analyzer analyzer,
+      KuduClient client, org.apache.kudu.client.KuduTable rpcTable)
+      throws ImpalaRuntimeException {
+    List<String> projectedCols = getProjectedColumnNames();
+    // A point lookup reads at most one row of a single tablet. Splitting the tablet
+    // would only add scan ranges, so it is scanned with one targeted token.
+    long splitSizeHint = isPointLookupQuery_ ?
+        0 : analyzer.getQueryOptions().getTargeted_kudu_scan_range_length();
+    String cacheKey = null;
+    if (KuduScanTokenCache.INSTANCE.isEnabled()) {
+      List<String> predicates = new ArrayList<>();
+      for (KuduPredicate predicate: kuduPredicates_) {
+        predicates.add(KuduScanTokenCache.getPredicateKey(predicate));
+      }
+      cacheKey = KuduScanTokenCache.getCacheKey(kuduTable_.getFullName(),
+          rpcTable.getTableId(), kuduTable_.getCatalogVersion(), projectedCols,
+          Math.max(0, splitSizeHint), predicates);
+      scanTokenCacheTable_ = kuduTable_.getFullName();
+      List<KuduScanTokenCache.CachedToken> cached =
+          KuduScanTokenCache.INSTANCE.get(cacheKey);
+      if (cached != null) {
+        FrontendProfile profile = FrontendProfile.getCurrentOrNull();
+        if (profile != null) {
+          profile.addToCounter(SCAN_TOKEN_CACHE_HITS, TUnit.NONE, 1);
+        }
+        LOG.debug("Reusing cached scan tokens for Kudu table {}",
+            kuduTable_.getFullName());
+        return cached;
+      }
+    }
+
+    List<KuduScanTokenCache.CachedToken> result = new ArrayList<>();
+    boolean allTabletsHaveReplicas = true;
+    for (KuduScanToken token:
+        createScanTokens(client, rpcTable, projectedCols, splitSizeHint)) {
+      try {
+        result.add(new KuduScanTokenCache.CachedToken(token.serialize(),
+            token.getTablet()));
+      } catch (IOException e) {
+        throw new ImpalaRuntimeException("Unable to serialize Kudu scan token=" +
+            token.toString(), e);
+      }
+      if (token.getTablet().getReplicas().isEmpty()) allTabletsHaveReplicas = false;
+    }
+    // Tokens of tablets without replicas fail the query, don't let them fail later
+    // queries.
+    if (cacheKey != null && allTabletsHaveReplicas) {
+      KuduScanTokenCache.INSTANCE.put(cacheKey, result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the names of the projected Kudu columns, ordered by offset in an Impala
+   * tuple to make the Impala and Kudu tuple layouts identical.
    */
-  private List<KuduScanToken> createScanTokens(Analyzer analyzer, KuduClient client,
-      org.apache.kudu.client.KuduTable rpcTable) {
+  private List<String> getProjectedColumnNames() {
     List<String> projectedCols = new ArrayList<>();
     for (SlotDescriptor desc: getTupleDesc().getSlotsOrderedByOffset()) {
       if (!isCountStarOptimizationDescriptor(desc)) {
         projectedCols.add(((KuduColumn) desc.getColumn()).getKuduName());
       }
     }
+    return projectedCols;
+  }
+
+  /**
+   * Returns KuduScanTokens for this scan given the projected columns and predicates that
+   * will be pushed to Kudu.
+   */
+  private List<KuduScanToken> createScanTokens(KuduClient client,
+      org.apache.kudu.client.KuduTable rpcTable, List<String> projectedCols,
+      long splitSizeHint) {
     KuduScanTokenBuilder tokenBuilder = client.newScanTokenBuilder(rpcTable);
     tokenBuilder.setProjectedColumnNames(projectedCols);
-    long split_size_hint = analyzer.getQueryOptions()
-        .getTargeted_kudu_scan_range_length();
-    if (split_size_hint > 0) tokenBuilder.setSplitSizeBytes(split_size_hint);
+    if (splitSizeHint > 0) tokenBuilder.setSplitSizeBytes(splitSizeHint);
     for (KuduPredicate predicate: kuduPredicates_) tokenBuilder.addPredicate(predicate);
     return tokenBuilder.build();
   }
@@ -481,6 +551,9 @@ public class KuduScanNode extends ScanNode {
     if (countStarSlot_ != null) {
       node.kudu_scan_node.setCount_star_slot_offset(countStarSlot_.getByteOffset());
     }
+    if (scanTokenCacheTable_ != null) {
+      node.kudu_scan_node.setScan_token_cache_table(scanTokenCacheTable_);
+    }
   }
 
   /**
@@ -0,0 +1,218 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.planner;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.impala.service.BackendConfig;
+import org.apache.kudu.client.KuduPredicate;
+import org.apache.kudu.client.LocatedTablet;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Process-wide cache of the Kudu scan tokens created by KuduScanNode. Creating the
+ * tokens asks the Kudu master for the locations of the tablets that match the pushed
+ * down predicates, which dominates the planning time of point lookups and small range
+ * scans. Repeated short queries on the same Kudu table reuse the serialized tokens and
+ * tablet locations instead.
+ *
+ * Entries are keyed by the table, its Kudu table id and catalog version, the projected
+ * columns, the split size and the pushed down KuduPredicates, so ALTER TABLE and
+ * REFRESH make the old entries unused. Tablets that other Kudu clients add or move are
+ * only picked up once an entry expires, see --kudu_scan_token_cache_ttl_s. The entries
+ * of a table are also dropped when a query that scanned it fails, since the failure may
+ * be caused by outdated tablet locations, see invalidateTable().
+ *
+ * The cache is bounded by the total number of tokens of its entries, see
+ * --kudu_scan_token_cache_capacity.
+ */
+public class KuduScanTokenCache {
+  public static final KuduScanTokenCache INSTANCE = new KuduScanTokenCache();
+
+  // Used if BackendConfig is not initialized, e.g. in some tests.
+  private static final long DEFAULT_CAPACITY = 10000;
+  private static final int DEFAULT_TTL_S = 0;
+
+  /**
+   * A serialized scan token together with the tablet it scans.
+   */
+  public static class CachedToken {
+    private final byte[] serializedToken_;
+    private final LocatedTablet tablet_;
+
+    public CachedToken(byte[] serializedToken, LocatedTablet tablet) {
+      serializedToken_ = Preconditions.checkNotNull(serializedToken);
+      tablet_ = Preconditions.checkNotNull(tablet);
+    }
+
+    public byte[] getSerializedToken() { return serializedToken_; }
+    public LocatedTablet getTablet() { return tablet_; }
+  }
+
+  // Lazily created in getCache() because BackendConfig may not be set at class load
+  // time. Null if the cache is disabled.
+  private volatile Cache<String, List<CachedToken>> cache_;
+  private volatile boolean cacheInitialized_ = false;
+  private final long capacity_;
+  private final long ttlMs_;
+
+  private KuduScanTokenCache() {
+    capacity_ = -1;
+    ttlMs_ = -1;
+  }
+
+  @VisibleForTesting
+  KuduScanTokenCache(long capacity, long ttlMs) {
+    capacity_ = capacity;
+    ttlMs_ = ttlMs;
+  }
+
+  /**
+   * Returns the prefix shared by the keys of all entries of table 'tableName'.
+   */
+  public static String getTableKeyPrefix(String tableName) {
+    StringBuilder key = new StringBuilder();
+    appendString(tableName.toLowerCase(), key);
+    return key.toString();
+  }
+
+  /**
+   * Returns the key of the tokens of a scan of table 'tableName' with Kudu table id
+   * 'kuduTableId' and catalog version 'catalogVersion' that projects 'projectedCols',
+   * splits tablets into 'splitSizeBytes' chunks and pushes down the predicates whose
+   * keys, see getPredicateKey(), are 'predicates'. The order of the predicates does not
+   * matter.
+   */
+  public static String getCacheKey(String tableName, String kuduTableId,
+      long catalogVersion, List<String> projectedCols, long splitSizeBytes,
+      Collection<String> predicates) {
+    StringBuilder key = new StringBuilder(getTableKeyPrefix(tableName));
+    appendString(kuduTableId, key);
+    key.append(catalogVersion).append(':').append(splitSizeBytes).append(':');
+    key.append(projectedCols.size());
+    for (String col : projectedCols) {
+      key.append(',');
+      appendString(col, key);
+    }
+    List<String> sortedPredicates = new ArrayList<>(predicates);
+    Collections.sort(sortedPredicates);
+    key.append(':').append(sortedPredicates.size());
+    for (String predicate : sortedPredicates) {
+      key.append(',');
+      appendString(predicate, key);
+    }
+    return key.toString();
+  }
+
+  /**
+   * Returns the part of the cache key for the pushed down 'predicate'. It is the
+   * serialized protobuf of the predicate, which Kudu also embeds in the scan tokens.
+   * KuduPredicate.toString() cannot be used, since it does not escape string values,
+   * e.g. IN ("a", "b") and = 'a", "b' print the same values.
+   */
+  public static String getPredicateKey(KuduPredicate predicate) {
+    return Base64.getEncoder().encodeToString(predicate.toPB().toByteArray());
+  }
+
+  private static void appendString(String str, StringBuilder sb) {
+    sb.append(str.length()).append(':').append(str);
+  }
+
+  /**
+   * Returns the cached tokens with key 'key', or null if there are none.
+   */
+  public List<CachedToken> get(String key) {
+    Cache<String, List<CachedToken>> cache = getCache();
+    if (cache == null) return null;
+    return cache.getIfPresent(key);
+  }
+
+  public void put(String key, List<CachedToken> tokens) {
+    Cache<String, List<CachedToken>> cache = getCache();
+    if (cache == null) return;
+    cache.put(key, Collections.unmodifiableList(tokens));
+  }
+
+  /**
+   * Returns true if the cache is enabled.
+   */
+  public boolean isEnabled() { return getCache() != null; }
+
+  /**
+   * Drops all entries of table 'tableName'.
+   */
+  public void invalidateTable(String tableName) {
+    Cache<String, List<CachedToken>> cache = getCache();
+    if (cache == null) return;
+    String prefix = getTableKeyPrefix(tableName);
+    cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+  }
+
+  @VisibleForTesting
+  public void clear() {
+    Cache<String, List<CachedToken>> cache = getCache();
+    if (cache != null) cache.invalidateAll();
+  }
+
+  @VisibleForTesting
+  long size() {
+    Cache<String, List<CachedToken>> cache = getCache();
+    if (cache == null) return 0;
+    cache.cleanUp();
+    return cache.size();
+  }
+
+  private Cache<String, List<CachedToken>> getCache() {
+    if (!cacheInitialized_) {
+      synchronized (this) {
+        if (!cacheInitialized_) {
+          long capacity = capacity_;
+          long ttlMs = ttlMs_;
+          if (capacity < 0) {
+            capacity = BackendConfig.INSTANCE != null ?
+                BackendConfig.INSTANCE.getKuduScanTokenCacheCapacity() :
+                DEFAULT_CAPACITY;
+          }
+          if (ttlMs < 0) {
+            ttlMs = TimeUnit.SECONDS.toMillis(BackendConfig.INSTANCE != null ?
+                BackendConfig.INSTANCE.getKuduScanTokenCacheTtlS() : DEFAULT_TTL_S);
+          }
+          if (capacity > 0 && ttlMs > 0) {
+            cache_ = CacheBuilder.newBuilder()
+                .maximumWeight(capacity)
+                .weigher((String k, List<CachedToken> v) -> 1 + v.size())
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .build();
+          }
+          cacheInitialized_ = true;
+        }
+      }
+    }
+    return cache_;
+  }
+}
@@ -0,0 +1,239 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.planner;
+
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.impala.analysis.Expr;
+import org.apache.impala.analysis.SlotDescriptor;
+import org.apache.impala.analysis.SlotRef;
+import org.apache.impala.catalog.Column;
+import org.apache.impala.catalog.FeTable;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.thrift.TRuntimeFilterFeedbackParams;
+import org.apache.impala.thrift.TRuntimeFilterObservation;
+import org.apache.impala.thrift.TRuntimeFilterType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Process-wide record of how effective runtime filters were in past query executions.
+ * Filters are identified by a key built from their build-side base table column, the
+ * base table columns of all their targets and the filter type, so observations made
+ * for one query apply to later queries that join the same columns.
+ *
+ * The coordinator reports the rows processed and rejected by each filter when a query
+ * completes. The rejection ratio is tracked as an exponentially weighted moving
+ * average so that the estimate follows changes in the data. RuntimeFilterGenerator
+ * consults this record when the RUNTIME_FILTER_MIN_OBSERVED_REJECTION query option
+ * is set, and skips bloom and IN-list filters that historically reject too few rows.
+ *
+ * The number of remembered keys is bounded by --runtime_filter_feedback_cache_size.
+ * Collecting observations is disabled if it is 0, which is the default. The planner
+ * then does not set feedback keys and the coordinator does not look for the filter
+ * statistics in the profiles of finished queries.
+ * Observations expire --runtime_filter_feedback_ttl_s seconds after they were last
+ * updated. A filter that is skipped produces no new observations, so this is also how
+ * often skipped filters are built again to re-check their effectiveness.
+ */
+public class RuntimeFilterFeedback {
+  private final static Logger LOG = LoggerFactory.getLogger(RuntimeFilterFeedback.class);
+
+  public static final RuntimeFilterFeedback INSTANCE = new RuntimeFilterFeedback();
+
+  // Used if BackendConfig is not initialized, e.g. in some tests.
+  private static final int DEFAULT_CACHE_SIZE = 0;
+  private static final int DEFAULT_TTL_S = 3600;
+
+  // Weight of the newest observation in the moving average.
+  private static final double NEW_OBSERVATION_WEIGHT = 0.3;
+
+  // Minimum number of observations before the planner acts on the observed ratio.
+  @VisibleForTesting
+  static final int MIN_OBSERVATIONS = 3;
+
+  /**
+   * The observed effectiveness of the filters with a given key.
+   */
+  public static class Observation {
+    private double rejectionRatio_;
+    private long numObservations_;
+
+    private synchronized void add(long rowsProcessed, long rowsRejected) {
+      Preconditions.checkState(rowsProcessed > 0);
+      double ratio = Math.min(1.0, Math.max(0.0, (double) rowsRejected / rowsProcessed));
+      if (numObservations_ == 0) {
+        rejectionRatio_ = ratio;
+      } else {
+        rejectionRatio_ = NEW_OBSERVATION_WEIGHT * ratio
+            + (1 - NEW_OBSERVATION_WEIGHT) * rejectionRatio_;
+      }
+      ++numObservations_;
+    }
+
+    public synchronized double getRejectionRatio() { return rejectionRatio_; }
+    public synchronized long getNumObservations() { return numObservations_; }
+  }
+
+  // Map from feedback key and filter type to the observations. Lazily created in
+  // getCache() because BackendConfig may not be set at class load time. Null if
+  // collecting observations is disabled.
+  private volatile Cache<String, Observation> cache_;
+  private volatile boolean cacheInitialized_ = false;
+
+  // Time source of the expiry of observations.
+  private final Ticker ticker_;
+
+  @VisibleForTesting
+  RuntimeFilterFeedback() { this(Ticker.systemTicker()); }
+
+  @VisibleForTesting
+  RuntimeFilterFeedback(Ticker ticker) { ticker_ = ticker; }
+
+  /**
+   * Returns the key that identifies a filter with source 'srcExpr' and targets
+   * 'targetExprs' across queries, or null if the source or a target is not a base
+   * table column. The target columns are sorted so that the key does not depend on
+   * the order in which the targets were assigned.
+   */
+  public static String getFeedbackKey(Expr srcExpr, List<Expr> targetExprs) {
+    if (targetExprs.isEmpty()) return null;
+    String src = getColumnName(srcExpr);
+    if (src == null) return null;
+    TreeSet<String> targets = new TreeSet<>();
+    for (Expr targetExpr : targetExprs) {
+      String target = getColumnName(targetExpr);
+      if (target == null) return null;
+      targets.add(target);
+    }
+    return src + "->" + Joiner.on(",").join(targets);
+  }
+
+  private static String getColumnName(Expr expr) {
+    SlotRef slotRef = expr.unwrapSlotRef(true);
+    if (slotRef == null) return null;
+    SlotDescriptor slotDesc = slotRef.getDesc();
+    Column column = slotDesc.getColumn();
+    if (column == null) return null;
+    FeTable table = slotDesc.getParent().getTable();
+    if (table == null) return null;
+    return table.getFullName() + "." + column.getName();
+  }
+
+  /**
+   * Returns true if observations are collected, i.e. if
+   * --runtime_filter_feedback_cache_size is greater than 0.
+   */
+  public boolean isEnabled() { return getCache() != null; }
+
+  /**
+   * Records the observations reported by the coordinator for a completed query.
+   */
+  public void record(TRuntimeFilterFeedbackParams params) {
+    Cache<String, Observation> cache = getCache();
+    if (cache == null) return;
+    for (TRuntimeFilterObservation observation : params.getObservations()) {
+      if (observation.getRows_processed() <= 0) continue;
+      record(observation.getFeedback_key(), observation.getType(),
+          observation.getRows_processed(), observation.getRows_rejected());
+    }
+  }
+
+  @VisibleForTesting
+  void record(String feedbackKey, TRuntimeFilterType type, long rowsProcessed,
+      long rowsRejected) {
+    Cache<String, Observation> cache = getCache();
+    if (cache == null) return;
+    String key = getCacheKey(feedbackKey, type);
+    // compute() counts as a write, which restarts the expiry of the observation.
+    Observation observation = cache.asMap().compute(key, (k, v) -> {
+      Observation result = v != null ? v : new Observation();
+      result.add(rowsProcessed, rowsRejected);
+      return result;
+    });
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Runtime filter {}: rejected {} of {} rows, average rejection {}", key,
+          rowsRejected, rowsProcessed, observation.getRejectionRatio());
+    }
+  }
+
+  /**
+   * Returns the observations for filters of type 'type' with key 'feedbackKey' if
+   * there are enough of them to act on, otherwise null.
+   */
+  public Observation getObservation(String feedbackKey, TRuntimeFilterType type) {
+    if (feedbackKey == null) return null;
+    Cache<String, Observation> cache = getCache();
+    if (cache == null) return null;
+    Observation observation = cache.getIfPresent(getCacheKey(feedbackKey, type));
+    if (observation == null || observation.getNumObservations() < MIN_OBSERVATIONS) {
+      return null;
+    }
+    return observation;
+  }
+
+  @VisibleForTesting
+  public void clear() {
+    Cache<String, Observation> cache = getCache();
+    if (cache != null) cache.invalidateAll();
+  }
+
+  /**
+   * Drops the cache so that it is created again from the current BackendConfig.
+   */
+  @VisibleForTesting
+  synchronized void reset() {
+    cache_ = null;
+    cacheInitialized_ = false;
+  }
+
+  private static String getCacheKey(String feedbackKey, TRuntimeFilterType type) {
+    return type.name() + ":" + feedbackKey;
+  }
+
+  private Cache<String, Observation> getCache() {
+    if (!cacheInitialized_) {
+      synchronized (this) {
+        if (!cacheInitialized_) {
+          int maxSize = BackendConfig.INSTANCE != null ?
+              BackendConfig.INSTANCE.getRuntimeFilterFeedbackCacheSize() :
+              DEFAULT_CACHE_SIZE;
+          int ttlS = BackendConfig.INSTANCE != null ?
+              BackendConfig.INSTANCE.getRuntimeFilterFeedbackTtlS() : DEFAULT_TTL_S;
+          if (maxSize > 0) {
+            CacheBuilder<Object, Object> builder =
+                CacheBuilder.newBuilder().maximumSize(maxSize).ticker(ticker_);
+            if (ttlS > 0) builder.expireAfterWrite(ttlS, TimeUnit.SECONDS);
+            cache_ = builder.build();
+          }
+          cacheInitialized_ = true;
+        }
+      }
+    }
+    return cache_;
+  }
+}
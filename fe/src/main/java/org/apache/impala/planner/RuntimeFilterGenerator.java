@@ -404,6 +404,11 @@ public final class RuntimeFilterGenerator {
         tFilter.setFilter_id(id_.asInt());
         tFilter.setSrc_node_id(src_.getId().asInt());
         tFilter.setNdv_estimate(ndvEstimate_);
+        // The coordinator only reports observations for filters with a feedback key.
+        if (RuntimeFilterFeedback.INSTANCE.isEnabled()) {
+          String feedbackKey = getFeedbackKey();
+          if (feedbackKey != null) tFilter.setFeedback_key(feedbackKey);
+        }
         for (int i = 0; i < targets_.size(); ++i) {
           RuntimeFilterTarget target = targets_.get(i);
           tFilter.addToTargets(target.toThrift(serialCtx));
@@ -694,6 +699,17 @@ public final class RuntimeFilterGenerator {
     public boolean isBroadcast() { return isBroadcastJoin_; }
     public JoinNode getSrc() { return src_; }
 
+    /**
+     * Returns the key that identifies the build column and the target columns of this
+     * filter across queries, or null if one of them is not a base table column. See
+     * RuntimeFilterFeedback.
+     */
+    public String getFeedbackKey() {
+      List<Expr> targetExprs = new ArrayList<>();
+      for (RuntimeFilterTarget target : targets_) targetExprs.add(target.expr);
+      return RuntimeFilterFeedback.getFeedbackKey(srcExpr_, targetExprs);
+    }
+
     private long getBuildKeyNumRowStats() {
       long minNumRows = src_.getChild(1).getCardinality();
       SlotRef buildSlotRef = srcExpr_.unwrapSlotRef(true);
@@ -935,7 +951,13 @@ public final class RuntimeFilterGenerator {
     // We only enforce a limit on the number of bloom filters as they are much more
     // heavy-weight than the other filter types.
     int numBloomFilters = 0;
+    double minObservedRejection =
+        ctx.getQueryOptions().getRuntime_filter_min_observed_rejection();
     for (RuntimeFilter filter : filters) {
+      if (minObservedRejection > 0 && isIneffectiveInPastRuns(filter,
+          minObservedRejection)) {
+        continue;
+      }
       if (filter.getType() == TRuntimeFilterType.BLOOM) {
         if (numBloomFilters >= maxNumBloomFilters) {
           if (LOG.isTraceEnabled()) {
@@ -963,6 +985,32 @@ public final class RuntimeFilterGenerator {
     arrangeRuntimefiltersForParquet(plan);
   }
 
+  /**
+   * Returns true if 'filter' is a bloom or IN-list filter whose past executions
+   * rejected less than 'minRejection' of the probe rows on average. Such a filter is
+   * skipped and the reason is recorded in its source join node for EXPLAIN. Min-max
+   * filters are cheap to build and apply and are always kept, so a skipped bloom
+   * filter on the same columns is effectively downgraded to a min-max filter.
+   */
+  private static boolean isIneffectiveInPastRuns(RuntimeFilter filter,
+      double minRejection) {
+    if (filter.getType() == TRuntimeFilterType.MIN_MAX) return false;
+    RuntimeFilterFeedback.Observation observation =
+        RuntimeFilterFeedback.INSTANCE.getObservation(
+            filter.getFeedbackKey(), filter.getType());
+    if (observation == null) return false;
+    double rejection = observation.getRejectionRatio();
+    if (rejection >= minRejection) return false;
+    String reason = String.format("%s[%s] <- %s (observed rejection %.2f%% in %d runs)",
+        filter.getFilterId(), filter.getType().toString().toLowerCase(),
+        filter.getSrcExpr().toSql(), rejection * 100, observation.getNumObservations());
+    filter.getSrc().addSkippedRuntimeFilter(reason);
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Skip runtime filter (ineffective in past runs): " + reason);
+    }
+    return true;
+  }
+
   public static void arrangeRuntimefiltersForParquet(
       PlanNode root) {
     if (root instanceof HdfsScanNode) {
@@ -82,6 +82,7 @@ import org.apache.impala.planner.AnalyticEvalNode.LimitPushdownInfo;
 import org.apache.impala.planner.JoinNode.DistributionMode;
 import org.apache.impala.thrift.TQueryOptions;
 import org.apache.impala.util.AcidUtils;
+import org.apache.impala.util.MathUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -479,6 +480,12 @@ public class SingleNodePlanner {
     LOG.trace("createCheapestJoinPlan");
     if (parentRefPlans.size() == 1) return parentRefPlans.get(0).second;
 
+    // Small join graphs are ordered with dynamic programming, which also considers
+    // bushy plans. Falls back to the greedy left-deep ordering below if the join graph
+    // is not eligible or the enumeration budget is exceeded.
+    PlanNode dpPlan = createDpJoinPlan(analyzer, parentRefPlans, subplanRefs);
+    if (dpPlan != null) return dpPlan;
+
     // collect eligible candidates for the leftmost input; list contains
     // (plan, materialized size)
     List<Pair<TableRef, Long>> candidates = new ArrayList<>();
@@ -530,6 +537,221 @@ public class SingleNodePlanner {
     return null;
   }
 
+  /**
+   * Returns the cheapest, possibly bushy, join plan for the TableRefs in 'refPlans'
+   * found by dynamic programming over the connected subgraphs of the join graph, in the
+   * spirit of DPccp/DPhyp. The vertices of the join graph are the TableRefs and two
+   * TableRefs are adjacent if there is an equi-join predicate between them, directly or
+   * through slot equivalences. Only disjoint sets of TableRefs that are connected and
+   * connected to each other are joined, so the plan never contains cross joins.
+   *
+   * The cost of a plan is the number of hash table operations of its joins, i.e. the
+   * sum of the input cardinalities of all its joins, which is also what the greedy
+   * createJoinPlan() minimizes. The cardinalities are the estimates of throwaway
+   * JoinNodes built by costDpJoin(), which undoes the changes createJoinNode() makes to
+   * the analyzer and the TableRefs. Only the joins of the cheapest plan are created for
+   * real, bottom-up, once the enumeration is done. Each join builds on the input with
+   * the smaller materialized size.
+   *
+   * Returns null, so that the caller falls back to greedy join ordering, if
+   * - there are more TableRefs than the JOIN_REORDER_DP_THRESHOLD query option, which
+   *   is 0 (disabled) by default
+   * - a TableRef is outer/semi joined, has a distribution hint or has no stats
+   * - there are subplan refs, whose placement is only supported by createJoinPlan()
+   * - the join graph is not connected
+   * - more than JOIN_REORDER_DP_MAX_PAIRS candidate joins would have to be built
+   */
+  private PlanNode createDpJoinPlan(Analyzer analyzer,
+      List<Pair<TableRef, PlanNode>> refPlans, List<SubplanRef> subplanRefs)
+      throws ImpalaException {
+    TQueryOptions queryOptions = analyzer.getQueryOptions();
+    int numRefs = refPlans.size();
+    if (numRefs > queryOptions.getJoin_reorder_dp_threshold()) return null;
+    if (!subplanRefs.isEmpty()) return null;
+    for (Pair<TableRef, PlanNode> entry: refPlans) {
+      TableRef ref = entry.first;
+      JoinOperator joinOp = ref.getJoinOp();
+      if (!joinOp.isInnerJoin() && !joinOp.isCrossJoin()) return null;
+      if (ref.getDistributionMode() != DistributionMode.NONE) return null;
+      if (ref instanceof SingularRowSrcTableRef) return null;
+      if (entry.second.getCardinality() == -1) return null;
+    }
+    if (LOG.isTraceEnabled()) LOG.trace("createDpJoinPlan: " + numRefs + " refs");
+
+    // Adjacency bitmasks of the join graph.
+    int[] neighbors = new int[numRefs];
+    for (int i = 0; i < numRefs; ++i) {
+      List<TupleId> iIds = refPlans.get(i).second.getTblRefIds();
+      for (int j = i + 1; j < numRefs; ++j) {
+        List<TupleId> jIds = refPlans.get(j).second.getTblRefIds();
+        if (hasEqJoinPredicate(iIds, jIds, analyzer)
+            || hasEqJoinPredicate(jIds, iIds, analyzer)) {
+          neighbors[i] |= 1 << j;
+          neighbors[j] |= 1 << i;
+        }
+      }
+    }
+
+    // The best plan and its cost for every set of TableRefs, indexed by the bitmask of
+    // the positions of the TableRefs in 'refPlans'. Null for sets that are not
+    // connected or for which no valid plan was found. The plans of sets with more than
+    // one TableRef are only used for costing; 'bestOuterSets' records the split of the
+    // set that they were built from.
+    int numSets = 1 << numRefs;
+    PlanNode[] bestPlans = new PlanNode[numSets];
+    long[] bestCosts = new long[numSets];
+    int[] bestOuterSets = new int[numSets];
+    for (int i = 0; i < numRefs; ++i) bestPlans[1 << i] = refPlans.get(i).second;
+    int maxPairs = queryOptions.getJoin_reorder_dp_max_pairs();
+    int numPairs = 0;
+    // Sets are visited in increasing order, so all subsets of a set have been planned
+    // before the set itself.
+    for (int set = 1; set < numSets; ++set) {
+      if (Integer.bitCount(set) < 2) continue;
+      // Enumerate the splits of 'set' into two non-empty halves. Requiring the lowest
+      // member of 'set' to be in 'left' visits every unordered split once.
+      int lowest = set & -set;
+      for (int left = (set - 1) & set; left > 0; left = (left - 1) & set) {
+        if ((left & lowest) == 0) continue;
+        int right = set & ~left;
+        if (bestPlans[left] == null || bestPlans[right] == null) continue;
+        if (!isConnected(left, right, neighbors)) continue;
+        if (++numPairs > maxPairs) {
+          if (LOG.isTraceEnabled()) {
+            LOG.trace("createDpJoinPlan: exceeded budget of " + maxPairs + " joins");
+          }
+          return null;
+        }
+
+        // Build on the input with the smaller materialized size.
+        int outerSet = left;
+        int innerSet = right;
+        if (getMaterializedSize(bestPlans[right]) > getMaterializedSize(bestPlans[left])) {
+          outerSet = right;
+          innerSet = left;
+        }
+        PlanNode outer = bestPlans[outerSet];
+        PlanNode inner = bestPlans[innerSet];
+        PlanNode candidate = costDpJoin(outer, inner,
+            refPlans.get(Integer.numberOfTrailingZeros(innerSet)).first, analyzer);
+        if (!(candidate instanceof HashJoinNode)) continue;
+
+        long cost = MathUtil.saturatingAdd(
+            MathUtil.saturatingAdd(bestCosts[outerSet], bestCosts[innerSet]),
+            MathUtil.saturatingAdd(outer.getCardinality(), inner.getCardinality()));
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("createDpJoinPlan: set=" + Integer.toBinaryString(set) + " outer="
+              + Integer.toBinaryString(outerSet) + " inner="
+              + Integer.toBinaryString(innerSet) + " cardinality="
+              + candidate.getCardinality() + " cost=" + cost);
+        }
+        if (bestPlans[set] == null || cost < bestCosts[set]) {
+          bestPlans[set] = candidate;
+          bestCosts[set] = cost;
+          bestOuterSets[set] = outerSet;
+        }
+      }
+    }
+    if (bestPlans[numSets - 1] == null) return null;
+    PlanNode root = createDpJoinNodes(numSets - 1, bestOuterSets, refPlans, analyzer);
+    analyzer.setAssignedConjuncts(root.getAssignedConjuncts());
+    return root;
+  }
+
+  /**
+   * Returns a join of 'outer' and 'inner' for estimating the cost of joining them in
+   * createDpJoinPlan(), or null if createJoinNode() cannot join them. 'innerRef' is the
+   * first TableRef of 'inner'; the join op and hints of a composite inner input are
+   * those of its first TableRef, all of which are inner or cross joins without hints.
+   * The returned node must not end up in the plan: the conjuncts that it marks as
+   * assigned are unmarked again and the join op of 'innerRef' is restored, so that
+   * costing a candidate does not affect the costing of the other candidates or the
+   * final plan.
+   */
+  private PlanNode costDpJoin(PlanNode outer, PlanNode inner, TableRef innerRef,
+      Analyzer analyzer) throws ImpalaException {
+    Set<ExprId> assignedConjuncts = analyzer.getAssignedConjuncts();
+    Set<ExprId> inputConjuncts = new HashSet<>(outer.getAssignedConjuncts());
+    inputConjuncts.addAll(inner.getAssignedConjuncts());
+    JoinOperator joinOp = innerRef.getJoinOp();
+    analyzer.setAssignedConjuncts(inputConjuncts);
+    try {
+      return createJoinNode(outer, inner, innerRef, analyzer);
+    } finally {
+      innerRef.setJoinOp(joinOp);
+      analyzer.setAssignedConjuncts(assignedConjuncts);
+    }
+  }
+
+  /**
+   * Creates the join nodes of the plan that createDpJoinPlan() chose for the set of
+   * TableRefs 'set', given the chosen split of each set into 'bestOuterSets'. Node ids
+   * are assigned bottom-up to end up with a dense sequence of node ids, as
+   * createJoinPlan() does.
+   */
+  private PlanNode createDpJoinNodes(int set, int[] bestOuterSets,
+      List<Pair<TableRef, PlanNode>> refPlans, Analyzer analyzer)
+      throws ImpalaException {
+    if (Integer.bitCount(set) == 1) {
+      return refPlans.get(Integer.numberOfTrailingZeros(set)).second;
+    }
+    int outerSet = bestOuterSets[set];
+    int innerSet = set & ~outerSet;
+    PlanNode outer = createDpJoinNodes(outerSet, bestOuterSets, refPlans, analyzer);
+    PlanNode inner = createDpJoinNodes(innerSet, bestOuterSets, refPlans, analyzer);
+    Set<ExprId> assignedConjuncts = new HashSet<>(outer.getAssignedConjuncts());
+    assignedConjuncts.addAll(inner.getAssignedConjuncts());
+    analyzer.setAssignedConjuncts(assignedConjuncts);
+    PlanNode result = createJoinNode(outer, inner,
+        refPlans.get(Integer.numberOfTrailingZeros(innerSet)).first, analyzer);
+    // The same inputs yielded a hash join when the plan was costed.
+    Preconditions.checkState(result instanceof HashJoinNode);
+    result.setId(ctx_.getNextNodeId());
+    return result;
+  }
+
+  /**
+   * Returns true if a TableRef in the set 'left' is adjacent to one in the set 'right'
+   * in the join graph given by 'neighbors'.
+   */
+  private static boolean isConnected(int left, int right, int[] neighbors) {
+    for (int remaining = left; remaining != 0; remaining &= remaining - 1) {
+      if ((neighbors[Integer.numberOfTrailingZeros(remaining)] & right) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static long getMaterializedSize(PlanNode plan) {
+    return (long) Math.ceil(plan.getAvgRowSize() * (double) plan.getCardinality());
+  }
+
+  /**
+   * Returns true if there is an equi-join predicate between 'lhsTblRefIds' and
+   * 'rhsTblRefIds', either a registered one or one implied by slot equivalences.
+   * Unlike getHashLookupJoinConjuncts(), does not mark any conjuncts as assigned.
+   */
+  private static boolean hasEqJoinPredicate(List<TupleId> lhsTblRefIds,
+      List<TupleId> rhsTblRefIds, Analyzer analyzer) {
+    for (Expr e: analyzer.getEqJoinConjuncts(lhsTblRefIds, rhsTblRefIds)) {
+      if (getNormalizedEqPred(e, lhsTblRefIds, rhsTblRefIds, analyzer) != null) {
+        return true;
+      }
+    }
+    Set<TupleId> lhsTblRefIdsHs = new HashSet<>(lhsTblRefIds);
+    for (TupleId rhsId: rhsTblRefIds) {
+      TableRef rhsTblRef = analyzer.getTableRef(rhsId);
+      if (rhsTblRef == null) continue;
+      for (SlotDescriptor slotDesc: rhsTblRef.getDesc().getSlots()) {
+        for (SlotId lhsSid: analyzer.getEquivClass(slotDesc.getId())) {
+          if (lhsTblRefIdsHs.contains(analyzer.getTupleId(lhsSid))) return true;
+        }
+      }
+    }
+    return false;
+  }
+
   /**
    * Returns a plan with leftmostRef's plan as its leftmost input; the joins
    * are in decreasing order of selectiveness (percentage of rows they eliminate).
@@ -751,7 +973,8 @@ public class SingleNodePlanner {
     if (multiAggInfo != null) {
       // Apply substitution for optimized scan/agg plan,
       if (multiAggInfo.getMaterializedAggClasses().size() == 1 &&
-          (root instanceof HdfsScanNode || root instanceof KuduScanNode)) {
+          (root instanceof HdfsScanNode || root instanceof KuduScanNode
+              || root instanceof DataSourceScanNode)) {
         AggregateInfo scanAggInfo = multiAggInfo.getMaterializedAggClass(0);
         scanAggInfo.substitute(((ScanNode) root).getOptimizedAggSmap(), analyzer);
         scanAggInfo.getMergeAggInfo().substitute(
@@ -1902,7 +2125,7 @@ public class SingleNodePlanner {
       return createHdfsScanPlan(tblRef, aggInfo, conjuncts, analyzer);
     } else if (table instanceof FeDataSourceTable) {
       scanNode = new DataSourceScanNode(ctx_.getNextNodeId(), tblRef.getDesc(),
-          conjuncts);
+          conjuncts, aggInfo);
       scanNode.init(analyzer);
       return scanNode;
     } else if (table instanceof FeHBaseTable) {
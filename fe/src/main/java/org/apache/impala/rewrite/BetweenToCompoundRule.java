@@ -24,6 +24,7 @@ import org.apache.impala.analysis.CompoundPredicate;
 import org.apache.impala.analysis.Expr;
 import org.apache.impala.analysis.SlotDescriptor;
 import org.apache.impala.analysis.SlotRef;
+import org.apache.impala.catalog.ColumnHistogram;
 import org.apache.impala.catalog.ColumnStats;
 import org.apache.impala.catalog.FeTable;
 import org.apache.impala.common.AnalysisException;
@@ -92,9 +93,20 @@ public class BetweenToCompoundRule implements ExprRewriteRule {
     SlotDescriptor slotDesc = slotRef.getDesc();
     FeTable table = slotDesc.getParent().getTable();
     if (table == null || table.getNumRows() < 0) return -1;
-    if (!slotDesc.getType().isIntegerOrDateType()) return -1;
 
     ColumnStats stats = slotDesc.getStats();
+    ColumnHistogram histogram = stats.getHistogram();
+    if (histogram != null && table.getNumRows() > 0) {
+      Double lowerVal = ColumnHistogram.getLiteralValue(lowerBound.getChild(1));
+      Double upperVal = ColumnHistogram.getLiteralValue(upperBound.getChild(1));
+      if (lowerVal != null && upperVal != null) {
+        double fraction = histogram.getFractionInRange(lowerVal, true, upperVal, true);
+        if (compoundOperator == CompoundPredicate.Operator.OR) fraction = 1.0 - fraction;
+        return ColumnHistogram.toSelectivity(fraction, stats, table.getNumRows());
+      }
+    }
+
+    if (!slotDesc.getType().isIntegerOrDateType()) return -1;
     if (!stats.hasNumDistinctValues()) return -1;
 
     long numNotNulls = table.getNumRows() - Math.max(0, stats.getNumNulls());
@@ -98,6 +98,16 @@ public class ExprRewriter {
     return rewrittenExpr;
   }
 
+  /**
+   * If this rewriter folds constants, evaluates the constant subexpressions of 'exprs'
+   * with a single BE call ahead of rewriting them. See FoldConstantsRule.prefetch().
+   */
+  public void prefetchConstantFolds(List<Expr> exprs, Analyzer analyzer)
+      throws AnalysisException {
+    if (!rules_.contains(FoldConstantsRule.INSTANCE)) return;
+    FoldConstantsRule.INSTANCE.prefetch(exprs, analyzer);
+  }
+
   public void rewriteList(List<Expr> exprs, Analyzer analyzer) throws AnalysisException {
     for (int i = 0; i < exprs.size(); ++i) exprs.set(i, rewrite(exprs.get(i), analyzer));
   }
@@ -17,11 +17,32 @@
 
 package org.apache.impala.rewrite;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.impala.analysis.Analyzer;
 import org.apache.impala.analysis.CastExpr;
 import org.apache.impala.analysis.Expr;
+import org.apache.impala.analysis.FunctionCallExpr;
 import org.apache.impala.analysis.LiteralExpr;
+import org.apache.impala.analysis.ToSqlOptions;
 import org.apache.impala.common.AnalysisException;
+import org.apache.impala.common.InternalException;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.service.FeSupport;
+import org.apache.impala.thrift.TColumnValue;
+import org.apache.impala.thrift.TQueryCtx;
+import org.apache.impala.thrift.TQueryOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 
 /**
  * This rule replaces a constant Expr with its equivalent LiteralExpr by evaluating the
@@ -37,9 +58,37 @@ import org.apache.impala.common.AnalysisException;
  * 1 + 1 + 1 --> 3
  * toupper('abc') --> 'ABC'
  * cast('2016-11-09' as timestamp) --> TIMESTAMP '2016-11-09 00:00:00'
+ *
+ * Folded results are memoized in a process-wide cache that is bounded by the
+ * --fold_constants_cache_size flag. The cache key is the SQL of the expr (including
+ * implicit casts), its type and the session settings that can change its value, e.g.
+ * the local timezone. Exprs whose value may differ across queries, e.g. now(), user()
+ * or UDFs, are never cached. prefetch() can be used to fold the constant exprs of a
+ * whole statement with a single BE call.
  */
 public class FoldConstantsRule implements ExprRewriteRule {
-  public static ExprRewriteRule INSTANCE = new FoldConstantsRule();
+  private final static Logger LOG = LoggerFactory.getLogger(FoldConstantsRule.class);
+
+  public static FoldConstantsRule INSTANCE = new FoldConstantsRule();
+
+  // Used when BackendConfig has not been initialized, e.g. in some unit tests.
+  private static final int DEFAULT_CACHE_SIZE = 10000;
+
+  private static final Predicate<Expr> IS_NONDETERMINISTIC_ACROSS_QUERIES =
+      new Predicate<Expr>() {
+        @Override
+        public boolean apply(Expr arg) {
+          return arg instanceof FunctionCallExpr
+              && ((FunctionCallExpr) arg).isNondeterministicAcrossQueries();
+        }
+      };
+
+  // Process-wide cache from the cache key of a constant expr to its folded literal.
+  // The cached literals are never handed out directly; callers get a clone. Lazily
+  // created in getCache() because BackendConfig may not be set at class load time.
+  // Null if the cache is disabled.
+  private volatile Cache<String, LiteralExpr> cache_;
+  private volatile boolean cacheInitialized_ = false;
 
   @Override
   public Expr apply(Expr expr, Analyzer analyzer) throws AnalysisException {
@@ -63,15 +112,139 @@ public class FoldConstantsRule implements ExprRewriteRule {
       expr.analyze(analyzer);
       if (!expr.isConstant()) return expr;
     }
-    // Force the type to be preserved if it is an explicit cast (see IMPALA-11462).
-    boolean isExplicitCast = expr instanceof CastExpr && !expr.isImplicitCast();
-    Expr result = LiteralExpr.createBounded(expr, analyzer.getQueryCtx(),
-      LiteralExpr.MAX_STRING_LITERAL_SIZE, isExplicitCast);
+    Cache<String, LiteralExpr> cache = getCache();
+    String key = cache != null ? getCacheKey(expr, analyzer.getQueryCtx()) : null;
+    LiteralExpr result = null;
+    if (key != null) {
+      LiteralExpr cached = cache.getIfPresent(key);
+      if (cached != null) result = (LiteralExpr) cached.clone();
+    }
+    if (result == null) {
+      result = LiteralExpr.createBounded(expr, analyzer.getQueryCtx(),
+        LiteralExpr.MAX_STRING_LITERAL_SIZE, isExplicitCast(expr));
+      if (result != null && key != null) cache.put(key, (LiteralExpr) result.clone());
+    }
 
     // Preserve original type so parent Exprs do not need to be re-analyzed.
     if (result != null) return result.castTo(expr.getType());
     return expr;
   }
 
+  /**
+   * Evaluates the constant subexpressions of 'exprs' that apply() would fold first,
+   * i.e. the analyzed constant exprs whose children are all literals, with a single
+   * BE call and adds the results to the cache. Subsequent calls to apply() for those
+   * exprs are served from the cache. Exprs that are already cached or cannot be cached
+   * are skipped. This is only an optimization: if the batch fails to evaluate, e.g.
+   * because one of the exprs hits an error, nothing is cached and apply() falls back
+   * to evaluating the exprs one by one.
+   */
+  public void prefetch(List<Expr> exprs, Analyzer analyzer) throws AnalysisException {
+    Cache<String, LiteralExpr> cache = getCache();
+    if (cache == null) return;
+    TQueryCtx queryCtx = analyzer.getQueryCtx();
+    Map<String, Expr> candidates = new LinkedHashMap<>();
+    for (Expr expr: exprs) {
+      if (expr != null) collectCandidates(expr, queryCtx, cache, candidates);
+    }
+    if (candidates.size() < 2) return;
+
+    List<Expr> evalExprs = new ArrayList<>(candidates.values());
+    List<TColumnValue> vals;
+    try {
+      vals = FeSupport.EvalExprsWithoutRowBounded(evalExprs, queryCtx,
+          LiteralExpr.MAX_STRING_LITERAL_SIZE);
+    } catch (InternalException e) {
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("Failed to evaluate a batch of {} constant exprs: {}",
+            evalExprs.size(), e.getMessage());
+      }
+      return;
+    }
+    int i = 0;
+    for (Map.Entry<String, Expr> entry: candidates.entrySet()) {
+      Expr expr = entry.getValue();
+      LiteralExpr result =
+          LiteralExpr.createFromColumnValue(expr, vals.get(i++), isExplicitCast(expr));
+      if (result != null) cache.put(entry.getKey(), result);
+    }
+  }
+
+  /**
+   * Adds to 'candidates' the constant subexpressions of 'expr' that apply() would fold
+   * first and that are not yet in 'cache'.
+   */
+  private static void collectCandidates(Expr expr, TQueryCtx queryCtx,
+      Cache<String, LiteralExpr> cache, Map<String, Expr> candidates) {
+    if (Expr.IS_LITERAL.apply(expr)) return;
+    boolean allChildrenLiterals = true;
+    for (Expr child: expr.getChildren()) {
+      if (!Expr.IS_LITERAL.apply(child)) {
+        allChildrenLiterals = false;
+        collectCandidates(child, queryCtx, cache, candidates);
+      }
+    }
+    if (!allChildrenLiterals || !expr.isAnalyzed() || !expr.isConstant()) return;
+    if (expr instanceof CastExpr && Expr.IS_NULL_LITERAL.apply(expr.getChild(0))) {
+      return;
+    }
+    String key = getCacheKey(expr, queryCtx);
+    if (key == null || candidates.containsKey(key)) return;
+    if (cache.getIfPresent(key) == null) candidates.put(key, expr);
+  }
+
+  // Force the type to be preserved if it is an explicit cast (see IMPALA-11462).
+  private static boolean isExplicitCast(Expr expr) {
+    return expr instanceof CastExpr && !expr.isImplicitCast();
+  }
+
+  /**
+   * Returns the cache key of the analyzed constant 'expr', or null if the value of
+   * 'expr' may differ across queries and therefore must not be cached. Besides the SQL
+   * and type of 'expr', the key contains the session state that the BE evaluation
+   * depends on.
+   */
+  @VisibleForTesting
+  static String getCacheKey(Expr expr, TQueryCtx queryCtx) {
+    if (expr.contains(IS_NONDETERMINISTIC_ACROSS_QUERIES)) return null;
+    TQueryOptions queryOptions = queryCtx.getClient_request().getQuery_options();
+    StringBuilder key = new StringBuilder();
+    key.append(expr.toSql(ToSqlOptions.SHOW_IMPLICIT_CASTS))
+        .append('|').append(expr.getType().toSql())
+        .append('|').append(isExplicitCast(expr))
+        .append('|').append(queryCtx.getLocal_time_zone())
+        .append('|').append(queryOptions.isDecimal_v2())
+        .append('|').append(queryOptions.isUtf8_mode());
+    return key.toString();
+  }
+
+  private Cache<String, LiteralExpr> getCache() {
+    if (!cacheInitialized_) {
+      synchronized (this) {
+        if (!cacheInitialized_) {
+          int maxSize = BackendConfig.INSTANCE != null ?
+              BackendConfig.INSTANCE.getFoldConstantsCacheSize() : DEFAULT_CACHE_SIZE;
+          if (maxSize > 0) {
+            cache_ = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+          }
+          cacheInitialized_ = true;
+        }
+      }
+    }
+    return cache_;
+  }
+
+  @VisibleForTesting
+  public CacheStats getCacheStats() {
+    Cache<String, LiteralExpr> cache = getCache();
+    return cache != null ? cache.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+  }
+
+  @VisibleForTesting
+  public void invalidateCache() {
+    Cache<String, LiteralExpr> cache = getCache();
+    if (cache != null) cache.invalidateAll();
+  }
+
   private FoldConstantsRule() {}
 }
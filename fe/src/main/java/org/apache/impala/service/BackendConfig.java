@@ -549,4 +549,92 @@ public class BackendConfig {
   public String getInjectedGroupMembersDebugOnly() {
     return backendCfg_.injected_group_members_debug_only;
   }
+
+  public int getFoldConstantsCacheSize() {
+    return backendCfg_.fold_constants_cache_size;
+  }
+
+  public int getRuntimeFilterFeedbackCacheSize() {
+    return backendCfg_.runtime_filter_feedback_cache_size;
+  }
+
+  public int getUdfClassLoaderCacheSize() {
+    return backendCfg_.udf_class_loader_cache_size;
+  }
+
+  public long getIcebergScanPlanCacheCapacity() {
+    return backendCfg_.iceberg_scan_plan_cache_capacity;
+  }
+
+  public int getIcebergManifestReaderThreads() {
+    return backendCfg_.iceberg_manifest_reader_threads;
+  }
+
+  public int getIcebergManifestReaderThreadsPerScan() {
+    return backendCfg_.iceberg_manifest_reader_threads_per_scan;
+  }
+
+  public int getIcebergCompactionSmallFileMb() {
+    return backendCfg_.iceberg_compaction_small_file_mb;
+  }
+
+  public double getIcebergCompactionSmallFileRatio() {
+    return backendCfg_.iceberg_compaction_small_file_ratio;
+  }
+
+  public double getIcebergCompactionDeleteRatio() {
+    return backendCfg_.iceberg_compaction_delete_ratio;
+  }
+
+  public boolean isIncrementalInsertFileMetadataEnabled() {
+    return backendCfg_.enable_incremental_insert_file_metadata;
+  }
+
+  public int getMaxHmsPartitionRpcsInFlight() {
+    return backendCfg_.max_hms_partition_rpcs_in_flight;
+  }
+
+  public int getHmsPartitionRpcThreads() {
+    return backendCfg_.hms_partition_rpc_threads;
+  }
+
+  public int getIncrementalStatsMergeCacheSize() {
+    return backendCfg_.incremental_stats_merge_cache_size;
+  }
+
+  public double getAutoStatsRefreshChangeRatio() {
+    return backendCfg_.auto_stats_refresh_change_ratio;
+  }
+
+  public int getAutoStatsRefreshMinIntervalS() {
+    return backendCfg_.auto_stats_refresh_min_interval_s;
+  }
+
+  public long getKuduScanTokenCacheCapacity() {
+    return backendCfg_.kudu_scan_token_cache_capacity;
+  }
+
+  public int getKuduScanTokenCacheTtlS() {
+    return backendCfg_.kudu_scan_token_cache_ttl_s;
+  }
+
+  public int getKuduTableHandleTtlS() {
+    return backendCfg_.kudu_table_handle_ttl_s;
+  }
+
+  public int getQueryEventHookQueueSize() {
+    return backendCfg_.query_event_hook_queue_size;
+  }
+
+  public String getQueryEventHookQueueFullPolicy() {
+    return backendCfg_.query_event_hook_queue_full_policy;
+  }
+
+  public int getRequestPoolCacheTtlS() {
+    return backendCfg_.request_pool_cache_ttl_s;
+  }
+
+  public int getRuntimeFilterFeedbackTtlS() {
+    return backendCfg_.runtime_filter_feedback_ttl_s;
+  }
 }
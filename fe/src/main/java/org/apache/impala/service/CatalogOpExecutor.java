@@ -102,6 +102,7 @@ import org.apache.impala.catalog.CatalogException;
 import org.apache.impala.catalog.CatalogObject;
 import org.apache.impala.catalog.CatalogServiceCatalog;
 import org.apache.impala.catalog.Column;
+import org.apache.impala.catalog.ColumnHistogram;
 import org.apache.impala.catalog.ColumnNotFoundException;
 import org.apache.impala.catalog.ColumnStats;
 import org.apache.impala.catalog.DataSource;
@@ -156,6 +157,7 @@ import org.apache.impala.common.ImpalaRuntimeException;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.common.JniUtil;
 import org.apache.impala.common.Pair;
+import org.apache.impala.common.PrintUtils;
 import org.apache.impala.common.Reference;
 import org.apache.impala.common.TransactionException;
 import org.apache.impala.common.TransactionKeepalive.HeartbeatContext;
@@ -1945,6 +1947,8 @@ public class CatalogOpExecutor {
       }
       modification.markInflightEventRegistrationComplete();
     }
+    catalog_.getStatsRefreshScheduler().onStatsUpdated(
+        tableName.getDb(), tableName.getTbl());
     DebugUtils.executeDebugAction(debugAction, DebugUtils.UPDATE_STATS_DELAY);
   }
 
@@ -1999,6 +2003,7 @@ public class CatalogOpExecutor {
       updateTableStatsViaIceberg((IcebergTable)table, msTbl);
       catalogTimeline.markEvent("Updated table stats via Iceberg");
     } else {
+      updateColumnHistograms(params, table, msTbl);
       // Apply property changes like numRows.
       msTbl.getParameters().remove(StatsSetupConst.COLUMN_STATS_ACCURATE);
       applyAlterTable(msTbl, false, tblTxn, catalogTimeline);
@@ -2011,6 +2016,26 @@ public class CatalogOpExecutor {
     }
   }
 
+  /**
+   * Stores the column histograms in 'params' as table properties of 'msTbl', because
+   * the HMS column stats have no field for them. Histograms of columns whose new stats
+   * do not include one are removed, so that no stale histogram is left behind.
+   */
+  private static void updateColumnHistograms(TAlterTableUpdateStatsParams params,
+      Table table, org.apache.hadoop.hive.metastore.api.Table msTbl) {
+    if (!params.isSetColumn_stats()) return;
+    for (Map.Entry<String, TColumnStats> entry: params.getColumn_stats().entrySet()) {
+      Column col = table.getColumn(entry.getKey());
+      if (col == null || !ColumnHistogram.isSupportedType(col.getType())) continue;
+      String key = ColumnHistogram.getTblPropKey(col.getName());
+      if (entry.getValue().isSetHistogram()) {
+        msTbl.getParameters().put(key, entry.getValue().getHistogram());
+      } else {
+        msTbl.getParameters().remove(key);
+      }
+    }
+  }
+
   /**
    * For Iceberg tables using HiveCatalog we must avoid updating the HMS table directly to
    * avoid overriding concurrent modifications to the table. See IMPALA-11583.
@@ -2820,8 +2845,10 @@ public class CatalogOpExecutor {
         msTbl.getParameters().remove(StatsSetupConst.ROW_COUNT) != null;
     boolean droppedTotalSize =
         msTbl.getParameters().remove(StatsSetupConst.TOTAL_SIZE) != null;
+    boolean droppedHistograms = msTbl.getParameters().keySet().removeIf(
+        key -> key.startsWith(ColumnHistogram.TBL_PROP_PREFIX));
 
-    if (droppedRowCount || droppedTotalSize) {
+    if (droppedRowCount || droppedTotalSize || droppedHistograms) {
       applyAlterTable(msTbl, false, null, catalogTimeline);
       ++numTargetedPartitions;
     }
@@ -4301,6 +4328,8 @@ public class CatalogOpExecutor {
     if (tbl.getParameters() == null) {
       tbl.setParameters(new HashMap<String, String>());
     }
+    // The new table has no data, so the histograms of the source table do not apply.
+    ColumnHistogram.removeTblProperties(tbl.getParameters());
     if (params.isSetSort_columns() && !params.sort_columns.isEmpty()) {
       tbl.getParameters().put(AlterTableSortByStmt.TBL_PROP_SORT_COLUMNS,
           Joiner.on(",").join(params.sort_columns));
@@ -4551,6 +4580,13 @@ public class CatalogOpExecutor {
     org.apache.hadoop.hive.metastore.api.Table msTbl = tbl.getMetaStoreTable().deepCopy();
     List<FieldSchema> newColumns = buildFieldSchemaList(columns);
     msTbl.getSd().setCols(newColumns);
+    for (Column col : tbl.getNonClusteringColumns()) {
+      TColumn newCol = null;
+      for (TColumn column : columns) {
+        if (column.getColumnName().equalsIgnoreCase(col.getName())) newCol = column;
+      }
+      alterColumnHistogram(msTbl, col, newCol);
+    }
     String sortByKey = AlterTableSortByStmt.TBL_PROP_SORT_COLUMNS;
     if (msTbl.getParameters().containsKey(sortByKey)) {
       String oldColumns = msTbl.getParameters().get(sortByKey);
@@ -4575,6 +4611,8 @@ public class CatalogOpExecutor {
     while (iterator.hasNext()) {
       FieldSchema fs = iterator.next();
       if (fs.getName().toLowerCase().equals(colName.toLowerCase())) {
+        Column oldCol = tbl.getColumn(colName);
+        if (oldCol != null) alterColumnHistogram(msTbl, oldCol, newCol);
         fs.setName(newCol.getColumnName());
         Type type = Type.fromThrift(newCol.getColumnType());
         fs.setType(type.toSql().toLowerCase());
@@ -4599,6 +4637,24 @@ public class CatalogOpExecutor {
     applyAlterAndInProgressTableModification(msTbl, catalogTimeline, modification);
   }
 
+  /**
+   * Moves the histogram of 'oldCol', which is stored as a table property of 'msTbl' (see
+   * ColumnHistogram), to the name of 'newCol' when the column is changed to 'newCol',
+   * or removes it if the column is dropped, i.e. 'newCol' is null. The histogram is
+   * also removed if the type of the column changes.
+   */
+  private static void alterColumnHistogram(
+      org.apache.hadoop.hive.metastore.api.Table msTbl, Column oldCol,
+      @Nullable TColumn newCol) {
+    if (msTbl.getParameters() == null) return;
+    String histogram =
+        msTbl.getParameters().remove(ColumnHistogram.getTblPropKey(oldCol.getName()));
+    if (histogram == null || newCol == null) return;
+    if (!oldCol.getType().equals(Type.fromThrift(newCol.getColumnType()))) return;
+    msTbl.getParameters().put(
+        ColumnHistogram.getTblPropKey(newCol.getColumnName()), histogram);
+  }
+
   /**
    * Adds new partitions to the given table in HMS. Also creates and adds new
    * HdfsPartitions to the corresponding HdfsTable.
@@ -5313,61 +5369,77 @@ public class CatalogOpExecutor {
   }
 
   /**
-   * Adds partitions in 'allHmsPartitionsToAdd' in batches via 'msClient'.
-   * Returns the created partitions.
+   * Adds partitions in 'allHmsPartitionsToAdd' in batches of
+   * MAX_PARTITION_UPDATES_PER_RPC. Up to --max_hms_partition_rpcs_in_flight batches are
+   * sent concurrently, each with its own Metastore client. 'msClient' is used to get the
+   * event id before the partitions are added. Returns the created partitions.
    */
   private List<Partition> addHmsPartitions(MetaStoreClient msClient,
       Table tbl, List<Partition> allHmsPartitionsToAdd,
       Map<String, Long> partitionToEventId, boolean ifNotExists,
-      EventSequence catalogTimeline) throws ImpalaRuntimeException, CatalogException {
+      EventSequence catalogTimeline) throws ImpalaException {
     long eventId = getCurrentEventId(msClient, catalogTimeline);
     List<Partition> addedHmsPartitions = Lists
         .newArrayListWithCapacity(allHmsPartitionsToAdd.size());
-    long numDone = 0;
-    for (List<Partition> hmsSublist :
-        Lists.partition(allHmsPartitionsToAdd, MAX_PARTITION_UPDATES_PER_RPC)) {
-      try {
-        List<Partition> addedPartitions = MetaStoreUtil.addPartitions(
-            msClient.getHiveClient(), tbl.getMetaStoreTable(),
-            hmsSublist, ifNotExists, true);
-        numDone += hmsSublist.size();
-        catalogTimeline.markEvent(String.format(
-            "Added %d partitions in Metastore", numDone));
-        LOG.info("Added {}/{} partitions in HMS for table {}", numDone,
-            allHmsPartitionsToAdd.size(), tbl.getFullName());
-        org.apache.hadoop.hive.metastore.api.Table msTbl = tbl.getMetaStoreTable();
-        List<NotificationEvent> events = getNextMetastoreEventsForTableIfEnabled(
-            catalogTimeline, eventId, msTbl.getDbName(), msTbl.getTableName(),
-            AddPartitionEvent.EVENT_TYPE);
-        Map<Partition, Long> partitionToEventSubMap = Maps.newHashMap();
-        getPartitionsFromEvent(events, partitionToEventSubMap);
-        // set the eventId to last one which we received so the we fetch the next
-        // set of events correctly
-        if (!events.isEmpty()) {
-          eventId = events.get(events.size() - 1).getEventId();
-        }
-        if (partitionToEventSubMap.isEmpty()) {
-          // if partitions couldn't be fetched from events, use the one returned by
-          // add_partitions call above.
-          addedHmsPartitions.addAll(addedPartitions);
-        } else {
-          addedHmsPartitions.addAll(partitionToEventSubMap.keySet());
-          // we cannot keep a mapping of Partition to event ids because the
-          // partition objects are changed later in the cachePartitions code path.
-          // hence it better to map the partitionName to eventId since partitionName
-          // remains unchanged.
-          for (Partition part : partitionToEventSubMap.keySet()) {
-            partitionToEventId
-                .put(FeCatalogUtils.getPartitionName((FeFsTable) tbl, part.getValues()),
-                    partitionToEventSubMap.get(part));
+    org.apache.hadoop.hive.metastore.api.Table msTbl = tbl.getMetaStoreTable();
+    Reference<Long> numDone = new Reference<>(0L);
+    ParallelHmsBatchRunner.run("add_partitions for " + tbl.getFullName(),
+        allHmsPartitionsToAdd, MAX_PARTITION_UPDATES_PER_RPC,
+        BackendConfig.INSTANCE.getMaxHmsPartitionRpcsInFlight(),
+        hmsSublist -> {
+          try (MetaStoreClient client = catalog_.getMetaStoreClient()) {
+            return MetaStoreUtil.addPartitions(client.getHiveClient(), msTbl,
+                hmsSublist, ifNotExists, true);
+          } catch (TException e) {
+            throw new ImpalaRuntimeException(
+                String.format(HMS_RPC_ERROR_FORMAT_STR, "add_partitions"), e);
           }
+        },
+        (hmsSublist, addedPartitions, batchTimeMs) -> {
+          numDone.setRef(numDone.getRef() + hmsSublist.size());
+          catalogTimeline.markEvent(String.format(
+              "Added %d partitions in Metastore (batch of %d took %s)",
+              numDone.getRef(), hmsSublist.size(), PrintUtils.printTimeMs(batchTimeMs)));
+          LOG.info("Added {}/{} partitions in HMS for table {}", numDone.getRef(),
+              allHmsPartitionsToAdd.size(), tbl.getFullName());
+          addedHmsPartitions.addAll(addedPartitions);
+        });
+    try {
+      List<NotificationEvent> events = getNextMetastoreEventsForTableIfEnabled(
+          catalogTimeline, eventId, msTbl.getDbName(), msTbl.getTableName(),
+          AddPartitionEvent.EVENT_TYPE);
+      Map<Partition, Long> partitionToEventSubMap = Maps.newHashMap();
+      getPartitionsFromEvent(events, partitionToEventSubMap);
+      Map<String, Partition> eventPartitionsByName = Maps.newHashMap();
+      for (Partition part : partitionToEventSubMap.keySet()) {
+        eventPartitionsByName.put(
+            FeCatalogUtils.getPartitionName((FeFsTable) tbl, part.getValues()), part);
+      }
+      // Use the partitions from the events where available, so that their event ids
+      // are known. The events of some batches may be missing, e.g. if they were
+      // filtered out or more events were generated than fetched. For those
+      // partitions use the ones returned by the add_partitions calls above.
+      List<Partition> result = Lists.newArrayListWithCapacity(addedHmsPartitions.size());
+      for (Partition addedPart : addedHmsPartitions) {
+        String partName =
+            FeCatalogUtils.getPartitionName((FeFsTable) tbl, addedPart.getValues());
+        Partition eventPart = eventPartitionsByName.get(partName);
+        if (eventPart == null) {
+          result.add(addedPart);
+          continue;
         }
-      } catch (MetastoreNotificationException | TException e) {
-        throw new ImpalaRuntimeException(
-            String.format(HMS_RPC_ERROR_FORMAT_STR, "add_partitions"), e);
-      }
+        // we cannot keep a mapping of Partition to event ids because the
+        // partition objects are changed later in the cachePartitions code path.
+        // hence it better to map the partitionName to eventId since partitionName
+        // remains unchanged.
+        partitionToEventId.put(partName, partitionToEventSubMap.get(eventPart));
+        result.add(eventPart);
+      }
+      return result;
+    } catch (MetastoreNotificationException e) {
+      throw new ImpalaRuntimeException(
+          String.format(HMS_RPC_ERROR_FORMAT_STR, "add_partitions"), e);
     }
-    return addedHmsPartitions;
   }
 
   /**
@@ -5602,6 +5674,8 @@ public class CatalogOpExecutor {
     while (iterator.hasNext()) {
       FieldSchema fs = iterator.next();
       if (fs.getName().toLowerCase().equals(colName.toLowerCase())) {
+        Column oldCol = tbl.getColumn(colName);
+        if (oldCol != null) alterColumnHistogram(msTbl, oldCol, null);
         iterator.remove();
         break;
       }
@@ -6871,25 +6945,37 @@ public class CatalogOpExecutor {
 
     String dbName = tbl.getDb().getName();
     String tableName = tbl.getName();
-    int numDone = 0;
-    try (MetaStoreClient msClient = catalog_.getMetaStoreClient(catalogTimeline)) {
-      // Apply the updates in batches of 'MAX_PARTITION_UPDATES_PER_RPC'.
-      for (List<Partition> msPartitionsSubList : Iterables.partition(
-          msPartitionToBuilders.keySet(), MAX_PARTITION_UPDATES_PER_RPC)) {
-        try {
-          // Alter partitions in bulk.
-          if (tblTxn != null) {
-            MetastoreShim.alterPartitionsWithTransaction(msClient.getHiveClient(), dbName,
-                tableName, msPartitionsSubList, tblTxn);
-          } else {
-            MetastoreShim.alterPartitions(msClient.getHiveClient(), dbName, tableName,
-                msPartitionsSubList);
+    Reference<Long> numDone = new Reference<>(0L);
+    // Apply the updates in batches of 'MAX_PARTITION_UPDATES_PER_RPC'. The batches are
+    // sent concurrently, but the HdfsPartition objects are only modified on this
+    // thread, after their batch succeeded.
+    ParallelHmsBatchRunner.run("alter_partitions for " + tbl.getFullName(),
+        new ArrayList<>(msPartitionToBuilders.keySet()), MAX_PARTITION_UPDATES_PER_RPC,
+        BackendConfig.INSTANCE.getMaxHmsPartitionRpcsInFlight(),
+        msPartitionsSubList -> {
+          try (MetaStoreClient msClient = catalog_.getMetaStoreClient()) {
+            // Alter partitions in bulk.
+            if (tblTxn != null) {
+              MetastoreShim.alterPartitionsWithTransaction(msClient.getHiveClient(),
+                  dbName, tableName, msPartitionsSubList, tblTxn);
+            } else {
+              MetastoreShim.alterPartitions(msClient.getHiveClient(), dbName,
+                  tableName, msPartitionsSubList);
+            }
+            return null;
+          } catch (TException e) {
+            throw new ImpalaRuntimeException(
+                String.format(HMS_RPC_ERROR_FORMAT_STR, "alter_partitions"), e);
           }
-          numDone += msPartitionsSubList.size();
-          catalogTimeline.markEvent(
-              String.format("Altered %d partitions in Metastore", numDone));
-          LOG.info("HMS alterPartitions done on {}/{} partitions of table {}", numDone,
-              msPartitionToBuilders.size(), tbl.getFullName());
+        },
+        (msPartitionsSubList, unused, batchTimeMs) -> {
+          numDone.setRef(numDone.getRef() + msPartitionsSubList.size());
+          catalogTimeline.markEvent(String.format(
+              "Altered %d partitions in Metastore (batch of %d took %s)",
+              numDone.getRef(), msPartitionsSubList.size(),
+              PrintUtils.printTimeMs(batchTimeMs)));
+          LOG.info("HMS alterPartitions done on {}/{} partitions of table {}",
+              numDone.getRef(), msPartitionToBuilders.size(), tbl.getFullName());
           // Mark the corresponding HdfsPartition objects as dirty
           for (Partition msPartition : msPartitionsSubList) {
             HdfsPartition.Builder partBuilder = msPartitionToBuilders.get(msPartition);
@@ -6905,12 +6991,7 @@ public class CatalogOpExecutor {
             // parameters to the HdfsPartition's list of in-flight events.
             addToInflightVersionsOfPartition(msPartition.getParameters(), partBuilder);
           }
-        } catch (TException e) {
-          throw new ImpalaRuntimeException(
-              String.format(HMS_RPC_ERROR_FORMAT_STR, "alter_partitions"), e);
-        }
-      }
-    }
+        });
     // Only add the versions for in-flight event when we are sure that all
     // partition HMS API calls are successful. Registering in-flight event at the end
     // is OK since partition event processing still require acquiring table lock.
@@ -7368,12 +7449,29 @@ public class CatalogOpExecutor {
         insertIntoIcebergTable(table, update, catalogTimeline, modification);
       }
 
-      loadTableMetadata(table, modification.newVersionNumber(), true, false,
-          partsToLoadMetadata, partitionToEventId, "INSERT", update.getDebug_action(),
-          catalogTimeline);
+      // Add the files appended to existing partitions directly to their file metadata
+      // so that these partitions don't need to be listed again.
+      boolean reloadFileMetadata = true;
+      if (!update.is_overwrite && !(table instanceof FeIcebergTable)
+          && BackendConfig.INSTANCE.isIncrementalInsertFileMetadataEnabled()) {
+        Set<String> appendedPartitions = appendInsertedFiles((HdfsTable) table,
+            affectedExistingPartitions, update.getUpdated_partitions(),
+            catalogTimeline);
+        if (partsToLoadMetadata != null) {
+          partsToLoadMetadata.removeAll(appendedPartitions);
+        } else {
+          reloadFileMetadata = appendedPartitions.isEmpty();
+        }
+      }
+
+      loadTableMetadata(table, modification.newVersionNumber(), reloadFileMetadata,
+          false, partsToLoadMetadata, partitionToEventId, "INSERT",
+          update.getDebug_action(), catalogTimeline);
       addTableToCatalogUpdate(table, update.header.want_minimal_response,
           response.result);
       modification.validateInProgressModificationComplete();
+      catalog_.getStatsRefreshScheduler().recordInsert(
+          (FeFsTable) table, update.getUpdated_partitions());
     } catch (ImpalaException ex) {
       if (modification != null) modification.cancelInflightEventIfExist();
       throw ex;
@@ -7423,6 +7521,36 @@ public class CatalogOpExecutor {
     return tblTxn;
   }
 
+  /**
+   * Adds the files written by a non-overwrite INSERT into the existing partitions
+   * 'affectedExistingPartitions' of 'table' to the file metadata of these partitions
+   * without listing their directories. Returns the names of the partitions that were
+   * updated. The file metadata of the other targeted partitions needs to be reloaded.
+   */
+  private Set<String> appendInsertedFiles(HdfsTable table,
+      List<FeFsPartition> affectedExistingPartitions,
+      Map<String, TUpdatedPartition> updatedPartitions, EventSequence catalogTimeline)
+      throws CatalogException {
+    Set<String> appendedPartitions = new HashSet<>();
+    for (FeFsPartition affectedPartition : affectedExistingPartitions) {
+      String partName = affectedPartition.getPartitionName();
+      TUpdatedPartition updatedPartition = updatedPartitions.get(partName);
+      if (updatedPartition == null || !updatedPartition.isSetInserted_files()) continue;
+      // Look up the current instance of the partition, it may have been replaced
+      // while the missing partitions were created.
+      HdfsPartition partition = Iterables.getOnlyElement(
+          table.getPartitionsForNames(Collections.singletonList(partName)));
+      if (table.appendInsertedFiles(partition, updatedPartition.getInserted_files())) {
+        appendedPartitions.add(partName);
+      }
+    }
+    if (!appendedPartitions.isEmpty()) {
+      catalogTimeline.markEvent(String.format(
+          "Added inserted files to %d partitions", appendedPartitions.size()));
+    }
+    return appendedPartitions;
+  }
+
   /**
    * This process creates any missing partitions and clears a table property related to
    * COLUMN_STATS_ACCURATE. It also gathers information about the cache directory
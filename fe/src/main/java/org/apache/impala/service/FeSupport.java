@@ -19,6 +19,7 @@ package org.apache.impala.service;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -226,6 +227,40 @@ public class FeSupport {
     }
   }
 
+  /**
+   * Evaluates a batch of constant exprs in the BE with a single JNI call. Returns one
+   * TColumnValue per input expr, in the same order. Like EvalExprWithoutRowBounded(),
+   * 'maxResultSize' bounds the size of each evaluated expression. Throws an
+   * InternalException if any of the exprs fails to evaluate, in which case callers
+   * should fall back to evaluating the exprs one at a time.
+   */
+  public static List<TColumnValue> EvalExprsWithoutRowBounded(List<Expr> exprs,
+      TQueryCtx queryCtx, int maxResultSize) throws InternalException {
+    TExprBatch exprBatch = new TExprBatch();
+    for (Expr expr: exprs) {
+      Preconditions.checkState(!expr.contains(SlotRef.class));
+      exprBatch.addToExprs(expr.treeToThrift());
+    }
+    byte[] result;
+    try {
+      TSerializer serializer = new TSerializer(new TBinaryProtocol.Factory());
+      result = EvalExprsWithoutRowBounded(
+          serializer.serialize(exprBatch), serializer.serialize(queryCtx), maxResultSize);
+      Preconditions.checkNotNull(result);
+      TDeserializer deserializer = new TDeserializer(new TBinaryProtocol.Factory());
+      TResultRow val = new TResultRow();
+      deserializer.deserialize(val, result);
+      if (val.getColValsSize() != exprs.size()) {
+        throw new IllegalStateException(String.format("Illegal expr eval result. " +
+            "Expected %d values, got %d.", exprs.size(), val.getColValsSize()));
+      }
+      return val.getColVals();
+    } catch (TException e) {
+      // this should never happen
+      throw new InternalException("couldn't execute a batch of exprs.", e);
+    }
+  }
+
   private static byte[] LookupSymbol(byte[] thriftParams) {
     try {
       return NativeLookupSymbol(thriftParams);
@@ -374,14 +409,17 @@ public class FeSupport {
     return NativeGetPartitionStats(thriftReq);
   }
 
-  public static TGetPartitionStatsResponse GetPartitionStats(
-      TableName table) throws InternalException {
+  public static TGetPartitionStatsResponse GetPartitionStats(TableName table,
+      @Nullable Collection<String> partitionNames) throws InternalException {
     Preconditions.checkNotNull(table);
 
     LOG.info("Fetching partition statistics for table {} from catalog.", table);
 
     TGetPartitionStatsRequest request = new TGetPartitionStatsRequest();
     request.setTable_name(table.toThrift());
+    if (partitionNames != null) {
+      request.setPartition_names(new ArrayList<>(partitionNames));
+    }
     TGetPartitionStatsResponse response = new TGetPartitionStatsResponse();
     try {
       TSerializer serializer = new TSerializer(new TBinaryProtocol.Factory());
@@ -3130,6 +3130,13 @@ public class Frontend {
    * less than the number of hooks, then 1 hook may effectively block others from
    * executing.
    *
+   * <h4>Each Hook Has a Bounded Queue</h4>
+   *
+   * Completed queries are queued for each hook and a hook is only invoked by one
+   * thread at a time.  If a hook falls behind and its queue is full, then depending on
+   * {@code query_event_hook_queue_full_policy} the hook is skipped for the query or
+   * this method waits until there is space in the queue.
+   *
    * <h4>Hook Exceptions are non-fatal</h4>
    *
    * Any exception thrown from this hook method will be logged and ignored.  Therefore,
@@ -3154,6 +3161,14 @@ public class Frontend {
         = this.queryHookManager_.executeQueryCompleteHooks(context);
   }
 
+  /**
+   * Returns the metrics of the registered {@link QueryEventHook}s pretty-printed into
+   * a string.
+   */
+  public String getQueryEventHookMetrics() {
+    return queryHookManager_.getMetrics().toString();
+  }
+
   /**
    * Adds a transaction to the keepalive object.
    * @param queryCtx context that the transaction is associated with
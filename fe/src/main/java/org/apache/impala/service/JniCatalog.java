@@ -73,6 +73,8 @@ import org.apache.impala.thrift.TGetFunctionsRequest;
 import org.apache.impala.thrift.TGetFunctionsResponse;
 import org.apache.impala.thrift.TGetLatestCompactionsRequest;
 import org.apache.impala.thrift.TGetLatestCompactionsResponse;
+import org.apache.impala.thrift.TGetNextStatsRefreshRequest;
+import org.apache.impala.thrift.TGetNextStatsRefreshResponse;
 import org.apache.impala.thrift.TGetNullPartitionNameResponse;
 import org.apache.impala.thrift.TGetPartialCatalogObjectRequest;
 import org.apache.impala.thrift.TGetPartitionStatsRequest;
@@ -605,6 +607,26 @@ public class JniCatalog {
     });
   }
 
+  /**
+   * Records the result of the last automatic stats refresh of a coordinator that is
+   * reported in the serialized TGetNextStatsRefreshRequest and returns the serialized
+   * byte array of TGetNextStatsRefreshResponse with the next refresh that the
+   * coordinator should run, see StatsRefreshScheduler. Coordinators poll this
+   * periodically, so the start and finish are not logged.
+   */
+  public byte[] getNextStatsRefresh(byte[] thriftParams)
+      throws ImpalaException, TException {
+    TGetNextStatsRefreshRequest request = new TGetNextStatsRefreshRequest();
+    JniUtil.deserializeThrift(protocolFactory_, request, thriftParams);
+    return execAndSerializeSilentStartAndFinish("getNextStatsRefresh",
+        "Getting next stats refresh", () -> {
+          TGetNextStatsRefreshResponse response =
+              catalog_.getStatsRefreshScheduler().getNextRefresh(request);
+          response.setStatus(new TStatus(TErrorCode.OK, Lists.newArrayList()));
+          return response;
+        });
+  }
+
   /**
    * Returns the serialized byte array of TGetAllHadoopConfigsResponse
    */
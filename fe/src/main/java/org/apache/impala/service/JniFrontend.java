@@ -34,6 +34,7 @@ import org.apache.hadoop.security.JniBasedUnixGroupsMappingWithFallback;
 import org.apache.hadoop.security.JniBasedUnixGroupsNetgroupMappingWithFallback;
 import org.apache.hadoop.security.ShellBasedUnixGroupsMapping;
 import org.apache.hadoop.security.ShellBasedUnixGroupsNetgroupMapping;
+import org.apache.impala.analysis.ColumnLineageGraph;
 import org.apache.impala.analysis.DescriptorTable;
 import org.apache.impala.analysis.ToSqlUtils;
 import org.apache.impala.authentication.saml.WrappedWebContext;
@@ -50,6 +51,8 @@ import org.apache.impala.common.InternalException;
 import org.apache.impala.common.JniUtil;
 import org.apache.impala.common.TransactionException;
 import org.apache.impala.hooks.QueryCompleteContext;
+import org.apache.impala.planner.KuduScanTokenCache;
+import org.apache.impala.planner.RuntimeFilterFeedback;
 import org.apache.impala.service.Frontend.PlanCtx;
 import org.apache.impala.thrift.TBackendGflags;
 import org.apache.impala.thrift.TBuildTestDescriptorTableParams;
@@ -77,6 +80,8 @@ import org.apache.impala.thrift.TGetTableHistoryResult;
 import org.apache.impala.thrift.TGetMetadataTablesParams;
 import org.apache.impala.thrift.TGetTablesParams;
 import org.apache.impala.thrift.TGetTablesResult;
+import org.apache.impala.thrift.TInvalidateKuduScanTokensParams;
+import org.apache.impala.thrift.TLineageGraph;
 import org.apache.impala.thrift.TLoadDataReq;
 import org.apache.impala.thrift.TLoadDataResp;
 import org.apache.impala.thrift.TLogLevel;
@@ -84,6 +89,7 @@ import org.apache.impala.thrift.TMetadataOpRequest;
 import org.apache.impala.thrift.TQueryCompleteContext;
 import org.apache.impala.thrift.TQueryCtx;
 import org.apache.impala.thrift.TResultSet;
+import org.apache.impala.thrift.TRuntimeFilterFeedbackParams;
 import org.apache.impala.thrift.TShowFilesParams;
 import org.apache.impala.thrift.TShowGrantPrincipalParams;
 import org.apache.impala.thrift.TShowRolesParams;
@@ -714,11 +720,49 @@ public class JniFrontend {
     final TQueryCompleteContext request = new TQueryCompleteContext();
     JniUtil.deserializeThrift(protocolFactory_, request, serializedRequest);
 
-    final QueryCompleteContext context =
-        new QueryCompleteContext(request.getLineage_string());
+    final QueryCompleteContext context;
+    if (request.isSetLineage_graph()) {
+      // Build the JSON record when the hooks ask for it, see --defer_lineage_json.
+      final TLineageGraph lineageGraph = request.getLineage_graph();
+      context = new QueryCompleteContext(() -> ColumnLineageGraph.toJson(lineageGraph));
+    } else {
+      context = new QueryCompleteContext(request.getLineage_string());
+    }
     this.frontend_.callQueryCompleteHooks(context);
   }
 
+  /**
+   * JNI wrapper for {@link Frontend#getQueryEventHookMetrics()}.
+   */
+  public String getQueryEventHookMetrics() {
+    Preconditions.checkNotNull(frontend_);
+    return frontend_.getQueryEventHookMetrics();
+  }
+
+  /**
+   * Records the runtime filter effectiveness observed by a completed query. See
+   * {@link RuntimeFilterFeedback}.
+   */
+  public void recordRuntimeFilterFeedback(byte[] serializedRequest)
+      throws ImpalaException {
+    final TRuntimeFilterFeedbackParams params = new TRuntimeFilterFeedbackParams();
+    JniUtil.deserializeThrift(protocolFactory_, params, serializedRequest);
+    RuntimeFilterFeedback.INSTANCE.record(params);
+  }
+
+  /**
+   * Drops the cached Kudu scan tokens of the tables scanned by a failed query. See
+   * {@link KuduScanTokenCache}.
+   */
+  public void invalidateKuduScanTokens(byte[] serializedRequest)
+      throws ImpalaException {
+    final TInvalidateKuduScanTokensParams params = new TInvalidateKuduScanTokensParams();
+    JniUtil.deserializeThrift(protocolFactory_, params, serializedRequest);
+    for (String tableName : params.getTable_names()) {
+      KuduScanTokenCache.INSTANCE.invalidateTable(tableName);
+    }
+  }
+
   /**
    * Adds a transaction started externally.
    * @param transactionId the id of the transaction to abort.
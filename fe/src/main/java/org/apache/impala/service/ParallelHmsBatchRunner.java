@@ -0,0 +1,190 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.impala.common.ImpalaException;
+import org.apache.impala.common.ImpalaRuntimeException;
+import org.apache.impala.common.PrintUtils;
+import org.apache.impala.util.BoundedExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Sends the Metastore RPCs of a bulk partition operation, e.g. add_partitions() or
+ * alter_partitions(), in batches and keeps up to 'maxInFlight' batches running
+ * concurrently. Each batch is expected to use its own Metastore client. The batches of
+ * all operations run on one process-wide pool of --hms_partition_rpc_threads threads.
+ *
+ * The results of the batches are handed to a consumer on the calling thread, in batch
+ * order, so the consumer can update catalog objects without further synchronization.
+ * After a batch fails no new batches are started, but the batches that are already
+ * running are waited for and their results are still handed to the consumer. The
+ * first failure is then thrown. Whether the consumed results reach the catalog is up
+ * to the caller: bulkAlterPartitions() updates the partitions of every successful
+ * batch right away, while addHmsPartitions() only collects the added partitions and
+ * drops them when the failure is thrown, like the sequential code did. The partitions
+ * that were added to the Metastore are then picked up by the next table reload or by
+ * the event processor.
+ */
+public class ParallelHmsBatchRunner {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(ParallelHmsBatchRunner.class);
+
+  // Used if BackendConfig is not initialized, e.g. in some tests.
+  private static final int DEFAULT_NUM_THREADS = 16;
+
+  // Lazily created in getPool() because BackendConfig may not be set at class load
+  // time.
+  private static ThreadPoolExecutor pool_;
+
+  /**
+   * Sends the RPC for one batch of items and returns its result.
+   */
+  public interface BatchOperation<T, R> {
+    R apply(List<T> batch) throws ImpalaException;
+  }
+
+  /**
+   * Consumes the result of a successful batch. 'batchTimeMs' is the time spent in
+   * 'BatchOperation#apply()' for the batch.
+   */
+  public interface BatchConsumer<T, R> {
+    void accept(List<T> batch, R result, long batchTimeMs) throws ImpalaException;
+  }
+
+  private ParallelHmsBatchRunner() {}
+
+  /**
+   * Splits 'items' into batches of at most 'batchSize' items, applies 'operation' to
+   * them with at most 'maxInFlight' batches in flight and calls 'consumer' for every
+   * successful batch. 'description' is used in log messages and errors.
+   */
+  public static <T, R> void run(String description, List<T> items, int batchSize,
+      int maxInFlight, BatchOperation<T, R> operation, BatchConsumer<T, R> consumer)
+      throws ImpalaException {
+    Preconditions.checkArgument(batchSize > 0);
+    if (items.isEmpty()) return;
+    List<List<T>> batches = Lists.partition(items, batchSize);
+    int numInFlight = Math.max(1, Math.min(maxInFlight, batches.size()));
+    ExecutorService pool = numInFlight == 1 ?
+        MoreExecutors.newDirectExecutorService() :
+        new BoundedExecutorService(getPool(), numInFlight);
+    // Set after the first failure so that batches that have not started yet are
+    // skipped.
+    AtomicBoolean failed = new AtomicBoolean(false);
+    List<Future<BatchResult<R>>> futures = new ArrayList<>(batches.size());
+    try {
+      for (List<T> batch : batches) {
+        futures.add(pool.submit(() -> {
+          if (failed.get()) return null;
+          Stopwatch sw = Stopwatch.createStarted();
+          try {
+            R result = operation.apply(batch);
+            return new BatchResult<>(result, sw.elapsed(TimeUnit.MILLISECONDS));
+          } catch (Throwable t) {
+            failed.set(true);
+            throw t;
+          }
+        }));
+      }
+      ImpalaException firstError = null;
+      int numFailed = 0;
+      int numSkipped = 0;
+      for (int i = 0; i < futures.size(); ++i) {
+        BatchResult<R> result;
+        try {
+          result = futures.get(i).get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new ImpalaRuntimeException(description + " was interrupted", e);
+        } catch (ExecutionException e) {
+          ++numFailed;
+          if (firstError == null) firstError = toImpalaException(description, e);
+          continue;
+        }
+        if (result == null) {
+          ++numSkipped;
+          continue;
+        }
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("{}: batch {}/{} of {} items took {}", description, i + 1,
+              batches.size(), batches.get(i).size(),
+              PrintUtils.printTimeMs(result.timeMs_));
+        }
+        consumer.accept(batches.get(i), result.result_, result.timeMs_);
+      }
+      if (firstError != null) {
+        LOG.warn("{}: {} of {} batches failed, {} batches were skipped", description,
+            numFailed, batches.size(), numSkipped);
+        throw firstError;
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static synchronized ThreadPoolExecutor getPool() {
+    if (pool_ == null) {
+      int numThreads = BackendConfig.INSTANCE != null ?
+          Math.max(1, BackendConfig.INSTANCE.getHmsPartitionRpcThreads()) :
+          DEFAULT_NUM_THREADS;
+      pool_ = new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(),
+          new ThreadFactoryBuilder()
+              .setNameFormat("HmsPartitionRpc-%d")
+              .setDaemon(true)
+              .build());
+      pool_.allowCoreThreadTimeOut(true);
+    }
+    return pool_;
+  }
+
+  private static ImpalaException toImpalaException(String description,
+      ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof ImpalaException) return (ImpalaException) cause;
+    return new ImpalaRuntimeException(description + " failed", cause);
+  }
+
+  private static class BatchResult<R> {
+    private final R result_;
+    private final long timeMs_;
+
+    BatchResult(R result, long timeMs) {
+      result_ = result;
+      timeMs_ = timeMs;
+    }
+  }
+}
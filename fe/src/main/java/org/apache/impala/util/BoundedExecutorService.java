@@ -0,0 +1,122 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * ExecutorService that runs its tasks on a shared executor, but never runs more than
+ * 'maxConcurrency' of them at the same time. The remaining tasks are queued and handed
+ * to the shared executor when a running task finishes. This lets many operations share
+ * one pool of threads without a single operation occupying all of them.
+ *
+ * Shutting down this executor does not shut down the shared executor.
+ */
+public class BoundedExecutorService extends AbstractExecutorService {
+  private final Executor executor_;
+  private final int maxConcurrency_;
+
+  // Tasks that were submitted but not yet handed to 'executor_'.
+  private final Queue<Runnable> queue_ = new ArrayDeque<>();
+  // Number of tasks handed to 'executor_' that did not finish yet.
+  private int numRunning_ = 0;
+  private boolean isShutdown_ = false;
+
+  public BoundedExecutorService(Executor executor, int maxConcurrency) {
+    Preconditions.checkArgument(maxConcurrency > 0);
+    executor_ = Preconditions.checkNotNull(executor);
+    maxConcurrency_ = maxConcurrency;
+  }
+
+  @Override
+  public synchronized void execute(Runnable command) {
+    Preconditions.checkNotNull(command);
+    if (isShutdown_) throw new RejectedExecutionException("Executor is shut down");
+    queue_.add(command);
+    scheduleTasks();
+  }
+
+  private synchronized void scheduleTasks() {
+    while (numRunning_ < maxConcurrency_ && !queue_.isEmpty()) {
+      Runnable task = queue_.poll();
+      ++numRunning_;
+      try {
+        executor_.execute(() -> {
+          try {
+            task.run();
+          } finally {
+            onTaskFinished();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        --numRunning_;
+        throw e;
+      }
+    }
+  }
+
+  private synchronized void onTaskFinished() {
+    --numRunning_;
+    scheduleTasks();
+    notifyAll();
+  }
+
+  @Override
+  public synchronized void shutdown() {
+    isShutdown_ = true;
+    notifyAll();
+  }
+
+  @Override
+  public synchronized List<Runnable> shutdownNow() {
+    isShutdown_ = true;
+    List<Runnable> pending = new ArrayList<>(queue_);
+    queue_.clear();
+    notifyAll();
+    return pending;
+  }
+
+  @Override
+  public synchronized boolean isShutdown() { return isShutdown_; }
+
+  @Override
+  public synchronized boolean isTerminated() {
+    return isShutdown_ && numRunning_ == 0 && queue_.isEmpty();
+  }
+
+  @Override
+  public synchronized boolean awaitTermination(long timeout, TimeUnit unit)
+      throws InterruptedException {
+    long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+    while (!isTerminated()) {
+      long remainingNanos = deadlineNanos - System.nanoTime();
+      if (remainingNanos <= 0) return false;
+      TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+    }
+    return true;
+  }
+}
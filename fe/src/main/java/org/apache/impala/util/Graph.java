@@ -17,6 +17,7 @@
 
 package org.apache.impala.util;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import org.apache.impala.common.Pair;
 
@@ -154,21 +155,32 @@ public abstract class Graph {
 
   /**
    * A graph condensed by its strongly-connected components (SCC). Vertices are mapped to
-   * their SCCs and an inner graph on the SCCs is stored.
+   * their SCCs and an inner graph on the SCCs is stored. Used to represent the reflexive
+   * transitive closure of a graph: the closure of each SCC is computed lazily from the
+   * direct edges of the inner graph the first time it is needed and then cached as a
+   * bitset of SCC IDs. Callers that only look at a few SCCs, e.g. the equivalence classes
+   * of the slots of a few tuples, therefore don't pay for the closure of the whole graph.
+   * Not thread-safe.
    */
   public static class SccCondensedGraph extends Graph {
     // Map an original vid to its SCC ID.
     private final int[] sccIds_;
     // Map an SCC ID to its member vids.
     private final int[][] sccMembers_;
-    // The SCC-condensed inner graph.
+    // The SCC-condensed inner graph with only the direct edges. tarjanScc() assigns SCC
+    // IDs in reverse topological order, so every edge points from an SCC to an SCC
+    // with a smaller or equal ID.
     private final RandomAccessibleGraph condensed_;
+    // Reflexive transitive closure of each SCC in 'condensed_', as a bitset of SCC IDs.
+    // Entries are null until computed by getClosure().
+    private final BitSet[] closures_;
 
     private SccCondensedGraph(int[] sccIds, int[][] sccMembers,
         RandomAccessibleGraph condensed) {
       sccIds_ = sccIds;
       sccMembers_ = sccMembers;
       condensed_ = condensed;
+      closures_ = new BitSet[sccMembers.length];
     }
 
     @Override
@@ -177,19 +189,18 @@ public abstract class Graph {
     @Override
     public IntIterator dstIter(final int srcVid) {
       return new IntIterator() {
-        private final int[] condensedAdjList = condensed_.adjList_[sccIds_[srcVid]];
-        private int adjListPos = 0;
+        private final BitSet closure = getClosure(sccIds_[srcVid]);
+        private int dstSccId = closure.nextSetBit(0);
         private int memberPos = 0;
 
         @Override
         public boolean hasNext() {
           // After this loop the iterator either points to a valid dst or reaches the end.
-          while (adjListPos < condensedAdjList.length &&
-              memberPos == sccMembers_[condensedAdjList[adjListPos]].length) {
-            ++adjListPos;
+          while (dstSccId != -1 && memberPos == sccMembers_[dstSccId].length) {
+            dstSccId = closure.nextSetBit(dstSccId + 1);
             memberPos = 0;
           }
-          return adjListPos < condensedAdjList.length;
+          return dstSccId != -1;
         }
 
         @Override
@@ -202,31 +213,88 @@ public abstract class Graph {
         @Override
         public int peek() {
           if (!hasNext()) throw new IndexOutOfBoundsException();
-          return sccMembers_[condensedAdjList[adjListPos]][memberPos];
+          return sccMembers_[dstSccId][memberPos];
         }
       };
     }
 
     /**
      * Check whether there is an edge from 'srcVid' to 'dstVid'.
-     * Time complexity: O(log(V))
+     * Time complexity: O(1) once the closure of the SCC of 'srcVid' has been computed.
      */
     public boolean hasEdge(int srcVid, int dstVid) {
-      return condensed_.hasEdge(sccIds_[srcVid], sccIds_[dstVid]);
+      int srcSccId = sccIds_[srcVid];
+      int dstSccId = sccIds_[dstVid];
+      if (srcSccId == dstSccId) return true;
+      // Edges only point to SCCs with smaller IDs.
+      if (dstSccId > srcSccId) return false;
+      return getClosure(srcSccId).get(dstSccId);
     }
 
     /**
-     * Create a condensed reflexive transitive closure of a graph.
-     * Time complexity: O(V(V+E)).
+     * Create a condensed reflexive transitive closure of a graph. Only the SCCs and the
+     * condensed inner graph are computed eagerly; the closure of an SCC is computed on
+     * first access.
+     * Time complexity: O(V+E) for the construction. Computing the closure of an SCC
+     * costs O(V/64) per edge of the condensed graph reachable from it that has not been
+     * visited by an earlier closure computation.
      */
     public static SccCondensedGraph condensedReflexiveTransitiveClosure(WritableGraph g) {
       // Step 0: Compute the strongly connected components. O(V+E)
       Pair<int[], int[][]> scc = tarjanScc(g);
-      // Step 1: Compute the condensed inner graph. O(V^2+E)
+      // Step 1: Compute the condensed inner graph. O(V+E)
       RandomAccessibleGraph condensed = condenseGraphOnScc(g, scc.first, scc.second);
-      // Step 2: Compute the reflexive transitive closure. O(V(V+E))
-      RandomAccessibleGraph condensedTc = condensed.reflexiveTransitiveClosure();
-      return new SccCondensedGraph(scc.first, scc.second, condensedTc);
+      return new SccCondensedGraph(scc.first, scc.second, condensed);
+    }
+
+    /**
+     * Returns the reflexive transitive closure of the SCC 'sccId' as a bitset of SCC
+     * IDs, computing and caching it and the closures of all the SCCs reachable from
+     * 'sccId' if necessary. The caller shouldn't modify the returned bitset.
+     * The closures are computed bottom-up with an explicit stack to avoid unbounded
+     * system stack usage: an SCC's closure is the union of the closures of its direct
+     * successors, which are computed first.
+     */
+    private BitSet getClosure(int sccId) {
+      if (closures_[sccId] != null) return closures_[sccId];
+      IntArrayList stack = new IntArrayList();
+      stack.add(sccId);
+      while (stack.size() > 0) {
+        int top = stack.get(stack.size() - 1);
+        if (closures_[top] != null) {
+          stack.removeLast(1);
+          continue;
+        }
+        int[] dsts = condensed_.adjList_[top];
+        boolean successorsDone = true;
+        for (int dst : dsts) {
+          if (dst != top && closures_[dst] == null) {
+            stack.add(dst);
+            successorsDone = false;
+          }
+        }
+        if (!successorsDone) continue;
+        BitSet closure = new BitSet(top + 1);
+        closure.set(top);
+        for (int dst : dsts) {
+          if (dst != top) closure.or(closures_[dst]);
+        }
+        closures_[top] = closure;
+        stack.removeLast(1);
+      }
+      return closures_[sccId];
+    }
+
+    /**
+     * Returns the number of SCCs whose closure has been computed so far.
+     */
+    @VisibleForTesting
+    int numComputedClosures() {
+      int result = 0;
+      for (BitSet closure : closures_) {
+        if (closure != null) ++result;
+      }
+      return result;
     }
 
     /**
@@ -343,21 +411,31 @@ public abstract class Graph {
     }
 
     /**
-     * Condense the original graph 'g' to a new graph in SCC space.
-     * Time complexity: O(V^2+E)
+     * Condense the original graph 'g' to a new graph in SCC space. The adjacency list
+     * of each SCC is sorted and contains no duplicates.
+     * Time complexity: O(V+E) plus sorting the adjacency lists.
      */
     static private RandomAccessibleGraph condenseGraphOnScc(WritableGraph g, int[] sccIds,
         int[][] sccMembers) {
       int[][] condensedAdjList = new int[sccMembers.length][];
-      BitSet bs = new BitSet(sccMembers.length);
+      // The last SCC that added an edge to each SCC, for de-duplicating edges without
+      // clearing a bitset of all SCCs for every source SCC.
+      int[] lastSrcSccIds = new int[sccMembers.length];
+      Arrays.fill(lastSrcSccIds, -1);
+      IntArrayList dsts = new IntArrayList();
       for (int srcSccId = 0; srcSccId < sccMembers.length; ++srcSccId) {
-        bs.clear();
+        dsts.clear();
         for (int srcVid : sccMembers[srcSccId]) {
           for (IntIterator dstIt = g.dstIter(srcVid); dstIt.hasNext(); dstIt.next()) {
-            bs.set(sccIds[dstIt.peek()]);
+            int dstSccId = sccIds[dstIt.peek()];
+            if (lastSrcSccIds[dstSccId] == srcSccId) continue;
+            lastSrcSccIds[dstSccId] = srcSccId;
+            dsts.add(dstSccId);
           }
         }
-        condensedAdjList[srcSccId] = collectIdxsFromBitSet(bs);
+        int[] sortedDsts = Arrays.copyOf(dsts.data(), dsts.size());
+        Arrays.sort(sortedDsts);
+        condensedAdjList[srcSccId] = sortedDsts;
       }
       return new RandomAccessibleGraph(condensedAdjList);
     }
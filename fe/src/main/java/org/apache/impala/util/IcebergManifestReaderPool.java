@@ -0,0 +1,101 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.thrift.TUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Process-wide pool of threads that read the manifest files of Iceberg tables in
+ * parallel. It is used when planning Iceberg scans on coordinators and when loading
+ * the files of Iceberg tables in catalogd. Every scan gets its own executor from
+ * newScanExecutor() that runs at most --iceberg_manifest_reader_threads_per_scan
+ * tasks on the pool at the same time, so that a table with thousands of manifests
+ * does not hold up the planning of other queries.
+ *
+ * Iceberg submits one task per manifest file to the executor of a scan, so the
+ * executors count the tasks they run as manifest reads in the frontend profile of the
+ * query the scan is planned for. Manifests that are read by the calling thread, i.e.
+ * if --iceberg_manifest_reader_threads or --iceberg_manifest_reader_threads_per_scan
+ * is 0, are not counted.
+ */
+public class IcebergManifestReaderPool {
+  // Used if BackendConfig is not initialized, e.g. in some tests.
+  private static final int DEFAULT_NUM_THREADS = 16;
+  private static final int DEFAULT_NUM_THREADS_PER_SCAN = 4;
+
+  // Frontend profile counter of the manifest files read for a query.
+  public static final String MANIFEST_READS = "IcebergManifestReads";
+
+  // Lazily created in getPool() because BackendConfig may not be set at class load
+  // time. Null if manifests are read sequentially.
+  private static ThreadPoolExecutor pool_;
+  private static boolean poolInitialized_ = false;
+
+  private IcebergManifestReaderPool() {}
+
+  /**
+   * Returns an executor for reading the manifest files of one table scan, or null if
+   * the manifest files should be read by the calling thread. The manifest reads are
+   * counted in the frontend profile of the calling thread, if it has one.
+   */
+  public static ExecutorService newScanExecutor() {
+    ThreadPoolExecutor pool = getPool();
+    if (pool == null) return null;
+    int threadsPerScan = BackendConfig.INSTANCE != null ?
+        BackendConfig.INSTANCE.getIcebergManifestReaderThreadsPerScan() :
+        DEFAULT_NUM_THREADS_PER_SCAN;
+    if (threadsPerScan <= 0) return null;
+    FrontendProfile profile = FrontendProfile.getCurrentOrNull();
+    if (profile == null) return new BoundedExecutorService(pool, threadsPerScan);
+    // The tasks run on the threads of the pool, which have no profile of their own.
+    Executor countingPool = task -> pool.execute(() -> {
+      profile.addToCounter(MANIFEST_READS, TUnit.NONE, 1);
+      task.run();
+    });
+    return new BoundedExecutorService(countingPool, threadsPerScan);
+  }
+
+  private static synchronized ThreadPoolExecutor getPool() {
+    if (!poolInitialized_) {
+      int numThreads = BackendConfig.INSTANCE != null ?
+          BackendConfig.INSTANCE.getIcebergManifestReaderThreads() :
+          DEFAULT_NUM_THREADS;
+      if (numThreads > 0) {
+        pool_ = new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder()
+                .setNameFormat("IcebergManifestReader-%d")
+                .setDaemon(true)
+                .build());
+        pool_.allowCoreThreadTimeOut(true);
+      }
+      poolInitialized_ = true;
+    }
+    return pool_;
+  }
+}
@@ -26,6 +26,7 @@ import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 import com.google.flatbuffers.FlatBufferBuilder;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.ByteBuffer;
 import java.time.DateTimeException;
 import java.time.Instant;
@@ -41,12 +42,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.iceberg.CatalogProperties;
 import org.apache.iceberg.ContentFile;
+import org.apache.iceberg.FileContent;
 import org.apache.iceberg.FileFormat;
 import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.MetadataColumns;
 import org.apache.iceberg.PartitionField;
 import org.apache.iceberg.PartitionSpec;
 import org.apache.iceberg.Schema;
@@ -125,6 +132,9 @@ public class IcebergUtil {
   @SuppressWarnings("unused")
   private static final int ICEBERG_EPOCH_HOUR = 0;
   public static final String HIVE_CATALOG = "hive.catalog";
+  // Optional scheme and authority, followed by the absolute path.
+  private static final Pattern FILE_PATH_PATTERN = Pattern.compile(
+      "(?:([a-zA-Z][a-zA-Z0-9+.-]*):(?://([^/]*))?)?(/.*)", Pattern.DOTALL);
 
   /**
    * Returns the corresponding catalog implementation for 'feTable'.
@@ -701,6 +711,9 @@ public class IcebergUtil {
 
   private static TableScan newScan(FeIcebergTable table) {
     TableScan scan = table.getIcebergApiTable().newScan();
+    // Read the manifest files in parallel, see IcebergManifestReaderPool.
+    ExecutorService manifestReaderExecutor = IcebergManifestReaderPool.newScanExecutor();
+    if (manifestReaderExecutor != null) scan = scan.planWith(manifestReaderExecutor);
     return scan.caseSensitive(false);
   }
 
@@ -1069,6 +1082,17 @@ public class IcebergUtil {
       eqFieldIdsOffset = FbIcebergMetadata.createEqualityFieldIdsVector(fbb,
           eqFieldIds.stream().mapToInt(i -> i).sorted().toArray());
     }
+    int referencedLowerOffset = -1;
+    int referencedUpperOffset = -1;
+    if (cf.content() == FileContent.POSITION_DELETES) {
+      Pair<String, String> bounds = normalizeFilePathBounds(
+          getReferencedDataFileBound(cf.lowerBounds()),
+          getReferencedDataFileBound(cf.upperBounds()), getDefaultFsUri());
+      if (bounds != null) {
+        referencedLowerOffset = fbb.createString(bounds.first);
+        referencedUpperOffset = fbb.createString(bounds.second);
+      }
+    }
     FbIcebergMetadata.startFbIcebergMetadata(fbb);
     byte fileFormat = -1;
     if (cf.format() == FileFormat.PARQUET) fileFormat = FbIcebergDataFileFormat.PARQUET;
@@ -1097,10 +1121,105 @@ public class IcebergUtil {
     if (eqFieldIdsOffset != -1) {
       FbIcebergMetadata.addEqualityFieldIds(fbb, eqFieldIdsOffset);
     }
+    if (referencedLowerOffset != -1) {
+      FbIcebergMetadata.addReferencedDataFileLowerBound(fbb, referencedLowerOffset);
+      FbIcebergMetadata.addReferencedDataFileUpperBound(fbb, referencedUpperOffset);
+    }
 
     return FbIcebergMetadata.endFbIcebergMetadata(fbb);
   }
 
+  /**
+   * Returns the bound of the file_path column of a position delete file from its lower
+   * or upper 'bounds', or null if the file has no such bound.
+   */
+  private static String getReferencedDataFileBound(Map<Integer, ByteBuffer> bounds) {
+    if (bounds == null) return null;
+    ByteBuffer bound = bounds.get(MetadataColumns.DELETE_FILE_PATH.fieldId());
+    if (bound == null) return null;
+    CharSequence path = Conversions.fromByteBuffer(Types.StringType.get(), bound);
+    return path == null ? null : path.toString();
+  }
+
+  /**
+   * Returns the URI of the default file system, used to qualify file paths that have
+   * no scheme.
+   */
+  public static URI getDefaultFsUri() {
+    return FileSystem.getDefaultUri(FileSystemUtil.getConfiguration());
+  }
+
+  /**
+   * Returns 'path' with its file system prefix normalized, or null if 'path' is not an
+   * absolute path. The scheme and the authority are lower-cased. A missing scheme,
+   * authority or port is taken from 'defaultFs' if the path is on the default file
+   * system. The rest of the path is kept as is, so paths of the same file system keep
+   * their lexicographic order. E.g. with 'hdfs://nn:8020' as the default file system,
+   * '/wh/t/a.parq', 'hdfs:/wh/t/a.parq' and 'HDFS://NN/wh/t/a.parq' are all normalized
+   * to 'hdfs://nn:8020/wh/t/a.parq'.
+   */
+  public static String normalizeFilePath(String path, URI defaultFs) {
+    if (path == null) return null;
+    Matcher m = FILE_PATH_PATTERN.matcher(path);
+    if (!m.matches()) return null;
+    String scheme = m.group(1);
+    String authority = m.group(2);
+    String rest = m.group(3);
+    if (scheme == null) {
+      if (rest.startsWith("//") || defaultFs == null || defaultFs.getScheme() == null) {
+        return null;
+      }
+      scheme = defaultFs.getScheme();
+    }
+    scheme = scheme.toLowerCase();
+    boolean onDefaultFs = defaultFs != null && scheme.equalsIgnoreCase(
+        defaultFs.getScheme());
+    if (authority == null) {
+      authority = onDefaultFs && defaultFs.getAuthority() != null ?
+          defaultFs.getAuthority() : "";
+    }
+    authority = authority.toLowerCase();
+    if (onDefaultFs && defaultFs.getHost() != null && defaultFs.getPort() != -1
+        && authority.equalsIgnoreCase(defaultFs.getHost())) {
+      authority += ":" + defaultFs.getPort();
+    }
+    return scheme + "://" + authority + rest;
+  }
+
+  /**
+   * Returns the file system prefix, i.e. 'scheme://authority', of a path returned by
+   * normalizeFilePath().
+   */
+  public static String getFileSystemPrefix(String normalizedPath) {
+    int authorityStart = normalizedPath.indexOf("://") + 3;
+    Preconditions.checkState(authorityStart >= 3, normalizedPath);
+    return normalizedPath.substring(0, normalizedPath.indexOf('/', authorityStart));
+  }
+
+  /**
+   * Normalizes the lower and upper bounds of the file_path column of a position delete
+   * file with normalizeFilePath(). Returns null if the bounds cannot be compared
+   * exactly with normalized data file paths: if a bound is missing or is not an
+   * absolute path, if the bounds are not in order, or if they have different file
+   * system prefixes. Every path between two bounds that share a prefix also starts with
+   * that prefix, so normalizing the prefix keeps the bounds valid.
+   */
+  public static Pair<String, String> normalizeFilePathBounds(String lower, String upper,
+      URI defaultFs) {
+    if (lower == null || upper == null || lower.compareTo(upper) > 0) return null;
+    Matcher lowerMatcher = FILE_PATH_PATTERN.matcher(lower);
+    Matcher upperMatcher = FILE_PATH_PATTERN.matcher(upper);
+    if (!lowerMatcher.matches() || !upperMatcher.matches()) return null;
+    if (!lower.substring(0, lowerMatcher.start(3)).equals(
+        upper.substring(0, upperMatcher.start(3)))) {
+      return null;
+    }
+    String normalizedLower = normalizeFilePath(lower, defaultFs);
+    String normalizedUpper = normalizeFilePath(upper, defaultFs);
+    if (normalizedLower == null || normalizedUpper == null) return null;
+    return new Pair<>(normalizedLower, normalizedUpper);
+  }
+
   private static int createPartitionKeys(FeIcebergTable feTbl, FlatBufferBuilder fbb,
       PartitionSpec spec, ContentFile cf) {
     Preconditions.checkState(spec.fields().size() == cf.partition().size());
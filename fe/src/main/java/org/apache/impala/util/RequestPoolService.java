@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -37,7 +38,9 @@ import org.apache.impala.common.ByteUnits;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.common.JniUtil;
+import org.apache.impala.common.Pair;
 import org.apache.impala.common.RuntimeEnv;
+import org.apache.impala.service.BackendConfig;
 import org.apache.impala.thrift.TErrorCode;
 import org.apache.impala.thrift.TPoolConfigParams;
 import org.apache.impala.thrift.TPoolConfig;
@@ -52,6 +55,8 @@ import org.apache.impala.yarn.server.resourcemanager.scheduler.fair.FairSchedule
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 
 /**
@@ -73,6 +78,11 @@ import com.google.common.collect.Lists;
  * {@link Configuration} class). start() and stop() will start/stop watching and reloading
  * both of these files.
  *
+ * Both resolveRequestPool() and getPoolConfig() are called for every query, so their
+ * results are cached. The caches are replaced whenever either file is reloaded. As the
+ * pool resolution and ACLs also depend on the groups of the user, resolved pools
+ * additionally expire after --request_pool_cache_ttl_s.
+ *
  * A single instance is created by the backend and lasts the duration of the process.
  */
 public class RequestPoolService {
@@ -135,6 +145,14 @@ public class RequestPoolService {
   // pool name.
   private final static String PER_POOL_CONFIG_KEY_FORMAT = "%s.%s";
 
+  // Maximum number of entries in each of the caches. Used to bound the memory if there
+  // are many users, e.g. with the 'user' placement rule.
+  private final static int MAX_CACHE_ENTRIES = 10000;
+
+  // Used if BackendConfig is not initialized, e.g. in some tests. The same as the
+  // default of --request_pool_cache_ttl_s and TBackendGflags.request_pool_cache_ttl_s.
+  private final static int DEFAULT_CACHE_TTL_S = 60;
+
   // Watches for changes to the fair scheduler allocation file.
   @VisibleForTesting
   final AllocationFileLoaderService allocLoader_;
@@ -157,6 +175,36 @@ public class RequestPoolService {
   // Reference of single instance of RequestPoolService.
   private static RequestPoolService single_instance_ = null;
 
+  // How long resolved pools are cached, 0 if they are not cached.
+  private final int resolutionCacheTtlS_;
+
+  // Caches of the results computed from the current configuration files. Replaced
+  // whenever one of the files is reloaded.
+  private volatile Caches caches_;
+
+  /**
+   * The cached results of resolveRequestPool() and getPoolConfig().
+   */
+  private static final class Caches {
+    // Map from the user and the requested pool to the result of resolveRequestPool().
+    // Null if resolved pools are not cached.
+    final Cache<Pair<String, String>, TResolveRequestPoolResult> resolvedPools_;
+    // Map from the pool name to its configuration.
+    final Cache<String, TPoolConfig> poolConfigs_;
+
+    Caches(int resolutionCacheTtlS) {
+      if (resolutionCacheTtlS > 0) {
+        resolvedPools_ = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHE_ENTRIES)
+            .expireAfterWrite(resolutionCacheTtlS, TimeUnit.SECONDS)
+            .build();
+      } else {
+        resolvedPools_ = null;
+      }
+      poolConfigs_ = CacheBuilder.newBuilder().maximumSize(MAX_CACHE_ENTRIES).build();
+    }
+  }
+
   /**
    * Updates the configuration when the file changes. The file is confUrl_
    * and it will exist when this is created (or RequestPoolService will not start). If
@@ -171,6 +219,7 @@ public class RequestPoolService {
       Configuration conf = new Configuration();
       conf.addResource(confUrl_);
       conf_ = conf;
+      resetCaches();
     }
   }
 
@@ -214,6 +263,9 @@ public class RequestPoolService {
     Preconditions.checkNotNull(fsAllocationPath);
     running_ = new AtomicBoolean(false);
     allocationConf_ = new AtomicReference<>();
+    resolutionCacheTtlS_ = BackendConfig.INSTANCE != null ?
+        BackendConfig.INSTANCE.getRequestPoolCacheTtlS() : DEFAULT_CACHE_TTL_S;
+    caches_ = new Caches(resolutionCacheTtlS_);
     URL fsAllocationURL = getURL(fsAllocationPath);
     if (fsAllocationURL == null) {
       throw new IllegalArgumentException(
@@ -268,7 +320,7 @@ public class RequestPoolService {
    */
   public void start() {
     Preconditions.checkState(!running_.get());
-    allocLoader_.setReloadListener(allocationConf_::set);
+    allocLoader_.setReloadListener(this::onAllocationReload);
     allocLoader_.start();
     try {
       allocLoader_.reloadAllocations();
@@ -285,6 +337,23 @@ public class RequestPoolService {
     running_.set(true);
   }
 
+  /**
+   * Called when the allocation configuration file is (re)loaded.
+   */
+  private void onAllocationReload(AllocationConfiguration allocationConf) {
+    allocationConf_.set(allocationConf);
+    resetCaches();
+  }
+
+  /**
+   * Drops the cached results. Must be called after the new configuration has been set.
+   * Readers read caches_ before the configuration, so a result computed from an old
+   * configuration can only end up in the caches that are being replaced here.
+   */
+  private void resetCaches() {
+    caches_ = new Caches(resolutionCacheTtlS_);
+  }
+
   /**
    * Stops the RequestPoolService instance. Only used by tests.
    */
@@ -314,6 +383,24 @@ public class RequestPoolService {
   public TResolveRequestPoolResult resolveRequestPool(
       TResolveRequestPoolParams resolvePoolParams) throws InternalException {
     Preconditions.checkState(running_.get());
+    Cache<Pair<String, String>, TResolveRequestPoolResult> cache =
+        caches_.resolvedPools_;
+    if (cache == null) return resolveRequestPoolUncached(resolvePoolParams);
+    Pair<String, String> key = Pair.create(resolvePoolParams.getUser(),
+        resolvePoolParams.getRequested_pool());
+    TResolveRequestPoolResult result = cache.getIfPresent(key);
+    if (result == null) {
+      result = resolveRequestPoolUncached(resolvePoolParams);
+      // Errors, e.g. failed group lookups, may be transient and are not cached.
+      if (result.getStatus().getStatus_code() != TErrorCode.OK) return result;
+      cache.put(key, result);
+    }
+    // The caller may modify the result.
+    return result.deepCopy();
+  }
+
+  private TResolveRequestPoolResult resolveRequestPoolUncached(
+      TResolveRequestPoolParams resolvePoolParams) throws InternalException {
     String requestedPool = resolvePoolParams.getRequested_pool();
     String user = resolvePoolParams.getUser();
     TResolveRequestPoolResult result = new TResolveRequestPoolResult();
@@ -366,6 +453,17 @@ public class RequestPoolService {
    */
   public TPoolConfig getPoolConfig(String pool) {
     Preconditions.checkState(running_.get());
+    Cache<String, TPoolConfig> cache = caches_.poolConfigs_;
+    TPoolConfig result = cache.getIfPresent(pool);
+    if (result == null) {
+      result = getPoolConfigUncached(pool);
+      cache.put(pool, result);
+    }
+    // The caller may modify the result.
+    return result.deepCopy();
+  }
+
+  private TPoolConfig getPoolConfigUncached(String pool) {
     TPoolConfig result = new TPoolConfig();
     long maxMemoryMb = allocationConf_.get().getMaxResources(pool).getMemory();
     result.setMax_mem_resources(
@@ -511,4 +609,15 @@ public class RequestPoolService {
     Preconditions.checkState(RuntimeEnv.INSTANCE.isTestEnv());
     return allocationConf_.get();
   }
+
+  /**
+   * Returns the number of user and requested pool pairs whose resolution is currently
+   * cached.
+   */
+  @VisibleForTesting
+  long getNumCachedResolvedPools() {
+    Cache<Pair<String, String>, TResolveRequestPoolResult> cache =
+        caches_.resolvedPools_;
+    return cache == null ? 0 : cache.size();
+  }
 }
\ No newline at end of file
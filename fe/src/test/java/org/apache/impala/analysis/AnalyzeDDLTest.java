@@ -18,6 +18,7 @@
 package org.apache.impala.analysis;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -27,6 +28,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -1783,6 +1785,39 @@ public class AnalyzeDDLTest extends FrontendTestBase {
     assertEquals(actColSet, expColSet);
   }
 
+  @Test
+  public void TestComputeStatsHistograms() throws AnalysisException {
+    TQueryOptions queryOpts = new TQueryOptions();
+    String histogramFn = "DS_KLL_QUANTILES_AS_STRING(DS_KLL_SKETCH(CAST(";
+    // Off by default.
+    assertFalse(checkComputeStatsStmt("compute stats functional.alltypes",
+        createAnalysisCtx(queryOpts)).getColStatsQuery().toUpperCase()
+        .contains(histogramFn));
+
+    queryOpts.setCompute_column_histograms(true);
+    String colStatsQuery = checkComputeStatsStmt("compute stats functional.alltypes",
+        createAnalysisCtx(queryOpts)).getColStatsQuery().toUpperCase();
+    assertTrue(colStatsQuery,
+        colStatsQuery.contains(histogramFn + "INT_COL AS FLOAT)), 0.0, 0.03125, "));
+    // One histogram for each numeric column: id, tinyint_col, smallint_col, int_col,
+    // bigint_col, float_col and double_col.
+    assertEquals(7, colStatsQuery.split(Pattern.quote(histogramFn), -1).length - 1);
+    colStatsQuery = checkComputeStatsStmt("compute stats functional.date_tbl",
+        createAnalysisCtx(queryOpts)).getColStatsQuery().toUpperCase();
+    assertTrue(colStatsQuery, colStatsQuery.contains(
+        histogramFn + "DATEDIFF(DATE_COL, DATE '1970-01-01') AS FLOAT))"));
+    // Only the listed columns.
+    colStatsQuery = checkComputeStatsStmt(
+        "compute stats functional.alltypes (string_col, int_col)",
+        createAnalysisCtx(queryOpts)).getColStatsQuery().toUpperCase();
+    assertEquals(1, colStatsQuery.split(Pattern.quote(histogramFn), -1).length - 1);
+    // Histograms are not part of the incremental stats.
+    colStatsQuery = checkComputeStatsStmt(
+        "compute incremental stats functional.alltypes",
+        createAnalysisCtx(queryOpts)).getColStatsQuery().toUpperCase();
+    assertFalse(colStatsQuery.contains(histogramFn));
+  }
+
   @Test
   public void TestComputeStats() throws AnalysisException {
     // Analyze the stmt itself as well as the generated child queries.
@@ -0,0 +1,108 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.impala.thrift.TEdgeType;
+import org.apache.impala.thrift.TLineageGraph;
+import org.apache.impala.thrift.TMultiEdge;
+import org.apache.impala.thrift.TUniqueId;
+import org.apache.impala.thrift.TVertex;
+import org.apache.impala.thrift.TVertexMetadata;
+import org.junit.Test;
+
+public class ColumnLineageGraphTest {
+
+  private static TLineageGraph createGraph() {
+    TLineageGraph graph = new TLineageGraph();
+    graph.setQuery_text("insert into t select \"a\\b\"\n\t/ c");
+    graph.setQuery_id(new TUniqueId(1, 2));
+    graph.setHash("abc");
+    graph.setUser("user\u0001");
+    graph.setStarted(10);
+    TVertex target = new TVertex(0, "db.t.x");
+    target.setMetadata(new TVertexMetadata("db.t", "hive", 100));
+    graph.addToVertices(target);
+    graph.addToVertices(new TVertex(1, "db.s.y"));
+    TMultiEdge edge = new TMultiEdge();
+    edge.setSource_ids(Arrays.asList(1L));
+    edge.setTarget_ids(Arrays.asList(0L));
+    edge.setEdgetype(TEdgeType.PROJECTION);
+    graph.addToEdges(edge);
+    return graph;
+  }
+
+  @Test
+  public void testToJson() {
+    TLineageGraph graph = createGraph();
+    graph.setEnded(20);
+    assertEquals("{\"queryText\":\"insert into t select \\\"a\\\\b\\\"\\n\\t/ c\"," +
+        "\"queryId\":\"0000000000000001:0000000000000002\"," +
+        "\"hash\":\"abc\",\"user\":\"user\\u0001\"," +
+        "\"timestamp\":10,\"endTime\":20," +
+        "\"edges\":[{\"sources\":[1],\"targets\":[0],\"edgeType\":\"PROJECTION\"}]," +
+        "\"vertices\":[{\"id\":0,\"vertexType\":\"COLUMN\",\"vertexId\":\"db.t.x\"," +
+        "\"metadata\":{\"tableName\":\"db.t\",\"tableType\":\"hive\"," +
+        "\"tableCreateTime\":100}}," +
+        "{\"id\":1,\"vertexType\":\"COLUMN\",\"vertexId\":\"db.s.y\"}]}",
+        ColumnLineageGraph.toJson(graph));
+  }
+
+  @Test
+  public void testToJsonWithVertexEdges() {
+    // Edges that reference the vertices rather than their ids are written the same
+    // way.
+    TLineageGraph graph = createGraph();
+    String expected = ColumnLineageGraph.toJson(graph);
+    TMultiEdge edge = new TMultiEdge();
+    edge.addToSources(graph.getVertices().get(1));
+    edge.addToTargets(graph.getVertices().get(0));
+    edge.setEdgetype(TEdgeType.PROJECTION);
+    graph.setEdges(Arrays.asList(edge));
+    assertEquals(expected, ColumnLineageGraph.toJson(graph));
+  }
+
+  @Test
+  public void testQueryIdFormat() {
+    // The record for the hooks prints the query id like the backend, the JSON of a
+    // ColumnLineageGraph keeps the frontend format.
+    TLineageGraph graph = createGraph();
+    graph.setQuery_id(new TUniqueId(0xabcL, -1L));
+    assertTrue(ColumnLineageGraph.toJson(graph).contains(
+        "\"queryId\":\"0000000000000abc:ffffffffffffffff\""));
+    assertTrue(ColumnLineageGraph.fromThrift(graph).toJson().contains(
+        "\"queryId\":\"abc:ffffffffffffffff\""));
+  }
+
+  @Test
+  public void testThriftRoundTrip() {
+    TLineageGraph graph = createGraph();
+    ColumnLineageGraph lineage = ColumnLineageGraph.fromThrift(graph);
+    TLineageGraph result = lineage.toThrift();
+    assertEquals(graph.getVertices(), result.getVertices());
+    assertEquals(graph.getEdges(), result.getEdges());
+    assertFalse(result.getEdges().get(0).isSetSources());
+    assertTrue(lineage.equalsForTests(ColumnLineageGraph.fromThrift(result)));
+  }
+}
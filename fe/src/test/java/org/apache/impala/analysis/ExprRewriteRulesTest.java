@@ -409,6 +409,28 @@ public class ExprRewriteRulesTest extends FrontendTestBase {
     RewritesOk("cast(concat('a', 'b') as binary)", rule, "'ab'");
   }
 
+  /**
+   * Tests that folded constants are served from the FoldConstantsRule cache.
+   */
+  @Test
+  public void testFoldConstantsRuleCache() throws ImpalaException {
+    FoldConstantsRule rule = FoldConstantsRule.INSTANCE;
+    rule.invalidateCache();
+
+    long hits = rule.getCacheStats().hitCount();
+    RewritesOk("cast('2016-11-09' as timestamp) + interval 3 days", rule,
+        "TIMESTAMP '2016-11-12 00:00:00'");
+    assertEquals(hits, rule.getCacheStats().hitCount());
+    RewritesOk("cast('2016-11-09' as timestamp) + interval 3 days", rule,
+        "TIMESTAMP '2016-11-12 00:00:00'");
+    assertTrue(rule.getCacheStats().hitCount() > hits);
+
+    // Cached literals are cloned, so the cast to the original type still applies.
+    RewritesOk("cast(1 + 1 as bigint)", rule, "2");
+    Expr folded = RewritesOk("cast(1 + 1 as bigint)", rule, "2");
+    assertEquals(ScalarType.BIGINT, folded.getType());
+  }
+
   @Test
   public void testIf() throws ImpalaException {
     ExprRewriteRule rule = SimplifyConditionalsRule.INSTANCE;
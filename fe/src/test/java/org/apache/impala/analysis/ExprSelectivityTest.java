@@ -17,6 +17,8 @@
 
 package org.apache.impala.analysis;
 
+import org.apache.impala.catalog.ColumnHistogram;
+import org.apache.impala.catalog.ColumnStats;
 import org.apache.impala.common.AnalysisException;
 import org.apache.impala.common.FrontendTestBase;
 import org.junit.Assert;
@@ -60,4 +62,29 @@ public class ExprSelectivityTest extends FrontendTestBase {
     verifySel("id in (1,3,5,7)", 0.000548);
     verifySel("id not in (1,3,9)", 0.999589);
   }
+
+  @Test
+  public void TestHistogramSel() throws AnalysisException {
+    // functional.alltypes has 7300 rows without NULLs, int_col has 10 distinct values.
+    // With this histogram 3/4 of the values of int_col are 0 and the rest is spread
+    // uniformly between 0 and 8.
+    ColumnStats stats =
+        catalog_.getOrLoadTable("functional", "alltypes").getColumn("int_col").getStats();
+    stats.setHistogram(ColumnHistogram.parse("0,0,0,0,8"));
+    try {
+      verifySel("int_col = 0", 0.75);
+      // Not lower than the fraction of a single distinct value.
+      verifySel("int_col = 5", 0.1);
+      verifySel("int_col < 0", 0.1);
+      verifySel("int_col > 4", 0.125);
+      verifySel("4 < int_col", 0.125);
+      verifySel("int_col <= 4", 0.875);
+      verifySel("int_col >= 0", 1.0);
+      verifySel("int_col in (0, 5)", 0.85);
+      verifySel("int_col not in (0, 5)", 0.15);
+      verifySel("int_col between 2 and 6", 0.125);
+    } finally {
+      stats.setHistogram(null);
+    }
+  }
 }
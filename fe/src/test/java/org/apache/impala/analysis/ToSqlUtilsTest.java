@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.impala.catalog.AggregateFunction;
+import org.apache.impala.catalog.ColumnHistogram;
 import org.apache.impala.catalog.FeTable;
 import org.apache.impala.catalog.FeView;
 import org.apache.impala.catalog.Function;
@@ -49,6 +50,8 @@ public class ToSqlUtilsTest extends FrontendTestBase {
     for (String kw : ToSqlUtils.HIDDEN_TABLE_PROPERTIES) {
       props.put(kw, kw + "-value");
     }
+    props.put(ColumnHistogram.getTblPropKey("a"), "1,2");
+    props.put(ColumnHistogram.getTblPropKey("b"), "3,4");
     props.put("foo", "foo-value");
     ToSqlUtils.removeHiddenTableProperties(props);
     assertEquals(1, props.size());
@@ -0,0 +1,124 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Tests for parsing column histograms and estimating fractions of values from them.
+ */
+public class ColumnHistogramTest {
+  private static final double DELTA = 1e-9;
+
+  @Test
+  public void testParse() {
+    ColumnHistogram histogram = ColumnHistogram.parse("0, 2.5,5,10");
+    assertNotNull(histogram);
+    assertArrayEquals(new double[] {0, 2.5, 5, 10}, histogram.getBounds(), DELTA);
+    assertEquals(histogram, ColumnHistogram.parse(histogram.toString()));
+
+    assertNull(ColumnHistogram.parse(null));
+    assertNull(ColumnHistogram.parse(""));
+    assertNull(ColumnHistogram.parse("1"));
+    assertNull(ColumnHistogram.parse("1,a"));
+    assertNull(ColumnHistogram.parse("2,1"));
+    assertNull(ColumnHistogram.parse("1,Infinity"));
+    assertNull(ColumnHistogram.parse("NaN,1"));
+  }
+
+  @Test
+  public void testTblProperties() {
+    assertEquals("impala.columnHistogram.int_col",
+        ColumnHistogram.getTblPropKey("Int_Col"));
+    ColumnHistogram histogram = ColumnHistogram.fromTblProperties(
+        ImmutableMap.of("impala.columnHistogram.int_col", "1,2"), "INT_COL");
+    assertEquals(ColumnHistogram.parse("1,2"), histogram);
+    assertNull(ColumnHistogram.fromTblProperties(
+        ImmutableMap.of("impala.columnHistogram.int_col", "1,2"), "bigint_col"));
+    assertNull(ColumnHistogram.fromTblProperties(null, "int_col"));
+  }
+
+  @Test
+  public void testComputeSql() {
+    String sql = ColumnHistogram.getComputeSql("int_col", Type.INT);
+    assertTrue(sql, sql.startsWith("DS_KLL_QUANTILES_AS_STRING(DS_KLL_SKETCH("
+        + "CAST(int_col AS FLOAT)), 0.0, 0.03125, "));
+    assertTrue(sql, sql.endsWith(", 1.0)"));
+    sql = ColumnHistogram.getComputeSql("date_col", Type.DATE);
+    assertTrue(sql, sql.contains("DATEDIFF(date_col, DATE '1970-01-01')"));
+    assertTrue(ColumnHistogram.isSupportedType(ScalarType.createDecimalType(10, 2)));
+    assertFalse(ColumnHistogram.isSupportedType(Type.STRING));
+  }
+
+  @Test
+  public void testUniformFractions() {
+    ColumnHistogram histogram = ColumnHistogram.parse("0,25,50,75,100");
+    assertEquals(0.0, histogram.getFractionLessThan(-1, true), DELTA);
+    assertEquals(0.0, histogram.getFractionLessThan(0, false), DELTA);
+    assertEquals(0.1, histogram.getFractionLessThan(10, false), DELTA);
+    assertEquals(0.5, histogram.getFractionLessThan(50, false), DELTA);
+    assertEquals(0.5, histogram.getFractionLessThan(50, true), DELTA);
+    assertEquals(1.0, histogram.getFractionLessThan(100, true), DELTA);
+    assertEquals(1.0, histogram.getFractionLessThan(101, false), DELTA);
+    assertEquals(0.0, histogram.getFractionEqual(50), DELTA);
+    assertEquals(0.5, histogram.getFractionInRange(25, true, 75, true), DELTA);
+    assertEquals(0.0, histogram.getFractionInRange(75, true, 25, true), DELTA);
+  }
+
+  @Test
+  public void testSkewedFractions() {
+    // Half of the values are 5.
+    ColumnHistogram histogram = ColumnHistogram.parse("0,5,5,5,10");
+    assertEquals(0.25, histogram.getFractionLessThan(5, false), DELTA);
+    assertEquals(0.75, histogram.getFractionLessThan(5, true), DELTA);
+    assertEquals(0.5, histogram.getFractionEqual(5), DELTA);
+    assertEquals(0.0, histogram.getFractionEqual(2), DELTA);
+    assertEquals(0.5, histogram.getFractionInRange(5, true, 5, true), DELTA);
+    assertEquals(0.0, histogram.getFractionInRange(5, false, 5, false), DELTA);
+
+    // All values are 7.
+    histogram = ColumnHistogram.parse("7,7");
+    assertEquals(0.0, histogram.getFractionLessThan(7, false), DELTA);
+    assertEquals(1.0, histogram.getFractionLessThan(7, true), DELTA);
+    assertEquals(1.0, histogram.getFractionEqual(7), DELTA);
+    assertEquals(0.0, histogram.getFractionEqual(8), DELTA);
+  }
+
+  @Test
+  public void testToSelectivity() {
+    ColumnStats stats = new ColumnStats(Type.INT);
+    stats.setNumDistinctValues(10);
+    stats.setNumNulls(20);
+    // The fraction is not lower than 1 / NDV and NULLs never match.
+    assertEquals(0.08, ColumnHistogram.toSelectivity(0.01, stats, 100), DELTA);
+    assertEquals(0.4, ColumnHistogram.toSelectivity(0.5, stats, 100), DELTA);
+    assertEquals(0.8, ColumnHistogram.toSelectivity(1.0, stats, 100), DELTA);
+    // Without row count the NULLs are ignored.
+    assertEquals(0.5, ColumnHistogram.toSelectivity(0.5, stats, -1), DELTA);
+  }
+}
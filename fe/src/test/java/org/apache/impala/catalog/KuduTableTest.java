@@ -0,0 +1,63 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.apache.impala.testutil.CatalogServiceTestCatalog;
+import org.apache.impala.util.NoOpEventSequence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for sharing the handle of a Kudu table between queries.
+ */
+public class KuduTableTest {
+  private CatalogServiceCatalog catalog_;
+
+  @Before
+  public void init() {
+    catalog_ = CatalogServiceTestCatalog.create();
+  }
+
+  @After
+  public void cleanUp() { catalog_.close(); }
+
+  @Test
+  public void testRpcTableHandle() throws Exception {
+    KuduTable table = (KuduTable) catalog_.getOrLoadTable(
+        "functional_kudu", "alltypes", "test", null);
+
+    // Without a TTL every call opens the table.
+    assertNotSame(table.getOrOpenRpcTable(0, 0), table.getOrOpenRpcTable(0, 0));
+
+    // With a TTL the handle, including its schema, is shared until it expires.
+    org.apache.kudu.client.KuduTable handle = table.getOrOpenRpcTable(0, 1000);
+    assertSame(handle, table.getOrOpenRpcTable(999, 1000));
+    org.apache.kudu.client.KuduTable newHandle = table.getOrOpenRpcTable(1000, 1000);
+    assertNotSame(handle, newHandle);
+    assertSame(newHandle, table.getOrOpenRpcTable(1500, 1000));
+
+    // Reloading the table opens a new handle.
+    catalog_.reloadTable(table, "test", NoOpEventSequence.INSTANCE);
+    table = (KuduTable) catalog_.getTable("functional_kudu", "alltypes");
+    assertNotSame(newHandle, table.getOrOpenRpcTable(1500, 1000));
+  }
+}
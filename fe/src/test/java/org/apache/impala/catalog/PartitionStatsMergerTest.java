@@ -0,0 +1,190 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.impala.thrift.TColumnValue;
+import org.apache.impala.thrift.TIntermediateColumnStats;
+import org.apache.impala.thrift.TPartitionStats;
+import org.apache.impala.thrift.TTableStats;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+/**
+ * Tests for merging the incremental statistics of partitions and for remembering the
+ * merged statistics across COMPUTE INCREMENTAL STATS runs.
+ */
+public class PartitionStatsMergerTest {
+  private static TPartitionStats createStats(long numRows, byte[] ndv, long numNulls,
+      int maxWidth, double avgWidth, long low, long high) {
+    TPartitionStats stats = new TPartitionStats(new TTableStats(numRows));
+    TIntermediateColumnStats colStats = new TIntermediateColumnStats();
+    byte[] encoded = PartitionStatsMerger.encodeNdv(ndv);
+    colStats.setIntermediate_ndv(encoded != null ? encoded : ndv);
+    colStats.setIs_ndv_encoded(encoded != null);
+    colStats.setNum_nulls(numNulls);
+    colStats.setMax_width(maxWidth);
+    colStats.setAvg_width(avgWidth);
+    colStats.setNum_rows(numRows);
+    colStats.setNum_trues(0);
+    colStats.setNum_falses(0);
+    colStats.setLow_value(new TColumnValue().setLong_val(low));
+    colStats.setHigh_value(new TColumnValue().setLong_val(high));
+    stats.putToIntermediate_col_stats("c", colStats);
+    stats.putToIntermediate_col_stats("dropped", colStats.deepCopy());
+    return stats;
+  }
+
+  private static byte[] randomNdv(Random rand) {
+    byte[] ndv = new byte[PartitionStatsMerger.HLL_LEN];
+    for (int i = 0; i < ndv.length; ++i) {
+      // Mostly empty registers, like the HLL state of a small partition.
+      if (rand.nextInt(8) == 0) ndv[i] = (byte) rand.nextInt(20);
+    }
+    return ndv;
+  }
+
+  private static byte[] getNdv(TIntermediateColumnStats stats) {
+    return PartitionStatsMerger.decodeNdv(
+        stats.getIntermediate_ndv(), stats.isIs_ndv_encoded());
+  }
+
+  @Test
+  public void testNdvEncoding() {
+    byte[] zeros = new byte[PartitionStatsMerger.HLL_LEN];
+    byte[] encoded = PartitionStatsMerger.encodeNdv(zeros);
+    assertNotNull(encoded);
+    // Runs are at most 256 long.
+    assertEquals(8, encoded.length);
+    assertArrayEquals(zeros, PartitionStatsMerger.decodeNdv(encoded, true));
+
+    byte[] ndv = randomNdv(new Random(1));
+    encoded = PartitionStatsMerger.encodeNdv(ndv);
+    assertNotNull(encoded);
+    assertArrayEquals(ndv, PartitionStatsMerger.decodeNdv(encoded, true));
+
+    // Registers that change every byte do not compress.
+    byte[] alternating = new byte[PartitionStatsMerger.HLL_LEN];
+    for (int i = 0; i < alternating.length; ++i) alternating[i] = (byte) (i % 2);
+    assertNull(PartitionStatsMerger.encodeNdv(alternating));
+    assertArrayEquals(alternating,
+        PartitionStatsMerger.decodeNdv(alternating, false));
+  }
+
+  @Test
+  public void testMerge() {
+    Random rand = new Random(2);
+    List<TPartitionStats> parts = Lists.newArrayList(
+        createStats(10, randomNdv(rand), 1, 5, 2.0, 3, 30),
+        createStats(30, randomNdv(rand), 2, 8, 4.0, -7, 12),
+        createStats(0, new byte[PartitionStatsMerger.HLL_LEN], 0, 0, 0, 0, 0));
+
+    PartitionStatsMerger merger = new PartitionStatsMerger(Arrays.asList("c"));
+    for (TPartitionStats p: parts) merger.add(p);
+    assertEquals(3, merger.getNumMerged());
+    TPartitionStats merged = merger.toThrift();
+    assertEquals(40, merged.getStats().getNum_rows());
+    assertEquals(ImmutableSet.of("c"), merged.getIntermediate_col_stats().keySet());
+
+    TIntermediateColumnStats colStats = merged.getIntermediate_col_stats().get("c");
+    byte[] expectedNdv = new byte[PartitionStatsMerger.HLL_LEN];
+    for (TPartitionStats p: parts) {
+      byte[] ndv = getNdv(p.getIntermediate_col_stats().get("c"));
+      for (int i = 0; i < ndv.length; ++i) {
+        expectedNdv[i] = (byte) Math.max(expectedNdv[i], ndv[i]);
+      }
+    }
+    assertArrayEquals(expectedNdv, getNdv(colStats));
+    assertEquals(3, colStats.getNum_nulls());
+    assertEquals(8, colStats.getMax_width());
+    assertEquals((10 * 2.0 + 30 * 4.0) / 40, colStats.getAvg_width(), 0.0001);
+    assertEquals(40, colStats.getNum_rows());
+    assertEquals(-7, colStats.getLow_value().getLong_val());
+    assertEquals(30, colStats.getHigh_value().getLong_val());
+
+    // Merging merged stats with more partitions gives the same result as merging all
+    // partitions at once.
+    TPartitionStats extra = createStats(5, randomNdv(rand), -1, 20, 10.0, -9, 100);
+    PartitionStatsMerger incremental = new PartitionStatsMerger(Arrays.asList("c"));
+    incremental.add(merged);
+    incremental.add(extra);
+    PartitionStatsMerger full = new PartitionStatsMerger(Arrays.asList("c"));
+    for (TPartitionStats p: parts) full.add(p);
+    full.add(extra);
+    TIntermediateColumnStats incrementalStats =
+        incremental.toThrift().getIntermediate_col_stats().get("c");
+    TIntermediateColumnStats fullStats =
+        full.toThrift().getIntermediate_col_stats().get("c");
+    assertArrayEquals(getNdv(fullStats), getNdv(incrementalStats));
+    assertEquals(fullStats.getAvg_width(), incrementalStats.getAvg_width(), 0.0001);
+    assertEquals(fullStats.getNum_rows(), incrementalStats.getNum_rows());
+    assertEquals(fullStats.getLow_value(), incrementalStats.getLow_value());
+    assertEquals(fullStats.getHigh_value(), incrementalStats.getHigh_value());
+    // An unknown null count makes the merged null count unknown.
+    assertEquals(-1, fullStats.getNum_nulls());
+    assertEquals(-1, incrementalStats.getNum_nulls());
+
+    assertNull(new PartitionStatsMerger(null).toThrift());
+  }
+
+  @Test
+  public void testMergedPartitionStatsCache() {
+    MergedPartitionStatsCache cache = new MergedPartitionStatsCache();
+    List<String> cols = Arrays.asList("c");
+    TPartitionStats stats = createStats(1, new byte[PartitionStatsMerger.HLL_LEN],
+        0, 0, 0, 0, 0);
+    String key = MergedPartitionStatsCache.getKey("catalog", "db.tbl");
+    cache.put(key, new MergedPartitionStatsCache.Entry(
+        Arrays.asList(1L, 2L), cols, stats));
+
+    // All cached partitions are still valid.
+    assertNotNull(cache.get(key, cols, ImmutableSet.of(1L, 2L, 3L)));
+    // Different columns.
+    assertNull(cache.get(key, Arrays.asList("c", "d"), ImmutableSet.of(1L, 2L)));
+    // The entry was dropped by the previous lookup.
+    assertNull(cache.get(key, cols, ImmutableSet.of(1L, 2L)));
+
+    cache.put(key, new MergedPartitionStatsCache.Entry(
+        Arrays.asList(1L, 2L), cols, stats));
+    // Partition 2 was modified and has a new id.
+    assertNull(cache.get(key, cols, ImmutableSet.of(1L, 4L)));
+    assertNull(cache.get(key, cols, ImmutableSet.of(1L, 2L)));
+
+    // Entries are not affected by later changes of the stats they were created from.
+    cache.put(key, new MergedPartitionStatsCache.Entry(
+        Arrays.asList(1L), cols, stats));
+    stats.getStats().setNum_rows(100);
+    MergedPartitionStatsCache.Entry entry = cache.get(key, cols, ImmutableSet.of(1L));
+    assertEquals(1, entry.getMergedStats().getStats().getNum_rows());
+    assertTrue(entry.getPartitionIds().contains(1L));
+    assertFalse(entry.getPartitionIds().contains(2L));
+  }
+}
@@ -0,0 +1,242 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.impala.testutil.CatalogServiceTestCatalog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for scheduling automatic stats refreshes of changed tables.
+ */
+public class StatsRefreshSchedulerTest {
+  private CatalogServiceCatalog catalog_;
+
+  @Before
+  public void init() {
+    catalog_ = CatalogServiceTestCatalog.create();
+  }
+
+  @After
+  public void cleanUp() { catalog_.close(); }
+
+  /**
+   * Sets whether the partitions of 'table' have incremental stats, as if they were
+   * computed by COMPUTE INCREMENTAL STATS or COMPUTE STATS.
+   */
+  private static void setIncrementalStats(HdfsTable table, boolean incremental)
+      throws CatalogException {
+    for (PrunablePartition partition : new ArrayList<>(table.getPartitions())) {
+      HdfsPartition.Builder builder =
+          new HdfsPartition.Builder((HdfsPartition) partition);
+      if (incremental) {
+        builder.setPartitionStatsBytes(new byte[0], true);
+      } else {
+        builder.dropPartitionStats();
+      }
+      table.updatePartition(builder);
+    }
+  }
+
+  @Test
+  public void testChangeRatio() {
+    assertEquals(0.0, StatsRefreshScheduler.getChangeRatio(100, 0, 1000, 0), 0.0);
+    assertEquals(0.5, StatsRefreshScheduler.getChangeRatio(100, 50, 1000, 0), 0.0);
+    assertEquals(0.2, StatsRefreshScheduler.getChangeRatio(100, 0, 1000, 200), 0.0);
+    // The larger ratio wins.
+    assertEquals(2.0, StatsRefreshScheduler.getChangeRatio(100, 200, 1000, 500), 0.0);
+    // Unknown sizes are ignored.
+    assertEquals(0.0, StatsRefreshScheduler.getChangeRatio(100, 0, -1, 500), 0.0);
+    // Any change of an empty table counts.
+    assertEquals(Double.POSITIVE_INFINITY,
+        StatsRefreshScheduler.getChangeRatio(0, 1, -1, 0), 0.0);
+    assertEquals(Double.POSITIVE_INFINITY,
+        StatsRefreshScheduler.getChangeRatio(-1, 0, 0, 10), 0.0);
+  }
+
+  @Test
+  public void testSchedule() throws Exception {
+    HdfsTable table = (HdfsTable) catalog_.getOrLoadTable(
+        "functional", "alltypes", "test", null);
+    assertTrue(table.getNumRows() > 0);
+    setIncrementalStats(table, true);
+    StatsRefreshScheduler scheduler = new StatsRefreshScheduler(catalog_);
+
+    // Small changes don't trigger a refresh.
+    scheduler.recordChange(table, Collections.singletonList("year=2009/month=1"),
+        table.getNumRows() / 10, 0, 0.5, 0);
+    assertFalse(scheduler.isQueued("functional", "alltypes"));
+    assertNull(scheduler.getNextRefreshStmt(0, 1000));
+
+    scheduler.recordChange(table, Arrays.asList("year=2009/month=2", "year=2099/month=1"),
+        table.getNumRows() / 2, 0, 0.5, 0);
+    assertTrue(scheduler.isQueued("FUNCTIONAL", "AllTypes"));
+    String stmt = scheduler.getNextRefreshStmt(0, 1000);
+    assertNotNull(stmt);
+    // The partition that does not exist is skipped.
+    assertTrue(stmt, stmt.startsWith(
+        "COMPUTE INCREMENTAL STATS functional.alltypes PARTITION ("));
+    assertTrue(stmt, stmt.contains(") OR ("));
+    assertTrue(stmt, stmt.contains("=1)"));
+    assertTrue(stmt, stmt.contains("=2)"));
+    assertFalse(stmt, stmt.contains("2099"));
+    assertTrue(scheduler.getTableSummary("functional", "alltypes")
+        .contains("running: true"));
+
+    // Only one refresh runs at a time.
+    assertNull(scheduler.getNextRefreshStmt(1, 1000));
+    scheduler.onStatsUpdated("functional", "alltypes");
+    assertFalse(scheduler.isQueued("functional", "alltypes"));
+    assertTrue(scheduler.getTableSummary("functional", "alltypes")
+        .contains("running: false"));
+
+    // The next refresh waits for the minimum interval.
+    scheduler.recordChange(table, Collections.singletonList("year=2010/month=1"),
+        table.getNumRows(), 0, 0.5, 2);
+    assertTrue(scheduler.isQueued("functional", "alltypes"));
+    assertNull(scheduler.getNextRefreshStmt(500, 1000));
+    stmt = scheduler.getNextRefreshStmt(1000, 1000);
+    assertNotNull(stmt);
+    assertTrue(stmt, stmt.contains("2010"));
+
+    // A refresh that does not complete in time is given up.
+    assertNull(scheduler.getNextRefreshStmt(2000, 1000));
+    assertEquals(stmt, scheduler.getNextRefreshStmt(
+        1000 + StatsRefreshScheduler.REFRESH_TIMEOUT_MS, 1000));
+  }
+
+  @Test
+  public void testNonIncrementalStats() throws Exception {
+    HdfsTable table = (HdfsTable) catalog_.getOrLoadTable(
+        "functional", "alltypes", "test", null);
+    assertTrue(table.getNumRows() > 0);
+    setIncrementalStats(table, false);
+    StatsRefreshScheduler scheduler = new StatsRefreshScheduler(catalog_);
+
+    // The stats were computed by COMPUTE STATS, so the whole table is refreshed the same
+    // way rather than only the changed partitions.
+    scheduler.recordChange(table, Arrays.asList("year=2009/month=1", "year=2009/month=2"),
+        table.getNumRows(), 0, 0.5, 0);
+    String stmt = scheduler.getNextRefreshStmt(0, 1000);
+    assertEquals("COMPUTE STATS functional.alltypes", stmt);
+    scheduler.onRefreshFinished(stmt, null, 10);
+    assertFalse(scheduler.isQueued("functional", "alltypes"));
+
+    // The same holds if only some partitions have incremental stats.
+    HdfsPartition partition = (HdfsPartition) table.getPartitions().iterator().next();
+    table.updatePartition(
+        new HdfsPartition.Builder(partition).setPartitionStatsBytes(new byte[0], true));
+    List<String> refreshed = new ArrayList<>();
+    assertEquals("COMPUTE STATS functional.alltypes",
+        StatsRefreshScheduler.getComputeStatsStmt(table,
+            Collections.singletonList(partition.getPartitionName()), refreshed));
+    assertEquals(Collections.singletonList(partition.getPartitionName()), refreshed);
+
+    // Only if all partitions have incremental stats are the partitions refreshed on
+    // their own.
+    setIncrementalStats(table, true);
+    assertTrue(StatsRefreshScheduler.getComputeStatsStmt(table,
+        Collections.singletonList("year=2009/month=1"), new ArrayList<>())
+        .startsWith("COMPUTE INCREMENTAL STATS functional.alltypes PARTITION ("));
+  }
+
+  @Test
+  public void testReportedResults() throws Exception {
+    HdfsTable table = (HdfsTable) catalog_.getOrLoadTable(
+        "functional", "alltypes", "test", null);
+    assertTrue(table.getNumRows() > 0);
+    StatsRefreshScheduler scheduler = new StatsRefreshScheduler(catalog_);
+    scheduler.recordChange(table, Collections.singletonList("year=2009/month=1"),
+        table.getNumRows(), 0, 0.5, 0);
+    String stmt = scheduler.getNextRefreshStmt(0, 1000);
+    assertNotNull(stmt);
+
+    // A failed refresh stops running right away and is retried after the minimum
+    // interval.
+    scheduler.onRefreshFinished(stmt, "Query failed", 10);
+    String summary = scheduler.getTableSummary("functional", "alltypes");
+    assertTrue(summary, summary.contains("running: false"));
+    assertTrue(summary, summary.contains("last error: failed: Query failed"));
+    assertTrue(scheduler.isQueued("functional", "alltypes"));
+    assertNull(scheduler.getNextRefreshStmt(500, 1000));
+    assertEquals(stmt, scheduler.getNextRefreshStmt(1000, 1000));
+
+    // Reports of other refreshes are ignored.
+    scheduler.onRefreshFinished("COMPUTE STATS functional.alltypes", "Query failed",
+        1010);
+    assertTrue(scheduler.getTableSummary("functional", "alltypes")
+        .contains("running: true"));
+
+    // A successful refresh completes even if the stats update was not seen.
+    scheduler.onRefreshFinished(stmt, null, 1020);
+    summary = scheduler.getTableSummary("functional", "alltypes");
+    assertTrue(summary, summary.contains("running: false"));
+    assertFalse(scheduler.isQueued("functional", "alltypes"));
+  }
+
+  @Test
+  public void testRepeatedFailures() throws Exception {
+    HdfsTable table = (HdfsTable) catalog_.getOrLoadTable(
+        "functional", "alltypes", "test", null);
+    assertTrue(table.getNumRows() > 0);
+    StatsRefreshScheduler scheduler = new StatsRefreshScheduler(catalog_);
+    scheduler.recordChange(table, Collections.singletonList("year=2009/month=1"),
+        table.getNumRows(), 0, 0.5, 0);
+    long nowMs = 0;
+    for (int i = 0; i < StatsRefreshScheduler.MAX_CONSECUTIVE_FAILURES; ++i) {
+      assertTrue(scheduler.isQueued("functional", "alltypes"));
+      String stmt = scheduler.getNextRefreshStmt(nowMs, 1000);
+      assertNotNull(stmt);
+      if (i == 0) {
+        // A timeout counts as a failure, too.
+        nowMs += StatsRefreshScheduler.REFRESH_TIMEOUT_MS;
+        assertNull(scheduler.getNextRefreshStmt(nowMs, nowMs + 1));
+      } else {
+        scheduler.onRefreshFinished(stmt, "Query failed", nowMs);
+      }
+      nowMs += 1000;
+    }
+    // The table is given up after too many failures in a row.
+    assertFalse(scheduler.isQueued("functional", "alltypes"));
+    assertNull(scheduler.getNextRefreshStmt(nowMs, 1000));
+  }
+
+  @Test
+  public void testTablesWithoutStatsAreIgnored() throws Exception {
+    HdfsTable table = (HdfsTable) catalog_.getOrLoadTable(
+        "functional", "alltypesnopart", "test", null);
+    StatsRefreshScheduler scheduler = new StatsRefreshScheduler(catalog_);
+    if (table.getNumRows() >= 0) return;
+    scheduler.recordChange(table, Collections.emptyList(), 1000, 1000, 0.1, 0);
+    assertFalse(scheduler.isQueued("functional", "alltypesnopart"));
+    assertEquals("", scheduler.getTableSummary("functional", "alltypesnopart"));
+  }
+}
@@ -76,6 +76,7 @@ import org.apache.impala.catalog.Db;
 import org.apache.impala.catalog.FeCatalogUtils;
 import org.apache.impala.catalog.FeFsPartition;
 import org.apache.impala.catalog.HdfsPartition;
+import org.apache.impala.catalog.HdfsPartition.FileDescriptor;
 import org.apache.impala.catalog.HdfsTable;
 import org.apache.impala.catalog.IncompleteTable;
 import org.apache.impala.catalog.MetaStoreClientPool;
@@ -149,6 +150,7 @@ import org.apache.impala.thrift.TEventProcessorMetrics;
 import org.apache.impala.thrift.TEventProcessorMetricsSummaryResponse;
 import org.apache.impala.thrift.TFunctionBinaryType;
 import org.apache.impala.thrift.THdfsFileFormat;
+import org.apache.impala.thrift.TInsertedFile;
 import org.apache.impala.thrift.TOwnerType;
 import org.apache.impala.thrift.TPartitionDef;
 import org.apache.impala.thrift.TPartitionKeyValue;
@@ -871,6 +873,131 @@ public class MetastoreEventsProcessorTest {
         true);
   }
 
+  /**
+   * Tests that a non-overwrite INSERT into an existing partition adds the inserted files
+   * to the file metadata of the partition without listing its directory, and that the
+   * partition is reloaded when an inserted file does not match the written file.
+   */
+  @Test
+  public void testInsertAppendsFilesToPartition() throws Exception {
+    Assume.assumeTrue(BackendConfig.INSTANCE.isIncrementalInsertFileMetadataEnabled());
+    createDatabaseFromImpala(TEST_DB_NAME, null);
+    String partTbl = "tbl_append_part";
+    String srcTbl = "tbl_append_part_src";
+    createInsertTestTbls(partTbl, srcTbl);
+    String partName = "year=2009/month=1";
+    HdfsTable allTypes = (HdfsTable) catalog_
+        .getOrLoadTable("functional", "alltypes", "test", null);
+    HdfsTable tbl = (HdfsTable) catalog_
+        .getOrLoadTable(TEST_DB_NAME, partTbl, "test", null);
+    Path srcDir = new Path(allTypes.getHdfsBaseDir() + "/" + partName);
+    Path partDir = new Path(tbl.getHdfsBaseDir() + "/" + partName);
+    FileSystem fs = tbl.getFileSystem();
+    int numFilesBefore = getFileNames(partTbl, partName).size();
+
+    List<String> inserted = copyFiles(allTypes.getFileSystem(), srcDir, fs, partDir,
+        false, "insert_");
+    // Files written by other engines are only picked up when the partition is listed.
+    List<String> other = copyFiles(allTypes.getFileSystem(), srcDir, fs, partDir,
+        false, "other_");
+    Map<String, TUpdatedPartition> updatedPartitions = new HashMap<>();
+    updatedPartitions.put(partName, createUpdatedPartition(fs, inserted));
+    insertMulPartFromImpala(partTbl, srcTbl, updatedPartitions, false);
+    List<String> fileNames = getFileNames(partTbl, partName);
+    assertEquals(numFilesBefore + inserted.size(), fileNames.size());
+    for (String file : inserted) assertTrue(fileNames.contains(getFileName(file)));
+    for (String file : other) assertFalse(fileNames.contains(getFileName(file)));
+
+    // The size of an inserted file does not match, so the partition is reloaded.
+    List<String> reloaded = copyFiles(allTypes.getFileSystem(), srcDir, fs, partDir,
+        false, "reload_");
+    TUpdatedPartition updatedPartition = createUpdatedPartition(fs, reloaded);
+    TInsertedFile insertedFile = updatedPartition.getInserted_files().get(0);
+    insertedFile.setSize(insertedFile.getSize() + 1);
+    updatedPartitions.put(partName, updatedPartition);
+    insertMulPartFromImpala(partTbl, srcTbl, updatedPartitions, false);
+    fileNames = getFileNames(partTbl, partName);
+    assertEquals(numFilesBefore + inserted.size() + other.size() + reloaded.size(),
+        fileNames.size());
+    for (String file : other) assertTrue(fileNames.contains(getFileName(file)));
+  }
+
+  /**
+   * Same as above for an unpartitioned table. A file that is already known to the table
+   * also makes the table reload its file metadata.
+   */
+  @Test
+  public void testInsertAppendsFilesToUnpartitionedTable() throws Exception {
+    Assume.assumeTrue(BackendConfig.INSTANCE.isIncrementalInsertFileMetadataEnabled());
+    createDatabaseFromImpala(TEST_DB_NAME, null);
+    String unpartTbl = "tbl_append_unpart";
+    createTableLike("functional", "tinytable", TEST_DB_NAME, unpartTbl);
+    HdfsTable tinyTable = (HdfsTable) catalog_
+        .getOrLoadTable("functional", "tinytable", "test", null);
+    HdfsTable tbl = (HdfsTable) catalog_
+        .getOrLoadTable(TEST_DB_NAME, unpartTbl, "test", null);
+    Path srcDir = new Path(tinyTable.getHdfsBaseDir());
+    Path tblDir = new Path(tbl.getHdfsBaseDir());
+    FileSystem fs = tbl.getFileSystem();
+
+    List<String> inserted = copyFiles(tinyTable.getFileSystem(), srcDir, fs, tblDir,
+        false, "insert_");
+    List<String> other = copyFiles(tinyTable.getFileSystem(), srcDir, fs, tblDir,
+        false, "other_");
+    insertIntoUnpartitionedTable(unpartTbl, createUpdatedPartition(fs, inserted));
+    List<String> fileNames = getFileNames(unpartTbl, "");
+    assertEquals(inserted.size(), fileNames.size());
+    for (String file : inserted) assertTrue(fileNames.contains(getFileName(file)));
+
+    // Reporting an already known file again falls back to a reload.
+    insertIntoUnpartitionedTable(unpartTbl, createUpdatedPartition(fs, inserted));
+    fileNames = getFileNames(unpartTbl, "");
+    assertEquals(inserted.size() + other.size(), fileNames.size());
+    for (String file : other) assertTrue(fileNames.contains(getFileName(file)));
+  }
+
+  private void insertIntoUnpartitionedTable(String tblName,
+      TUpdatedPartition updatedPartition) throws ImpalaException {
+    Map<String, TUpdatedPartition> updatedPartitions = new HashMap<>();
+    updatedPartitions.put("", updatedPartition);
+    catalogOpExecutor_.updateCatalog(createTestTUpdateCatalogRequest(TEST_DB_NAME,
+        tblName, String.format("insert into table %s values (1)", tblName),
+        updatedPartitions, false, -1, -1));
+  }
+
+  /**
+   * Returns the TUpdatedPartition an INSERT that wrote 'files' sends to catalogd.
+   */
+  private static TUpdatedPartition createUpdatedPartition(FileSystem fs,
+      List<String> files) throws IOException {
+    TUpdatedPartition updatedPartition = new TUpdatedPartition();
+    updatedPartition.setFiles(files);
+    for (String file : files) {
+      updatedPartition.addToInserted_files(new TInsertedFile(file)
+          .setSize(fs.getFileStatus(new Path(file)).getLen()));
+    }
+    return updatedPartition;
+  }
+
+  /**
+   * Returns the names of the files of partition 'partName' of the table 'tblName' in
+   * the catalog.
+   */
+  private List<String> getFileNames(String tblName, String partName) {
+    HdfsTable tbl = (HdfsTable) catalog_.getTable(TEST_DB_NAME, tblName);
+    HdfsPartition partition = Iterables.getOnlyElement(
+        tbl.getPartitionsForNames(Collections.singletonList(partName)));
+    List<String> fileNames = new ArrayList<>();
+    for (FileDescriptor fd : partition.getFileDescriptors()) {
+      fileNames.add(getFileName(fd.getRelativePath()));
+    }
+    return fileNames;
+  }
+
+  private static String getFileName(String path) {
+    return new Path(path).getName();
+  }
+
   private void createInsertTestTbls(String tableToInsertPart, String tableToInsertMulPart)
       throws Exception {
     createTableLike("functional", "alltypes", TEST_DB_NAME, tableToInsertPart);
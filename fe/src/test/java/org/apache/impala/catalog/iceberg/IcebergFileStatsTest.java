@@ -0,0 +1,91 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.catalog.iceberg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.StructLike;
+import org.junit.Test;
+
+public class IcebergFileStatsTest {
+  private static final long SMALL_FILE_BYTES = 1000;
+
+  private static DataFile dataFile(StructLike partition, long size, long records) {
+    DataFile file = mock(DataFile.class);
+    when(file.partition()).thenReturn(partition);
+    when(file.fileSizeInBytes()).thenReturn(size);
+    when(file.recordCount()).thenReturn(records);
+    return file;
+  }
+
+  private static DeleteFile deleteFile(StructLike partition, long records) {
+    DeleteFile file = mock(DeleteFile.class);
+    when(file.partition()).thenReturn(partition);
+    when(file.recordCount()).thenReturn(records);
+    return file;
+  }
+
+  @Test
+  public void testSmallFiles() {
+    StructLike p1 = mock(StructLike.class);
+    StructLike p2 = mock(StructLike.class);
+    GroupedContentFiles files = new GroupedContentFiles();
+    files.dataFilesWithoutDeletes.add(dataFile(p1, 10, 1));
+    files.dataFilesWithoutDeletes.add(dataFile(p1, 20, 1));
+    files.dataFilesWithoutDeletes.add(dataFile(p1, 5000, 100));
+    // A single small file in a partition is not rewritten by compaction.
+    files.dataFilesWithoutDeletes.add(dataFile(p2, 10, 1));
+    IcebergFileStats stats = new IcebergFileStats(files, SMALL_FILE_BYTES);
+    assertEquals(4, stats.getNumDataFiles());
+    assertEquals(3, stats.getNumSmallDataFiles());
+    assertEquals(2, stats.getNumPartitions());
+    assertEquals(1, stats.getNumFragmentedPartitions());
+    assertEquals(1, stats.getNumPartitionsToCompact());
+    assertEquals(0.75, stats.getSmallFileRatio(), 1e-9);
+    assertEquals(0, stats.getDeleteRatio(), 1e-9);
+    assertNotNull(stats.getCompactionReason(0.5, 0.1));
+    assertNull(stats.getCompactionReason(0.8, 0.1));
+    assertNull(stats.getCompactionReason(0, 0));
+  }
+
+  @Test
+  public void testDeletes() {
+    StructLike p1 = mock(StructLike.class);
+    StructLike p2 = mock(StructLike.class);
+    GroupedContentFiles files = new GroupedContentFiles();
+    files.dataFilesWithoutDeletes.add(dataFile(p1, 5000, 1000));
+    files.dataFilesWithDeletes.add(dataFile(p2, 5000, 1000));
+    files.positionDeleteFiles.add(deleteFile(p2, 150));
+    files.equalityDeleteFiles.add(deleteFile(p2, 50));
+    IcebergFileStats stats = new IcebergFileStats(files, SMALL_FILE_BYTES);
+    assertEquals(2, stats.getNumDataFiles());
+    assertEquals(1, stats.getNumDataFilesWithDeletes());
+    assertEquals(1, stats.getNumPositionDeleteFiles());
+    assertEquals(1, stats.getNumEqualityDeleteFiles());
+    assertEquals(1, stats.getNumPartitionsToCompact());
+    assertEquals(0.1, stats.getDeleteRatio(), 1e-9);
+    assertNotNull(stats.getCompactionReason(0.5, 0.1));
+    assertNull(stats.getCompactionReason(0.5, 0.2));
+  }
+}
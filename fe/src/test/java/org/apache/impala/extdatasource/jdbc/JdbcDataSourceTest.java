@@ -199,6 +199,58 @@ public class JdbcDataSourceTest {
     Assert.assertEquals(TErrorCode.OK, resp.getStatus().status_code);
   }
 
+  @Test
+  public void test06Splits() {
+    // Split on the Impala column 'id', which is mapped to 'strategy_id'. The bounds are
+    // queried from the database.
+    String initString = initString_.substring(0, initString_.length() - 1)
+        + ", \"partition.column\":\"id\", \"num.partitions\":\"2\"}";
+    TPrepareParams prepareParams = new TPrepareParams();
+    prepareParams.setTable_name("test_strategy");
+    prepareParams.setInit_string(initString);
+    prepareParams.setPredicates(Lists.newArrayList());
+    TPrepareResult prepareResult = new JdbcDataSource().prepare(prepareParams);
+    Assert.assertEquals(TErrorCode.OK, prepareResult.getStatus().status_code);
+    Assert.assertEquals(Lists.newArrayList(
+        "(\"strategy_id\" < 3 OR \"strategy_id\" IS NULL)",
+        "\"strategy_id\" >= 3"), prepareResult.getSplits());
+    // The bounds are cached for the next query.
+    long numCachedRanges = JdbcDataSource.getNumCachedColumnRanges();
+    Assert.assertTrue(numCachedRanges > 0);
+    Assert.assertEquals(prepareResult.getSplits(),
+        new JdbcDataSource().prepare(prepareParams).getSplits());
+    Assert.assertEquals(numCachedRanges, JdbcDataSource.getNumCachedColumnRanges());
+
+    // Together the splits return all rows.
+    long totalNumRows = 0;
+    for (String split: prepareResult.getSplits()) {
+      JdbcDataSource dataSource = new JdbcDataSource();
+      TOpenParams openParams = new TOpenParams();
+      openParams.setQuery_id(new TUniqueId(1, 2));
+      openParams.setTable_name("test_strategy");
+      openParams.setInit_string(initString);
+      openParams.setRow_schema(initSchema());
+      openParams.setBatch_size(5);
+      openParams.setPredicates(Lists.newArrayList());
+      openParams.setSplit(split);
+      TOpenResult openResult = dataSource.open(openParams);
+      Assert.assertEquals(TErrorCode.OK, openResult.getStatus().status_code);
+      TGetNextParams getNextParams = new TGetNextParams();
+      getNextParams.setScan_handle(openResult.getScan_handle());
+      TGetNextResult getNextResult;
+      do {
+        getNextResult = dataSource.getNext(getNextParams);
+        Assert.assertEquals(TErrorCode.OK, getNextResult.getStatus().status_code);
+        totalNumRows += getNextResult.getRows().getNum_rows();
+      } while (!getNextResult.isEos());
+      TCloseParams closeParams = new TCloseParams();
+      closeParams.setScan_handle(openResult.getScan_handle());
+      Assert.assertEquals(TErrorCode.OK,
+          dataSource.close(closeParams).getStatus().status_code);
+    }
+    Assert.assertEquals(5, totalNumRows);
+  }
+
   private static TTableSchema initSchema() {
     // strategy_id int, name string, referrer string, landing string, priority  int,
     // implementation string, last_modified timestamp
@@ -0,0 +1,84 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.extdatasource.jdbc.dao;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.impala.extdatasource.thrift.TColumnDesc;
+import org.apache.impala.thrift.TColumnData;
+import org.apache.impala.thrift.TColumnType;
+import org.apache.impala.thrift.TPrimitiveType;
+import org.apache.impala.thrift.TScalarType;
+import org.apache.impala.thrift.TTypeNode;
+import org.apache.impala.thrift.TTypeNodeType;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for decoding JDBC result sets in JdbcRecordIterator.
+ */
+public class JdbcRecordIteratorTest {
+
+  private static TColumnDesc createColumnDesc(String name, TPrimitiveType type) {
+    TTypeNode typeNode = new TTypeNode(TTypeNodeType.SCALAR);
+    typeNode.setScalar_type(new TScalarType(type));
+    TColumnType colType = new TColumnType();
+    colType.addToTypes(typeNode);
+    return new TColumnDesc().setName(name).setType(colType);
+  }
+
+  @Test
+  public void testDecodeNulls() throws Exception {
+    ResultSet rs = mock(ResultSet.class);
+    ResultSetMetaData metadata = mock(ResultSetMetaData.class);
+    when(rs.getMetaData()).thenReturn(metadata);
+    when(metadata.getColumnCount()).thenReturn(2);
+    // Two rows: (1, "a") and (NULL, NULL).
+    when(rs.getInt(1)).thenReturn(1, 0);
+    when(rs.getString(2)).thenReturn("a", (String) null);
+    when(rs.wasNull()).thenReturn(false, true);
+
+    JdbcRecordIterator iterator = new JdbcRecordIterator(mock(Connection.class),
+        mock(PreparedStatement.class), rs, new Configuration());
+    List<TColumnDesc> colDescs = Arrays.asList(
+        createColumnDesc("id", TPrimitiveType.INT),
+        createColumnDesc("name", TPrimitiveType.STRING));
+    List<TColumnData> colDatas = JdbcRecordIterator.createColumnData(colDescs, 2);
+    iterator.next(colDescs, colDatas);
+    iterator.next(colDescs, colDatas);
+
+    Assert.assertEquals(Arrays.asList(false, true), colDatas.get(0).getIs_null());
+    Assert.assertEquals(Arrays.asList(1), colDatas.get(0).getInt_vals());
+    Assert.assertEquals(Arrays.asList(false, true), colDatas.get(1).getIs_null());
+    Assert.assertEquals(Arrays.asList("a"), colDatas.get(1).getString_vals());
+    // Values are read with the typed getters only.
+    verify(rs, never()).getObject(1);
+    verify(rs, never()).getObject(2);
+  }
+}
@@ -0,0 +1,108 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.extdatasource.jdbc.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.impala.catalog.Type;
+import org.apache.impala.extdatasource.jdbc.dao.GenericJdbcDatabaseAccessor;
+import org.apache.impala.extdatasource.jdbc.dao.MsSqlDatabaseAccessor;
+import org.apache.impala.extdatasource.jdbc.dao.MySqlDatabaseAccessor;
+import org.apache.impala.extdatasource.jdbc.dao.PostgresDatabaseAccessor;
+import org.apache.impala.extdatasource.thrift.TBinaryPredicate;
+import org.apache.impala.extdatasource.thrift.TColumnDesc;
+import org.apache.impala.extdatasource.thrift.TComparisonOp;
+import org.apache.impala.thrift.TColumnValue;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+public class QueryConditionUtilTest {
+  private final GenericJdbcDatabaseAccessor accessor_ = new GenericJdbcDatabaseAccessor();
+
+  private static TBinaryPredicate intPredicate(String col, TComparisonOp op, int val) {
+    return new TBinaryPredicate()
+        .setCol(new TColumnDesc().setName(col).setType(Type.INT.toThrift()))
+        .setOp(op)
+        .setValue(new TColumnValue().setInt_val(val));
+  }
+
+  private static TBinaryPredicate stringPredicate(String col, TComparisonOp op,
+      String val) {
+    return new TBinaryPredicate()
+        .setCol(new TColumnDesc().setName(col).setType(Type.STRING.toThrift()))
+        .setOp(op)
+        .setValue(new TColumnValue().setString_val(val));
+  }
+
+  private String buildCondition(List<List<TBinaryPredicate>> predicates,
+      Map<String, String> columnMapping) {
+    return QueryConditionUtil.buildCondition(predicates, columnMapping, accessor_);
+  }
+
+  @Test
+  public void testBinaryPredicates() {
+    List<List<TBinaryPredicate>> predicates = Lists.newArrayList();
+    predicates.add(Lists.newArrayList(intPredicate("id", TComparisonOp.LT, 10)));
+    predicates.add(Lists.newArrayList(intPredicate("id", TComparisonOp.GT, 1),
+        intPredicate("x", TComparisonOp.EQ, 5)));
+    assertEquals("(id < 10) AND (id > 1 OR x = 5)",
+        buildCondition(predicates, Collections.emptyMap()));
+  }
+
+  @Test
+  public void testInList() {
+    // Equality predicates on the same column are turned into an IN list.
+    List<List<TBinaryPredicate>> predicates = Lists.newArrayList();
+    predicates.add(Lists.newArrayList(intPredicate("id", TComparisonOp.EQ, 1),
+        intPredicate("id", TComparisonOp.EQ, 2),
+        intPredicate("id", TComparisonOp.EQ, 3)));
+    assertEquals("ID IN (1, 2, 3)",
+        buildCondition(predicates, ImmutableMap.of("id", "ID")));
+
+    // Equality predicates on different columns are not.
+    predicates.clear();
+    predicates.add(Lists.newArrayList(intPredicate("id", TComparisonOp.EQ, 1),
+        intPredicate("x", TComparisonOp.EQ, 2)));
+    assertEquals("(id = 1 OR x = 2)", buildCondition(predicates, Collections.emptyMap()));
+  }
+
+  @Test
+  public void testLike() {
+    List<List<TBinaryPredicate>> predicates = Lists.newArrayList();
+    predicates.add(Lists.newArrayList(
+        stringPredicate("name", TComparisonOp.LIKE, "ab%_c")));
+    assertEquals("(name LIKE 'ab%_c')",
+        buildCondition(predicates, Collections.emptyMap()));
+
+    // LIKE is not offered to databases whose patterns or default collations differ
+    // from Impala's.
+    assertTrue(accessor_.supportsComparisonOp(TComparisonOp.LIKE));
+    assertTrue(new PostgresDatabaseAccessor().supportsComparisonOp(TComparisonOp.LIKE));
+    assertFalse(new MySqlDatabaseAccessor().supportsComparisonOp(TComparisonOp.LIKE));
+    assertFalse(new MsSqlDatabaseAccessor().supportsComparisonOp(TComparisonOp.LIKE));
+    assertTrue(new MySqlDatabaseAccessor().supportsComparisonOp(TComparisonOp.EQ));
+  }
+}
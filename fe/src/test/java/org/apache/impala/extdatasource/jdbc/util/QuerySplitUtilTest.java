@@ -0,0 +1,85 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.extdatasource.jdbc.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.impala.extdatasource.jdbc.dao.DatabaseAccessor.ColumnRange;
+import org.apache.impala.extdatasource.jdbc.dao.GenericJdbcDatabaseAccessor;
+import org.junit.Test;
+
+public class QuerySplitUtilTest {
+  private final GenericJdbcDatabaseAccessor accessor_ = new GenericJdbcDatabaseAccessor();
+
+  @Test
+  public void testParseBounds() {
+    assertNull(QuerySplitUtil.parseBounds(null, "10"));
+    ColumnRange range = QuerySplitUtil.parseBounds("1", " 100 ");
+    assertEquals(1, range.min);
+    assertEquals(100, range.max);
+    assertTrue(!range.isDate);
+
+    range = QuerySplitUtil.parseBounds("2024-01-01", "2024-01-31");
+    assertEquals(LocalDate.of(2024, 1, 1).toEpochDay(), range.min);
+    assertEquals(LocalDate.of(2024, 1, 31).toEpochDay(), range.max);
+    assertTrue(range.isDate);
+
+    try {
+      QuerySplitUtil.parseBounds("a", "b");
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("Invalid partition bounds"));
+    }
+  }
+
+  @Test
+  public void testIntegerSplits() {
+    List<String> splits = QuerySplitUtil.buildSplitConditions("id",
+        new ColumnRange(0, 300, false), 3, accessor_);
+    assertEquals(Arrays.asList("(id < 100 OR id IS NULL)",
+        "(id >= 100 AND id < 200)", "id >= 200"), splits);
+  }
+
+  @Test
+  public void testDateSplits() {
+    long min = LocalDate.of(2024, 1, 1).toEpochDay();
+    List<String> splits = QuerySplitUtil.buildSplitConditions("d",
+        new ColumnRange(min, min + 10, true), 2, accessor_);
+    assertEquals(Arrays.asList("(d < '2024-01-06' OR d IS NULL)",
+        "d >= '2024-01-06'"), splits);
+  }
+
+  @Test
+  public void testNoSplits() {
+    assertTrue(QuerySplitUtil.buildSplitConditions("id", null, 4, accessor_).isEmpty());
+    assertTrue(QuerySplitUtil.buildSplitConditions("id",
+        new ColumnRange(0, 100, false), 1, accessor_).isEmpty());
+    assertTrue(QuerySplitUtil.buildSplitConditions("id",
+        new ColumnRange(5, 5, false), 4, accessor_).isEmpty());
+    // The number of splits is limited by the number of values in the range.
+    assertEquals(2, QuerySplitUtil.buildSplitConditions("id",
+        new ColumnRange(0, 2, false), 8, accessor_).size());
+  }
+}
@@ -0,0 +1,165 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.hive.executor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.hadoop.hive.ql.udf.UDFReverse;
+import org.apache.hadoop.hive.ql.udf.UDFSpace;
+import org.apache.impala.catalog.CatalogException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for UdfClassLoaderCache.
+ */
+public class UdfClassLoaderCacheTest {
+  private static final String HDFS_LOCATION = "hdfs://localhost/udfs/hive-exec.jar";
+  private static final File HIVE_EXEC_JAR = new File(System.getenv("HIVE_HOME") + "/" +
+      "lib/hive-exec-" + System.getenv("IMPALA_HIVE_VERSION") + ".jar");
+
+  // Holds the local copies of the jar, like the local library dir of the BE.
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private String localJarPath_;
+
+  @Before
+  public void setUp() throws IOException {
+    localJarPath_ = copyJar("hive-exec.0.jar").toURI().toString();
+  }
+
+  private File copyJar(String name) throws IOException {
+    File jar = new File(tempFolder.getRoot(), name);
+    Files.copy(HIVE_EXEC_JAR.toPath(), jar.toPath());
+    return jar;
+  }
+
+  private UdfClassLoaderCache.Handle acquire(UdfClassLoaderCache cache,
+      long lastModifiedTime, Class<?> udfClass) throws CatalogException {
+    return cache.acquire(HDFS_LOCATION, lastModifiedTime, localJarPath_,
+        udfClass.getName());
+  }
+
+  @Test
+  public void testSharedClass() throws CatalogException {
+    UdfClassLoaderCache cache = new UdfClassLoaderCache(10);
+    try (UdfClassLoaderCache.Handle h1 = acquire(cache, 1, UDFReverse.class);
+         UdfClassLoaderCache.Handle h2 = acquire(cache, 1, UDFReverse.class)) {
+      // Both users share the class loader.
+      Assert.assertSame(h1.getLoader(), h2.getLoader());
+      Assert.assertEquals(UDFReverse.class.getName(),
+          h1.getLoader().getUDFClass().getName());
+      Assert.assertEquals(1, cache.size());
+    }
+    // The class stays cached for later users.
+    Assert.assertEquals(1, cache.size());
+    try (UdfClassLoaderCache.Handle h = acquire(cache, 1, UDFSpace.class)) {
+      Assert.assertEquals(2, cache.size());
+    }
+  }
+
+  @Test
+  public void testJarChange() throws CatalogException {
+    UdfClassLoaderCache cache = new UdfClassLoaderCache(10);
+    try (UdfClassLoaderCache.Handle h1 = acquire(cache, 1, UDFReverse.class)) {
+      // A newer version of the jar replaces the cached one, but the running user
+      // keeps its class.
+      try (UdfClassLoaderCache.Handle h2 = acquire(cache, 2, UDFReverse.class)) {
+        Assert.assertNotSame(h1.getLoader(), h2.getLoader());
+        Assert.assertNotNull(h1.getLoader());
+        Assert.assertEquals(1, cache.size());
+      }
+    }
+    cache.invalidate(HDFS_LOCATION);
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testUnusedOldVersionIsClosed() throws CatalogException {
+    UdfClassLoaderCache cache = new UdfClassLoaderCache(10);
+    try (UdfClassLoaderCache.Handle h = acquire(cache, 1, UDFReverse.class)) {
+      // The caller's jar and the copy of the entry.
+      Assert.assertEquals(2, tempFolder.getRoot().list().length);
+    }
+    // Executors don't receive catalog updates and only see that the jar was replaced
+    // from the modification time of the query. The unused class loader of the old
+    // version is closed right away, together with its copy of the jar.
+    try (UdfClassLoaderCache.Handle h = acquire(cache, 2, UDFReverse.class)) {
+      Assert.assertEquals(1, cache.size());
+      Assert.assertEquals(2, tempFolder.getRoot().list().length);
+    }
+  }
+
+  @Test
+  public void testDisabledByDefault() throws CatalogException {
+    UdfClassLoaderCache cache = new UdfClassLoaderCache();
+    try (UdfClassLoaderCache.Handle h1 = acquire(cache, 1, UDFReverse.class);
+         UdfClassLoaderCache.Handle h2 = acquire(cache, 1, UDFReverse.class)) {
+      Assert.assertNotSame(h1.getLoader(), h2.getLoader());
+      Assert.assertEquals(0, cache.size());
+    }
+  }
+
+  @Test
+  public void testEviction() throws CatalogException {
+    UdfClassLoaderCache cache = new UdfClassLoaderCache(1);
+    try (UdfClassLoaderCache.Handle h1 = acquire(cache, 1, UDFReverse.class);
+         UdfClassLoaderCache.Handle h2 = acquire(cache, 1, UDFSpace.class)) {
+      // Classes in use are not evicted, even if the cache is over its limit.
+      Assert.assertEquals(2, cache.size());
+    }
+    try (UdfClassLoaderCache.Handle h = acquire(cache, 1, UDFSpace.class)) {
+      Assert.assertEquals(1, cache.size());
+    }
+    // Without caching every user gets its own class loader.
+    UdfClassLoaderCache uncached = new UdfClassLoaderCache(0);
+    try (UdfClassLoaderCache.Handle h1 = acquire(uncached, 1, UDFReverse.class);
+         UdfClassLoaderCache.Handle h2 = acquire(uncached, 1, UDFReverse.class)) {
+      Assert.assertNotSame(h1.getLoader(), h2.getLoader());
+      Assert.assertEquals(0, uncached.size());
+    }
+  }
+
+  @Test
+  public void testJarCopy() throws IOException, CatalogException {
+    UdfClassLoaderCache cache = new UdfClassLoaderCache(10);
+    File jar = new File(tempFolder.getRoot(), "hive-exec.1.jar");
+    try (UdfClassLoaderCache.Handle h1 = cache.acquire(HDFS_LOCATION, 1,
+        copyJar(jar.getName()).toURI().toString(), UDFReverse.class.getName())) {
+      // The entry loads the class from its own copy of the jar.
+      Assert.assertEquals(3, tempFolder.getRoot().list().length);
+      // The caller's copy is deleted, like LibCache does when the BE stops using it.
+      Assert.assertTrue(jar.delete());
+      try (UdfClassLoaderCache.Handle h2 = cache.acquire(HDFS_LOCATION, 1,
+          copyJar("hive-exec.2.jar").toURI().toString(),
+          UDFReverse.class.getName())) {
+        Assert.assertSame(h1.getLoader(), h2.getLoader());
+        Assert.assertEquals(3, tempFolder.getRoot().list().length);
+      }
+    }
+    // The copy of the entry is deleted with the class loader.
+    cache.invalidate(HDFS_LOCATION);
+    Assert.assertEquals(2, tempFolder.getRoot().list().length);
+  }
+}
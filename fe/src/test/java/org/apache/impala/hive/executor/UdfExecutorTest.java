@@ -17,6 +17,8 @@
 
 package org.apache.impala.hive.executor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
@@ -25,6 +27,7 @@ import java.util.List;
 
 import com.google.common.base.Joiner;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hive.ql.exec.UDF;
 import org.apache.hadoop.hive.ql.udf.UDFAcos;
 import org.apache.hadoop.hive.ql.udf.UDFAscii;
 import org.apache.hadoop.hive.ql.udf.UDFAsin;
@@ -57,6 +60,7 @@ import org.apache.hadoop.hive.ql.udf.UDFUnbase64;
 import org.apache.hadoop.hive.ql.udf.UDFUnhex;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDFBRound;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDFUpper;
+import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.impala.catalog.PrimitiveType;
@@ -609,4 +613,66 @@ public class UdfExecutorTest {
         createBoolean(true));
     freeAllocations();
   }
+
+  // UDF whose evaluate() methods fail, see MethodHandleInvocationTest.
+  public static class FailingUdf extends UDF {
+    public IntWritable evaluate(IntWritable a) {
+      throw new IllegalArgumentException("bad argument");
+    }
+
+    public IntWritable evaluate(IntWritable a, IntWritable b, IntWritable c,
+        IntWritable d, IntWritable e) {
+      throw new StackOverflowError();
+    }
+  }
+
+  @Test
+  // Test that UDFs called through method handles return the same results and report
+  // failures like UDFs called through reflection, except that Errors are not wrapped.
+  public void MethodHandleInvocationTest() throws Exception {
+    TestUdf udf = new TestUdf();
+    Class<?>[][] argClassesByArity = {
+        {IntWritable.class},
+        {IntWritable.class, IntWritable.class},
+        {int.class, int.class, int.class},
+        {IntWritable.class, int.class, int.class, IntWritable.class}};
+    Object[][] argsByArity = {
+        {new IntWritable(1)},
+        {new IntWritable(1), new IntWritable(2)},
+        {1, 2, 3},
+        {new IntWritable(5), 6, 7, new IntWritable(8)}};
+    for (int i = 0; i < argsByArity.length; ++i) {
+      Object[] args = argsByArity[i];
+      Method method = TestUdf.class.getMethod("evaluate", argClassesByArity[i]);
+      MethodHandle invoker = HiveUdfExecutorLegacy.createInvoker(method, udf);
+      Assert.assertEquals(HiveUdfExecutorLegacy.invokerType(args.length),
+          invoker.type());
+      Assert.assertEquals(method.invoke(udf, args),
+          HiveUdfExecutorLegacy.invoke(invoker, args));
+    }
+
+    FailingUdf failingUdf = new FailingUdf();
+    MethodHandle invoker = HiveUdfExecutorLegacy.createInvoker(
+        FailingUdf.class.getMethod("evaluate", IntWritable.class), failingUdf);
+    try {
+      HiveUdfExecutorLegacy.invoke(invoker, new Object[] {new IntWritable(1)});
+      Assert.fail("Expected InvocationTargetException");
+    } catch (InvocationTargetException e) {
+      Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+
+    Class<?>[] argClasses = new Class<?>[5];
+    Arrays.fill(argClasses, IntWritable.class);
+    invoker = HiveUdfExecutorLegacy.createInvoker(
+        FailingUdf.class.getMethod("evaluate", argClasses), failingUdf);
+    Assert.assertEquals(HiveUdfExecutorLegacy.invokerType(5), invoker.type());
+    Object[] args = new Object[5];
+    Arrays.fill(args, new IntWritable(1));
+    try {
+      HiveUdfExecutorLegacy.invoke(invoker, args);
+      Assert.fail("Expected StackOverflowError");
+    } catch (StackOverflowError e) {
+      // Expected.
+    }
+  }
 }
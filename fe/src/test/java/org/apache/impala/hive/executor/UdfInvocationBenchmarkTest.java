@@ -0,0 +1,147 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.hive.executor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hive.serde2.io.ByteWritable;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.io.ShortWritable;
+import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.impala.testutil.BenchmarkTests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Times a million calls of a legacy Hive UDF through Method.invoke() and through the
+ * handle from HiveUdfExecutorLegacy.createInvoker() for each signature, and logs
+ * the best of three runs of both. The signatures cover Writable, String and primitive
+ * arguments. Primitive arguments are passed boxed, like evaluateDerived() does, so the
+ * handle has to unbox them. Run with the 'benchmarks' profile.
+ */
+@Category(BenchmarkTests.class)
+public class UdfInvocationBenchmarkTest {
+  private final static Logger LOG =
+      LoggerFactory.getLogger(UdfInvocationBenchmarkTest.class);
+
+  // Number of UDF calls per timed run.
+  private static final int NUM_CALLS = 1000000;
+  // Number of timed runs per argument type after warming up.
+  private static final int NUM_RUNS = 3;
+
+  private static long reflectionMillis(Method method, TestUdf udf, Object[] args)
+      throws Exception {
+    long start = System.nanoTime();
+    for (int i = 0; i < NUM_CALLS; ++i) method.invoke(udf, args);
+    return (System.nanoTime() - start) / 1000000;
+  }
+
+  private static long methodHandleMillis(MethodHandle invoker, Object[] args)
+      throws Exception {
+    long start = System.nanoTime();
+    for (int i = 0; i < NUM_CALLS; ++i) HiveUdfExecutorLegacy.invoke(invoker, args);
+    return (System.nanoTime() - start) / 1000000;
+  }
+
+  /**
+   * Returns the parameter types of the TestUdf.evaluate() overload for 'args'. Boxed
+   * primitives in 'args' stand for primitive parameters.
+   */
+  private static Class<?>[] getParamTypes(Object[] args, boolean primitive) {
+    Class<?>[] paramTypes = new Class<?>[args.length];
+    for (int i = 0; i < args.length; ++i) {
+      paramTypes[i] = args[i].getClass();
+      if (!primitive) continue;
+      if (args[i] instanceof Boolean) paramTypes[i] = boolean.class;
+      else if (args[i] instanceof Short) paramTypes[i] = short.class;
+      else if (args[i] instanceof Integer) paramTypes[i] = int.class;
+      else if (args[i] instanceof Float) paramTypes[i] = float.class;
+      else if (args[i] instanceof Double) paramTypes[i] = double.class;
+    }
+    return paramTypes;
+  }
+
+  @Test
+  public void testInvocationByArgType() throws Exception {
+    Object[][] writableArgs = {
+        {new BooleanWritable(true)},
+        {new ByteWritable((byte) 1)},
+        {new ShortWritable((short) 1)},
+        {new IntWritable(1)},
+        {new LongWritable(1)},
+        {new FloatWritable(1.0f)},
+        {new DoubleWritable(1.0)},
+        {new Text("abc")},
+        {"abc"},
+        {new IntWritable(1), new IntWritable(2)},
+        {new DoubleWritable(1.0), new DoubleWritable(2.0)}};
+    Object[][] primitiveArgs = {
+        {true, true, true},
+        {(short) 1, (short) 2, (short) 3},
+        {1, 2, 3},
+        {1.0f, 2.0f, 3.0f},
+        {new IntWritable(1), 2.0},
+        {new IntWritable(1), 2, 3, new IntWritable(4)},
+        {new BooleanWritable(true), new BooleanWritable(true), true, true}};
+    List<Object[]> allArgs = new ArrayList<>();
+    List<Class<?>[]> allParamTypes = new ArrayList<>();
+    for (Object[] args: writableArgs) {
+      allArgs.add(args);
+      allParamTypes.add(getParamTypes(args, false));
+    }
+    for (Object[] args: primitiveArgs) {
+      allArgs.add(args);
+      allParamTypes.add(getParamTypes(args, true));
+    }
+    TestUdf udf = new TestUdf();
+    List<String> results = new ArrayList<>();
+    for (int n = 0; n < allArgs.size(); ++n) {
+      Object[] args = allArgs.get(n);
+      Class<?>[] argClasses = allParamTypes.get(n);
+      Method method = TestUdf.class.getMethod("evaluate", argClasses);
+      MethodHandle invoker = HiveUdfExecutorLegacy.createInvoker(method, udf);
+      Assert.assertNotNull(method.toString(), invoker);
+      Assert.assertEquals(method.invoke(udf, args),
+          HiveUdfExecutorLegacy.invoke(invoker, args));
+      // Warm up.
+      reflectionMillis(method, udf, args);
+      methodHandleMillis(invoker, args);
+      long minReflection = Long.MAX_VALUE;
+      long minMethodHandle = Long.MAX_VALUE;
+      for (int i = 0; i < NUM_RUNS; ++i) {
+        minReflection = Math.min(minReflection, reflectionMillis(method, udf, args));
+        minMethodHandle = Math.min(minMethodHandle, methodHandleMillis(invoker, args));
+      }
+      results.add(String.format("args=%s calls=%d reflection=%dms methodhandle=%dms",
+          Arrays.toString(argClasses), NUM_CALLS, minReflection,
+          minMethodHandle));
+    }
+    for (String result: results) LOG.info("UDF invocation benchmark: " + result);
+  }
+}
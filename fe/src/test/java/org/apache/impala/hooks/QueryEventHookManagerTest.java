@@ -20,6 +20,7 @@ package org.apache.impala.hooks;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.service.BackendConfig;
 import org.apache.impala.testutil.AlwaysErrorQueryEventHook;
+import org.apache.impala.testutil.BlockingBatchQueryEventHook;
 import org.apache.impala.testutil.CountingQueryEventHook;
 import org.apache.impala.testutil.PostQueryErrorEventHook;
 import org.apache.impala.thrift.TBackendGflags;
@@ -29,11 +30,18 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class QueryEventHookManagerTest {
   private TBackendGflags origFlags;
@@ -61,6 +69,18 @@ public class QueryEventHookManagerTest {
 
   private static QueryEventHookManager createQueryEventHookManager(int nThreads,
       String... hooks) throws Exception {
+    return createQueryEventHookManager(nThreads, 100, hooks);
+  }
+
+  private static QueryEventHookManager createQueryEventHookManager(int nThreads,
+      int queueSize, String... hooks) throws Exception {
+    return createQueryEventHookManager(nThreads, queueSize,
+        QueryEventHookManager.QueueFullPolicy.DROP, hooks);
+  }
+
+  private static QueryEventHookManager createQueryEventHookManager(int nThreads,
+      int queueSize, QueryEventHookManager.QueueFullPolicy queueFullPolicy,
+      String... hooks) throws Exception {
     if (hooks.length == 0) {
       BackendConfig.INSTANCE.getBackendCfg().setQuery_event_hook_classes("");
     } else {
@@ -69,6 +89,9 @@ public class QueryEventHookManagerTest {
     }
 
     BackendConfig.INSTANCE.getBackendCfg().setQuery_event_hook_nthreads(nThreads);
+    BackendConfig.INSTANCE.getBackendCfg().setQuery_event_hook_queue_size(queueSize);
+    BackendConfig.INSTANCE.getBackendCfg().setQuery_event_hook_queue_full_policy(
+        queueFullPolicy.name());
 
     return QueryEventHookManager.createFromConfig(BackendConfig.INSTANCE);
   }
@@ -142,5 +165,123 @@ public class QueryEventHookManagerTest {
     }
   }
 
-}
+  @Test
+  public void testHookReceivesQueuedQueriesInBatches() throws Exception {
+    final QueryEventHookManager mgr = createQueryEventHookManager(1,
+        BlockingBatchQueryEventHook.class.getCanonicalName());
+    final BlockingBatchQueryEventHook hook =
+        (BlockingBatchQueryEventHook) mgr.getHooks().get(0);
+
+    // the first query is passed on its own, the ones that complete while the hook
+    // runs are passed in the next invocation
+    hook.block();
+    final Future<QueryEventHook> first =
+        mgr.executeQueryCompleteHooks(mockQueryCompleteContext).get(0);
+    assertTrue(hook.awaitInvocation());
+    Future<QueryEventHook> last = null;
+    for (int i = 0; i < 5; ++i) {
+      last = mgr.executeQueryCompleteHooks(mockQueryCompleteContext).get(0);
+    }
+    hook.release();
+
+    assertEquals(hook, first.get(2, TimeUnit.SECONDS));
+    assertEquals(hook, last.get(2, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(1, 5), hook.getBatchSizes());
+  }
+
+  @Test
+  public void testQueriesAreDroppedIfQueueIsFull() throws Exception {
+    final QueryEventHookManager mgr = createQueryEventHookManager(1, 2,
+        BlockingBatchQueryEventHook.class.getCanonicalName());
+    final BlockingBatchQueryEventHook hook =
+        (BlockingBatchQueryEventHook) mgr.getHooks().get(0);
+    final String prefix = QueryEventHookManager.getMetricPrefix(hook, 0);
 
+    hook.block();
+    mgr.executeQueryCompleteHooks(mockQueryCompleteContext);
+    assertTrue(hook.awaitInvocation());
+    // the queue holds two queries while the hook is blocked, the third one is dropped
+    mgr.executeQueryCompleteHooks(mockQueryCompleteContext);
+    final Future<QueryEventHook> queued =
+        mgr.executeQueryCompleteHooks(mockQueryCompleteContext).get(0);
+    final Future<QueryEventHook> dropped =
+        mgr.executeQueryCompleteHooks(mockQueryCompleteContext).get(0);
+    assertEquals(2, mgr.getMetrics().getGauge(
+        prefix + QueryEventHookManager.QUEUE_DEPTH_METRIC).getValue());
+    assertEquals(1, mgr.getMetrics().getCounter(
+        prefix + QueryEventHookManager.DROPPED_METRIC).getCount());
+    try {
+      dropped.get(2, TimeUnit.SECONDS);
+      fail("Expected the query to be dropped");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    hook.release();
+    assertEquals(hook, queued.get(2, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(1, 2), hook.getBatchSizes());
+    assertEquals(2, mgr.getMetrics().getTimer(
+        prefix + QueryEventHookManager.LATENCY_METRIC).getCount());
+  }
+
+  @Test
+  public void testQueriesBlockIfQueueIsFull() throws Exception {
+    final QueryEventHookManager mgr = createQueryEventHookManager(1, 1,
+        QueryEventHookManager.QueueFullPolicy.BLOCK,
+        BlockingBatchQueryEventHook.class.getCanonicalName());
+    final BlockingBatchQueryEventHook hook =
+        (BlockingBatchQueryEventHook) mgr.getHooks().get(0);
+    final String prefix = QueryEventHookManager.getMetricPrefix(hook, 0);
+
+    hook.block();
+    mgr.executeQueryCompleteHooks(mockQueryCompleteContext);
+    assertTrue(hook.awaitInvocation());
+    mgr.executeQueryCompleteHooks(mockQueryCompleteContext);
+    // the queue is full, the next query waits until the hook has made space
+    final CompletableFuture<Future<QueryEventHook>> blocked =
+        CompletableFuture.supplyAsync(
+            () -> mgr.executeQueryCompleteHooks(mockQueryCompleteContext).get(0));
+    try {
+      blocked.get(500, TimeUnit.MILLISECONDS);
+      fail("Expected the query to wait for space in the queue");
+    } catch (TimeoutException e) {
+      // expected
+    }
+
+    hook.release();
+    assertEquals(hook, blocked.get(2, TimeUnit.SECONDS).get(2, TimeUnit.SECONDS));
+    assertEquals(0, mgr.getMetrics().getCounter(
+        prefix + QueryEventHookManager.DROPPED_METRIC).getCount());
+    assertEquals(3, hook.getBatchSizes().stream().mapToInt(Integer::intValue).sum());
+  }
+
+  @Test
+  public void testBlockedQueriesAreDroppedAfterShutdown() throws Exception {
+    final QueryEventHookManager mgr = createQueryEventHookManager(1, 1,
+        QueryEventHookManager.QueueFullPolicy.BLOCK,
+        BlockingBatchQueryEventHook.class.getCanonicalName());
+    final BlockingBatchQueryEventHook hook =
+        (BlockingBatchQueryEventHook) mgr.getHooks().get(0);
+    final String prefix = QueryEventHookManager.getMetricPrefix(hook, 0);
+
+    hook.block();
+    mgr.executeQueryCompleteHooks(mockQueryCompleteContext);
+    assertTrue(hook.awaitInvocation());
+    mgr.executeQueryCompleteHooks(mockQueryCompleteContext);
+    // nothing drains the full queue after shutdown, so the query must not wait for it
+    mgr.cleanUp();
+    final Future<QueryEventHook> dropped =
+        CompletableFuture.supplyAsync(
+            () -> mgr.executeQueryCompleteHooks(mockQueryCompleteContext).get(0))
+        .get(2, TimeUnit.SECONDS);
+    try {
+      dropped.get(2, TimeUnit.SECONDS);
+      fail("Expected the query to be dropped");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+    assertEquals(1, mgr.getMetrics().getCounter(
+        prefix + QueryEventHookManager.DROPPED_METRIC).getCount());
+    hook.release();
+  }
+}
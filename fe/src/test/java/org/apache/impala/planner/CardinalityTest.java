@@ -25,6 +25,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.impala.catalog.ColumnHistogram;
+import org.apache.impala.catalog.ColumnStats;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.RuntimeEnv;
 import org.apache.impala.service.Frontend.PlanCtx;
@@ -122,6 +124,38 @@ public class CardinalityTest extends PlannerTestBase {
         "SELECT * FROM tpcds_parquet.date_dim WHERE d_current_day != 'a'", 36525);
   }
 
+  /**
+   * Test the estimates based on a column histogram, as collected by COMPUTE STATS with
+   * the COMPUTE_COLUMN_HISTOGRAMS query option.
+   */
+  @Test
+  public void testHistograms() {
+    // 3/4 of the values of int_col are 0 and the rest is spread uniformly between 0
+    // and 8, compared to the 10 evenly distributed values without histogram.
+    ColumnStats stats =
+        catalog_.getOrLoadTable("functional", "alltypes").getColumn("int_col").getStats();
+    stats.setHistogram(ColumnHistogram.parse("0,0,0,0,8"));
+    try {
+      verifyCardinality("SELECT id FROM functional.alltypes WHERE int_col = 0", 5475);
+      // Not lower than the rows of a single distinct value.
+      verifyCardinality("SELECT id FROM functional.alltypes WHERE int_col = 5", 730);
+      verifyApproxCardinality(
+          "SELECT id FROM functional.alltypes WHERE int_col > 4", 913);
+      verifyApproxCardinality(
+          "SELECT id FROM functional.alltypes WHERE int_col <= 4", 6388);
+      verifyApproxCardinality(
+          "SELECT id FROM functional.alltypes WHERE int_col IN (0, 5)", 6205);
+      verifyApproxCardinality(
+          "SELECT id FROM functional.alltypes WHERE int_col BETWEEN 2 AND 6", 913);
+      // Grouping is still based on the NDV.
+      verifyCardinality(
+          "SELECT COUNT(*) FROM functional.alltypes GROUP BY int_col", 10);
+    } finally {
+      stats.setHistogram(null);
+    }
+    verifyCardinality("SELECT id FROM functional.alltypes WHERE int_col = 0", 730);
+  }
+
   /**
    * Test tables with all-null columns. Test need for IMPALA-7310, NDV of an
    * all-null column should be 1.
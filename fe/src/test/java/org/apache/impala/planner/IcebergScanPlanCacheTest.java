@@ -0,0 +1,128 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.impala.catalog.FeIcebergTable;
+import org.apache.impala.catalog.HdfsPartition.FileDescriptor;
+import org.junit.Test;
+
+/**
+ * Tests for the cache of Iceberg scan planning results.
+ */
+public class IcebergScanPlanCacheTest {
+  private static FeIcebergTable mockTable(long catalogVersion) {
+    FeIcebergTable table = mock(FeIcebergTable.class);
+    when(table.getFullName()).thenReturn("db.tbl");
+    when(table.getCatalogVersion()).thenReturn(catalogVersion);
+    return table;
+  }
+
+  private static IcebergScanPlanCache.ScanPlan createPlan(int numFiles) {
+    List<IcebergScanPlanCache.PlannedFile> files = new ArrayList<>();
+    for (int i = 0; i < numFiles; ++i) {
+      files.add(new IcebergScanPlanCache.PlannedFile(mock(FileDescriptor.class),
+          Collections.emptyList(), Collections.emptyList()));
+    }
+    return new IcebergScanPlanCache.ScanPlan(files, false, Collections.emptyList());
+  }
+
+  @Test
+  public void testNormalize() {
+    // Equal expressions created separately have the same normalized form.
+    assertEquals(
+        IcebergScanPlanCache.normalize(Expressions.equal("i", 1)),
+        IcebergScanPlanCache.normalize(Expressions.equal("i", 1)));
+    assertEquals(
+        IcebergScanPlanCache.normalize(Expressions.and(
+            Expressions.isNull("s"), Expressions.lessThan("i", 10L))),
+        IcebergScanPlanCache.normalize(Expressions.and(
+            Expressions.isNull("s"), Expressions.lessThan("i", 10L))));
+    assertNotEquals(
+        IcebergScanPlanCache.normalize(Expressions.equal("i", 1)),
+        IcebergScanPlanCache.normalize(Expressions.equal("i", 2)));
+    assertNotEquals(
+        IcebergScanPlanCache.normalize(Expressions.equal("i", 1)),
+        IcebergScanPlanCache.normalize(Expressions.equal("i", 1L)));
+    assertNotEquals(
+        IcebergScanPlanCache.normalize(Expressions.equal("i", 1)),
+        IcebergScanPlanCache.normalize(Expressions.notEqual("i", 1)));
+    // String values that look like lists of values are not confused with them.
+    assertNotEquals(
+        IcebergScanPlanCache.normalize(Expressions.in("s", "a\", \"b")),
+        IcebergScanPlanCache.normalize(Expressions.in("s", "a", "b")));
+  }
+
+  @Test
+  public void testCacheKey() {
+    FeIcebergTable table = mockTable(10);
+    String a = IcebergScanPlanCache.normalize(Expressions.equal("i", 1));
+    String b = IcebergScanPlanCache.normalize(Expressions.greaterThan("j", "x"));
+    // The order of the predicates does not matter.
+    assertEquals(IcebergScanPlanCache.getCacheKey(table, 1, Arrays.asList(a, b)),
+        IcebergScanPlanCache.getCacheKey(table, 1, Arrays.asList(b, a)));
+    assertNotEquals(IcebergScanPlanCache.getCacheKey(table, 1, Arrays.asList(a, b)),
+        IcebergScanPlanCache.getCacheKey(table, 1, Arrays.asList(a)));
+    // Different snapshots and reloads of the table have different keys.
+    assertNotEquals(IcebergScanPlanCache.getCacheKey(table, 1, Arrays.asList(a)),
+        IcebergScanPlanCache.getCacheKey(table, 2, Arrays.asList(a)));
+    assertNotEquals(IcebergScanPlanCache.getCacheKey(table, 1, Arrays.asList(a)),
+        IcebergScanPlanCache.getCacheKey(mockTable(11), 1, Arrays.asList(a)));
+  }
+
+  @Test
+  public void testGetAndPut() {
+    IcebergScanPlanCache cache = new IcebergScanPlanCache(100);
+    IcebergScanPlanCache.ScanPlan plan = createPlan(3);
+    assertNull(cache.get("key"));
+    assertNull(cache.get(null));
+    cache.put("key", plan);
+    cache.put(null, plan);
+    assertSame(plan, cache.get("key"));
+    assertEquals(1, cache.size());
+    cache.clear();
+    assertNull(cache.get("key"));
+  }
+
+  @Test
+  public void testCapacity() {
+    IcebergScanPlanCache cache = new IcebergScanPlanCache(1000);
+    for (int i = 0; i < 100; ++i) cache.put("key" + i, createPlan(49));
+    // Each plan references 49 data files and has a weight of 50.
+    assertNotNull(cache.get("key99"));
+    assertTrue(cache.size() <= 20);
+
+    IcebergScanPlanCache disabled = new IcebergScanPlanCache(0);
+    disabled.put("key", createPlan(1));
+    assertNull(disabled.get("key"));
+  }
+}
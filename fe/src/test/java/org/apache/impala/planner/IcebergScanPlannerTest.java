@@ -0,0 +1,111 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.planner;
+
+import static org.apache.impala.planner.IcebergScanPlanner.getReferencedDataFiles;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.apache.impala.util.IcebergUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the pruning of Iceberg position delete files by the bounds of their file_path
+ * column.
+ */
+public class IcebergScanPlannerTest {
+  private static final URI DEFAULT_FS = URI.create("hdfs://nn:8020");
+  private static final String TABLE = "hdfs://nn:8020/wh/t/data/";
+
+  private final TreeMap<String, String> dataFilesByPath_ = new TreeMap<>();
+
+  @Before
+  public void setUp() {
+    for (String file : new String[] {"b.parq", "d.parq", "f.parq"}) {
+      dataFilesByPath_.put(
+          IcebergUtil.normalizeFilePath(TABLE + file, DEFAULT_FS), file);
+    }
+  }
+
+  private List<String> referenced(String lower, String upper) {
+    Collection<String> files =
+        getReferencedDataFiles(dataFilesByPath_, lower, upper, DEFAULT_FS);
+    return files == null ? null : new ArrayList<>(files);
+  }
+
+  @Test
+  public void testPruned() {
+    // The delete file refers to a data file that is not scanned.
+    assertTrue(referenced(TABLE + "a.parq", TABLE + "a.parq").isEmpty());
+    // The data files between the bounds are not scanned.
+    assertTrue(referenced(TABLE + "c.parq", TABLE + "c1.parq").isEmpty());
+    assertTrue(referenced(TABLE + "g.parq", TABLE + "z.parq").isEmpty());
+  }
+
+  @Test
+  public void testNotPruned() {
+    assertEquals(Lists.newArrayList("b.parq"),
+        referenced(TABLE + "b.parq", TABLE + "b.parq"));
+    assertEquals(Lists.newArrayList("d.parq", "f.parq"),
+        referenced(TABLE + "c.parq", TABLE + "f.parq"));
+  }
+
+  @Test
+  public void testPathMismatch() {
+    // Paths that differ from the data file paths only in the case of the scheme and
+    // authority, or in a missing prefix or port are matched.
+    assertEquals(Lists.newArrayList("b.parq"),
+        referenced("HDFS://NN:8020/wh/t/data/b.parq", "HDFS://NN:8020/wh/t/data/b.parq"));
+    assertEquals(Lists.newArrayList("d.parq"),
+        referenced("/wh/t/data/d.parq", "/wh/t/data/d.parq"));
+    assertEquals(Lists.newArrayList("d.parq"),
+        referenced("hdfs:/wh/t/data/d.parq", "hdfs:/wh/t/data/d.parq"));
+    assertEquals(Lists.newArrayList("f.parq"),
+        referenced("hdfs://nn/wh/t/data/f.parq", "hdfs://nn/wh/t/data/f.parq"));
+    assertTrue(referenced("hdfs://nn/wh/t/data/a.parq", "hdfs://nn/wh/t/data/a.parq")
+        .isEmpty());
+
+    // Bounds that cannot be matched exactly keep the delete file.
+    // Another file system, or another port of the same host.
+    assertNull(referenced("hdfs://other/wh/t/data/a.parq",
+        "hdfs://other/wh/t/data/a.parq"));
+    assertNull(referenced("hdfs://nn:9000/wh/t/data/a.parq",
+        "hdfs://nn:9000/wh/t/data/a.parq"));
+    assertNull(referenced("s3a://bucket/wh/t/data/a.parq",
+        "s3a://bucket/wh/t/data/a.parq"));
+    // The bounds have different prefixes, so paths of any file system can be between
+    // them.
+    assertNull(referenced("/wh/t/data/a.parq", TABLE + "a.parq"));
+    // Missing, relative or out of order bounds.
+    assertNull(referenced(null, TABLE + "a.parq"));
+    assertNull(referenced(TABLE + "a.parq", null));
+    assertNull(referenced("data/a.parq", "data/a.parq"));
+    assertNull(referenced(TABLE + "z.parq", TABLE + "a.parq"));
+  }
+}
@@ -0,0 +1,165 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.kudu.ColumnSchema;
+import org.apache.kudu.Type;
+import org.apache.kudu.client.KuduPredicate;
+import org.apache.kudu.client.LocatedTablet;
+import org.junit.Test;
+
+/**
+ * Tests for the cache of Kudu scan tokens.
+ */
+public class KuduScanTokenCacheTest {
+  private static final List<String> COLS = Arrays.asList("id", "name");
+
+  private static List<KuduScanTokenCache.CachedToken> createTokens(int numTokens) {
+    List<KuduScanTokenCache.CachedToken> tokens = new ArrayList<>();
+    for (int i = 0; i < numTokens; ++i) {
+      tokens.add(new KuduScanTokenCache.CachedToken(new byte[] {(byte) i},
+          mock(LocatedTablet.class)));
+    }
+    return tokens;
+  }
+
+  private static String getKey(String tableName, long catalogVersion,
+      String... predicates) {
+    return KuduScanTokenCache.getCacheKey(tableName, "tid", catalogVersion, COLS, 0,
+        Arrays.asList(predicates));
+  }
+
+  @Test
+  public void testCacheKey() {
+    // The order of the predicates does not matter.
+    assertEquals(getKey("db.tbl", 1, "`id` = 1", "`name` = \"a\""),
+        getKey("db.tbl", 1, "`name` = \"a\"", "`id` = 1"));
+    assertEquals(getKey("db.tbl", 1), getKey("DB.TBL", 1));
+    assertNotEquals(getKey("db.tbl", 1, "`id` = 1"), getKey("db.tbl", 1, "`id` = 2"));
+    assertNotEquals(getKey("db.tbl", 1), getKey("db.tbl", 2));
+    assertNotEquals(getKey("db.tbl", 1), getKey("db.tbl2", 1));
+    assertNotEquals(getKey("db.tbl", 1), KuduScanTokenCache.getCacheKey(
+        "db.tbl", "tid2", 1, COLS, 0, Collections.emptyList()));
+    assertNotEquals(getKey("db.tbl", 1), KuduScanTokenCache.getCacheKey(
+        "db.tbl", "tid", 1, COLS, 1024, Collections.emptyList()));
+    assertNotEquals(getKey("db.tbl", 1), KuduScanTokenCache.getCacheKey(
+        "db.tbl", "tid", 1, Arrays.asList("id"), 0, Collections.emptyList()));
+    // Column names and predicates are not confused with each other.
+    assertNotEquals(
+        KuduScanTokenCache.getCacheKey("db.tbl", "tid", 1, Arrays.asList("a,b"), 0,
+            Collections.emptyList()),
+        KuduScanTokenCache.getCacheKey("db.tbl", "tid", 1, Arrays.asList("a", "b"), 0,
+            Collections.emptyList()));
+    assertNotEquals(getKey("db.tbl", 1, "`id` = 1", "`id` = 2"),
+        getKey("db.tbl", 1, "`id` = 1,`id` = 2"));
+  }
+
+  @Test
+  public void testPredicateKey() {
+    ColumnSchema name = new ColumnSchema.ColumnSchemaBuilder("name", Type.STRING).build();
+    ColumnSchema id = new ColumnSchema.ColumnSchemaBuilder("id", Type.INT64).build();
+    KuduPredicate in = KuduPredicate.newInListPredicate(name, Arrays.asList("a", "b"));
+    // String values that contain the quotes and separators of toString() of other
+    // predicates must not give the same key.
+    KuduPredicate eq = KuduPredicate.newComparisonPredicate(
+        name, KuduPredicate.ComparisonOp.EQUAL, "a\", \"b");
+    KuduPredicate inOne = KuduPredicate.newInListPredicate(name,
+        Arrays.asList("a\", \"b", "c"));
+    KuduPredicate inTwo = KuduPredicate.newInListPredicate(name,
+        Arrays.asList("a", "b\", \"c"));
+    List<String> keys = Arrays.asList(KuduScanTokenCache.getPredicateKey(in),
+        KuduScanTokenCache.getPredicateKey(eq), KuduScanTokenCache.getPredicateKey(inOne),
+        KuduScanTokenCache.getPredicateKey(inTwo));
+    assertEquals(keys.size(), new HashSet<>(keys).size());
+    assertNotEquals(getKey("db.tbl", 1, keys.get(0)), getKey("db.tbl", 1, keys.get(1)));
+    assertNotEquals(
+        KuduScanTokenCache.getPredicateKey(KuduPredicate.newComparisonPredicate(
+            id, KuduPredicate.ComparisonOp.EQUAL, 1L)),
+        KuduScanTokenCache.getPredicateKey(KuduPredicate.newComparisonPredicate(
+            id, KuduPredicate.ComparisonOp.GREATER_EQUAL, 1L)));
+    // Equal predicates give equal keys.
+    assertEquals(KuduScanTokenCache.getPredicateKey(in),
+        KuduScanTokenCache.getPredicateKey(
+            KuduPredicate.newInListPredicate(name, Arrays.asList("b", "a"))));
+  }
+
+  @Test
+  public void testGetAndPut() {
+    KuduScanTokenCache cache = new KuduScanTokenCache(100, 60000);
+    assertTrue(cache.isEnabled());
+    String key = getKey("db.tbl", 1, "`id` = 1");
+    assertNull(cache.get(key));
+    List<KuduScanTokenCache.CachedToken> tokens = createTokens(3);
+    cache.put(key, tokens);
+    assertEquals(3, cache.get(key).size());
+    assertSame(tokens.get(0), cache.get(key).get(0));
+    assertNull(cache.get(getKey("db.tbl", 2, "`id` = 1")));
+  }
+
+  @Test
+  public void testInvalidateTable() {
+    KuduScanTokenCache cache = new KuduScanTokenCache(100, 60000);
+    cache.put(getKey("db.tbl", 1, "`id` = 1"), createTokens(1));
+    cache.put(getKey("db.tbl", 1, "`id` = 2"), createTokens(1));
+    cache.put(getKey("db.tbl2", 1, "`id` = 1"), createTokens(1));
+    assertEquals(3, cache.size());
+    cache.invalidateTable("DB.tbl");
+    assertEquals(1, cache.size());
+    assertNull(cache.get(getKey("db.tbl", 1, "`id` = 1")));
+    assertEquals(1, cache.get(getKey("db.tbl2", 1, "`id` = 1")).size());
+  }
+
+  @Test
+  public void testCapacity() {
+    // Each entry weighs one plus its number of tokens.
+    KuduScanTokenCache cache = new KuduScanTokenCache(10, 60000);
+    cache.put(getKey("db.tbl", 1, "`id` = 1"), createTokens(20));
+    assertEquals(0, cache.size());
+    for (int i = 0; i < 10; ++i) {
+      cache.put(getKey("db.tbl", 1, "`id` = " + i), createTokens(1));
+    }
+    assertTrue(cache.size() < 10);
+  }
+
+  @Test
+  public void testDisabled() {
+    KuduScanTokenCache cache = new KuduScanTokenCache(0, 60000);
+    assertFalse(cache.isEnabled());
+    cache.put(getKey("db.tbl", 1), createTokens(1));
+    assertNull(cache.get(getKey("db.tbl", 1)));
+    cache = new KuduScanTokenCache(100, 0);
+    assertFalse(cache.isEnabled());
+    cache.put(getKey("db.tbl", 1), createTokens(1));
+    assertNull(cache.get(getKey("db.tbl", 1)));
+  }
+}
@@ -392,6 +392,13 @@ public class PlannerTest extends PlannerTestBase {
         ImmutableSet.of(PlannerTestOption.VALIDATE_CARDINALITY));
   }
 
+  @Test
+  public void testJoinOrderDp() {
+    TQueryOptions options = defaultQueryOptions();
+    options.setJoin_reorder_dp_threshold(8);
+    runPlannerTestFile("join-order-dp", options);
+  }
+
   @Test
   public void testOuterJoins() {
     runPlannerTestFile("outer-joins",
@@ -1044,6 +1051,38 @@ public class PlannerTest extends PlannerTestBase {
     Assert.assertNotNull(requestWithDisableSpillOn);
   }
 
+  /**
+   * Checks that dynamic-programming join enumeration produces an executable plan
+   * without cross joins for a snowflake join that it is eligible for, and that it
+   * falls back to the greedy plan if its budget is exceeded.
+   */
+  @Test
+  public void testDpJoinReordering() throws ImpalaException {
+    TQueryCtx queryCtx = TestUtils.createQueryContext(Catalog.DEFAULT_DB,
+        System.getProperty("user.name"));
+    queryCtx.client_request.setStmt("select n_name, sum(l_extendedprice) " +
+        "from tpch_parquet.customer, tpch_parquet.orders, tpch_parquet.lineitem, " +
+        "tpch_parquet.supplier, tpch_parquet.nation, tpch_parquet.region " +
+        "where c_custkey = o_custkey and l_orderkey = o_orderkey " +
+        "and l_suppkey = s_suppkey and c_nationkey = s_nationkey " +
+        "and s_nationkey = n_nationkey and n_regionkey = r_regionkey " +
+        "and r_name = 'ASIA' group by n_name");
+    queryCtx.client_request.query_options = defaultQueryOptions();
+    queryCtx.client_request.query_options.setJoin_reorder_dp_threshold(8);
+    String explainStr = frontend_.getExplainString(queryCtx);
+    Assert.assertTrue(explainStr, explainStr.contains("HASH JOIN"));
+    Assert.assertFalse(explainStr, explainStr.contains("NESTED LOOP JOIN"));
+    Assert.assertFalse(explainStr, explainStr.contains("CROSS JOIN"));
+
+    // A budget that is too small falls back to greedy join ordering.
+    queryCtx.client_request.query_options.setJoin_reorder_dp_threshold(0);
+    String greedyExplainStr = frontend_.getExplainString(queryCtx);
+    Assert.assertNotEquals(greedyExplainStr, explainStr);
+    queryCtx.client_request.query_options.setJoin_reorder_dp_threshold(8);
+    queryCtx.client_request.query_options.setJoin_reorder_dp_max_pairs(1);
+    Assert.assertEquals(greedyExplainStr, frontend_.getExplainString(queryCtx));
+  }
+
   @Test
   public void testMinMaxRuntimeFilters() {
     TQueryOptions options = defaultQueryOptions();
@@ -0,0 +1,216 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.impala.catalog.Catalog;
+import org.apache.impala.common.ImpalaException;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.service.Frontend.PlanCtx;
+import org.apache.impala.testutil.TestUtils;
+import org.apache.impala.thrift.TBackendGflags;
+import org.apache.impala.thrift.TExecRequest;
+import org.apache.impala.thrift.TExplainLevel;
+import org.apache.impala.thrift.TPlanExecInfo;
+import org.apache.impala.thrift.TPlanFragment;
+import org.apache.impala.thrift.TPlanNode;
+import org.apache.impala.thrift.TQueryCtx;
+import org.apache.impala.thrift.TRuntimeFilterDesc;
+import org.apache.impala.thrift.TRuntimeFilterType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Tests for recording runtime filter effectiveness across queries and for skipping
+ * filters that were ineffective in past runs.
+ */
+public class RuntimeFilterFeedbackTest extends PlannerTestBase {
+  private static final String KEY =
+      "functional.alltypestiny.id->functional.alltypes.id";
+  private static final String QUERY = "select count(*) from functional.alltypes a " +
+      "join functional.alltypestiny b on a.id = b.id";
+
+  private TBackendGflags origFlags_;
+
+  /**
+   * Collecting observations is disabled by default. Enable it for the tests.
+   */
+  @Before
+  public void enableFeedback() {
+    origFlags_ = BackendConfig.INSTANCE.getBackendCfg();
+    setFeedbackCacheSize(100);
+  }
+
+  @After
+  public void restoreFeedback() {
+    BackendConfig.create(origFlags_, false);
+    RuntimeFilterFeedback.INSTANCE.reset();
+  }
+
+  private void setFeedbackCacheSize(int cacheSize) {
+    TBackendGflags flags = origFlags_.deepCopy();
+    flags.setRuntime_filter_feedback_cache_size(cacheSize);
+    BackendConfig.create(flags, false);
+    RuntimeFilterFeedback.INSTANCE.reset();
+  }
+
+  private Set<String> getFeedbackKeys(String stmt) throws ImpalaException {
+    TQueryCtx queryCtx = TestUtils.createQueryContext(Catalog.DEFAULT_DB,
+        System.getProperty("user.name"));
+    queryCtx.client_request.setStmt(stmt);
+    queryCtx.client_request.query_options = defaultQueryOptions();
+    TExecRequest request = frontend_.createExecRequest(new PlanCtx(queryCtx));
+    Set<String> keys = new HashSet<>();
+    for (TPlanExecInfo execInfo : request.query_exec_request.plan_exec_info) {
+      for (TPlanFragment fragment : execInfo.fragments) {
+        if (!fragment.isSetPlan()) continue;
+        for (TPlanNode node : fragment.plan.nodes) {
+          if (!node.isSetRuntime_filters()) continue;
+          for (TRuntimeFilterDesc filter : node.runtime_filters) {
+            if (filter.isSetFeedback_key()) keys.add(filter.feedback_key);
+          }
+        }
+      }
+    }
+    return keys;
+  }
+
+  @Test
+  public void testObservations() {
+    RuntimeFilterFeedback feedback = new RuntimeFilterFeedback();
+    for (int i = 0; i < RuntimeFilterFeedback.MIN_OBSERVATIONS - 1; ++i) {
+      feedback.record(KEY, TRuntimeFilterType.BLOOM, 1000, 10);
+    }
+    // Not enough observations to act on yet.
+    assertNull(feedback.getObservation(KEY, TRuntimeFilterType.BLOOM));
+    feedback.record(KEY, TRuntimeFilterType.BLOOM, 1000, 10);
+    RuntimeFilterFeedback.Observation observation =
+        feedback.getObservation(KEY, TRuntimeFilterType.BLOOM);
+    assertNotNull(observation);
+    assertEquals(0.01, observation.getRejectionRatio(), 1e-9);
+    assertEquals(RuntimeFilterFeedback.MIN_OBSERVATIONS,
+        observation.getNumObservations());
+    // Observations are kept per filter type.
+    assertNull(feedback.getObservation(KEY, TRuntimeFilterType.MIN_MAX));
+
+    // The moving average follows a change in effectiveness.
+    for (int i = 0; i < 20; ++i) {
+      feedback.record(KEY, TRuntimeFilterType.BLOOM, 1000, 900);
+    }
+    assertTrue(feedback.getObservation(KEY, TRuntimeFilterType.BLOOM)
+        .getRejectionRatio() > 0.85);
+  }
+
+  /**
+   * Observations are forgotten once they have not been updated for
+   * --runtime_filter_feedback_ttl_s, so that skipped filters are re-probed.
+   */
+  @Test
+  public void testObservationsExpire() {
+    TBackendGflags flags = BackendConfig.INSTANCE.getBackendCfg().deepCopy();
+    flags.setRuntime_filter_feedback_ttl_s(60);
+    BackendConfig.create(flags, false);
+    AtomicLong nanos = new AtomicLong();
+    RuntimeFilterFeedback feedback = new RuntimeFilterFeedback(new Ticker() {
+      @Override
+      public long read() { return nanos.get(); }
+    });
+    for (int i = 0; i < RuntimeFilterFeedback.MIN_OBSERVATIONS; ++i) {
+      feedback.record(KEY, TRuntimeFilterType.BLOOM, 1000, 10);
+    }
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(50));
+    // A new observation restarts the expiry.
+    feedback.record(KEY, TRuntimeFilterType.BLOOM, 1000, 10);
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(50));
+    assertNotNull(feedback.getObservation(KEY, TRuntimeFilterType.BLOOM));
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(11));
+    assertNull(feedback.getObservation(KEY, TRuntimeFilterType.BLOOM));
+  }
+
+  /**
+   * The feedback key covers all the targets of a filter, not only the one it was
+   * created for.
+   */
+  @Test
+  public void testFeedbackKeyCoversAllTargets() throws ImpalaException {
+    // The filter produced by the join with b targets both a.id and s.id.
+    Set<String> keys = getFeedbackKeys("select straight_join count(*) " +
+        "from functional.alltypes a " +
+        "join functional.alltypessmall s on a.id = s.id " +
+        "join functional.alltypestiny b on a.id = b.id");
+    assertTrue(keys.toString(), keys.contains("functional.alltypestiny.id->" +
+        "functional.alltypes.id,functional.alltypessmall.id"));
+    assertTrue(keys.toString(),
+        keys.contains("functional.alltypessmall.id->functional.alltypes.id"));
+  }
+
+  /**
+   * Without a feedback cache the planner sets no feedback keys, so the coordinator
+   * does not look for filter statistics in the profile of a finished query.
+   */
+  @Test
+  public void testDisabled() throws ImpalaException {
+    setFeedbackCacheSize(0);
+    assertFalse(RuntimeFilterFeedback.INSTANCE.isEnabled());
+    assertTrue(getFeedbackKeys(QUERY).isEmpty());
+    RuntimeFilterFeedback.INSTANCE.record(KEY, TRuntimeFilterType.BLOOM, 1000, 1);
+    assertNull(RuntimeFilterFeedback.INSTANCE.getObservation(
+        KEY, TRuntimeFilterType.BLOOM));
+  }
+
+  @Test
+  public void testSkipIneffectiveFilter() throws ImpalaException {
+    TQueryCtx queryCtx = TestUtils.createQueryContext(Catalog.DEFAULT_DB,
+        System.getProperty("user.name"));
+    queryCtx.client_request.setStmt(QUERY);
+    queryCtx.client_request.query_options = defaultQueryOptions();
+    queryCtx.client_request.query_options.setExplain_level(TExplainLevel.EXTENDED);
+    queryCtx.client_request.query_options.setRuntime_filter_min_observed_rejection(0.1);
+
+    // Without observations the bloom filter is generated.
+    String explain = frontend_.getExplainString(queryCtx);
+    assertTrue(explain, explain.contains("RF000[bloom] <- b.id"));
+    assertFalse(explain, explain.contains("skipped runtime filters"));
+
+    for (int i = 0; i < RuntimeFilterFeedback.MIN_OBSERVATIONS; ++i) {
+      RuntimeFilterFeedback.INSTANCE.record(KEY, TRuntimeFilterType.BLOOM, 1000, 1);
+    }
+    explain = frontend_.getExplainString(queryCtx);
+    assertFalse(explain, explain.contains("RF000[bloom] <- b.id"));
+    assertTrue(explain,
+        explain.contains("skipped runtime filters: RF000[bloom] <- b.id"));
+
+    // The observations are ignored if the query option is not set.
+    queryCtx.client_request.query_options.setRuntime_filter_min_observed_rejection(0);
+    explain = frontend_.getExplainString(queryCtx);
+    assertTrue(explain, explain.contains("RF000[bloom] <- b.id"));
+  }
+}
@@ -0,0 +1,92 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.planner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.impala.catalog.Catalog;
+import org.apache.impala.common.ImpalaException;
+import org.apache.impala.service.Frontend.PlanCtx;
+import org.apache.impala.testutil.BenchmarkTests;
+import org.apache.impala.testutil.TestUtils;
+import org.apache.impala.thrift.TQueryCtx;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures planning time against the number of slots for queries that join the same
+ * wide view many times, which is the case where computing the value-transfer graph of
+ * the Analyzer dominates. Only runs with the 'benchmarks' profile and logs the
+ * minimum planning time per join count.
+ */
+@Category(BenchmarkTests.class)
+public class ValueTransferGraphBenchmarkTest extends PlannerTestBase {
+  private final static Logger LOG =
+      LoggerFactory.getLogger(ValueTransferGraphBenchmarkTest.class);
+
+  // Number of times the view is joined in each run.
+  private static final int[] NUM_JOINS = {2, 8, 32, 64};
+  // Number of planning runs per query after warming up.
+  private static final int NUM_RUNS = 3;
+
+  /**
+   * Returns a query that joins functional.alltypes 'numJoins' times on all of its
+   * int columns, so that every join adds a column's worth of value transfers between
+   * all of the joined tuples.
+   */
+  private static String createWideJoinQuery(int numJoins) {
+    StringBuilder sb = new StringBuilder("select count(*) from functional.alltypes t0");
+    for (int i = 1; i < numJoins; ++i) {
+      sb.append(String.format(" join functional.alltypes t%d on t%d.id = t%d.id" +
+          " and t%d.int_col = t%d.int_col and t%d.bigint_col = t%d.bigint_col",
+          i, i - 1, i, i - 1, i, i - 1, i));
+    }
+    sb.append(" where t0.id < 10");
+    return sb.toString();
+  }
+
+  private long planMillis(String query) throws ImpalaException {
+    TQueryCtx queryCtx = TestUtils.createQueryContext(Catalog.DEFAULT_DB,
+        System.getProperty("user.name"));
+    queryCtx.client_request.setStmt(query);
+    PlanCtx planCtx = new PlanCtx(queryCtx);
+    planCtx.disableDescTblSerialization();
+    long start = System.nanoTime();
+    frontend_.createExecRequest(planCtx);
+    return (System.nanoTime() - start) / 1000000;
+  }
+
+  @Test
+  public void testPlanningTimeBySlotCount() throws ImpalaException {
+    List<String> results = new ArrayList<>();
+    for (int numJoins: NUM_JOINS) {
+      String query = createWideJoinQuery(numJoins);
+      // Warm up, e.g. load the table metadata.
+      planMillis(query);
+      long minMillis = Long.MAX_VALUE;
+      for (int i = 0; i < NUM_RUNS; ++i) minMillis = Math.min(minMillis, planMillis(query));
+      // Each join materializes the three join columns of alltypes.
+      results.add(String.format("joins=%d slots~%d planning=%dms", numJoins,
+          3 * numJoins, minMillis));
+    }
+    for (String result: results) LOG.info("Value-transfer graph benchmark: " + result);
+  }
+}
@@ -0,0 +1,162 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.impala.common.ImpalaRuntimeException;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class ParallelHmsBatchRunnerTest {
+  private static List<Integer> range(int n) {
+    List<Integer> items = new ArrayList<>();
+    for (int i = 0; i < n; ++i) items.add(i);
+    return items;
+  }
+
+  @Test
+  public void testBatchesAreConsumedInOrder() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Integer> consumed = new ArrayList<>();
+    ParallelHmsBatchRunner.run("test", range(95), 10, 3,
+        batch -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          try {
+            Thread.sleep(5);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          running.decrementAndGet();
+          return batch.size();
+        },
+        (batch, size, timeMs) -> {
+          assertEquals(batch.size(), size.intValue());
+          assertTrue(timeMs >= 0);
+          consumed.addAll(batch);
+        });
+    assertEquals(range(95), consumed);
+    assertTrue(maxRunning.get() <= 3);
+  }
+
+  @Test
+  public void testFailedBatch() throws Exception {
+    // With a single batch in flight the batches after the failed one are skipped, the
+    // ones before it are still consumed.
+    List<Integer> consumed = new ArrayList<>();
+    try {
+      ParallelHmsBatchRunner.run("test", range(50), 10, 1,
+          batch -> {
+            if (batch.contains(25)) throw new ImpalaRuntimeException("injected");
+            return null;
+          },
+          (batch, unused, timeMs) -> consumed.addAll(batch));
+      fail("Expected the failure of the third batch");
+    } catch (ImpalaRuntimeException e) {
+      assertEquals("injected", e.getMessage());
+    }
+    assertEquals(range(20), consumed);
+  }
+
+  @Test
+  public void testFailedBatchWithParallelism() throws Exception {
+    // All batches that succeeded are consumed, whether they completed before or after
+    // the failed one.
+    List<Integer> consumed = new ArrayList<>();
+    try {
+      ParallelHmsBatchRunner.run("test", range(40), 10, 4,
+          batch -> {
+            if (batch.contains(0)) throw new ImpalaRuntimeException("injected");
+            return null;
+          },
+          (batch, unused, timeMs) -> consumed.addAll(batch));
+      fail("Expected the failure of the first batch");
+    } catch (ImpalaRuntimeException e) {
+      assertEquals("injected", e.getMessage());
+    }
+    for (int i = 0; i < consumed.size(); i += 10) {
+      List<Integer> batch = consumed.subList(i, i + 10);
+      assertTrue(batch.toString(), ImmutableList.of(10, 20, 30).contains(batch.get(0)));
+    }
+  }
+
+  @Test
+  public void testSharedPool() throws Exception {
+    // Concurrent operations run their batches on the shared pool, each with at most
+    // 'maxInFlight' of them at a time.
+    Set<String> threadNames = ConcurrentHashMap.newKeySet();
+    ExecutorService callers = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> maxRunning = new ArrayList<>();
+      for (int i = 0; i < 8; ++i) {
+        maxRunning.add(callers.submit(() -> {
+          AtomicInteger running = new AtomicInteger();
+          AtomicInteger max = new AtomicInteger();
+          ParallelHmsBatchRunner.run("test", range(100), 10, 3,
+              batch -> {
+                threadNames.add(Thread.currentThread().getName());
+                max.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                  Thread.sleep(5);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return null;
+              },
+              (batch, unused, timeMs) -> {});
+          return max.get();
+        }));
+      }
+      for (Future<Integer> max : maxRunning) assertTrue(max.get() <= 3);
+    } finally {
+      callers.shutdownNow();
+    }
+    for (String name : threadNames) {
+      assertTrue(name, name.startsWith("HmsPartitionRpc-"));
+    }
+    // BackendConfig is not initialized in this test, so the pool has 16 threads.
+    assertTrue(threadNames.toString(), threadNames.size() <= 16);
+  }
+
+  @Test
+  public void testUnexpectedException() throws Exception {
+    try {
+      ParallelHmsBatchRunner.run("test", range(5), 10, 2,
+          batch -> { throw new IllegalStateException("unexpected"); },
+          (batch, unused, timeMs) -> fail("No batch should succeed"));
+      fail("Expected a failure");
+    } catch (ImpalaRuntimeException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+package org.apache.impala.testutil;
+
+import org.apache.impala.hooks.QueryCompleteContext;
+import org.apache.impala.hooks.QueryEventHook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link QueryEventHook} that receives queries in batches and records the batch sizes.
+ * Tests can make the hook block until they release it, so that queries queue up.
+ */
+public class BlockingBatchQueryEventHook implements QueryEventHook {
+  public static final int MAX_BATCH_SIZE = 10;
+
+  private final List<Integer> batchSizes_ =
+      Collections.synchronizedList(new ArrayList<>());
+  private final Semaphore invocations_ = new Semaphore(0);
+  private volatile CountDownLatch release_ = new CountDownLatch(0);
+
+  @Override
+  public void onImpalaStartup() {
+  }
+
+  @Override
+  public int getMaxBatchSize() { return MAX_BATCH_SIZE; }
+
+  @Override
+  public void onQueryComplete(QueryCompleteContext context) {
+    onQueriesComplete(Collections.singletonList(context));
+  }
+
+  @Override
+  public void onQueriesComplete(List<QueryCompleteContext> contexts) {
+    batchSizes_.add(contexts.size());
+    invocations_.release();
+    try {
+      release_.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Makes the following invocations block until {@link #release()} is called.
+   */
+  public void block() { release_ = new CountDownLatch(1); }
+
+  public void release() { release_.countDown(); }
+
+  /**
+   * Waits until the hook has been invoked once more. Returns false on timeout.
+   */
+  public boolean awaitInvocation() throws InterruptedException {
+    return invocations_.tryAcquire(2, TimeUnit.SECONDS);
+  }
+
+  /**
+   * @return the number of queries passed to each invocation so far
+   */
+  public List<Integer> getBatchSizes() {
+    synchronized (batchSizes_) {
+      return new ArrayList<>(batchSizes_);
+    }
+  }
+}
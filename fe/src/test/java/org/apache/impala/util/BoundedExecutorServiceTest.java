@@ -0,0 +1,86 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class BoundedExecutorServiceTest {
+  @Test
+  public void testMaxConcurrency() throws Exception {
+    ExecutorService shared = Executors.newFixedThreadPool(8);
+    try {
+      BoundedExecutorService executor = new BoundedExecutorService(shared, 2);
+      AtomicInteger running = new AtomicInteger();
+      AtomicInteger maxRunning = new AtomicInteger();
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 20; ++i) {
+        futures.add(executor.submit(() -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          try {
+            Thread.sleep(5);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          running.decrementAndGet();
+        }));
+      }
+      for (Future<?> future : futures) future.get(10, TimeUnit.SECONDS);
+      assertTrue(maxRunning.get() <= 2);
+      assertEquals(0, running.get());
+    } finally {
+      shared.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testShutdown() throws Exception {
+    ExecutorService shared = Executors.newFixedThreadPool(2);
+    try {
+      BoundedExecutorService executor = new BoundedExecutorService(shared, 1);
+      Future<Integer> result = executor.submit(() -> 42);
+      assertEquals(42, (int) result.get(10, TimeUnit.SECONDS));
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+      try {
+        executor.submit(() -> 1);
+        fail("Expected RejectedExecutionException");
+      } catch (RejectedExecutionException e) {
+        // Expected.
+      }
+      // The shared executor is still usable.
+      assertFalse(shared.isShutdown());
+      assertEquals(1, (int) shared.submit(() -> 1).get(10, TimeUnit.SECONDS));
+    } finally {
+      shared.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.impala.util.Graph.RandomAccessibleGraph;
+import org.apache.impala.util.Graph.SccCondensedGraph;
+import org.apache.impala.util.Graph.WritableGraph;
+import org.junit.Test;
+
+/**
+ * Unit tests for the graph data structures used by the value-transfer graph.
+ */
+public class GraphTest {
+
+  /**
+   * Checks that the lazily computed closure of 'g' matches the eagerly computed
+   * reference closure, accessing the vertices in the given order.
+   */
+  private static void checkClosure(WritableGraph g, boolean reverseAccessOrder) {
+    RandomAccessibleGraph reference =
+        g.toRandomAccessible().reflexiveTransitiveClosure();
+    SccCondensedGraph condensed = SccCondensedGraph.condensedReflexiveTransitiveClosure(g);
+    int n = g.numVertices();
+    for (int i = 0; i < n; ++i) {
+      int src = reverseAccessOrder ? n - 1 - i : i;
+      for (int dst = 0; dst < n; ++dst) {
+        assertEquals(String.format("edge %d -> %d", src, dst),
+            reference.hasEdge(src, dst), condensed.hasEdge(src, dst));
+      }
+    }
+    assertTrue(condensed.validate(reference));
+  }
+
+  @Test
+  public void testEmptyAndSingleVertex() {
+    checkClosure(new WritableGraph(0), false);
+    WritableGraph g = new WritableGraph(1);
+    checkClosure(g, false);
+    g.addEdge(0, 0);
+    checkClosure(g, false);
+  }
+
+  @Test
+  public void testChainAndCycle() {
+    // 0 -> 1 -> 2 -> 3, 3 -> 1 forms a cycle {1, 2, 3}, 4 is isolated.
+    WritableGraph g = new WritableGraph(5);
+    g.addEdge(0, 1);
+    g.addEdge(1, 2);
+    g.addEdge(2, 3);
+    g.addEdge(3, 1);
+    SccCondensedGraph condensed = SccCondensedGraph.condensedReflexiveTransitiveClosure(g);
+    assertEquals(condensed.sccId(1), condensed.sccId(3));
+    assertEquals(3, condensed.sccMembersByVid(2).length);
+    assertTrue(condensed.hasEdge(0, 3));
+    assertFalse(condensed.hasEdge(3, 0));
+    assertTrue(condensed.hasEdge(4, 4));
+    assertFalse(condensed.hasEdge(4, 0));
+    checkClosure(g, false);
+    checkClosure(g, true);
+  }
+
+  @Test
+  public void testRandomGraphs() {
+    Random rand = new Random(42);
+    for (int iter = 0; iter < 50; ++iter) {
+      int n = 1 + rand.nextInt(60);
+      int numEdges = rand.nextInt(3 * n);
+      WritableGraph g = new WritableGraph(n);
+      for (int i = 0; i < numEdges; ++i) g.addEdge(rand.nextInt(n), rand.nextInt(n));
+      checkClosure(g, iter % 2 == 0);
+    }
+  }
+
+  /**
+   * Closures are only computed for the SCCs that are reachable from the vertices that
+   * are looked at.
+   */
+  @Test
+  public void testClosuresAreComputedLazily() {
+    // Two separate chains: 0 -> 1 -> 2 and 3 -> 4 -> 5.
+    WritableGraph g = new WritableGraph(6);
+    g.addEdge(0, 1);
+    g.addEdge(1, 2);
+    g.addEdge(3, 4);
+    g.addEdge(4, 5);
+    SccCondensedGraph condensed = SccCondensedGraph.condensedReflexiveTransitiveClosure(g);
+    assertEquals(0, condensed.numComputedClosures());
+
+    // Edges within an SCC and edges to SCCs with larger IDs are answered without a
+    // closure.
+    assertTrue(condensed.hasEdge(2, 2));
+    int src = condensed.sccId(0) < condensed.sccId(3) ? 0 : 3;
+    int dst = src == 0 ? 3 : 0;
+    assertFalse(condensed.hasEdge(src, dst));
+    assertEquals(0, condensed.numComputedClosures());
+
+    // Looking at vertex 1 computes the closures of {1} and {2} only.
+    assertTrue(condensed.hasEdge(1, 2));
+    assertEquals(2, condensed.numComputedClosures());
+    // Vertex 0 reuses them and only adds its own closure.
+    assertTrue(condensed.hasEdge(0, 2));
+    assertEquals(3, condensed.numComputedClosures());
+    // The other chain has not been touched.
+    assertFalse(condensed.hasEdge(3, 2));
+    assertEquals(6, condensed.numComputedClosures());
+  }
+
+  /**
+   * Deep chains must not overflow the stack when the closure is computed lazily.
+   */
+  @Test
+  public void testLongChain() {
+    int n = 10000;
+    WritableGraph g = new WritableGraph(n);
+    for (int i = 0; i + 1 < n; ++i) g.addEdge(i, i + 1);
+    SccCondensedGraph condensed = SccCondensedGraph.condensedReflexiveTransitiveClosure(g);
+    assertTrue(condensed.hasEdge(n - 2, n - 1));
+    assertTrue(condensed.hasEdge(0, n - 1));
+    assertFalse(condensed.hasEdge(n - 1, 0));
+    int numDsts = 0;
+    for (IntIterator it = condensed.dstIter(n - 10); it.hasNext(); it.next()) ++numDsts;
+    assertEquals(10, numDsts);
+  }
+}
@@ -0,0 +1,65 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.impala.service.FrontendProfile;
+import org.apache.impala.thrift.TCounter;
+import org.apache.impala.thrift.TRuntimeProfileNode;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+public class IcebergManifestReaderPoolTest {
+  @Test
+  public void testManifestReadsCounted() throws Exception {
+    FrontendProfile profile;
+    try (FrontendProfile.Scope scope = FrontendProfile.createNewWithScope()) {
+      ExecutorService executor = IcebergManifestReaderPool.newScanExecutor();
+      // The pool is disabled by the flags of this process.
+      Assume.assumeNotNull(executor);
+      // Iceberg submits one task per manifest file.
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 10; ++i) futures.add(executor.submit(() -> {}));
+      for (Future<?> future : futures) future.get(10, TimeUnit.SECONDS);
+      executor.shutdown();
+      profile = FrontendProfile.getCurrent();
+    }
+    TRuntimeProfileNode prof = profile.emitAsThrift();
+    Map<String, TCounter> counters = Maps.uniqueIndex(prof.counters, TCounter::getName);
+    assertEquals(10,
+        counters.get(IcebergManifestReaderPool.MANIFEST_READS).getValue());
+
+    // Without a profile, e.g. in catalogd, nothing is counted.
+    ExecutorService executor = IcebergManifestReaderPool.newScanExecutor();
+    assertNull(FrontendProfile.getCurrentOrNull());
+    executor.submit(() -> {}).get(10, TimeUnit.SECONDS);
+    executor.shutdown();
+  }
+}
@@ -25,10 +25,13 @@ import static org.apache.impala.thrift.TIcebergCatalog.HADOOP_TABLES;
 import static org.apache.impala.thrift.TIcebergCatalog.HIVE_CATALOG;
 import static org.apache.impala.util.IcebergUtil.getDateTimeTransformValue;
 import static org.apache.impala.util.IcebergUtil.getFilePathHash;
+import static org.apache.impala.util.IcebergUtil.getFileSystemPrefix;
 import static org.apache.impala.util.IcebergUtil.getIcebergFileFormat;
 import static org.apache.impala.util.IcebergUtil.getPartitionTransform;
 import static org.apache.impala.util.IcebergUtil.getPartitionTransformParams;
 import static org.apache.impala.util.IcebergUtil.isPartitionColumn;
+import static org.apache.impala.util.IcebergUtil.normalizeFilePath;
+import static org.apache.impala.util.IcebergUtil.normalizeFilePathBounds;
 import static org.apache.impala.util.IcebergUtil.toHdfsFileFormat;
 import static org.apache.impala.util.IcebergUtil.toTHdfsFileFormat;
 import static org.junit.Assert.assertEquals;
@@ -62,12 +65,14 @@ import org.apache.impala.catalog.iceberg.IcebergHadoopTables;
 import org.apache.impala.catalog.iceberg.IcebergHiveCatalog;
 import org.apache.impala.common.AnalysisException;
 import org.apache.impala.common.ImpalaRuntimeException;
+import org.apache.impala.common.Pair;
 import org.apache.impala.thrift.THdfsFileFormat;
 import org.apache.impala.thrift.TIcebergCatalog;
 import org.apache.impala.thrift.TIcebergFileFormat;
 import org.apache.impala.thrift.TIcebergPartitionTransformType;
 import org.junit.Test;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -264,6 +269,39 @@ public class IcebergUtilTest {
     assertEquals(hash, hash2);
   }
 
+  /**
+   * Unit test for normalizeFilePath() and normalizeFilePathBounds().
+   */
+  @Test
+  public void testNormalizeFilePath() {
+    URI defaultFs = URI.create("hdfs://nn:8020");
+    String path = "hdfs://nn:8020/wh/t/data/a.parq";
+    for (String p : new String[] {path, "/wh/t/data/a.parq", "hdfs:/wh/t/data/a.parq",
+        "hdfs://nn/wh/t/data/a.parq", "HDFS://NN:8020/wh/t/data/a.parq"}) {
+      assertEquals(p, path, normalizeFilePath(p, defaultFs));
+    }
+    assertEquals("hdfs://nn:8020", getFileSystemPrefix(path));
+    // The rest of the path is kept as is.
+    assertEquals("hdfs://nn:8020/wh/T//a.parq",
+        normalizeFilePath("hdfs://nn/wh/T//a.parq", defaultFs));
+    // Other file systems keep their authority and port.
+    assertEquals("s3a://bucket/wh/a.parq",
+        normalizeFilePath("S3A://Bucket/wh/a.parq", defaultFs));
+    assertEquals("hdfs://other/wh/a.parq",
+        normalizeFilePath("hdfs://other/wh/a.parq", defaultFs));
+    assertEquals("file:///tmp/a.parq", normalizeFilePath("file:/tmp/a.parq", defaultFs));
+    // Relative paths.
+    assertNull(normalizeFilePath("wh/a.parq", defaultFs));
+    assertNull(normalizeFilePath("//nn/wh/a.parq", defaultFs));
+    assertNull(normalizeFilePath("/wh/a.parq", null));
+
+    assertEquals(new Pair<>(path, path),
+        normalizeFilePathBounds("/wh/t/data/a.parq", "/wh/t/data/a.parq", defaultFs));
+    assertNull(normalizeFilePathBounds("/wh/t/data/a.parq", path, defaultFs));
+    assertNull(normalizeFilePathBounds(path, "hdfs://nn:8020/wh/a.parq", defaultFs));
+    assertNull(normalizeFilePathBounds(null, path, defaultFs));
+  }
+
   /**
    * Unit test for getPartitionTransformParams().
    */
@@ -0,0 +1,138 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+
+package org.apache.impala.util;
+
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_SECURITY_AUTH_TO_LOCAL;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.impala.authorization.User;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.testutil.BenchmarkTests;
+import org.apache.impala.thrift.TBackendGflags;
+import org.apache.impala.thrift.TResolveRequestPoolParams;
+import org.apache.impala.thrift.TResolveRequestPoolResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmarks resolving request pools and getting their configuration with the caches
+ * of RequestPoolService enabled and disabled. Only runs with the 'benchmarks' profile.
+ * The calls per second of each run are logged; the test only fails if the cached and
+ * uncached results differ.
+ */
+@Category(BenchmarkTests.class)
+public class RequestPoolServiceBenchmarkTest {
+  private final static Logger LOG =
+      LoggerFactory.getLogger(RequestPoolServiceBenchmarkTest.class);
+
+  private static final String ALLOCATION_FILE = "fair-scheduler-test.xml";
+  private static final String LLAMA_CONFIG_FILE = "llama-site-test.xml";
+
+  // Number of resolutions per timed run.
+  private static final int NUM_CALLS = 100000;
+  // Number of timed runs after warming up.
+  private static final int NUM_RUNS = 3;
+
+  private static final String[][] USERS_AND_POOLS = {
+      {"userA", "root.queueA"}, {"userB", "root.queueB"}, {"userB", "root.queueD"},
+      {"userA@abc.com", "root.queueA"}, {"userZ", "nonexistentQueue"}};
+
+  private TBackendGflags origFlags_;
+  private final List<RequestPoolService> poolServices_ = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    if (BackendConfig.INSTANCE == null) BackendConfig.create(new TBackendGflags());
+    origFlags_ = BackendConfig.INSTANCE.getBackendCfg().deepCopy();
+    User.setRulesForTesting(
+        new Configuration().get(HADOOP_SECURITY_AUTH_TO_LOCAL, "DEFAULT"));
+  }
+
+  @After
+  public void tearDown() {
+    for (RequestPoolService poolService: poolServices_) poolService.stop();
+    BackendConfig.create(origFlags_);
+  }
+
+  private RequestPoolService createPoolService(int cacheTtlS) throws Exception {
+    BackendConfig.INSTANCE.getBackendCfg().setRequest_pool_cache_ttl_s(cacheTtlS);
+    RequestPoolService poolService = RequestPoolService.getInstance(
+        getClasspathPath(ALLOCATION_FILE), getClasspathPath(LLAMA_CONFIG_FILE),
+        /* isTest */ true);
+    poolService.start();
+    poolServices_.add(poolService);
+    return poolService;
+  }
+
+  private String getClasspathPath(String filename) throws Exception {
+    return new File(getClass().getClassLoader().getResource(filename).toURI())
+        .getAbsolutePath();
+  }
+
+  private static long callsPerSecond(RequestPoolService poolService) throws Exception {
+    long start = System.nanoTime();
+    for (int i = 0; i < NUM_CALLS; ++i) {
+      String[] userAndPool = USERS_AND_POOLS[i % USERS_AND_POOLS.length];
+      TResolveRequestPoolResult result = poolService.resolveRequestPool(
+          new TResolveRequestPoolParams(userAndPool[0], userAndPool[1]));
+      if (result.isSetResolved_pool()) {
+        poolService.getPoolConfig(result.getResolved_pool());
+      }
+    }
+    long nanos = Math.max(1, System.nanoTime() - start);
+    return NUM_CALLS * 1000000000L / nanos;
+  }
+
+  @Test
+  public void testResolutionThroughput() throws Exception {
+    RequestPoolService uncached = createPoolService(0);
+    RequestPoolService cached = createPoolService(60);
+    for (String[] userAndPool: USERS_AND_POOLS) {
+      TResolveRequestPoolParams params =
+          new TResolveRequestPoolParams(userAndPool[0], userAndPool[1]);
+      TResolveRequestPoolResult expected = uncached.resolveRequestPool(params);
+      Assert.assertEquals(expected, cached.resolveRequestPool(params));
+      Assert.assertEquals(expected, cached.resolveRequestPool(params));
+      if (expected.isSetResolved_pool()) {
+        String pool = expected.getResolved_pool();
+        Assert.assertEquals(uncached.getPoolConfig(pool), cached.getPoolConfig(pool));
+      }
+    }
+    // Warm up.
+    callsPerSecond(uncached);
+    callsPerSecond(cached);
+    long maxUncached = 0;
+    long maxCached = 0;
+    for (int i = 0; i < NUM_RUNS; ++i) {
+      maxUncached = Math.max(maxUncached, callsPerSecond(uncached));
+      maxCached = Math.max(maxCached, callsPerSecond(cached));
+    }
+    LOG.info(String.format("Request pool resolution benchmark: calls=%d " +
+        "uncached=%d/s cached=%d/s", NUM_CALLS, maxUncached, maxCached));
+  }
+}
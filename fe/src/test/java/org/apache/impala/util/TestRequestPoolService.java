@@ -55,6 +55,8 @@ import org.apache.impala.authorization.User;
 import org.apache.impala.common.ByteUnits;
 import org.apache.impala.common.InternalException;
 import org.apache.impala.common.RuntimeEnv;
+import org.apache.impala.service.BackendConfig;
+import org.apache.impala.thrift.TBackendGflags;
 import org.apache.impala.thrift.TErrorCode;
 import org.apache.impala.thrift.TPoolConfig;
 import org.apache.impala.thrift.TResolveRequestPoolParams;
@@ -544,6 +546,43 @@ public class TestRequestPoolService {
     assertFailureMessage(xmlString5, "Duplicate value given for name");
   }
 
+  @Test
+  public void testResolvedPoolsAreCached() throws Exception {
+    if (BackendConfig.INSTANCE == null) BackendConfig.create(new TBackendGflags());
+    int origTtlS = BackendConfig.INSTANCE.getRequestPoolCacheTtlS();
+    BackendConfig.INSTANCE.getBackendCfg().setRequest_pool_cache_ttl_s(60);
+    try {
+      createPoolService(ALLOCATION_FILE, LLAMA_CONFIG_FILE);
+      TResolveRequestPoolParams params =
+          new TResolveRequestPoolParams("userB", "root.queueB");
+      TResolveRequestPoolResult result = poolService_.resolveRequestPool(params);
+      Assert.assertEquals("root.queueB", result.getResolved_pool());
+      Assert.assertTrue(result.isHas_access());
+      Assert.assertEquals(1, poolService_.getNumCachedResolvedPools());
+      Assert.assertEquals(result, poolService_.resolveRequestPool(params));
+
+      // Unresolved pools are cached as well.
+      result = poolService_.resolveRequestPool(
+          new TResolveRequestPoolParams("userA", "nonexistentQueue"));
+      Assert.assertEquals(TErrorCode.OK, result.getStatus().getStatus_code());
+      Assert.assertFalse(result.isSetResolved_pool());
+      Assert.assertEquals(2, poolService_.getNumCachedResolvedPools());
+
+      // Modifying a returned result does not modify the cached one.
+      poolService_.resolveRequestPool(params).setResolved_pool("root.queueA");
+      Assert.assertEquals("root.queueB",
+          poolService_.resolveRequestPool(params).getResolved_pool());
+      poolService_.getPoolConfig("root.queueB").setMax_requests(0);
+      checkPoolConfigResult("root.queueB", 5, 10, -1, 30000L, "mem_limit=1024m");
+
+      // Reloading the allocation file drops the cached results.
+      poolService_.allocLoader_.reloadAllocations();
+      Assert.assertEquals(0, poolService_.getNumCachedResolvedPools());
+    } finally {
+      BackendConfig.INSTANCE.getBackendCfg().setRequest_pool_cache_ttl_s(origTtlS);
+    }
+  }
+
   private void checkModifiedConfigResults()
       throws InternalException, IOException {
     // Test pool resolution: now there's a queueC
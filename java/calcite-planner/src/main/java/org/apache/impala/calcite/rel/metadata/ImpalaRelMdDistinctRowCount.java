@@ -0,0 +1,76 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.calcite.rel.metadata;
+
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.metadata.BuiltInMetadata;
+import org.apache.calcite.rel.metadata.ReflectiveRelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMdDistinctRowCount;
+import org.apache.calcite.rel.metadata.RelMdUtil;
+import org.apache.calcite.rel.metadata.RelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.util.ImmutableBitSet;
+import org.apache.impala.calcite.schema.CalciteTable;
+import org.apache.impala.catalog.ColumnStats;
+
+/**
+ * ImpalaRelMdDistinctRowCount. Computes the number of distinct values of a set of
+ * columns of a table scan from the Impala column stats. Other rel nodes use the
+ * Calcite handlers, which derive their estimates from their inputs.
+ */
+public class ImpalaRelMdDistinctRowCount extends RelMdDistinctRowCount {
+  public static final RelMetadataProvider SOURCE =
+      ReflectiveRelMetadataProvider.reflectiveSource(
+          new ImpalaRelMdDistinctRowCount(),
+          BuiltInMetadata.DistinctRowCount.Handler.class);
+
+  protected ImpalaRelMdDistinctRowCount() {}
+
+  public Double getDistinctRowCount(TableScan rel, RelMetadataQuery mq,
+      ImmutableBitSet groupKey, RexNode predicate) {
+    CalciteTable table = ImpalaRelMdUtil.getCalciteTable(rel.getTable());
+    if (table == null || !table.hasRowCount()) {
+      return super.getDistinctRowCount((RelNode) rel, mq, groupKey, predicate);
+    }
+    double rowCount = table.getRowCount();
+    if (groupKey.isEmpty()) return rowCount > 0 ? 1.0 : 0.0;
+
+    // The product of the column NDVs, bounded by the row count, like the
+    // grouping cardinality estimate of AggregationNode.
+    double ndv = 1.0;
+    for (int column : groupKey) {
+      long columnNdv = table.getColumnNdv(column);
+      if (columnNdv < 0) {
+        return super.getDistinctRowCount((RelNode) rel, mq, groupKey, predicate);
+      }
+      // Like SlotRef, only count NULL as a value if the NDV is 0.
+      if (columnNdv == 0 && hasNulls(table.getColumnStats(column))) columnNdv = 1;
+      ndv *= columnNdv;
+    }
+    ndv = Math.min(ndv, rowCount);
+    if (predicate == null || predicate.isAlwaysTrue()) return ndv;
+    double selectivity = ImpalaRelMdUtil.estimateSelectivity(rel, mq, predicate);
+    return RelMdUtil.numDistinctVals(ndv, rowCount * selectivity);
+  }
+
+  private static boolean hasNulls(ColumnStats stats) {
+    return stats.hasNulls() || !stats.hasNullsStats();
+  }
+}
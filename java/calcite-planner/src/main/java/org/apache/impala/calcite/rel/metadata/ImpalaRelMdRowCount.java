@@ -0,0 +1,207 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.calcite.rel.metadata;
+
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.metadata.BuiltInMetadata;
+import org.apache.calcite.rel.metadata.ReflectiveRelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelColumnOrigin;
+import org.apache.calcite.rel.metadata.RelMdRowCount;
+import org.apache.calcite.rel.metadata.RelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.util.Pair;
+import org.apache.impala.calcite.schema.CalciteTable;
+import org.apache.impala.planner.JoinNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ImpalaRelMdRowCount. Estimates the cardinality of inner joins the same way as
+ * JoinNode.getJoinCardinality(). Only equi-join keys that map directly to base table
+ * columns with stats are used, and their NDVs are the column NDVs capped at the table
+ * row count, without counting NULL as a value:
+ * - If the right-hand side columns of the keys joining the same pair of tables may be
+ *   a primary key, i.e. their joint NDV is close to the table row count, the join is
+ *   treated as a FK/PK join, see JoinNode.getFkPkJoinCardinality().
+ * - Otherwise JoinNode.computeGenericJoinCardinality() gives
+ *   |L| * |R| / max(NDV(L.key), NDV(R.key)) per key, with the NDVs scaled down by the
+ *   selectivity of the inputs, and the smallest estimate is used.
+ * - Without eligible keys a FK/PK join with a selectivity of 1 is assumed.
+ * Table scans get their row count from CalciteTable.getRowCount(); all other rel
+ * nodes use the Calcite handlers.
+ */
+public class ImpalaRelMdRowCount extends RelMdRowCount {
+  public static final RelMetadataProvider SOURCE =
+      ReflectiveRelMetadataProvider.reflectiveSource(
+          new ImpalaRelMdRowCount(), BuiltInMetadata.RowCount.Handler.class);
+
+  protected ImpalaRelMdRowCount() {}
+
+  /**
+   * The stats of the base table columns on both sides of an equi-join key, the
+   * counterpart of JoinNode.EqJoinConjunctScanSlots.
+   */
+  private static class EqJoinKeyStats {
+    final RelOptTable lhsTable;
+    final RelOptTable rhsTable;
+    final double lhsNdv;
+    final double rhsNdv;
+    final double lhsNumRows;
+    final double rhsNumRows;
+
+    private EqJoinKeyStats(RelColumnOrigin lhs, RelColumnOrigin rhs) {
+      CalciteTable lhsCalciteTable =
+          ImpalaRelMdUtil.getCalciteTable(lhs.getOriginTable());
+      CalciteTable rhsCalciteTable =
+          ImpalaRelMdUtil.getCalciteTable(rhs.getOriginTable());
+      lhsTable = lhs.getOriginTable();
+      rhsTable = rhs.getOriginTable();
+      lhsNdv = lhsCalciteTable.getColumnNdv(lhs.getOriginColumnOrdinal());
+      rhsNdv = rhsCalciteTable.getColumnNdv(rhs.getOriginColumnOrdinal());
+      lhsNumRows = lhsCalciteTable.getRowCount();
+      rhsNumRows = rhsCalciteTable.getRowCount();
+    }
+
+    /**
+     * Returns the stats of the key joining column 'lhsColumn' of 'lhs' with column
+     * 'rhsColumn' of 'rhs', or null if one of them is not a base table column with
+     * an NDV and a table row count.
+     */
+    static EqJoinKeyStats create(RelNode lhs, int lhsColumn, RelNode rhs,
+        int rhsColumn, RelMetadataQuery mq) {
+      RelColumnOrigin lhsOrigin = ImpalaRelMdUtil.getBaseColumnOrigin(lhs, mq, lhsColumn);
+      RelColumnOrigin rhsOrigin = ImpalaRelMdUtil.getBaseColumnOrigin(rhs, mq, rhsColumn);
+      if (!hasStats(lhsOrigin) || !hasStats(rhsOrigin)) return null;
+      return new EqJoinKeyStats(lhsOrigin, rhsOrigin);
+    }
+
+    private static boolean hasStats(RelColumnOrigin origin) {
+      if (origin == null) return false;
+      CalciteTable table = ImpalaRelMdUtil.getCalciteTable(origin.getOriginTable());
+      return table.hasRowCount()
+          && table.getColumnNdv(origin.getOriginColumnOrdinal()) >= 0;
+    }
+  }
+
+  @Override
+  public Double getRowCount(Join rel, RelMetadataQuery mq) {
+    if (rel.getJoinType() != JoinRelType.INNER) return super.getRowCount(rel, mq);
+    JoinInfo joinInfo = rel.analyzeCondition();
+    if (joinInfo.leftKeys.isEmpty()) return super.getRowCount(rel, mq);
+
+    Double leftRowCount = mq.getRowCount(rel.getLeft());
+    Double rightRowCount = mq.getRowCount(rel.getRight());
+    if (leftRowCount == null || rightRowCount == null) {
+      return super.getRowCount(rel, mq);
+    }
+    long lhsCard = Math.round(leftRowCount);
+    long rhsCard = Math.round(rightRowCount);
+
+    List<EqJoinKeyStats> keyStats = new ArrayList<>();
+    for (int i = 0; i < joinInfo.leftKeys.size(); ++i) {
+      EqJoinKeyStats stats = EqJoinKeyStats.create(rel.getLeft(),
+          joinInfo.leftKeys.get(i), rel.getRight(), joinInfo.rightKeys.get(i), mq);
+      if (stats != null) keyStats.add(stats);
+    }
+
+    double result;
+    if (keyStats.isEmpty()) {
+      // Like JoinNode, optimistically assume FK/PK with a join selectivity of 1.
+      result = lhsCard;
+    } else {
+      List<EqJoinKeyStats> fkPkKeyStats = getFkPkKeyStats(keyStats);
+      result = fkPkKeyStats != null ?
+          getFkPkJoinCardinality(fkPkKeyStats, lhsCard, rhsCard) :
+          getGenericJoinCardinality(keyStats, lhsCard, rhsCard);
+    }
+
+    RexNode nonEquiCondition = RexUtil.composeConjunction(
+        rel.getCluster().getRexBuilder(), joinInfo.nonEquiConditions);
+    if (!nonEquiCondition.isAlwaysTrue()) {
+      result *= ImpalaRelMdUtil.estimateSelectivity(rel, mq, nonEquiCondition);
+    }
+    return Math.max(1.0, result);
+  }
+
+  /**
+   * Returns the keys whose right-hand side may be a primary key, or null if there are
+   * none. The keys are grouped by the pair of joined tables, see
+   * JoinNode.getFkPkEqJoinConjuncts().
+   */
+  private static List<EqJoinKeyStats> getFkPkKeyStats(List<EqJoinKeyStats> keyStats) {
+    Map<Pair<RelOptTable, RelOptTable>, List<EqJoinKeyStats>> keyStatsByTables =
+        new LinkedHashMap<>();
+    for (EqJoinKeyStats stats : keyStats) {
+      keyStatsByTables.computeIfAbsent(Pair.of(stats.lhsTable, stats.rhsTable),
+          k -> new ArrayList<>()).add(stats);
+    }
+    List<EqJoinKeyStats> result = null;
+    for (List<EqJoinKeyStats> fkPkCandidate : keyStatsByTables.values()) {
+      double jointNdv = 1.0;
+      for (EqJoinKeyStats stats : fkPkCandidate) jointNdv *= stats.rhsNdv;
+      double rhsNumRows = fkPkCandidate.get(0).rhsNumRows;
+      if (jointNdv >= Math.round(
+          rhsNumRows * (1.0 - JoinNode.FK_PK_MAX_STATS_DELTA_PERC))) {
+        if (result == null) result = new ArrayList<>();
+        result.addAll(fkPkCandidate);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * See JoinNode.getFkPkJoinCardinality().
+   */
+  private static double getFkPkJoinCardinality(List<EqJoinKeyStats> keyStats,
+      long lhsCard, long rhsCard) {
+    long result = -1;
+    for (EqJoinKeyStats stats : keyStats) {
+      double ndvRatio = 1.0;
+      if (stats.lhsNdv > 0) ndvRatio = stats.rhsNdv / stats.lhsNdv;
+      double rhsSelectivity = Double.MIN_VALUE;
+      if (stats.rhsNumRows > 0) rhsSelectivity = rhsCard / stats.rhsNumRows;
+      long joinCard = (long) Math.ceil(lhsCard * rhsSelectivity * ndvRatio);
+      if (result == -1 || joinCard < result) result = joinCard;
+    }
+    return Math.min(result, lhsCard);
+  }
+
+  /**
+   * See JoinNode.getGenericJoinCardinality(). The join selectivity correlation factor
+   * query option is not applied.
+   */
+  private static double getGenericJoinCardinality(List<EqJoinKeyStats> keyStats,
+      long lhsCard, long rhsCard) {
+    long result = -1;
+    for (EqJoinKeyStats stats : keyStats) {
+      long joinCard = JoinNode.computeGenericJoinCardinality(stats.lhsNdv,
+          stats.rhsNdv, stats.lhsNumRows, stats.rhsNumRows, lhsCard, rhsCard);
+      if (result == -1 || joinCard < result) result = joinCard;
+    }
+    return result;
+  }
+}
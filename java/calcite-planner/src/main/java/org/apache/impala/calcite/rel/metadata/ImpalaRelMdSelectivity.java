@@ -0,0 +1,44 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.calcite.rel.metadata;
+
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.metadata.BuiltInMetadata;
+import org.apache.calcite.rel.metadata.ReflectiveRelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMdSelectivity;
+import org.apache.calcite.rel.metadata.RelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexNode;
+
+/**
+ * ImpalaRelMdSelectivity. Estimates predicate selectivity from the Impala column
+ * stats. The Calcite handlers for Filter, Project, Join, etc. are inherited and push
+ * the predicate down to the leaf, where the Impala estimate is applied.
+ */
+public class ImpalaRelMdSelectivity extends RelMdSelectivity {
+  public static final RelMetadataProvider SOURCE =
+      ReflectiveRelMetadataProvider.reflectiveSource(
+          new ImpalaRelMdSelectivity(), BuiltInMetadata.Selectivity.Handler.class);
+
+  protected ImpalaRelMdSelectivity() {}
+
+  @Override
+  public Double getSelectivity(RelNode rel, RelMetadataQuery mq, RexNode predicate) {
+    return ImpalaRelMdUtil.estimateSelectivity(rel, mq, predicate);
+  }
+}
@@ -0,0 +1,231 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.calcite.rel.metadata;
+
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.metadata.RelColumnOrigin;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.util.Sarg;
+import org.apache.impala.analysis.Expr;
+import org.apache.impala.calcite.schema.CalciteTable;
+import org.apache.impala.catalog.ColumnStats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helper methods shared by the Impala metadata handlers. The estimates here follow
+ * the ones made by the Impala planner (see PlanNode.computeCombinedSelectivity() and
+ * the Expr subclasses' computeSelectivity()) so that plans produced by the Calcite
+ * planner are costed the same way as those produced by the original planner.
+ */
+public class ImpalaRelMdUtil {
+
+  private ImpalaRelMdUtil() {}
+
+  /**
+   * Returns the base table column from which the output column 'column' of 'rel'
+   * originates, or null if the column is derived from an expression or does not
+   * come from a CalciteTable.
+   */
+  public static RelColumnOrigin getBaseColumnOrigin(RelNode rel,
+      RelMetadataQuery mq, int column) {
+    RelColumnOrigin origin = mq.getColumnOrigin(rel, column);
+    if (origin == null || origin.isDerived()) return null;
+    if (getCalciteTable(origin.getOriginTable()) == null) return null;
+    return origin;
+  }
+
+  public static CalciteTable getCalciteTable(RelOptTable table) {
+    if (table == null) return null;
+    return table.unwrap(CalciteTable.class);
+  }
+
+  /**
+   * Returns the column stats of the output column 'column' of 'rel', or null if
+   * the column does not map to a base table column.
+   */
+  public static ColumnStats getColumnStats(RelNode rel, RelMetadataQuery mq,
+      int column) {
+    RelColumnOrigin origin = getBaseColumnOrigin(rel, mq, column);
+    if (origin == null) return null;
+    return getCalciteTable(origin.getOriginTable()).getColumnStats(
+        origin.getOriginColumnOrdinal());
+  }
+
+  /**
+   * Returns the number of distinct values of the output column 'column' of 'rel'
+   * according to the base table column stats, or -1 if unknown.
+   */
+  public static long getColumnNdv(RelNode rel, RelMetadataQuery mq, int column) {
+    RelColumnOrigin origin = getBaseColumnOrigin(rel, mq, column);
+    if (origin == null) return -1;
+    return getCalciteTable(origin.getOriginTable()).getColumnNdv(
+        origin.getOriginColumnOrdinal());
+  }
+
+  /**
+   * Estimates the selectivity of 'predicate' evaluated over the output of 'rel'.
+   * Conjuncts are combined with the same exponential backoff used by the Impala
+   * planner.
+   */
+  public static double estimateSelectivity(RelNode rel, RelMetadataQuery mq,
+      RexNode predicate) {
+    if (predicate == null || predicate.isAlwaysTrue()) return 1.0;
+    if (predicate.isAlwaysFalse()) return 0.0;
+    List<RexNode> conjuncts = RelOptUtil.conjunctions(predicate);
+    if (conjuncts.size() > 1) {
+      List<Double> selectivities = new ArrayList<>();
+      for (RexNode conjunct : conjuncts) {
+        selectivities.add(estimateSingleSelectivity(rel, mq, conjunct));
+      }
+      return combineSelectivities(selectivities);
+    }
+    return estimateSingleSelectivity(rel, mq, predicate);
+  }
+
+  /**
+   * Combines the selectivities of a list of conjuncts. The most selective conjunct
+   * is fully applied and every following one is dampened by an increasing root.
+   */
+  public static double combineSelectivities(List<Double> selectivities) {
+    List<Double> sorted = new ArrayList<>(selectivities);
+    Collections.sort(sorted);
+    double result = 1.0;
+    for (int i = 0; i < sorted.size(); ++i) {
+      result *= Math.pow(sorted.get(i), 1.0 / (double) (i + 1));
+    }
+    return Math.max(0.0, Math.min(1.0, result));
+  }
+
+  private static double estimateSingleSelectivity(RelNode rel, RelMetadataQuery mq,
+      RexNode predicate) {
+    switch (predicate.getKind()) {
+      case AND:
+        return estimateSelectivity(rel, mq, predicate);
+      case OR: {
+        double result = 0.0;
+        for (RexNode disjunct : ((RexCall) predicate).getOperands()) {
+          double sel = estimateSelectivity(rel, mq, disjunct);
+          result = result + sel - result * sel;
+        }
+        return Math.max(0.0, Math.min(1.0, result));
+      }
+      case NOT:
+        return 1.0 - estimateSelectivity(rel, mq, ((RexCall) predicate).getOperands()
+            .get(0));
+      case EQUALS:
+      case IS_NOT_DISTINCT_FROM:
+        return estimateEqualsSelectivity(rel, mq, (RexCall) predicate);
+      case NOT_EQUALS:
+      case IS_DISTINCT_FROM:
+        return 1.0 - estimateEqualsSelectivity(rel, mq, (RexCall) predicate);
+      case IN:
+      case SEARCH:
+        return estimateInSelectivity(rel, mq, (RexCall) predicate);
+      case IS_NULL:
+        return estimateIsNullSelectivity(rel, mq, (RexCall) predicate, true);
+      case IS_NOT_NULL:
+        return estimateIsNullSelectivity(rel, mq, (RexCall) predicate, false);
+      default:
+        return Expr.DEFAULT_SELECTIVITY;
+    }
+  }
+
+  /**
+   * Returns 1 / NDV for a comparison between a column and a constant, matching
+   * BinaryPredicate.computeSelectivity().
+   */
+  private static double estimateEqualsSelectivity(RelNode rel, RelMetadataQuery mq,
+      RexCall call) {
+    RexInputRef ref = getColumnComparedToConstant(call);
+    if (ref == null) return Expr.DEFAULT_SELECTIVITY;
+    long ndv = getColumnNdv(rel, mq, ref.getIndex());
+    if (ndv <= 0) return Expr.DEFAULT_SELECTIVITY;
+    return 1.0 / ndv;
+  }
+
+  /**
+   * Returns the number of values in the list times 1 / NDV, matching
+   * InPredicate.computeSelectivity().
+   */
+  private static double estimateInSelectivity(RelNode rel, RelMetadataQuery mq,
+      RexCall call) {
+    if (call.getKind() == SqlKind.SEARCH) {
+      // A SEARCH is the Sarg form of IN and range predicates. Only a point Sarg
+      // is a plain IN list.
+      RexNode operand = call.getOperands().get(0);
+      RexNode literal = call.getOperands().get(1);
+      if (!(operand instanceof RexInputRef) || !(literal instanceof RexLiteral)) {
+        return Expr.DEFAULT_SELECTIVITY;
+      }
+      Sarg<?> sarg = ((RexLiteral) literal).getValueAs(Sarg.class);
+      if (sarg == null || !sarg.isPoints()) return Expr.DEFAULT_SELECTIVITY;
+      long ndv = getColumnNdv(rel, mq, ((RexInputRef) operand).getIndex());
+      if (ndv <= 0) return Expr.DEFAULT_SELECTIVITY;
+      return Math.min(1.0, (double) sarg.pointCount / ndv);
+    }
+    RexNode operand = call.getOperands().get(0);
+    if (!(operand instanceof RexInputRef)) return Expr.DEFAULT_SELECTIVITY;
+    long ndv = getColumnNdv(rel, mq, ((RexInputRef) operand).getIndex());
+    if (ndv <= 0) return Expr.DEFAULT_SELECTIVITY;
+    return Math.min(1.0, (double) (call.getOperands().size() - 1) / ndv);
+  }
+
+  /**
+   * Uses the null count of the column, matching IsNullPredicate.computeSelectivity().
+   */
+  private static double estimateIsNullSelectivity(RelNode rel, RelMetadataQuery mq,
+      RexCall call, boolean isNull) {
+    RexNode operand = call.getOperands().get(0);
+    if (!(operand instanceof RexInputRef)) return Expr.DEFAULT_SELECTIVITY;
+    RelColumnOrigin origin =
+        getBaseColumnOrigin(rel, mq, ((RexInputRef) operand).getIndex());
+    if (origin == null) return Expr.DEFAULT_SELECTIVITY;
+    CalciteTable table = getCalciteTable(origin.getOriginTable());
+    ColumnStats stats = table.getColumnStats(origin.getOriginColumnOrdinal());
+    if (stats == null || !stats.hasNullsStats() || !table.hasRowCount()
+        || table.getRowCount() <= 0) {
+      return Expr.DEFAULT_SELECTIVITY;
+    }
+    double nullSel = Math.min(1.0, stats.getNumNulls() / table.getRowCount());
+    return isNull ? nullSel : 1.0 - nullSel;
+  }
+
+  private static RexInputRef getColumnComparedToConstant(RexCall call) {
+    if (call.getOperands().size() != 2) return null;
+    RexNode left = RexUtil.removeCast(call.getOperands().get(0));
+    RexNode right = RexUtil.removeCast(call.getOperands().get(1));
+    if (left instanceof RexInputRef && RexUtil.isConstant(right)) {
+      return (RexInputRef) left;
+    }
+    if (right instanceof RexInputRef && RexUtil.isConstant(left)) {
+      return (RexInputRef) right;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,53 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.calcite.rel.metadata;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.calcite.rel.metadata.ChainedRelMetadataProvider;
+import org.apache.calcite.rel.metadata.DefaultRelMetadataProvider;
+import org.apache.calcite.rel.metadata.JaninoRelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+
+/**
+ * ImpalaRelMetadataProvider. Metadata provider used by the Calcite planner. The
+ * Impala handlers take precedence and fall back to the Calcite defaults for the
+ * metadata they do not provide.
+ */
+public class ImpalaRelMetadataProvider {
+  public static final RelMetadataProvider INSTANCE =
+      ChainedRelMetadataProvider.of(ImmutableList.of(
+          ImpalaRelMdRowCount.SOURCE,
+          ImpalaRelMdDistinctRowCount.SOURCE,
+          ImpalaRelMdSelectivity.SOURCE,
+          DefaultRelMetadataProvider.INSTANCE));
+
+  // The compiled handlers of INSTANCE, shared by all metadata queries.
+  public static final JaninoRelMetadataProvider JANINO_INSTANCE =
+      JaninoRelMetadataProvider.of(INSTANCE);
+
+  private ImpalaRelMetadataProvider() {}
+
+  /**
+   * Returns a new metadata query that uses the Impala handlers. Used as the metadata
+   * query supplier of the RelOptCluster.
+   */
+  public static RelMetadataQuery createMetadataQuery() {
+    return new RelMetadataQuery(JANINO_INSTANCE);
+  }
+}
@@ -48,6 +48,7 @@ import org.apache.impala.analysis.SlotRef;
 import org.apache.impala.analysis.TableRef;
 import org.apache.impala.analysis.TupleDescriptor;
 import org.apache.impala.catalog.Column;
+import org.apache.impala.catalog.ColumnStats;
 import org.apache.impala.catalog.FeFsPartition;
 import org.apache.impala.catalog.FeTable;
 import org.apache.impala.catalog.HdfsTable;
@@ -159,6 +160,46 @@ public class CalciteTable extends RelOptAbstractTable
     return table_;
   }
 
+  /**
+   * Returns the row count from the table statistics. If the table has no stats,
+   * the Calcite default estimate is returned so that the join optimizer still has
+   * a usable, if arbitrary, value.
+   */
+  @Override
+  public double getRowCount() {
+    long numRows = table_.getNumRows();
+    return numRows >= 0 ? numRows : super.getRowCount();
+  }
+
+  /**
+   * Returns true if the table has a row count in its statistics.
+   */
+  public boolean hasRowCount() {
+    return table_.getNumRows() >= 0;
+  }
+
+  /**
+   * Returns the column stats for the column at position 'ordinal' of the Calcite
+   * row type, or null if the ordinal is out of range.
+   */
+  public ColumnStats getColumnStats(int ordinal) {
+    List<Column> columns = table_.getColumnsInHiveOrder();
+    if (ordinal < 0 || ordinal >= columns.size()) return null;
+    return columns.get(ordinal).getStats();
+  }
+
+  /**
+   * Returns the number of distinct values of the column at position 'ordinal' of
+   * the Calcite row type, capped at the table row count, or -1 if unknown.
+   */
+  public long getColumnNdv(int ordinal) {
+    ColumnStats stats = getColumnStats(ordinal);
+    if (stats == null || !stats.hasNumDistinctValues()) return -1;
+    long ndv = stats.getNumDistinctValues();
+    long numRows = table_.getNumRows();
+    return numRows >= 0 ? Math.min(ndv, numRows) : ndv;
+  }
+
   @Override
   public List<String> getQualifiedName() {
     return qualifiedTableName_;
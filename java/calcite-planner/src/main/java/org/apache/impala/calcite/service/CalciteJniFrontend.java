@@ -19,8 +19,6 @@ package org.apache.impala.calcite.service;
 
 import org.apache.impala.util.EventSequence;
 import org.apache.calcite.rel.RelNode;
-import org.apache.calcite.rel.metadata.DefaultRelMetadataProvider;
-import org.apache.calcite.rel.metadata.JaninoRelMetadataProvider;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.sql.SqlExplain;
 import org.apache.calcite.sql.SqlNode;
@@ -30,6 +28,7 @@ import org.apache.impala.calcite.functions.FunctionResolver;
 import org.apache.impala.calcite.operators.ImpalaOperatorTable;
 import org.apache.impala.calcite.rel.node.NodeWithExprs;
 import org.apache.impala.calcite.rel.node.ImpalaPlanRel;
+import org.apache.impala.calcite.rel.metadata.ImpalaRelMetadataProvider;
 import org.apache.impala.catalog.BuiltinsDb;
 import org.apache.impala.common.ImpalaException;
 import org.apache.impala.common.JniUtil;
@@ -92,8 +91,7 @@ public class CalciteJniFrontend extends JniFrontend {
       LOG.info("Using Calcite Planner for the following query: " + queryCtx.getStmt());
 
       // Parse the query
-      RelMetadataQuery.THREAD_PROVIDERS.set(
-          JaninoRelMetadataProvider.of(DefaultRelMetadataProvider.INSTANCE));
+      RelMetadataQuery.THREAD_PROVIDERS.set(ImpalaRelMetadataProvider.JANINO_INSTANCE);
       CalciteQueryParser queryParser = new CalciteQueryParser(queryCtx);
       SqlNode parsedSqlNode = queryParser.parse();
       markEvent(queryParser, parsedSqlNode, queryCtx, "Parsed query");
@@ -127,7 +127,12 @@ public class CalciteOptimizer implements CompilerStep {
     // is to merge all adjacent joins into one big "multijoin"
     // RelNode (the JOIN_TO_MULTIJOIN rule). Then the
     // MULTI_JOIN_OPTIMIZE rule is used to determine the join
-    // ordering.
+    // ordering. The ordering is cost based: the rule uses the
+    // row count, selectivity and distinct row count metadata
+    // which the ImpalaRelMetadataProvider derives from the table
+    // and column stats, and it places the smaller input on the
+    // build (right) side of each join. There is no separate
+    // cost-based (Volcano) phase that explores join orders.
     builder.addMatchOrder(HepMatchOrder.BOTTOM_UP);
     builder.addRuleInstance(CoreRules.JOIN_CONDITION_PUSH);
     builder.addRuleInstance(CoreRules.JOIN_TO_MULTI_JOIN);
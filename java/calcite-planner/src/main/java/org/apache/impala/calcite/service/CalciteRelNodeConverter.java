@@ -40,6 +40,7 @@ import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql2rel.RelDecorrelator;
 import org.apache.calcite.sql2rel.SqlToRelConverter;
 import org.apache.impala.calcite.operators.ImpalaConvertletTable;
+import org.apache.impala.calcite.rel.metadata.ImpalaRelMetadataProvider;
 import org.apache.calcite.sql2rel.StandardConvertletTable;
 import org.apache.calcite.tools.RelBuilder;
 
@@ -71,6 +72,9 @@ public class CalciteRelNodeConverter implements CompilerStep {
     planner_.addRelTraitDef(ConventionTraitDef.INSTANCE);
     cluster_ =
         RelOptCluster.create(planner_, new RexBuilder(validator_.getTypeFactory()));
+    // Use the Impala table and column stats for row count, selectivity and distinct
+    // value estimates. The join ordering rules rely on these.
+    cluster_.setMetadataQuerySupplier(ImpalaRelMetadataProvider::createMetadataQuery);
   }
 
   public RelNode convert(SqlNode validatedNode) {
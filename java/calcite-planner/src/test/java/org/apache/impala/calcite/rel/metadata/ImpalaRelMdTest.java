@@ -0,0 +1,198 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.impala.calcite.rel.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.plan.ConventionTraitDef;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.volcano.VolcanoPlanner;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.rel.logical.LogicalTableScan;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.util.ImmutableBitSet;
+import org.apache.impala.analysis.Expr;
+import org.apache.impala.analysis.TableName;
+import org.apache.impala.calcite.schema.CalciteTable;
+import org.apache.impala.calcite.type.ImpalaTypeSystemImpl;
+import org.apache.impala.catalog.Column;
+import org.apache.impala.catalog.HdfsTable;
+import org.apache.impala.catalog.Type;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Tests the row count, selectivity and distinct row count estimates of the Impala
+ * metadata handlers, using tables with hand-crafted stats. The cluster is set up the
+ * way CalciteRelNodeConverter sets it up.
+ */
+public class ImpalaRelMdTest {
+  private static final double DELTA = 1e-9;
+
+  private RelOptCluster cluster_;
+  private RexBuilder rexBuilder_;
+  private RelMetadataQuery mq_;
+
+  // t1: 1000 rows, a: 99 distinct values, b: 9 distinct values and 50 nulls.
+  private RelNode t1_;
+  // t2: 20 rows, c: 20 distinct values.
+  private RelNode t2_;
+  // t3: no stats, d.
+  private RelNode t3_;
+  // t4: 100 rows, e: 10 distinct values.
+  private RelNode t4_;
+
+  @Before
+  public void setUp() throws Exception {
+    rexBuilder_ =
+        new RexBuilder(new JavaTypeFactoryImpl(new ImpalaTypeSystemImpl()));
+    VolcanoPlanner planner = new VolcanoPlanner();
+    planner.addRelTraitDef(ConventionTraitDef.INSTANCE);
+    cluster_ = RelOptCluster.create(planner, rexBuilder_);
+    cluster_.setMetadataQuerySupplier(ImpalaRelMetadataProvider::createMetadataQuery);
+    mq_ = cluster_.getMetadataQuery();
+
+    Column a = new Column("a", Type.INT, 0);
+    a.getStats().setNumDistinctValues(99);
+    Column b = new Column("b", Type.INT, 1);
+    b.getStats().setNumDistinctValues(9);
+    b.getStats().setNumNulls(50);
+    t1_ = createScan("t1", 1000, ImmutableList.of(a, b));
+
+    Column c = new Column("c", Type.INT, 0);
+    c.getStats().setNumDistinctValues(20);
+    t2_ = createScan("t2", 20, ImmutableList.of(c));
+
+    t3_ = createScan("t3", -1, ImmutableList.of(new Column("d", Type.INT, 0)));
+
+    Column e = new Column("e", Type.INT, 0);
+    e.getStats().setNumDistinctValues(10);
+    t4_ = createScan("t4", 100, ImmutableList.of(e));
+  }
+
+  private RelNode createScan(String name, long numRows, List<Column> columns)
+      throws Exception {
+    HdfsTable table = mock(HdfsTable.class);
+    when(table.getName()).thenReturn(name);
+    when(table.getTableName()).thenReturn(new TableName("db", name));
+    when(table.getColumnsInHiveOrder()).thenReturn(columns);
+    when(table.getNumRows()).thenReturn(numRows);
+    return LogicalTableScan.create(
+        cluster_, new CalciteTable(table, null), ImmutableList.of());
+  }
+
+  private RexNode equalsLiteral(RelNode rel, int column, int value) {
+    return rexBuilder_.makeCall(SqlStdOperatorTable.EQUALS,
+        rexBuilder_.makeInputRef(rel, column),
+        rexBuilder_.makeExactLiteral(BigDecimal.valueOf(value)));
+  }
+
+  private RexNode isNull(RelNode rel, int column) {
+    return rexBuilder_.makeCall(SqlStdOperatorTable.IS_NULL,
+        rexBuilder_.makeInputRef(rel, column));
+  }
+
+  @Test
+  public void testScanRowCount() {
+    assertEquals(1000.0, mq_.getRowCount(t1_), DELTA);
+    assertEquals(20.0, mq_.getRowCount(t2_), DELTA);
+  }
+
+  @Test
+  public void testSelectivity() {
+    // column = constant: 1 / NDV
+    assertEquals(1.0 / 99, mq_.getSelectivity(t1_, equalsLiteral(t1_, 0, 5)), DELTA);
+    // IS NULL: null count / row count
+    assertEquals(0.05, mq_.getSelectivity(t1_, isNull(t1_, 1)), DELTA);
+    // IN list: number of values / NDV
+    RexNode in = rexBuilder_.makeIn(rexBuilder_.makeInputRef(t1_, 1),
+        ImmutableList.of(rexBuilder_.makeExactLiteral(BigDecimal.ONE),
+            rexBuilder_.makeExactLiteral(BigDecimal.valueOf(2)),
+            rexBuilder_.makeExactLiteral(BigDecimal.valueOf(3))));
+    assertEquals(3.0 / 9, mq_.getSelectivity(t1_, in), DELTA);
+    // Conjuncts are combined with exponential backoff.
+    RexNode and = rexBuilder_.makeCall(SqlStdOperatorTable.AND,
+        equalsLiteral(t1_, 0, 5), isNull(t1_, 1));
+    assertEquals(1.0 / 99 * Math.sqrt(0.05), mq_.getSelectivity(t1_, and), DELTA);
+    // No column stats.
+    assertEquals(Expr.DEFAULT_SELECTIVITY,
+        mq_.getSelectivity(t3_, equalsLiteral(t3_, 0, 5)), DELTA);
+  }
+
+  @Test
+  public void testFilterRowCount() {
+    RelNode filter = LogicalFilter.create(t1_, isNull(t1_, 1));
+    assertEquals(50.0, mq_.getRowCount(filter), DELTA);
+  }
+
+  @Test
+  public void testDistinctRowCount() {
+    // Like in the Impala planner, NULL is not counted as a distinct value.
+    assertEquals(99.0, mq_.getDistinctRowCount(t1_, ImmutableBitSet.of(0), null),
+        DELTA);
+    // The product of the NDVs is capped at the row count.
+    assertEquals(1000.0,
+        mq_.getDistinctRowCount(t1_, ImmutableBitSet.of(0, 1), null), DELTA);
+    assertEquals(20.0, mq_.getDistinctRowCount(t2_, ImmutableBitSet.of(0), null),
+        DELTA);
+  }
+
+  /**
+   * Returns the inner join of 'lhs' and 'rhs' on their first columns.
+   */
+  private RelNode createJoin(RelNode lhs, RelNode rhs) {
+    int rhsColumn = lhs.getRowType().getFieldCount();
+    RexNode condition = rexBuilder_.makeCall(SqlStdOperatorTable.EQUALS,
+        rexBuilder_.makeInputRef(lhs.getRowType().getFieldList().get(0).getType(), 0),
+        rexBuilder_.makeInputRef(
+            rhs.getRowType().getFieldList().get(0).getType(), rhsColumn));
+    return LogicalJoin.create(lhs, rhs, ImmutableList.of(), condition,
+        ImmutableSet.of(), JoinRelType.INNER);
+  }
+
+  /**
+   * The join estimates match JoinNode.getJoinCardinality().
+   */
+  @Test
+  public void testJoinRowCount() {
+    // t1.a = t4.e: N:M join, |t1| * |t4| / max(NDV(a), NDV(e)) = 1000 * 100 / 99
+    assertEquals(1010.0, mq_.getRowCount(createJoin(t1_, t4_)), DELTA);
+    // t1.a = t2.c: NDV(c) equals |t2|, so c may be a primary key. FK/PK join,
+    // ceil(|t1| * (|t2| / numRows(t2)) * (NDV(c) / NDV(a))) = ceil(1000 * 20 / 99)
+    assertEquals(203.0, mq_.getRowCount(createJoin(t1_, t2_)), DELTA);
+    // The selectivity of a filter on the PK side carries over to the join.
+    RelNode filter = LogicalFilter.create(t2_, equalsLiteral(t2_, 0, 5));
+    assertEquals(11.0, mq_.getRowCount(createJoin(t1_, filter)), DELTA);
+    // No stats for t3.d: FK/PK with a join selectivity of 1.
+    assertEquals(1000.0, mq_.getRowCount(createJoin(t1_, t3_)), DELTA);
+  }
+}
@@ -18,18 +18,31 @@
 package org.apache.impala.hooks;
 
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * {@link QueryCompleteContext} encapsulates immutable information sent from the
  * BE to a post-query hook.
  */
 public class QueryCompleteContext {
-  private final String lineageGraph_;
+  // Builds the lineage graph if it was not passed to the constructor. Cleared once
+  // the graph is built.
+  private Supplier<String> lineageGraphSupplier_;
+  private String lineageGraph_;
 
   public QueryCompleteContext(String lineageGraph) {
     lineageGraph_ = Objects.requireNonNull(lineageGraph);
   }
 
+  /**
+   * Creates a context whose lineage graph is built by 'lineageGraphSupplier' the first
+   * time it is requested, so that the cost of building it is paid by the thread
+   * running the hooks rather than by the thread that completed the query.
+   */
+  public QueryCompleteContext(Supplier<String> lineageGraphSupplier) {
+    lineageGraphSupplier_ = Objects.requireNonNull(lineageGraphSupplier);
+  }
+
   /**
    * Returns the lineage graph sent from the backend during
    * {@link QueryEventHook#onQueryComplete(QueryCompleteContext)}.  This graph
@@ -45,12 +58,18 @@ public class QueryCompleteContext {
    *
    * @return lineage graph from the query that executed
    */
-  public String getLineageGraph() { return lineageGraph_; }
+  public synchronized String getLineageGraph() {
+    if (lineageGraph_ == null) {
+      lineageGraph_ = Objects.requireNonNull(lineageGraphSupplier_.get());
+      lineageGraphSupplier_ = null;
+    }
+    return lineageGraph_;
+  }
 
   @Override
   public String toString() {
     return "QueryCompleteContext{" +
-        "lineageGraph='" + lineageGraph_ + '\'' +
+        "lineageGraph='" + getLineageGraph() + '\'' +
         '}';
   }
 }
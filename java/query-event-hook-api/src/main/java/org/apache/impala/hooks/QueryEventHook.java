@@ -17,6 +17,8 @@
  */
 package org.apache.impala.hooks;
 
+import java.util.List;
+
 /**
  * {@link QueryEventHook} is the interface for implementations that
  * can hook into supported events in Impala query execution.
@@ -97,6 +99,14 @@ public interface QueryEventHook {
    * less than the number of hooks, then 1 hook may effectively block others from
    * executing.
    *
+   * <h4>Each Hook Has a Bounded Queue</h4>
+   *
+   * Completed queries are queued for each hook and a hook is only invoked by one
+   * thread at a time.  The queue holds at most {@code query_event_hook_queue_size}
+   * queries.  If a hook falls behind and its queue is full, then depending on
+   * {@code query_event_hook_queue_full_policy} the hook is skipped for the query
+   * (DROP) or the query waits until there is space in the queue (BLOCK).
+   *
    * <h4>Hook Exceptions are non-fatal</h4>
    *
    * Any exception thrown from this hook method will be logged and ignored.  Therefore,
@@ -113,4 +123,27 @@ public interface QueryEventHook {
    *                of the query
    */
   void onQueryComplete(QueryCompleteContext context);
+
+  /**
+   * Returns the maximum number of completed queries that are passed to
+   * {@link #onQueriesComplete(List)} at once.  If this returns 1, which is the
+   * default, then {@link #onQueryComplete(QueryCompleteContext)} is invoked for each
+   * query instead.  Hooks that write to a remote sink can return a larger number
+   * to send the queries that queued up while the previous invocation ran in one
+   * request.
+   */
+  default int getMaxBatchSize() { return 1; }
+
+  /**
+   * Hook method invoked asynchronously with up to {@link #getMaxBatchSize()} queries
+   * that have executed, in the order in which they completed.  The same guarantees
+   * as for {@link #onQueryComplete(QueryCompleteContext)} apply.  The default
+   * implementation invokes {@link #onQueryComplete(QueryCompleteContext)} for each
+   * query.
+   *
+   * @param contexts objects containing the post execution context of the queries
+   */
+  default void onQueriesComplete(List<QueryCompleteContext> contexts) {
+    for (QueryCompleteContext context : contexts) onQueryComplete(context);
+  }
 }
@@ -183,6 +183,52 @@ class TestLineage(CustomClusterTestSuite):
           lineage_json = json.load(log_file)
           assert lineage_json["queryId"] is not profile_query_id
 
+  LINEAGE_HOOK = "org.apache.impala.testutil.LineageLoggingQueryEventHook"
+
+  @pytest.mark.execute_serially
+  @CustomClusterTestSuite.with_args(
+      impalad_args="--query_event_hook_classes=" + LINEAGE_HOOK,
+      disable_log_buffering=True)
+  def test_deferred_lineage_json(self, unique_database):
+    """Test that the lineage records that the frontend builds with --defer_lineage_json
+    are byte for byte the same as the ones built by the backend. Only the query id and
+    the start and end times differ between the two runs of a query."""
+    self.execute_query_expect_success(self.client,
+        "create table {0}.t (a int, b bigint, c string)".format(unique_database))
+    queries = [
+        # A view that is referenced by many columns.
+        "select v.int_col a, v.int_col + v.bigint_col b, v.bigint_col * 2 c,\n"
+        "  v.int_col - v.bigint_col d\nfrom functional.alltypes_view v\n"
+        "where v.int_col > v.bigint_col and v.int_col < 100",
+        "select sum(a.tinyint_col) over (partition by a.smallint_col order by a.id), "
+        "count(b.string_col), b.timestamp_col from functional.alltypes a "
+        "join functional.alltypessmall b on (a.id = b.id) where a.year = 2010 "
+        "group by a.tinyint_col, a.smallint_col, a.id, b.string_col, b.timestamp_col",
+        "insert into {0}.t select int_col, bigint_col, concat(string_col, '\"\\\\') "
+        "from functional.alltypestiny".format(unique_database)]
+    backend_records = [self.__get_hook_lineage_record(q) for q in queries]
+
+    self._start_impala_cluster(["--impalad_args=--query_event_hook_classes={0} "
+        "--defer_lineage_json=true -logbuflevel=-1".format(self.LINEAGE_HOOK)])
+    self.client = self.create_impala_client()
+    frontend_records = [self.__get_hook_lineage_record(q) for q in queries]
+    assert backend_records == frontend_records
+
+  def __get_hook_lineage_record(self, query):
+    """Runs 'query' and returns the lineage record that LINEAGE_HOOK logged for it, with
+    the query id and the start and end times removed."""
+    result = self.execute_query_expect_success(self.client, query)
+    query_id = re.search(r"Query \(id=(.*)\):", result.runtime_profile).group(1)
+    match = self.assert_impalad_log_contains("INFO",
+        r"{0}.onQueryComplete: (.*\"queryId\":\"{1}\".*)$".format(
+            re.escape(self.LINEAGE_HOOK), re.escape(query_id)))
+    record, count = re.subn(r'"queryId":"[0-9a-f]{16}:[0-9a-f]{16}"', '"queryId":""',
+        match.group(1))
+    assert count == 1
+    record, count = re.subn(r'"(timestamp|endTime)":[0-9]+', r'"\1":0', record)
+    assert count == 2
+    return record
+
   @SkipIfFS.hbase
   @pytest.mark.execute_serially
   @CustomClusterTestSuite.with_args(
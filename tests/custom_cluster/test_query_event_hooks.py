@@ -51,6 +51,12 @@ class TestHooks(CustomClusterTestSuite):
     # onQueryComplete() is invoked by the lineage logger.
     self.assert_impalad_log_contains("INFO",
         "{0}.onQueryComplete".format(self.DUMMY_HOOK), expected_count=-1)
+    # The metrics of the hook are shown on the debug web UI.
+    metrics = self.cluster.impalads[0].service.get_debug_webpage_json(
+        "query_event_hooks")["query_event_hook_metrics"]
+    prefix = "query-event-hook-0-{0}-".format(self.DUMMY_HOOK)
+    for metric in ["dropped: 0", "latency:", "queue-depth:"]:
+      assert prefix + metric in metrics, metrics
 
 
 class TestHooksStartupFail(CustomClusterTestSuite):
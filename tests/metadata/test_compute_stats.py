@@ -440,6 +440,46 @@ class TestParquetComputeColumnMinMax(ImpalaTestSuite):
     self.run_test_case('QueryTest/compute-stats-column-minmax', vector, unique_database)
 
 
+class TestComputeColumnHistograms(ImpalaTestSuite):
+  HISTOGRAM_PREFIX = 'impala.columnHistogram.'
+
+  @classmethod
+  def get_workload(self):
+    return 'functional-query'
+
+  @classmethod
+  def add_test_dimensions(cls):
+    super(TestComputeColumnHistograms, cls).add_test_dimensions()
+    cls.ImpalaTestMatrix.add_dimension(create_single_exec_option_dimension())
+    cls.ImpalaTestMatrix.add_constraint(
+        lambda v: v.get_value('table_format').file_format == 'text'
+        and v.get_value('table_format').compression_codec == 'none')
+
+  def __get_histogram_cols(self, db, tbl):
+    params = self.hive_client.get_table(db, tbl).parameters
+    return sorted(k[len(self.HISTOGRAM_PREFIX):] for k in params
+                  if k.startswith(self.HISTOGRAM_PREFIX))
+
+  def test_alter_columns(self, unique_database):
+    """Histograms stored in the table properties follow the columns through ALTER
+    TABLE: they are renamed with the column and dropped together with it or when its
+    type changes."""
+    tbl = unique_database + ".tbl"
+    self.execute_query("create table {} as select id, int_col, bigint_col, "
+                       "double_col from functional.alltypes".format(tbl))
+    self.execute_query("compute stats " + tbl,
+                       {'compute_column_histograms': True})
+    assert self.__get_histogram_cols(unique_database, "tbl") == \
+        ['bigint_col', 'double_col', 'id', 'int_col']
+    self.execute_query("alter table {} change int_col i int".format(tbl))
+    self.execute_query("alter table {} change bigint_col bigint_col string"
+                       .format(tbl))
+    self.execute_query("alter table {} drop column double_col".format(tbl))
+    assert self.__get_histogram_cols(unique_database, "tbl") == ['i', 'id']
+    self.execute_query("alter table {} replace columns (id int, j int)".format(tbl))
+    assert self.__get_histogram_cols(unique_database, "tbl") == ['id']
+
+
 class TestInvalidStatsFromHms(ImpalaTestSuite):
   @classmethod
   def get_workload(self):